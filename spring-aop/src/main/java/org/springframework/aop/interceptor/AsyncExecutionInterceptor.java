@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -148,7 +148,8 @@ public class AsyncExecutionInterceptor extends AsyncExecutionAspectSupport imple
 	 * bean in the context, or for an {@link Executor} bean named "taskExecutor" otherwise.
 	 * If neither of the two is resolvable (e.g. if no {@code BeanFactory} was configured at all),
 	 * this implementation falls back to a newly created {@link SimpleAsyncTaskExecutor} instance
-	 * for local use if no default could be found.
+	 * for local use if no default could be found. For virtual threads on JDK 21+,
+	 * declare a {@link org.springframework.core.task.VirtualThreadTaskExecutor} bean.
 	 * @see #DEFAULT_TASK_EXECUTOR_BEAN_NAME
 	 */
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,19 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
 import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.CoalescingValueLoader;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -29,6 +36,11 @@ import org.springframework.util.Assert;
  * Spring {@link org.springframework.cache.Cache} adapter implementation
  * on top of a Caffeine {@link com.github.benmanes.caffeine.cache.Cache} instance.
  *
+ * <p>Supports the {@link #retrieve(Object)} and {@link #retrieve(Object, Supplier)}
+ * operations natively when built on top of a Caffeine {@link AsyncCache}, coalescing
+ * concurrent loads of the same key into a single load. With a regular Caffeine cache,
+ * those operations coalesce concurrent asynchronous loads on the Spring side.
+ *
  * <p>Requires Caffeine 2.1 or higher.
  *
  * @author Ben Manes
@@ -43,6 +55,12 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 
 	private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
 
+	@Nullable
+	private final AsyncCache<Object, Object> asyncCache;
+
+	@Nullable
+	private final CoalescingValueLoader valueLoads;
+
 
 	/**
 	 * Create a {@link CaffeineCache} instance with the specified name and the
@@ -70,6 +88,29 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		Assert.notNull(cache, "Cache must not be null");
 		this.name = name;
 		this.cache = cache;
+		this.asyncCache = null;
+		this.valueLoads = new CoalescingValueLoader();
+	}
+
+	/**
+	 * Create a {@link CaffeineCache} instance with the specified name and the
+	 * given internal {@link AsyncCache} to use, exposing its synchronous view
+	 * for the regular cache operations and using the native asynchronous API
+	 * for {@link #retrieve(Object)} and {@link #retrieve(Object, Supplier)}.
+	 * @param name the name of the cache
+	 * @param cache the backing Caffeine AsyncCache instance
+	 * @param allowNullValues whether to accept and convert {@code null}
+	 * values for this cache
+	 * @since 6.0
+	 */
+	public CaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues) {
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.notNull(cache, "Cache must not be null");
+		this.name = name;
+		this.cache = cache.synchronous();
+		this.asyncCache = cache;
+		this.valueLoads = null;
 	}
 
 
@@ -83,6 +124,16 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return this.cache;
 	}
 
+	/**
+	 * Return the underlying Caffeine {@link AsyncCache}, if any.
+	 * @since 6.0
+	 * @see #CaffeineCache(String, AsyncCache, boolean)
+	 */
+	@Nullable
+	public final AsyncCache<Object, Object> getAsyncCache() {
+		return this.asyncCache;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	@Nullable
@@ -90,6 +141,47 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return (T) fromStoreValue(this.cache.get(key, new LoadFunction(valueLoader)));
 	}
 
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(Object key) {
+		if (this.asyncCache != null) {
+			CompletableFuture<Object> result = this.asyncCache.getIfPresent(key);
+			return (result != null ? result.thenApply(this::fromStoreValue) : null);
+		}
+		Object storeValue = lookup(key);
+		return (storeValue != null ? CompletableFuture.completedFuture(fromStoreValue(storeValue)) : null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		if (this.asyncCache != null) {
+			return (CompletableFuture<T>) this.asyncCache.get(key, (k, executor) ->
+					valueLoader.get().thenApply(value ->
+							(value != null || isAllowNullValues() ? toStoreValue(value) : null)))
+					.thenApply(this::fromStoreValue);
+		}
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture((T) fromStoreValue(storeValue));
+		}
+		Assert.state(this.valueLoads != null, "No CoalescingValueLoader");
+		return this.valueLoads.loadAsync(key, () -> {
+			Object existing = this.cache.getIfPresent(key);
+			if (existing != null) {
+				return CompletableFuture.completedFuture(existing);
+			}
+			return valueLoader.get().thenApply(value -> {
+				if (value == null && !isAllowNullValues()) {
+					return null;  // nothing to cache, e.g. for an empty Mono
+				}
+				Object newValue = toStoreValue(value);
+				this.cache.put(key, newValue);
+				return newValue;
+			});
+		}).thenApply(value -> (T) fromStoreValue(value));
+	}
+
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
@@ -99,11 +191,27 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return this.cache.getIfPresent(key);
 	}
 
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> storeValues = (this.cache instanceof LoadingCache<Object, Object> loadingCache ?
+				loadingCache.getAll(keys) : this.cache.getAllPresent(keys));
+		Map<Object, Object> result = new LinkedHashMap<>(storeValues.size());
+		storeValues.forEach((key, storeValue) -> result.put(key, fromStoreValue(storeValue)));
+		return result;
+	}
+
 	@Override
 	public void put(Object key, @Nullable Object value) {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(entries.size());
+		entries.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		this.cache.putAll(storeValues);
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable final Object value) {
@@ -117,6 +225,11 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		this.cache.invalidate(key);
 	}
 
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.invalidateAll(keys);
+	}
+
 	@Override
 	public boolean evictIfPresent(Object key) {
 		return (this.cache.asMap().remove(key) != null);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,14 @@
 
 package org.springframework.cache.jcache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import javax.cache.Cache;
 import javax.cache.processor.EntryProcessor;
@@ -24,6 +31,7 @@ import javax.cache.processor.EntryProcessorException;
 import javax.cache.processor.MutableEntry;
 
 import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.CoalescingValueLoader;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -33,6 +41,10 @@ import org.springframework.util.Assert;
  *
  * <p>Note: This class has been updated for JCache 1.0, as of Spring 4.0.
  *
+ * <p>As of 6.0, {@link #retrieve(Object, Supplier)} coalesces concurrent
+ * asynchronous loads of the same key within this cache instance, since
+ * JCache itself does not provide an asynchronous loading API.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 3.2
@@ -42,6 +54,8 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 
 	private final Cache<Object, Object> cache;
 
+	private final CoalescingValueLoader valueLoads = new CoalescingValueLoader();
+
 
 	/**
 	 * Create a {@code JCacheCache} instance.
@@ -90,11 +104,61 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		}
 	}
 
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(Object key) {
+		Object storeValue = this.cache.get(key);
+		return (storeValue != null ? CompletableFuture.completedFuture(fromStoreValue(storeValue)) : null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		Object storeValue = this.cache.get(key);
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture((T) fromStoreValue(storeValue));
+		}
+		return this.valueLoads.loadAsync(key, () -> {
+			Object existing = this.cache.get(key);
+			if (existing != null) {
+				return CompletableFuture.completedFuture(existing);
+			}
+			return valueLoader.get().thenApply(value -> {
+				if (value == null && !isAllowNullValues()) {
+					return null;  // nothing to cache, e.g. for an empty Mono
+				}
+				Object newValue = toStoreValue(value);
+				this.cache.put(key, newValue);
+				return newValue;
+			});
+		}).thenApply(value -> (T) fromStoreValue(value));
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> storeValues = this.cache.getAll(asSet(keys));
+		Map<Object, Object> result = new LinkedHashMap<>(storeValues.size());
+		for (Object key : keys) {
+			Object storeValue = storeValues.get(key);
+			if (storeValue != null) {
+				result.put(key, fromStoreValue(storeValue));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(Object key, @Nullable Object value) {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(entries.size());
+		entries.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		this.cache.putAll(storeValues);
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
@@ -107,6 +171,11 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		this.cache.remove(key);
 	}
 
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.removeAll(asSet(keys));
+	}
+
 	@Override
 	public boolean evictIfPresent(Object key) {
 		return this.cache.remove(key);
@@ -124,6 +193,10 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		return notEmpty;
 	}
 
+	private static Set<Object> asSet(Collection<?> keys) {
+		return new LinkedHashSet<>(keys);
+	}
+
 
 	private class ValueLoaderEntryProcessor<T> implements EntryProcessor<Object, Object, T> {
 
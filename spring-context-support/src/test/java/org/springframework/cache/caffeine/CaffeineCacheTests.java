@@ -16,6 +16,9 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -111,4 +114,47 @@ class CaffeineCacheTests extends AbstractValueAdaptingCacheTests<CaffeineCache>
 		assertThat(cache.get(key).get()).isEqualTo(value);
 	}
 
+	@Test
+	void testRetrieveWithAsyncCache() throws Exception {
+		CaffeineCache asyncCache = new CaffeineCache(CACHE_NAME, Caffeine.newBuilder().buildAsync(), true);
+		assertThat(asyncCache.getAsyncCache()).isNotNull();
+
+		Object key = new Object();
+		assertThat(asyncCache.retrieve(key)).isNull();
+		AtomicInteger invocations = new AtomicInteger();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		CompletableFuture<String> first = asyncCache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return load;
+		});
+		CompletableFuture<String> second = asyncCache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		load.complete("value");
+		assertThat(first.get()).isEqualTo("value");
+		assertThat(second.get()).isEqualTo("value");
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(asyncCache.retrieve(key).get()).isEqualTo("value");
+		assertThat(asyncCache.get(key).get()).isEqualTo("value");
+	}
+
+	@Test
+	void testRetrieveWithNullValueInAsyncCache() throws Exception {
+		CaffeineCache asyncCache = new CaffeineCache(CACHE_NAME, Caffeine.newBuilder().buildAsync(), true);
+		Object key = new Object();
+		assertThat(asyncCache.retrieve(key, () -> CompletableFuture.completedFuture(null)).get()).isNull();
+		assertThat(asyncCache.retrieve(key).get()).isNull();
+		assertThat(asyncCache.get(key)).isNotNull();
+	}
+
+	@Test
+	void testRetrieveWithRegularCache() throws Exception {
+		CaffeineCache cache = getCache();
+		Object key = new Object();
+		assertThat(cache.retrieve(key)).isNull();
+		assertThat(cache.retrieve(key, () -> CompletableFuture.completedFuture("value")).get()).isEqualTo("value");
+		assertThat(cache.retrieve(key).get()).isEqualTo("value");
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.jcache;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
@@ -24,9 +27,13 @@ import javax.cache.spi.CachingProvider;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheTests;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
 /**
  * @author Stephane Nicoll
  */
@@ -79,4 +86,59 @@ public class JCacheEhCacheApiTests extends AbstractValueAdaptingCacheTests<JCach
 		return this.nativeCache;
 	}
 
+
+	@Test
+	public void retrieve() throws Exception {
+		String key = createRandomKey();
+		assertThat(this.cache.retrieve(key)).isNull();
+		this.cache.put(key, "value");
+		assertThat(this.cache.retrieve(key).get()).isEqualTo("value");
+		this.cache.put(key, null);
+		assertThat(this.cache.retrieve(key).get()).isNull();
+	}
+
+	@Test
+	public void retrieveWithLoaderCoalescesConcurrentLoads() throws Exception {
+		String key = createRandomKey();
+		AtomicInteger invocations = new AtomicInteger();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		CompletableFuture<String> first = this.cache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return load;
+		});
+		CompletableFuture<String> second = this.cache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		assertThat(second).isNotDone();
+		load.complete("value");
+		assertThat(first.get()).isEqualTo("value");
+		assertThat(second.get()).isEqualTo("value");
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(this.nativeCache.get(key)).isEqualTo("value");
+		assertThat(this.cache.retrieve(key, () -> CompletableFuture.completedFuture("other")).get())
+				.isEqualTo("value");
+	}
+
+	@Test
+	public void retrieveWithFailingLoader() {
+		String key = createRandomKey();
+		CompletableFuture<String> result = this.cache.retrieve(key,
+				() -> CompletableFuture.failedFuture(new IllegalStateException("expected")));
+		assertThatExceptionOfType(Exception.class).isThrownBy(result::get)
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.nativeCache.containsKey(key)).isFalse();
+	}
+
+	@Test
+	public void retrieveWithNullValue() throws Exception {
+		String key = createRandomKey();
+		assertThat(this.cache.retrieve(key, () -> CompletableFuture.completedFuture(null)).get()).isNull();
+		assertThat(this.cache.get(key)).isNotNull();
+		assertThat(this.cache.get(key).get()).isNull();
+
+		assertThat(this.cacheNoNull.retrieve(key, () -> CompletableFuture.completedFuture(null)).get()).isNull();
+		assertThat(this.cacheNoNull.get(key)).isNull();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.Cache;
@@ -87,6 +90,23 @@ public class TransactionAwareCacheDecoratorTests {
 		assertThat(target.get(key, String.class)).isEqualTo("123");
 	}
 
+	@Test
+	public void putAllTransactional() {
+		Cache target = new ConcurrentMapCache("testCache");
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		Object key1 = new Object();
+		Object key2 = new Object();
+
+		txTemplate.executeWithoutResult(s -> {
+			cache.putAll(Map.of(key1, "123", key2, "456"));
+			assertThat(target.get(key1)).isNull();
+			assertThat(target.get(key2)).isNull();
+		});
+
+		assertThat(target.get(key1, String.class)).isEqualTo("123");
+		assertThat(target.get(key2, String.class)).isEqualTo("456");
+	}
+
 	@Test
 	public void putIfAbsentNonTransactional() {
 		Cache target = new ConcurrentMapCache("testCache");
@@ -143,6 +163,24 @@ public class TransactionAwareCacheDecoratorTests {
 		assertThat(target.get(key)).isNull();
 	}
 
+	@Test
+	public void evictAllTransactional() {
+		Cache target = new ConcurrentMapCache("testCache");
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		Object key1 = new Object();
+		Object key2 = new Object();
+		cache.put(key1, "123");
+		cache.put(key2, "456");
+
+		txTemplate.executeWithoutResult(s -> {
+			cache.evictAll(List.of(key1, key2));
+			assertThat(target.get(key1, String.class)).isEqualTo("123");
+		});
+
+		assertThat(target.get(key1)).isNull();
+		assertThat(target.get(key2)).isNull();
+	}
+
 	@Test
 	public void evictIfPresentNonTransactional() {
 		Cache target = new ConcurrentMapCache("testCache");
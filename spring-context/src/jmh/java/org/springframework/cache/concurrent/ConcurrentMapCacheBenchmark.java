@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Benchmark for {@link ConcurrentMapCache} lookups and loads with an unbounded
+ * {@code ConcurrentHashMap} store versus a {@link BoundedConcurrentMap} store,
+ * with a key space larger than the bound in order to trigger evictions.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class ConcurrentMapCacheBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"unbounded", "bounded", "bounded-ttl", "bounded-stats"})
+		public String store;
+
+		@Param({"10000"})
+		public int maximumSize;
+
+		@Param({"20000"})
+		public int keySpace;
+
+		public Cache cache;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("benchmark");
+			if (!this.store.equals("unbounded")) {
+				cacheManager.setMaximumSize(this.maximumSize);
+			}
+			if (this.store.equals("bounded-ttl")) {
+				cacheManager.setTimeToLive(Duration.ofMinutes(10));
+			}
+			if (this.store.equals("bounded-stats")) {
+				cacheManager.setRecordStatistics(true);
+			}
+			this.cache = cacheManager.getCache("benchmark");
+			for (int i = 0; i < this.keySpace; i++) {
+				this.cache.put(i, "value" + i);
+			}
+		}
+
+		int nextKey() {
+			return ThreadLocalRandom.current().nextInt(this.keySpace);
+		}
+	}
+
+	@Benchmark
+	public Object get(BenchmarkState state) {
+		return state.cache.get(state.nextKey());
+	}
+
+	@Benchmark
+	public Object getWithValueLoader(BenchmarkState state) {
+		int key = state.nextKey();
+		return state.cache.get(key, () -> "value" + key);
+	}
+
+	@Benchmark
+	public void put(BenchmarkState state) {
+		int key = state.nextKey();
+		state.cache.put(key, "value" + key);
+	}
+
+}
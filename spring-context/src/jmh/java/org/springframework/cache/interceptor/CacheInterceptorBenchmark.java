@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Benchmark for cache hits through a proxied bean with {@code @Cacheable} methods,
+ * measuring the per-invocation overhead of the caching interceptor.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class CacheInterceptorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public AnnotationConfigApplicationContext context;
+
+		public CachedService service;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+			this.service = this.context.getBean(CachedService.class);
+			// Populate the caches
+			this.service.defaultKey(42L);
+			this.service.argumentKey(42L);
+			this.service.expressionKey(42L);
+			this.service.compositeKey(42L, "test");
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.context.close();
+		}
+	}
+
+	@Benchmark
+	public Object defaultKey(BenchmarkState state) {
+		return state.service.defaultKey(42L);
+	}
+
+	@Benchmark
+	public Object argumentKey(BenchmarkState state) {
+		return state.service.argumentKey(42L);
+	}
+
+	@Benchmark
+	public Object expressionKey(BenchmarkState state) {
+		return state.service.expressionKey(42L);
+	}
+
+	@Benchmark
+	public Object compositeKey(BenchmarkState state) {
+		return state.service.compositeKey(42L, "test");
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class BenchmarkConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public CachedService cachedService() {
+			return new CachedService();
+		}
+	}
+
+
+	public static class CachedService {
+
+		@Cacheable("default")
+		public String defaultKey(long id) {
+			return "value" + id;
+		}
+
+		@Cacheable(cacheNames = "argument", key = "#id")
+		public String argumentKey(long id) {
+			return "value" + id;
+		}
+
+		@Cacheable(cacheNames = "expression", key = "#id + 1")
+		public String expressionKey(long id) {
+			return "value" + id;
+		}
+
+		@Cacheable("composite")
+		public String compositeKey(long id, String name) {
+			return name + id;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,12 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.springframework.lang.Nullable;
 
@@ -100,6 +105,100 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key,
+	 * wrapped in a {@link CompletableFuture}. This operation must not block
+	 * but is allowed to return a completed {@link CompletableFuture} if the
+	 * corresponding value is immediately available.
+	 * <p>Returns {@code null} if the cache contains no mapping for this key;
+	 * otherwise, the cached value (which may be {@code null} itself) will
+	 * be returned in the {@link CompletableFuture}.
+	 * <p>The default implementation adapts a synchronous {@link #get(Object)}
+	 * call. Cache providers with a non-blocking API are encouraged to override it.
+	 * @param key the key whose associated value is to be returned
+	 * @return the value to which this cache maps the specified key, contained
+	 * within a {@link CompletableFuture} which may also complete with a cached
+	 * {@code null} value. A straight {@code null} being returned means that
+	 * the cache contains no mapping for this key.
+	 * @since 6.0
+	 * @see #retrieve(Object, Supplier)
+	 */
+	@Nullable
+	default CompletableFuture<?> retrieve(Object key) {
+		ValueWrapper wrapper = get(key);
+		return (wrapper != null ? CompletableFuture.completedFuture(wrapper.get()) : null);
+	}
+
+	/**
+	 * Return the value to which this cache maps the specified key, obtaining
+	 * that value from {@code valueLoader} if necessary. This method provides
+	 * a simple substitute for the conventional "if cached, return; otherwise
+	 * create, cache and return" pattern, based on {@link CompletableFuture}.
+	 * This operation must not block.
+	 * <p>If possible, implementations should ensure that the loading operation
+	 * is coalesced so that the specified {@code valueLoader} is only called
+	 * once in case of concurrent access on the same key, with all concurrent
+	 * callers receiving the outcome of that single load.
+	 * <p>If the {@code valueLoader} completes exceptionally (or throws an
+	 * exception), the returned {@link CompletableFuture} completes exceptionally
+	 * with the same exception and no value is registered for the key.
+	 * <p>The default implementation checks {@link #get(Object)} and otherwise
+	 * {@link #put registers} the value once the loader has completed, without
+	 * coalescing of concurrent loads.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the loader for the value, returning a
+	 * {@link CompletableFuture} for the value to be cached
+	 * @return the value to which this cache maps the specified key,
+	 * contained within a {@link CompletableFuture}
+	 * @since 6.0
+	 * @see #retrieve(Object)
+	 * @see #get(Object, Callable)
+	 */
+	default <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		CompletableFuture<?> cached = retrieve(key);
+		if (cached != null) {
+			@SuppressWarnings("unchecked")
+			CompletableFuture<T> result = (CompletableFuture<T>) cached;
+			return result;
+		}
+		CompletableFuture<T> loaded;
+		try {
+			loaded = valueLoader.get();
+		}
+		catch (Throwable ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+		return loaded.thenApply(value -> {
+			put(key, value);
+			return value;
+		});
+	}
+
+	/**
+	 * Return the values to which this cache maps the specified keys.
+	 * <p>The returned map only contains entries for keys that this cache
+	 * contains a mapping for, with the cached value (which may be {@code null}
+	 * itself) as map value. A key without an entry in the returned map
+	 * therefore indicates that the cache contains no mapping for that key.
+	 * <p>The default implementation delegates to {@link #get(Object)} for
+	 * each key. Cache providers with a native bulk operation, in particular
+	 * remote cache stores, are encouraged to override it.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map of the cached values by key (never {@code null})
+	 * @since 6.0
+	 * @see #get(Object)
+	 */
+	default Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper.get());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
@@ -114,6 +213,22 @@ public interface Cache {
 	 */
 	void put(Object key, @Nullable Object value);
 
+	/**
+	 * Associate all of the specified values with their keys in this cache.
+	 * <p>Actual registration may be performed in an asynchronous or deferred
+	 * fashion, as with {@link #put(Object, Object)}.
+	 * <p>The default implementation delegates to {@link #put(Object, Object)}
+	 * for each entry. Cache providers with a native bulk operation, in
+	 * particular remote cache stores, are encouraged to override it.
+	 * @param entries the keys and values to associate, possibly with
+	 * {@code null} values
+	 * @since 6.0
+	 * @see #put(Object, Object)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
 	/**
 	 * Atomically associate the specified value with the specified key in this cache
 	 * if it is not set already.
@@ -161,6 +276,23 @@ public interface Cache {
 	 */
 	void evict(Object key);
 
+	/**
+	 * Evict the mappings for the specified keys from this cache if present.
+	 * <p>Actual eviction may be performed in an asynchronous or deferred
+	 * fashion, as with {@link #evict(Object)}.
+	 * <p>The default implementation delegates to {@link #evict(Object)}
+	 * for each key. Cache providers with a native bulk operation, in
+	 * particular remote cache stores, are encouraged to override it.
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 * @since 6.0
+	 * @see #evict(Object)
+	 */
+	default void evictAll(Collection<?> keys) {
+		for (Object key : keys) {
+			evict(key);
+		}
+	}
+
 	/**
 	 * Evict the mapping for this key from this cache if it is present,
 	 * expecting the key to be immediately invisible for subsequent lookups.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -181,4 +181,30 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * Treat the key as a collection of individual cache keys. The annotated method
+	 * is expected to take a {@link java.util.Collection} of keys (either as its only
+	 * argument or as the argument referenced by {@link #key()}) and to return a
+	 * {@link java.util.Map} from key to value for the requested keys.
+	 * <p>All keys are looked up in a single {@link org.springframework.cache.Cache#getAll}
+	 * call; the method is then invoked once with the collection of missing keys only,
+	 * and the loaded entries are stored through {@link org.springframework.cache.Cache#putAll}.
+	 * The returned map contains cached and loaded entries in the iteration order of
+	 * the requested keys. Batch mode leads to a couple of limitations:
+	 * <ol>
+	 * <li>The key, if specified, must refer to a method argument directly</li>
+	 * <li>{@link #unless()} is evaluated against each individual value</li>
+	 * <li>Only one cache may be specified</li>
+	 * <li>No other cache-related operation can be combined, and {@link #sync()}
+	 * is not supported</li>
+	 * </ol>
+	 * Restricting the invocation to the missing keys requires an interceptor that
+	 * passes the actual argument array through, such as the proxy-based
+	 * {@code CacheInterceptor}; other invocation models load all requested keys.
+	 * @since 6.0
+	 * @see org.springframework.cache.Cache#getAll(java.util.Collection)
+	 * @see org.springframework.cache.Cache#putAll(java.util.Map)
+	 */
+	boolean batch() default false;
+
 }
@@ -0,0 +1,552 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A {@link ConcurrentMap} with an upper bound on the total weight of its entries
+ * and an optional time-to-live per entry, for use as a {@link ConcurrentMapCache}
+ * store without any dependency on a third-party cache library.
+ *
+ * <p>Eviction follows the CLOCK algorithm as an approximation of LRU: every read
+ * marks its entry as recently used, and once the maximum weight is exceeded, the
+ * writing thread sweeps through the entries in insertion order, evicting the first
+ * entry which has not been used since the previous sweep (giving the others a
+ * second chance). Reads do not require any locking or write to shared state other
+ * than the entry's own usage flag.
+ *
+ * <p>With a time-to-live, each entry expires the given duration after it has been
+ * written. Expired entries are never returned and get removed on access as well
+ * as by the sweeps performed on writes.
+ *
+ * <p>Note that the bound is approximate under concurrent writes: the map may
+ * temporarily exceed the maximum weight until the writing threads have performed
+ * their eviction. Likewise, {@link #size()} may include expired entries that have
+ * not been removed yet.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setTimeToLive
+ */
+public class BoundedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	private final ConcurrentHashMap<K, Node<K, V>> data;
+
+	private final long maximumWeight;
+
+	@Nullable
+	private final ToLongBiFunction<? super K, ? super V> weigher;
+
+	private final long timeToLive;
+
+	@Nullable
+	private final BiConsumer<? super K, ? super V> evictionListener;
+
+	private final LongSupplier ticker;
+
+	private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong clockSize = new AtomicLong();
+
+	private final AtomicLong weight = new AtomicLong();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	@Nullable
+	private EntrySet entrySet;
+
+
+	/**
+	 * Create a new {@code BoundedConcurrentMap} with the given maximum number
+	 * of entries.
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMap(long maximumSize) {
+		this(maximumSize, null, null, null);
+	}
+
+	/**
+	 * Create a new {@code BoundedConcurrentMap} with the given settings.
+	 * @param maximumWeight the maximum total weight of all entries
+	 * ({@code Long.MAX_VALUE} for no bound)
+	 * @param weigher the function calculating the weight of each entry,
+	 * or {@code null} for a weight of 1 per entry (i.e. a size bound)
+	 * @param timeToLive the time after which each entry expires once written,
+	 * or {@code null} for no expiration
+	 * @param evictionListener a callback for each entry that got evicted
+	 * or expired, or {@code null} for none
+	 */
+	public BoundedConcurrentMap(long maximumWeight, @Nullable ToLongBiFunction<? super K, ? super V> weigher,
+			@Nullable Duration timeToLive, @Nullable BiConsumer<? super K, ? super V> evictionListener) {
+
+		this(maximumWeight, weigher, timeToLive, evictionListener, System::nanoTime);
+	}
+
+	BoundedConcurrentMap(long maximumWeight, @Nullable ToLongBiFunction<? super K, ? super V> weigher,
+			@Nullable Duration timeToLive, @Nullable BiConsumer<? super K, ? super V> evictionListener,
+			LongSupplier ticker) {
+
+		Assert.isTrue(maximumWeight >= 0, "Maximum weight must not be negative");
+		Assert.isTrue(timeToLive == null || !timeToLive.isNegative(), "Time to live must not be negative");
+		this.data = new ConcurrentHashMap<>(256);
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.timeToLive = (timeToLive != null ? timeToLive.toNanos() : 0);
+		this.evictionListener = evictionListener;
+		this.ticker = ticker;
+	}
+
+
+	/**
+	 * Return the maximum total weight of all entries in this map.
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Return the current total weight of all entries in this map.
+	 */
+	public long getWeight() {
+		return this.weight.get();
+	}
+
+	@Override
+	@Nullable
+	public V get(@Nullable Object key) {
+		Node<K, V> node = (key != null ? this.data.get(key) : null);
+		if (node == null) {
+			return null;
+		}
+		if (isExpired(node, this.ticker.getAsLong())) {
+			evict(node);
+			return null;
+		}
+		node.markUsed();
+		return node.value;
+	}
+
+	@Override
+	public boolean containsKey(@Nullable Object key) {
+		return (get(key) != null);
+	}
+
+	@Override
+	@Nullable
+	public V put(K key, V value) {
+		Node<K, V> newNode = createNode(key, value);
+		Node<K, V> oldNode = this.data.put(key, newNode);
+		V oldValue = (oldNode != null ? replaced(oldNode, newNode.time) : null);
+		added(newNode);
+		return oldValue;
+	}
+
+	@Override
+	@Nullable
+	public V putIfAbsent(K key, V value) {
+		Node<K, V> newNode = createNode(key, value);
+		while (true) {
+			Node<K, V> existing = this.data.putIfAbsent(key, newNode);
+			if (existing == null) {
+				added(newNode);
+				return null;
+			}
+			if (!isExpired(existing, newNode.time)) {
+				existing.markUsed();
+				return existing.value;
+			}
+			if (this.data.replace(key, existing, newNode)) {
+				replaced(existing, newNode.time);
+				added(newNode);
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Atomically compute the value for the given key if absent or expired,
+	 * invoking the mapping function at most once per missing entry.
+	 */
+	@Override
+	@Nullable
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		V value = get(key);
+		if (value != null) {
+			return value;
+		}
+		long now = this.ticker.getAsLong();
+		AtomicReference<Node<K, V>> replacedNode = new AtomicReference<>();
+		AtomicReference<Node<K, V>> addedNode = new AtomicReference<>();
+		Node<K, V> node = this.data.compute(key, (k, existing) -> {
+			if (existing != null && !isExpired(existing, now)) {
+				return existing;
+			}
+			replacedNode.set(existing);
+			V newValue = mappingFunction.apply(k);
+			Node<K, V> newNode = (newValue != null ? createNode(k, newValue) : null);
+			addedNode.set(newNode);
+			return newNode;
+		});
+		Node<K, V> oldNode = replacedNode.get();
+		if (oldNode != null) {
+			replaced(oldNode, now);
+		}
+		Node<K, V> newNode = addedNode.get();
+		if (newNode != null) {
+			added(newNode);
+		}
+		else if (node != null) {
+			node.markUsed();
+		}
+		return (node != null ? node.value : null);
+	}
+
+	@Override
+	@Nullable
+	public V replace(K key, V value) {
+		Node<K, V> newNode = createNode(key, value);
+		while (true) {
+			Node<K, V> existing = this.data.get(key);
+			if (existing == null || isExpired(existing, newNode.time)) {
+				return null;
+			}
+			if (this.data.replace(key, existing, newNode)) {
+				replaced(existing, newNode.time);
+				added(newNode);
+				return existing.value;
+			}
+		}
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Node<K, V> newNode = createNode(key, newValue);
+		while (true) {
+			Node<K, V> existing = this.data.get(key);
+			if (existing == null || isExpired(existing, newNode.time) ||
+					!ObjectUtils.nullSafeEquals(existing.value, oldValue)) {
+				return false;
+			}
+			if (this.data.replace(key, existing, newNode)) {
+				replaced(existing, newNode.time);
+				added(newNode);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	@Nullable
+	public V remove(@Nullable Object key) {
+		Node<K, V> node = (key != null ? this.data.remove(key) : null);
+		return (node != null ? replaced(node, this.ticker.getAsLong()) : null);
+	}
+
+	@Override
+	public boolean remove(@Nullable Object key, @Nullable Object value) {
+		if (key == null) {
+			return false;
+		}
+		while (true) {
+			Node<K, V> existing = this.data.get(key);
+			if (existing == null || isExpired(existing, this.ticker.getAsLong()) ||
+					!ObjectUtils.nullSafeEquals(existing.value, value)) {
+				return false;
+			}
+			if (this.data.remove(key, existing)) {
+				this.weight.addAndGet(-existing.weight);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (K key : this.data.keySet()) {
+			remove(key);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.data.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.data.isEmpty();
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		EntrySet entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+
+	private Node<K, V> createNode(K key, V value) {
+		Assert.notNull(key, "Key must not be null");
+		Assert.notNull(value, "Value must not be null");
+		long weight = (this.weigher != null ? this.weigher.applyAsLong(key, value) : 1);
+		Assert.isTrue(weight >= 0, "Weight must not be negative");
+		return new Node<>(key, value, weight, this.ticker.getAsLong());
+	}
+
+	private boolean isExpired(Node<K, V> node, long now) {
+		return (this.timeToLive > 0 && now - node.time >= this.timeToLive);
+	}
+
+	/**
+	 * Account for the removal of the given node from the map,
+	 * returning its value unless it has expired already.
+	 */
+	@Nullable
+	private V replaced(Node<K, V> oldNode, long now) {
+		this.weight.addAndGet(-oldNode.weight);
+		if (isExpired(oldNode, now)) {
+			if (this.evictionListener != null) {
+				this.evictionListener.accept(oldNode.key, oldNode.value);
+			}
+			return null;
+		}
+		return oldNode.value;
+	}
+
+	/**
+	 * Account for the addition of the given node to the map and perform
+	 * eviction and expiration as necessary.
+	 */
+	private void added(Node<K, V> newNode) {
+		this.weight.addAndGet(newNode.weight);
+		this.clock.offer(newNode);
+		long queued = this.clockSize.incrementAndGet();
+		if (this.weight.get() > this.maximumWeight) {
+			this.evictionLock.lock();
+			try {
+				sweep();
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+		else if ((this.timeToLive > 0 || queued > 2L * this.data.size() + 16) && this.evictionLock.tryLock()) {
+			try {
+				sweep();
+				if (this.clockSize.get() > 2L * this.data.size() + 16) {
+					purgeReplacedNodes();
+				}
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Sweep through the nodes in insertion order, removing expired entries and
+	 * evicting entries until the total weight is within bounds again.
+	 * To be called with the eviction lock held.
+	 */
+	private void sweep() {
+		long now = this.ticker.getAsLong();
+		Node<K, V> node;
+		while ((node = this.clock.peek()) != null) {
+			if (this.data.get(node.key) != node) {
+				// Replaced or removed in the meantime
+				pollClock();
+			}
+			else if (isExpired(node, now)) {
+				pollClock();
+				evict(node);
+			}
+			else if (this.weight.get() > this.maximumWeight) {
+				pollClock();
+				if (node.used) {
+					// Second chance: keep it for another round
+					node.used = false;
+					this.clock.offer(node);
+					this.clockSize.incrementAndGet();
+				}
+				else {
+					evict(node);
+				}
+			}
+			else {
+				break;
+			}
+		}
+	}
+
+	private void pollClock() {
+		this.clock.poll();
+		this.clockSize.decrementAndGet();
+	}
+
+	/**
+	 * Remove nodes from the eviction queue which are no longer present in the
+	 * map, in case of frequent replacement of entries that are not evicted.
+	 * To be called with the eviction lock held.
+	 */
+	private void purgeReplacedNodes() {
+		Iterator<Node<K, V>> it = this.clock.iterator();
+		while (it.hasNext()) {
+			Node<K, V> node = it.next();
+			if (this.data.get(node.key) != node) {
+				it.remove();
+				this.clockSize.decrementAndGet();
+			}
+		}
+	}
+
+	private void evict(Node<K, V> node) {
+		if (this.data.remove(node.key, node)) {
+			this.weight.addAndGet(-node.weight);
+			if (this.evictionListener != null) {
+				this.evictionListener.accept(node.key, node.value);
+			}
+		}
+	}
+
+
+	/**
+	 * An immutable key-value pair in the map, with a mutable usage flag.
+	 */
+	private static final class Node<K, V> {
+
+		final K key;
+
+		final V value;
+
+		final long weight;
+
+		final long time;
+
+		volatile boolean used;
+
+		Node(K key, V value, long weight, long time) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.time = time;
+		}
+
+		void markUsed() {
+			// Avoid cache line contention for entries which are read frequently
+			if (!this.used) {
+				this.used = true;
+			}
+		}
+	}
+
+
+	/**
+	 * Entry set view over the non-expired entries in the map.
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return BoundedConcurrentMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			BoundedConcurrentMap.this.clear();
+		}
+	}
+
+
+	private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+		private final Iterator<Node<K, V>> nodes = data.values().iterator();
+
+		private final long now = ticker.getAsLong();
+
+		@Nullable
+		private Node<K, V> next;
+
+		@Nullable
+		private Node<K, V> last;
+
+		@Override
+		public boolean hasNext() {
+			while (this.next == null && this.nodes.hasNext()) {
+				Node<K, V> node = this.nodes.next();
+				if (!isExpired(node, this.now)) {
+					this.next = node;
+				}
+			}
+			return (this.next != null);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Node<K, V> node = this.next;
+			Assert.state(node != null, "No next node");
+			this.next = null;
+			this.last = node;
+			return new SimpleImmutableEntry<>(node.key, node.value);
+		}
+
+		@Override
+		public void remove() {
+			Node<K, V> node = this.last;
+			Assert.state(node != null, "No current entry");
+			if (data.remove(node.key, node)) {
+				weight.addAndGet(-node.weight);
+			}
+			this.last = null;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.cache.concurrent;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.CoalescingValueLoader;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -38,6 +44,14 @@ import org.springframework.util.Assert;
  * them with a predefined internal object. This behavior can be changed through the
  * {@link #ConcurrentMapCache(String, ConcurrentMap, boolean)} constructor.
  *
+ * <p>{@link #get(Object, Callable)} loads missing values atomically through
+ * {@link ConcurrentMap#computeIfAbsent}. Concurrent asynchronous loads of the same
+ * key through {@link #retrieve(Object, Supplier)} are coalesced into a single load.
+ *
+ * <p>As of 6.0, a {@link BoundedConcurrentMap} can be used as the underlying store
+ * for a size- or weight-bounded cache with optional time-to-live, and hits, misses
+ * and loads can be recorded in {@link ConcurrentMapCacheStatistics}.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -53,6 +67,11 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	@Nullable
 	private final SerializationDelegate serialization;
 
+	@Nullable
+	private final ConcurrentMapCacheStatistics statistics;
+
+	private final CoalescingValueLoader valueLoads = new CoalescingValueLoader();
+
 
 	/**
 	 * Create a new ConcurrentMapCache with the specified name.
@@ -100,12 +119,34 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	protected ConcurrentMapCache(String name, ConcurrentMap<Object, Object> store,
 			boolean allowNullValues, @Nullable SerializationDelegate serialization) {
 
+		this(name, store, allowNullValues, serialization, null);
+	}
+
+	/**
+	 * Create a new ConcurrentMapCache with the specified name and the
+	 * given internal {@link ConcurrentMap} to use, recording lookups and
+	 * loads in the given {@link ConcurrentMapCacheStatistics} if specified.
+	 * @param name the name of the cache
+	 * @param store the ConcurrentMap to use as an internal store
+	 * (e.g. a {@link BoundedConcurrentMap})
+	 * @param allowNullValues whether to allow {@code null} values
+	 * (adapting them to an internal null holder value)
+	 * @param serialization the {@link SerializationDelegate} to use
+	 * to serialize cache entry or {@code null} to store the reference
+	 * @param statistics the statistics to record to, or {@code null} for none
+	 * @since 6.0
+	 */
+	protected ConcurrentMapCache(String name, ConcurrentMap<Object, Object> store,
+			boolean allowNullValues, @Nullable SerializationDelegate serialization,
+			@Nullable ConcurrentMapCacheStatistics statistics) {
+
 		super(allowNullValues);
 		Assert.notNull(name, "Name must not be null");
 		Assert.notNull(store, "Store must not be null");
 		this.name = name;
 		this.store = store;
 		this.serialization = serialization;
+		this.statistics = statistics;
 	}
 
 
@@ -119,6 +160,17 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		return (this.serialization != null);
 	}
 
+	/**
+	 * Return the statistics recorded for this cache, if enabled.
+	 * @return the statistics, or {@code null} if not recording
+	 * @since 6.0
+	 * @see ConcurrentMapCacheManager#setRecordStatistics
+	 */
+	@Nullable
+	public final ConcurrentMapCacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
 	@Override
 	public final String getName() {
 		return this.name;
@@ -132,21 +184,121 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
-		return this.store.get(key);
+		return recordLookup(this.store.get(key));
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	@Nullable
 	public <T> T get(Object key, Callable<T> valueLoader) {
-		return (T) fromStoreValue(this.store.computeIfAbsent(key, k -> {
-			try {
-				return toStoreValue(valueLoader.call());
+		Object storeValue = recordLookup(this.store.get(key));
+		if (storeValue == null) {
+			storeValue = this.store.computeIfAbsent(key, k -> {
+				try {
+					return toStoreValue(loadValue(valueLoader));
+				}
+				catch (Throwable ex) {
+					throw new ValueRetrievalException(key, valueLoader, ex);
+				}
+			});
+		}
+		return (T) fromStoreValue(storeValue);
+	}
+
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(Object key) {
+		Object storeValue = recordLookup(this.store.get(key));
+		return (storeValue != null ? CompletableFuture.completedFuture(fromStoreValue(storeValue)) : null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		Object storeValue = recordLookup(this.store.get(key));
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture((T) fromStoreValue(storeValue));
+		}
+		return this.valueLoads.loadAsync(key, () -> {
+			Object existing = this.store.get(key);
+			if (existing != null) {
+				return CompletableFuture.completedFuture(existing);
 			}
-			catch (Throwable ex) {
-				throw new ValueRetrievalException(key, valueLoader, ex);
+			return loadValueAsync(valueLoader).thenApply(value -> {
+				if (value == null && !isAllowNullValues()) {
+					return null;  // nothing to cache, e.g. for an empty Mono
+				}
+				Object newValue = toStoreValue(value);
+				this.store.put(key, newValue);
+				return newValue;
+			});
+		}).thenApply(value -> (T) fromStoreValue(value));
+	}
+
+	@Nullable
+	private Object recordLookup(@Nullable Object storeValue) {
+		if (this.statistics != null) {
+			if (storeValue != null) {
+				this.statistics.recordHit();
+			}
+			else {
+				this.statistics.recordMiss();
+			}
+		}
+		return storeValue;
+	}
+
+	@Nullable
+	private <T> T loadValue(Callable<T> valueLoader) throws Exception {
+		if (this.statistics == null) {
+			return valueLoader.call();
+		}
+		long startTime = System.nanoTime();
+		try {
+			T value = valueLoader.call();
+			this.statistics.recordLoadSuccess(System.nanoTime() - startTime);
+			return value;
+		}
+		catch (Throwable ex) {
+			this.statistics.recordLoadFailure(System.nanoTime() - startTime);
+			throw ex;
+		}
+	}
+
+	private <T> CompletableFuture<T> loadValueAsync(Supplier<CompletableFuture<T>> valueLoader) {
+		ConcurrentMapCacheStatistics statistics = this.statistics;
+		if (statistics == null) {
+			return valueLoader.get();
+		}
+		long startTime = System.nanoTime();
+		CompletableFuture<T> future;
+		try {
+			future = valueLoader.get();
+		}
+		catch (Throwable ex) {
+			statistics.recordLoadFailure(System.nanoTime() - startTime);
+			throw ex;
+		}
+		return future.whenComplete((value, ex) -> {
+			if (ex != null) {
+				statistics.recordLoadFailure(System.nanoTime() - startTime);
+			}
+			else {
+				statistics.recordLoadSuccess(System.nanoTime() - startTime);
+			}
+		});
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			Object storeValue = recordLookup(this.store.get(key));
+			if (storeValue != null) {
+				result.put(key, fromStoreValue(storeValue));
 			}
-		}));
+		}
+		return result;
 	}
 
 	@Override
@@ -154,6 +306,11 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		this.store.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		entries.forEach((key, value) -> this.store.put(key, toStoreValue(value)));
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
@@ -166,6 +323,13 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		this.store.remove(key);
 	}
 
+	@Override
+	public void evictAll(Collection<?> keys) {
+		for (Object key : keys) {
+			this.store.remove(key);
+		}
+	}
+
 	@Override
 	public boolean evictIfPresent(Object key) {
 		return (this.store.remove(key) != null);
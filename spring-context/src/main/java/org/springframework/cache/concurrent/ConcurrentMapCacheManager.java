@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,21 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongBiFunction;
 
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +38,15 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>By default, caches are unbounded. As of 6.0, caches can be bounded by
+ * {@link #setMaximumSize size} or {@link #setMaximumWeight weight} and can
+ * expire entries after a {@link #setTimeToLive time-to-live}, backed by a
+ * {@link BoundedConcurrentMap} with approximate LRU eviction. Hit, miss,
+ * eviction and load statistics can be {@link #setRecordStatistics recorded}.
+ *
+ * <p>Note: This is by no means a sophisticated CacheManager. However, it may be
+ * useful for testing or simple caching scenarios without a dependency on a
+ * third-party cache library. For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager} or
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
  *
@@ -58,6 +67,18 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	@Nullable
 	private SerializationDelegate serialization;
 
+	private long maximumSize = Long.MAX_VALUE;
+
+	private long maximumWeight = Long.MAX_VALUE;
+
+	@Nullable
+	private ToLongBiFunction<Object, Object> weigher;
+
+	@Nullable
+	private Duration timeToLive;
+
+	private boolean recordStatistics = false;
+
 
 	/**
 	 * Construct a dynamic ConcurrentMapCacheManager,
@@ -145,6 +166,111 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries for each cache in this cache manager,
+	 * evicting entries that have not been used recently once the limit is exceeded.
+	 * <p>Default is no limit. Not to be combined with a {@link #setMaximumWeight
+	 * maximum weight} and {@link #setWeigher weigher}.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new limit.
+	 * @since 6.0
+	 * @throws IllegalStateException if a maximum weight or weigher has been set
+	 * @see #setMaximumWeight
+	 */
+	public void setMaximumSize(long maximumSize) {
+		Assert.isTrue(maximumSize >= 0, "Maximum size must not be negative");
+		Assert.state(this.maximumWeight == Long.MAX_VALUE && this.weigher == null,
+				"Maximum size cannot be combined with a maximum weight or weigher");
+		this.maximumSize = maximumSize;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the maximum total weight of the entries for each cache in this cache
+	 * manager, as determined by the {@link #setWeigher weigher}, evicting entries
+	 * that have not been used recently once the limit is exceeded.
+	 * <p>Default is no limit. Not to be combined with a {@link #setMaximumSize
+	 * maximum size}.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new limit.
+	 * @since 6.0
+	 * @throws IllegalStateException if a maximum size has been set
+	 * @see #setWeigher
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		Assert.isTrue(maximumWeight >= 0, "Maximum weight must not be negative");
+		Assert.state(this.maximumSize == Long.MAX_VALUE,
+				"Maximum weight cannot be combined with a maximum size");
+		this.maximumWeight = maximumWeight;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the function calculating the weight of each cache entry, applied
+	 * to the key and the store value (i.e. the serialized {@code byte[]} in case
+	 * of {@link #setStoreByValue store-by-value}).
+	 * <p>Default is a weight of 1 per entry, i.e. the maximum weight acting as
+	 * a maximum number of entries. Not to be combined with a
+	 * {@link #setMaximumSize maximum size}.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new weigher.
+	 * @since 6.0
+	 * @throws IllegalStateException if a maximum size has been set
+	 * @see #setMaximumWeight
+	 */
+	public void setWeigher(@Nullable ToLongBiFunction<Object, Object> weigher) {
+		Assert.state(weigher == null || this.maximumSize == Long.MAX_VALUE,
+				"Weigher cannot be combined with a maximum size");
+		this.weigher = weigher;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the time after which each cache entry expires once written,
+	 * for all caches in this cache manager.
+	 * <p>Default is no expiration.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new time-to-live.
+	 * @since 6.0
+	 */
+	public void setTimeToLive(@Nullable Duration timeToLive) {
+		Assert.isTrue(timeToLive == null || !timeToLive.isNegative(), "Time to live must not be negative");
+		this.timeToLive = timeToLive;
+		recreateCaches();
+	}
+
+	/**
+	 * Return the time after which each cache entry expires once written, if any.
+	 * @since 6.0
+	 */
+	@Nullable
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	/**
+	 * Specify whether to record {@link ConcurrentMapCacheStatistics} for all
+	 * caches in this cache manager, exposed via {@link ConcurrentMapCache#getStatistics()}.
+	 * <p>Default is "false".
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with or without statistics.
+	 * @since 6.0
+	 */
+	public void setRecordStatistics(boolean recordStatistics) {
+		if (recordStatistics != this.recordStatistics) {
+			this.recordStatistics = recordStatistics;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return whether this cache manager records statistics for all of its caches.
+	 * @since 6.0
+	 */
+	public boolean isRecordStatistics() {
+		return this.recordStatistics;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -189,7 +315,19 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 */
 	protected Cache createConcurrentMapCache(String name) {
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
-		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256), isAllowNullValues(), actualSerialization);
+		ConcurrentMapCacheStatistics statistics = (isRecordStatistics() ? new ConcurrentMapCacheStatistics() : null);
+		return new ConcurrentMapCache(name, createStore(statistics), isAllowNullValues(),
+				actualSerialization, statistics);
+	}
+
+	private ConcurrentMap<Object, Object> createStore(@Nullable ConcurrentMapCacheStatistics statistics) {
+		if (this.maximumSize == Long.MAX_VALUE && this.maximumWeight == Long.MAX_VALUE && this.timeToLive == null) {
+			return new ConcurrentHashMap<>(256);
+		}
+		boolean sizeBound = (this.maximumSize != Long.MAX_VALUE);
+		return new BoundedConcurrentMap<>(sizeBound ? this.maximumSize : this.maximumWeight,
+				(sizeBound ? null : this.weigher), this.timeToLive,
+				(statistics != null ? (key, value) -> statistics.recordEviction() : null));
 	}
 
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics for a {@link ConcurrentMapCache}: hits and misses of cache lookups,
+ * evictions (including expirations) from a {@link BoundedConcurrentMap} store,
+ * and the number and duration of value loads.
+ *
+ * <p>All counters are cumulative since the creation of the cache and are
+ * updated concurrently, so a sequence of getter calls does not necessarily
+ * represent a consistent snapshot.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see ConcurrentMapCache#getStatistics()
+ * @see ConcurrentMapCacheManager#setRecordStatistics
+ */
+public final class ConcurrentMapCacheStatistics {
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder loadSuccessCount = new LongAdder();
+
+	private final LongAdder loadFailureCount = new LongAdder();
+
+	private final LongAdder totalLoadTime = new LongAdder();
+
+
+	/**
+	 * Return the number of lookups that found a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the ratio of lookups that found a cached value,
+	 * or {@code 1.0} if there have not been any lookups yet.
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long requests = hits + getMissCount();
+		return (requests == 0 ? 1.0 : (double) hits / requests);
+	}
+
+	/**
+	 * Return the number of entries that got evicted because of a size or weight
+	 * bound, or that got removed because their time-to-live had passed.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return the number of value loads that completed successfully.
+	 */
+	public long getLoadSuccessCount() {
+		return this.loadSuccessCount.sum();
+	}
+
+	/**
+	 * Return the number of value loads that failed with an exception.
+	 */
+	public long getLoadFailureCount() {
+		return this.loadFailureCount.sum();
+	}
+
+	/**
+	 * Return the total time spent loading values (in nanoseconds),
+	 * for successful as well as failed loads.
+	 */
+	public long getTotalLoadTime() {
+		return this.totalLoadTime.sum();
+	}
+
+	/**
+	 * Return the average time spent loading a value (in nanoseconds),
+	 * or {@code 0.0} if there have not been any loads yet.
+	 */
+	public double getAverageLoadPenalty() {
+		long loads = getLoadSuccessCount() + getLoadFailureCount();
+		return (loads == 0 ? 0.0 : (double) getTotalLoadTime() / loads);
+	}
+
+
+	void recordHit() {
+		this.hitCount.increment();
+	}
+
+	void recordMiss() {
+		this.missCount.increment();
+	}
+
+	void recordEviction() {
+		this.evictionCount.increment();
+	}
+
+	void recordLoadSuccess(long loadTime) {
+		this.loadSuccessCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	void recordLoadFailure(long loadTime) {
+		this.loadFailureCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentMapCacheStatistics[hitCount=" + getHitCount() + ", missCount=" + getMissCount() +
+				", evictionCount=" + getEvictionCount() + ", loadSuccessCount=" + getLoadSuccessCount() +
+				", loadFailureCount=" + getLoadFailureCount() + ", totalLoadTime=" + getTotalLoadTime() + "]";
+	}
+
+}
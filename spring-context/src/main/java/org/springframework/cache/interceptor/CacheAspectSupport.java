@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,14 +21,21 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -43,13 +50,12 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.MethodClassKey;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.CollectionUtils;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -69,6 +75,14 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>With {@link #setAsyncResultCaching "asyncResultCaching"} switched on, methods
+ * returning a {@link CompletableFuture} (or {@link CompletionStage}) as well as
+ * Reactor's {@code Mono} or {@code Flux} get their eventual result value cached
+ * rather than the asynchronous handle itself, with {@code Flux} results cached as a
+ * {@code List}. Cache hits are looked up via {@link Cache#retrieve(Object)}, and
+ * {@code @Cacheable(sync=true)} loads go through {@link Cache#retrieve(Object, Supplier)}
+ * which coalesces concurrent loads of the same key where supported by the cache.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -83,10 +97,17 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
+	private final Map<MethodClassKey, CacheOperationPlan> planCache = new ConcurrentHashMap<>(1024);
+
+	private final Map<Method, CacheOperationPlan> planCacheByMethod = new ConcurrentHashMap<>(1024);
+
 	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
 	@Nullable
@@ -100,6 +121,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	private boolean asyncResultCaching = false;
+
 	private boolean initialized = false;
 
 
@@ -194,6 +217,31 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Specify whether to cache the eventual result value of methods returning a
+	 * {@link CompletableFuture}, a {@link CompletionStage} or a Reactor {@code Mono}
+	 * or {@code Flux}, rather than the returned handle itself.
+	 * <p>The default is {@code false}, caching any return value as-is. Switch this
+	 * flag to {@code true} for result value caching, with {@code Flux} results cached
+	 * as a {@code List} and an empty {@code Mono} not cached at all. This setting
+	 * needs to be applied before the first invocation of a cached method.
+	 * @since 6.0
+	 * @see Cache#retrieve(Object)
+	 * @see Cache#retrieve(Object, Supplier)
+	 */
+	public void setAsyncResultCaching(boolean asyncResultCaching) {
+		this.asyncResultCaching = asyncResultCaching;
+	}
+
+	/**
+	 * Return whether the eventual result value of asynchronous methods is cached.
+	 * @since 6.0
+	 * @see #setAsyncResultCaching
+	 */
+	public boolean isAsyncResultCaching() {
+		return this.asyncResultCaching;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -301,6 +349,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			metadata = new CacheOperationMetadata(operation, method, targetClass,
 					operationKeyGenerator, operationCacheResolver);
+			if (StringUtils.hasText(operation.getKey())) {
+				metadata.keyArgumentIndex = this.evaluator.getArgumentIndex(operation.getKey(), metadata.targetMethod);
+			}
 			this.metadataCache.put(cacheKey, metadata);
 		}
 		return metadata;
@@ -330,6 +381,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	 */
 	protected void clearMetadataCache() {
 		this.metadataCache.clear();
+		this.planCache.clear();
+		this.planCacheByMethod.clear();
 		this.evaluator.clear();
 	}
 
@@ -340,10 +393,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			Class<?> targetClass = getTargetClass(target);
 			CacheOperationSource cacheOperationSource = getCacheOperationSource();
 			if (cacheOperationSource != null) {
-				Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
-				if (!CollectionUtils.isEmpty(operations)) {
-					return execute(invoker, method,
-							new CacheOperationContexts(operations, method, args, target, targetClass));
+				CacheOperationPlan plan = getCacheOperationPlan(cacheOperationSource, method, targetClass);
+				if (plan.hasOperations()) {
+					return execute(invoker, method, new CacheOperationContexts(plan, args, target));
 				}
 			}
 		}
@@ -351,6 +403,30 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return invoker.invoke();
 	}
 
+	/**
+	 * Obtain the {@link CacheOperationPlan} for the given method and target class,
+	 * resolving the operations and their metadata once per method and caching
+	 * the result. The common case of a single target class per method is served
+	 * by a lookup keyed by the method alone.
+	 */
+	private CacheOperationPlan getCacheOperationPlan(
+			CacheOperationSource cacheOperationSource, Method method, Class<?> targetClass) {
+
+		CacheOperationPlan plan = this.planCacheByMethod.get(method);
+		if (plan != null && plan.targetClass == targetClass) {
+			return plan;
+		}
+		MethodClassKey planKey = new MethodClassKey(method, targetClass);
+		plan = this.planCache.get(planKey);
+		if (plan == null) {
+			Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
+			plan = new CacheOperationPlan(method, targetClass, operations);
+			this.planCache.put(planKey, plan);
+			this.planCacheByMethod.putIfAbsent(method, plan);
+		}
+		return plan;
+	}
+
 	/**
 	 * Execute the underlying operation (typically in case of cache miss) and return
 	 * the result of the invocation. If an exception occurs it will be wrapped in a
@@ -372,12 +448,17 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		AsyncResultAdapter asyncAdapter = contexts.getAsyncResultAdapter();
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				if (asyncAdapter != null) {
+					return asyncAdapter.adaptFuture(() -> handleSynchronizedRetrieve(invoker, key, cache, asyncAdapter));
+				}
 				try {
 					return wrapCacheValue(method, handleSynchronizedGet(invoker, key, cache));
 				}
@@ -393,11 +474,26 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 		}
 
+		// Special handling of batch invocation
+		if (contexts.isBatch()) {
+			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
+			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+				return executeBatch(invoker, context, contexts.getBatchKeyIndex(), contexts.getBatchKeyType());
+			}
+			else {
+				// No caching required, only call the underlying method
+				return invokeOperation(invoker);
+			}
+		}
 
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
 				CacheOperationExpressionEvaluator.NO_RESULT);
 
+		if (asyncAdapter != null) {
+			return executeAsync(invoker, contexts, asyncAdapter);
+		}
+
 		// Check if we have a cached item matching the conditions
 		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
 
@@ -422,6 +518,129 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			cacheValue = unwrapReturnValue(returnValue);
 		}
 
+		processCachePutsAndEvicts(contexts, cachePutRequests, cacheValue);
+		return returnValue;
+	}
+
+	/**
+	 * Variant of the regular execution flow for asynchronous return values,
+	 * performing cache puts and late evictions once the result value is available.
+	 */
+	@Nullable
+	private Object executeAsync(CacheOperationInvoker invoker, CacheOperationContexts contexts,
+			AsyncResultAdapter asyncAdapter) {
+
+		// Check if we have a cached value matching the conditions
+		CompletableFuture<?> cacheHit = findCachedFuture(contexts.get(CacheableOperation.class));
+
+		// Collect puts from any @Cacheable miss, if no cached value is found
+		List<CachePutRequest> cachePutRequests = new ArrayList<>();
+		if (cacheHit == null) {
+			collectPutRequests(contexts.get(CacheableOperation.class),
+					CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+		}
+
+		if (cacheHit != null && !hasCachePut(contexts)) {
+			// If there are no put requests, just use the cache hit once available
+			return asyncAdapter.adaptFuture(() -> cacheHit.thenApply(cacheValue -> {
+				processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+				return cacheValue;
+			}));
+		}
+
+		// Invoke the method if we don't have a cache hit
+		Object returnValue = invokeOperation(invoker);
+		return asyncAdapter.adaptResult(returnValue,
+				cacheValue -> processCachePutsAndEvicts(contexts, cachePutRequests, cacheValue),
+				() -> processCacheEvicts(contexts.get(CacheEvictOperation.class), false, null));
+	}
+
+	/**
+	 * Variant of the regular execution flow for batch operations: look up all
+	 * requested keys at once, invoke the method for the missing keys only and
+	 * store the loaded entries at once.
+	 * <p>The missing keys are passed to the method through a copy of the argument
+	 * array via {@link CacheOperationInvoker#invoke(Object[])}, leaving the original
+	 * arguments untouched. Invokers which cannot replace the arguments simply load
+	 * all requested keys. {@code null} keys are rejected.
+	 */
+	@Nullable
+	private Object executeBatch(CacheOperationInvoker invoker, CacheOperationContext context,
+			int keyIndex, Class<?> keyType) {
+
+		Object[] args = context.getArgs();
+		Object keyArgument = args[keyIndex];
+		if (!(keyArgument instanceof Collection<?> keys)) {
+			throw new IllegalArgumentException("@Cacheable(batch=true) requires a Collection of keys " +
+					"but got [" + keyArgument + "] for operation " + context.metadata.operation);
+		}
+		for (Object key : keys) {
+			if (key == null) {
+				throw new IllegalArgumentException("@Cacheable(batch=true) does not support null keys " +
+						"in [" + keyArgument + "] for operation " + context.metadata.operation);
+			}
+		}
+		Cache cache = context.getCaches().iterator().next();
+		Map<Object, Object> cachedEntries = doGetAll(cache, keys);
+		Collection<Object> missingKeys = CollectionFactory.createCollection(keyType, keys.size());
+		for (Object key : keys) {
+			if (!cachedEntries.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace(cachedEntries.size() + " of " + keys.size() + " keys found in cache '" +
+					cache.getName() + "', missing keys " + missingKeys);
+		}
+		if (missingKeys.isEmpty()) {
+			return orderedEntries(keys, cachedEntries, Collections.emptyMap());
+		}
+
+		Object returnValue;
+		if (cachedEntries.isEmpty()) {
+			returnValue = invokeOperation(invoker);
+		}
+		else {
+			Object[] batchArgs = args.clone();
+			batchArgs[keyIndex] = missingKeys;
+			returnValue = invokeOperation(() -> invoker.invoke(batchArgs));
+		}
+		if (returnValue == null) {
+			return (cachedEntries.isEmpty() ? null : orderedEntries(keys, cachedEntries, Collections.emptyMap()));
+		}
+		if (!(returnValue instanceof Map<?, ?> loadedEntries)) {
+			throw new IllegalStateException("@Cacheable(batch=true) requires a Map of loaded entries " +
+					"but got [" + returnValue + "] for operation " + context.metadata.operation);
+		}
+
+		Map<Object, Object> entriesToPut = new LinkedHashMap<>(loadedEntries.size());
+		loadedEntries.forEach((key, value) -> {
+			if (context.canPutToCache(value)) {
+				entriesToPut.put(key, value);
+			}
+		});
+		if (!entriesToPut.isEmpty()) {
+			doPutAll(cache, entriesToPut);
+		}
+		return (cachedEntries.isEmpty() ? returnValue : orderedEntries(keys, cachedEntries, loadedEntries));
+	}
+
+	private Map<Object, Object> orderedEntries(Collection<?> keys, Map<?, ?> cachedEntries, Map<?, ?> loadedEntries) {
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			if (cachedEntries.containsKey(key)) {
+				result.put(key, cachedEntries.get(key));
+			}
+			else if (loadedEntries.containsKey(key)) {
+				result.put(key, loadedEntries.get(key));
+			}
+		}
+		return result;
+	}
+
+	private void processCachePutsAndEvicts(CacheOperationContexts contexts,
+			Collection<CachePutRequest> cachePutRequests, @Nullable Object cacheValue) {
+
 		// Collect any explicit @CachePuts
 		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
 
@@ -432,8 +651,6 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		// Process any late evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
-
-		return returnValue;
 	}
 
 	@Nullable
@@ -452,6 +669,29 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return result;
 	}
 
+	private CompletableFuture<?> handleSynchronizedRetrieve(CacheOperationInvoker invoker, Object key, Cache cache,
+			AsyncResultAdapter asyncAdapter) {
+
+		return cache.retrieve(key, () -> {
+			if (logger.isTraceEnabled()) {
+				logger.trace("No cache entry for key '" + key + "' in cache " + cache.getName());
+			}
+			return invokeOperationAsync(invoker, asyncAdapter);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<Object> invokeOperationAsync(CacheOperationInvoker invoker,
+			AsyncResultAdapter asyncAdapter) {
+
+		try {
+			return (CompletableFuture<Object>) asyncAdapter.toFuture(invokeOperation(invoker));
+		}
+		catch (CacheOperationInvoker.ThrowableWrapper ex) {
+			return CompletableFuture.failedFuture(ex.getOriginal());
+		}
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -469,6 +709,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	private boolean hasCachePut(CacheOperationContexts contexts) {
 		// Evaluate the conditions *without* the result object because we don't have it yet...
 		Collection<CacheOperationContext> cachePutContexts = contexts.get(CachePutOperation.class);
+		if (cachePutContexts.isEmpty()) {
+			return false;
+		}
 		Collection<CacheOperationContext> excluded = new ArrayList<>();
 		for (CacheOperationContext context : cachePutContexts) {
 			try {
@@ -547,6 +790,36 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return null;
 	}
 
+	/**
+	 * Find a cached value only for {@link CacheableOperation} that passes the condition,
+	 * using {@link Cache#retrieve(Object)} for asynchronous access.
+	 * @param contexts the cacheable operations
+	 * @return a {@link CompletableFuture} for the cached value,
+	 * or {@code null} if none is found
+	 */
+	@Nullable
+	private CompletableFuture<?> findCachedFuture(Collection<CacheOperationContext> contexts) {
+		Object result = CacheOperationExpressionEvaluator.NO_RESULT;
+		for (CacheOperationContext context : contexts) {
+			if (isConditionPassing(context, result)) {
+				Object key = generateKey(context, result);
+				for (Cache cache : context.getCaches()) {
+					CompletableFuture<?> cached = doRetrieve(cache, key);
+					if (cached != null) {
+						if (logger.isTraceEnabled()) {
+							logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+						}
+						return cached;
+					}
+				}
+				if (logger.isTraceEnabled()) {
+					logger.trace("No cache entry for key '" + key + "' in cache(s) " + context.getCacheNames());
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Collect the {@link CachePutRequest} for all {@link CacheOperation} using
 	 * the specified result item.
@@ -601,58 +874,84 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
-	private class CacheOperationContexts {
+	/**
+	 * Invocation-independent plan for the cache operations of a method: the
+	 * resolved operation metadata grouped by operation type, the sync and batch
+	 * settings and the adapter for asynchronous return types, all determined
+	 * once per method.
+	 */
+	private class CacheOperationPlan {
+
+		private final Class<?> targetClass;
+
+		private final CacheOperationMetadata[] cacheableMetadata;
 
-		private final MultiValueMap<Class<? extends CacheOperation>, CacheOperationContext> contexts;
+		private final CacheOperationMetadata[] cachePutMetadata;
+
+		private final CacheOperationMetadata[] cacheEvictMetadata;
 
 		private final boolean sync;
 
-		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
-				Object[] args, Object target, Class<?> targetClass) {
+		@Nullable
+		private final AsyncResultAdapter asyncResultAdapter;
+
+		private final int batchKeyIndex;
 
-			this.contexts = new LinkedMultiValueMap<>(operations.size());
-			for (CacheOperation op : operations) {
-				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
+		@Nullable
+		private final Class<?> batchKeyType;
+
+		public CacheOperationPlan(Method method, Class<?> targetClass, @Nullable Collection<CacheOperation> operations) {
+			this.targetClass = targetClass;
+			List<CacheOperationMetadata> cacheable = new ArrayList<>(1);
+			List<CacheOperationMetadata> cachePut = new ArrayList<>(0);
+			List<CacheOperationMetadata> cacheEvict = new ArrayList<>(0);
+			if (operations != null) {
+				for (CacheOperation operation : operations) {
+					CacheOperationMetadata metadata = getCacheOperationMetadata(operation, method, targetClass);
+					if (operation instanceof CacheableOperation) {
+						cacheable.add(metadata);
+					}
+					else if (operation instanceof CachePutOperation) {
+						cachePut.add(metadata);
+					}
+					else if (operation instanceof CacheEvictOperation) {
+						cacheEvict.add(metadata);
+					}
+				}
 			}
+			this.cacheableMetadata = cacheable.toArray(new CacheOperationMetadata[0]);
+			this.cachePutMetadata = cachePut.toArray(new CacheOperationMetadata[0]);
+			this.cacheEvictMetadata = cacheEvict.toArray(new CacheOperationMetadata[0]);
 			this.sync = determineSyncFlag(method);
+			this.asyncResultAdapter = (asyncResultCaching ?
+					AsyncResultAdapter.forReturnType(method.getReturnType()) : null);
+			this.batchKeyIndex = determineBatchKeyIndex(method);
+			this.batchKeyType = (this.batchKeyIndex >= 0 ? method.getParameterTypes()[this.batchKeyIndex] : null);
 		}
 
-		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
-			Collection<CacheOperationContext> result = this.contexts.get(operationClass);
-			return (result != null ? result : Collections.emptyList());
-		}
-
-		public boolean isSynchronized() {
-			return this.sync;
+		public boolean hasOperations() {
+			return (this.cacheableMetadata.length > 0 || this.cachePutMetadata.length > 0 ||
+					this.cacheEvictMetadata.length > 0);
 		}
 
 		private boolean determineSyncFlag(Method method) {
-			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
-			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
-				return false;
-			}
 			boolean syncEnabled = false;
-			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
-				if (((CacheableOperation) cacheOperationContext.getOperation()).isSync()) {
+			for (CacheOperationMetadata metadata : this.cacheableMetadata) {
+				if (((CacheableOperation) metadata.operation).isSync()) {
 					syncEnabled = true;
 					break;
 				}
 			}
 			if (syncEnabled) {
-				if (this.contexts.size() > 1) {
+				if (this.cachePutMetadata.length > 0 || this.cacheEvictMetadata.length > 0) {
 					throw new IllegalStateException(
 							"@Cacheable(sync=true) cannot be combined with other cache operations on '" + method + "'");
 				}
-				if (cacheOperationContexts.size() > 1) {
+				if (this.cacheableMetadata.length > 1) {
 					throw new IllegalStateException(
 							"Only one @Cacheable(sync=true) entry is allowed on '" + method + "'");
 				}
-				CacheOperationContext cacheOperationContext = cacheOperationContexts.iterator().next();
-				CacheableOperation operation = (CacheableOperation) cacheOperationContext.getOperation();
-				if (cacheOperationContext.getCaches().size() > 1) {
-					throw new IllegalStateException(
-							"@Cacheable(sync=true) only allows a single cache on '" + operation + "'");
-				}
+				CacheableOperation operation = (CacheableOperation) this.cacheableMetadata[0].operation;
 				if (StringUtils.hasText(operation.getUnless())) {
 					throw new IllegalStateException(
 							"@Cacheable(sync=true) does not support unless attribute on '" + operation + "'");
@@ -661,6 +960,143 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private int determineBatchKeyIndex(Method method) {
+			boolean batchEnabled = false;
+			for (CacheOperationMetadata metadata : this.cacheableMetadata) {
+				if (((CacheableOperation) metadata.operation).isBatch()) {
+					batchEnabled = true;
+					break;
+				}
+			}
+			if (!batchEnabled) {
+				return -1;
+			}
+			if (this.cachePutMetadata.length > 0 || this.cacheEvictMetadata.length > 0) {
+				throw new IllegalStateException(
+						"@Cacheable(batch=true) cannot be combined with other cache operations on '" + method + "'");
+			}
+			if (this.cacheableMetadata.length > 1) {
+				throw new IllegalStateException(
+						"Only one @Cacheable(batch=true) entry is allowed on '" + method + "'");
+			}
+			CacheOperationMetadata metadata = this.cacheableMetadata[0];
+			CacheableOperation operation = (CacheableOperation) metadata.operation;
+			if (this.sync) {
+				throw new IllegalStateException(
+						"@Cacheable(batch=true) cannot be combined with sync=true on '" + operation + "'");
+			}
+			if (StringUtils.hasText(operation.getKeyGenerator())) {
+				throw new IllegalStateException(
+						"@Cacheable(batch=true) does not support a custom key generator on '" + operation + "'");
+			}
+			if (this.asyncResultAdapter != null || !method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+				throw new IllegalStateException(
+						"@Cacheable(batch=true) requires a java.util.Map return type on '" + method + "'");
+			}
+			int keyIndex = -1;
+			if (!method.isVarArgs()) {
+				if (StringUtils.hasText(operation.getKey())) {
+					keyIndex = metadata.keyArgumentIndex;
+				}
+				else if (method.getParameterCount() == 1) {
+					keyIndex = 0;
+				}
+			}
+			if (keyIndex < 0 || !Collection.class.isAssignableFrom(method.getParameterTypes()[keyIndex])) {
+				throw new IllegalStateException("@Cacheable(batch=true) requires a key referring to " +
+						"a java.util.Collection argument directly on '" + operation + "'");
+			}
+			return keyIndex;
+		}
+	}
+
+
+	private class CacheOperationContexts {
+
+		private final List<CacheOperationContext> cacheableContexts;
+
+		private final List<CacheOperationContext> cachePutContexts;
+
+		private final List<CacheOperationContext> cacheEvictContexts;
+
+		private final boolean sync;
+
+		@Nullable
+		private final AsyncResultAdapter asyncResultAdapter;
+
+		private final int batchKeyIndex;
+
+		@Nullable
+		private final Class<?> batchKeyType;
+
+		public CacheOperationContexts(CacheOperationPlan plan, Object[] args, Object target) {
+			this.cacheableContexts = createContexts(plan.cacheableMetadata, args, target);
+			this.cachePutContexts = createContexts(plan.cachePutMetadata, args, target);
+			this.cacheEvictContexts = createContexts(plan.cacheEvictMetadata, args, target);
+			this.sync = plan.sync;
+			this.asyncResultAdapter = plan.asyncResultAdapter;
+			this.batchKeyIndex = plan.batchKeyIndex;
+			this.batchKeyType = plan.batchKeyType;
+			if (this.sync || this.batchKeyIndex >= 0) {
+				CacheOperationContext context = this.cacheableContexts.get(0);
+				if (context.getCaches().size() > 1) {
+					throw new IllegalStateException("@Cacheable(" + (this.sync ? "sync" : "batch") +
+							"=true) only allows a single cache on '" + context.getOperation() + "'");
+				}
+			}
+		}
+
+		private List<CacheOperationContext> createContexts(
+				CacheOperationMetadata[] metadata, Object[] args, Object target) {
+
+			if (metadata.length == 0) {
+				return Collections.emptyList();
+			}
+			if (metadata.length == 1) {
+				return Collections.singletonList(new CacheOperationContext(metadata[0], args, target));
+			}
+			List<CacheOperationContext> contexts = new ArrayList<>(metadata.length);
+			for (CacheOperationMetadata element : metadata) {
+				contexts.add(new CacheOperationContext(element, args, target));
+			}
+			return contexts;
+		}
+
+		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
+			if (operationClass == CacheableOperation.class) {
+				return this.cacheableContexts;
+			}
+			else if (operationClass == CachePutOperation.class) {
+				return this.cachePutContexts;
+			}
+			else if (operationClass == CacheEvictOperation.class) {
+				return this.cacheEvictContexts;
+			}
+			return Collections.emptyList();
+		}
+
+		public boolean isSynchronized() {
+			return this.sync;
+		}
+
+		@Nullable
+		public AsyncResultAdapter getAsyncResultAdapter() {
+			return this.asyncResultAdapter;
+		}
+
+		public boolean isBatch() {
+			return (this.batchKeyIndex >= 0);
+		}
+
+		public int getBatchKeyIndex() {
+			return this.batchKeyIndex;
+		}
+
+		public Class<?> getBatchKeyType() {
+			Assert.state(this.batchKeyType != null, "No batch key type");
+			return this.batchKeyType;
+		}
 	}
 
 
@@ -684,6 +1120,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		// Index of the argument to use as key for a plain argument reference, or -1
+		private int keyArgumentIndex = -1;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
@@ -712,7 +1151,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final Collection<? extends Cache> caches;
 
-		private final Collection<String> cacheNames;
+		@Nullable
+		private Collection<String> cacheNames;
 
 		@Nullable
 		private Boolean conditionPassing;
@@ -722,7 +1162,6 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.args = extractArgs(metadata.method, args);
 			this.target = target;
 			this.caches = CacheAspectSupport.this.getCaches(this, metadata.cacheResolver);
-			this.cacheNames = createCacheNames(this.caches);
 		}
 
 		@Override
@@ -790,6 +1229,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		 */
 		@Nullable
 		protected Object generateKey(@Nullable Object result) {
+			int keyArgumentIndex = this.metadata.keyArgumentIndex;
+			if (keyArgumentIndex >= 0) {
+				// Plain argument reference: no need for expression evaluation
+				return (keyArgumentIndex < this.args.length ? this.args[keyArgumentIndex] : null);
+			}
 			if (StringUtils.hasText(this.metadata.operation.getKey())) {
 				EvaluationContext evaluationContext = createEvaluationContext(result);
 				return evaluator.key(this.metadata.operation.getKey(), this.metadata.methodKey, evaluationContext);
@@ -807,7 +1251,12 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		protected Collection<String> getCacheNames() {
-			return this.cacheNames;
+			Collection<String> cacheNames = this.cacheNames;
+			if (cacheNames == null) {
+				cacheNames = createCacheNames(this.caches);
+				this.cacheNames = cacheNames;
+			}
+			return cacheNames;
 		}
 
 		private Collection<String> createCacheNames(Collection<? extends Cache> caches) {
@@ -884,6 +1333,161 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+	/**
+	 * Adapter for asynchronous method return types, allowing for caching the
+	 * eventual result value rather than the asynchronous handle itself.
+	 */
+	private interface AsyncResultAdapter {
+
+		/**
+		 * Adapt the given return value of the method to a future for its result value.
+		 */
+		CompletableFuture<?> toFuture(@Nullable Object returnValue);
+
+		/**
+		 * Expose the future for a cached or loaded result value as the method's return type.
+		 */
+		Object adaptFuture(Supplier<CompletableFuture<?>> futureSupplier);
+
+		/**
+		 * Decorate the given return value of the method with a callback for its result value,
+		 * or with a callback for the case of an empty result without any value to cache.
+		 */
+		@Nullable
+		Object adaptResult(@Nullable Object returnValue, Consumer<Object> resultCallback, Runnable emptyCallback);
+
+		@Nullable
+		static AsyncResultAdapter forReturnType(Class<?> returnType) {
+			if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+				return CompletableFutureResultAdapter.INSTANCE;
+			}
+			if (reactorPresent) {
+				return ReactorResultAdapters.forReturnType(returnType);
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * {@link AsyncResultAdapter} for {@link CompletableFuture} and {@link CompletionStage}.
+	 */
+	private static final class CompletableFutureResultAdapter implements AsyncResultAdapter {
+
+		static final CompletableFutureResultAdapter INSTANCE = new CompletableFutureResultAdapter();
+
+		@Override
+		public CompletableFuture<?> toFuture(@Nullable Object returnValue) {
+			return (returnValue instanceof CompletionStage<?> stage ? stage.toCompletableFuture() :
+					CompletableFuture.completedFuture(returnValue));
+		}
+
+		@Override
+		public Object adaptFuture(Supplier<CompletableFuture<?>> futureSupplier) {
+			return futureSupplier.get();
+		}
+
+		@Override
+		@Nullable
+		public Object adaptResult(@Nullable Object returnValue, Consumer<Object> resultCallback,
+				Runnable emptyCallback) {
+
+			if (returnValue instanceof CompletionStage<?> stage) {
+				return stage.toCompletableFuture().thenApply(value -> {
+					resultCallback.accept(value);
+					return value;
+				});
+			}
+			resultCallback.accept(returnValue);
+			return returnValue;
+		}
+	}
+
+
+	/**
+	 * {@link AsyncResultAdapter} variants for Reactor's {@link Mono} and {@link Flux},
+	 * the latter getting its elements cached as a {@code List}.
+	 */
+	private static final class ReactorResultAdapters {
+
+		static final AsyncResultAdapter MONO = new AsyncResultAdapter() {
+
+			@Override
+			public CompletableFuture<?> toFuture(@Nullable Object returnValue) {
+				return (returnValue instanceof Mono<?> mono ? mono.toFuture() :
+						CompletableFuture.completedFuture(returnValue));
+			}
+
+			@Override
+			public Object adaptFuture(Supplier<CompletableFuture<?>> futureSupplier) {
+				return Mono.defer(() -> Mono.fromFuture(futureSupplier.get()));
+			}
+
+			@Override
+			@Nullable
+			public Object adaptResult(@Nullable Object returnValue, Consumer<Object> resultCallback,
+					Runnable emptyCallback) {
+
+				if (returnValue instanceof Mono<?> mono) {
+					return mono.doOnSuccess(value -> {
+						if (value != null) {
+							resultCallback.accept(value);
+						}
+						else {
+							emptyCallback.run();
+						}
+					});
+				}
+				resultCallback.accept(returnValue);
+				return returnValue;
+			}
+		};
+
+		static final AsyncResultAdapter FLUX = new AsyncResultAdapter() {
+
+			@Override
+			public CompletableFuture<?> toFuture(@Nullable Object returnValue) {
+				return (returnValue instanceof Flux<?> flux ? flux.collectList().toFuture() :
+						CompletableFuture.completedFuture(returnValue));
+			}
+
+			@Override
+			public Object adaptFuture(Supplier<CompletableFuture<?>> futureSupplier) {
+				return Flux.defer(() -> Mono.fromFuture(futureSupplier.get())
+						.flatMapIterable(ReactorResultAdapters::asIterable));
+			}
+
+			@Override
+			@Nullable
+			public Object adaptResult(@Nullable Object returnValue, Consumer<Object> resultCallback,
+					Runnable emptyCallback) {
+
+				if (returnValue instanceof Flux<?> flux) {
+					return flux.collectList().doOnSuccess(resultCallback).flatMapIterable(Function.identity());
+				}
+				resultCallback.accept(returnValue);
+				return returnValue;
+			}
+		};
+
+		@Nullable
+		static AsyncResultAdapter forReturnType(Class<?> returnType) {
+			if (returnType == Mono.class) {
+				return MONO;
+			}
+			if (returnType == Flux.class) {
+				return FLUX;
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static Iterable<Object> asIterable(Object cachedValue) {
+			return (Iterable<Object>) cachedValue;
+		}
+	}
+
+
 	/**
 	 * Internal holder class for recording that a cache method was invoked.
 	 */
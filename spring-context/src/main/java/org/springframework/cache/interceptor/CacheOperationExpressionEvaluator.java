@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -99,6 +99,52 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		return evaluationContext;
 	}
 
+	/**
+	 * Determine whether the given key expression is a plain reference to a method
+	 * argument (e.g. {@code "#id"}, {@code "#p0"} or {@code "#a0"}), in which case
+	 * the key can be taken from the arguments directly without evaluating the
+	 * expression, resolving variables the same way as {@link CacheEvaluationContext}.
+	 * @param keyExpression the key expression
+	 * @param targetMethod the target method, as used for the evaluation context
+	 * @return the index of the referenced argument, or {@code -1} if the
+	 * expression is not a plain argument reference
+	 * @since 6.0
+	 */
+	public int getArgumentIndex(String keyExpression, Method targetMethod) {
+		String expression = keyExpression.trim();
+		if (expression.length() < 2 || expression.charAt(0) != '#' || targetMethod.isVarArgs() ||
+				!isIdentifier(expression, 1)) {
+			return -1;
+		}
+		String name = expression.substring(1);
+		if (name.equals(RESULT_VARIABLE) || name.equals("root") || name.equals("this")) {
+			return -1;
+		}
+		String[] paramNames = getParameterNameDiscoverer().getParameterNames(targetMethod);
+		int paramCount = (paramNames != null ? paramNames.length : targetMethod.getParameterCount());
+		int index = -1;
+		// Later variables override earlier ones with the same name, as in the evaluation context
+		for (int i = 0; i < paramCount; i++) {
+			if (name.equals("a" + i) || name.equals("p" + i) ||
+					(paramNames != null && name.equals(paramNames[i]))) {
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	private static boolean isIdentifier(String expression, int start) {
+		if (!Character.isJavaIdentifierStart(expression.charAt(start))) {
+			return false;
+		}
+		for (int i = start + 1; i < expression.length(); i++) {
+			if (!Character.isJavaIdentifierPart(expression.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Nullable
 	public Object key(String keyExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
 		return getExpression(this.keyCache, methodKey, keyExpression).getValue(evalContext);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,22 @@ public interface CacheOperationInvoker {
 	@Nullable
 	Object invoke() throws ThrowableWrapper;
 
+	/**
+	 * Invoke the cache operation with the given arguments instead of the
+	 * original arguments of the intercepted method, leaving the original
+	 * argument array untouched.
+	 * <p>The default implementation ignores the given arguments and delegates
+	 * to {@link #invoke()}, for invokers which cannot replace the arguments.
+	 * @param args the arguments to invoke the operation with
+	 * @return the result of the operation
+	 * @throws ThrowableWrapper if an error occurred while invoking the operation
+	 * @since 6.0
+	 */
+	@Nullable
+	default Object invoke(Object[] args) throws ThrowableWrapper {
+		return invoke();
+	}
+
 
 	/**
 	 * Wrap any exception thrown while invoking {@link #invoke()}.
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Helper for {@link org.springframework.cache.Cache} implementations that
+ * coalesces concurrent asynchronous loads of the same key: only one load per
+ * key is in flight at any given time, with concurrent callers for the same key
+ * subscribing to the outcome of that load rather than initiating their own.
+ *
+ * <p>Loads are expressed in terms of store values: the given loader callback
+ * is expected to check the store, initiate the computation of a new value if
+ * necessary, and register the corresponding store value once it is available.
+ * The resulting store value is then shared with all concurrent callers.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see org.springframework.cache.Cache#retrieve(Object, Supplier)
+ */
+public final class CoalescingValueLoader {
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Obtain the store value for the given key asynchronously, either joining
+	 * a load that is already in progress for the same key or invoking the
+	 * given loader.
+	 * @param key the key to load the value for
+	 * @param storeValueLoader the callback for initiating the load of the store
+	 * value (typically checking the store first, then computing the value and
+	 * registering the store value once the value is available)
+	 * @return a future for the store value, shared with concurrent callers
+	 */
+	public CompletableFuture<Object> loadAsync(Object key, Supplier<CompletableFuture<?>> storeValueLoader) {
+		CompletableFuture<Object> newLoad = new CompletableFuture<>();
+		CompletableFuture<Object> existingLoad = this.loads.putIfAbsent(key, newLoad);
+		if (existingLoad != null) {
+			return existingLoad.copy();
+		}
+		CompletableFuture<?> future;
+		try {
+			future = storeValueLoader.get();
+		}
+		catch (Throwable ex) {
+			future = CompletableFuture.failedFuture(ex);
+		}
+		future.whenComplete((storeValue, ex) -> {
+			this.loads.remove(key, newLoad);
+			if (ex != null) {
+				newLoad.completeExceptionally(unwrap(ex));
+			}
+			else {
+				newLoad.complete(storeValue);
+			}
+		});
+		return newLoad.copy();
+	}
+
+	private static Throwable unwrap(Throwable ex) {
+		return (ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+	}
+
+}
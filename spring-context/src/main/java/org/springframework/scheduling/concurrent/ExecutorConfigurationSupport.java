@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.lang.Nullable;
 
 /**
@@ -55,6 +56,8 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 
 	private boolean threadNamePrefixSet = false;
 
+	private boolean virtualThreads = false;
+
 	private RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.AbortPolicy();
 
 	private boolean waitForTasksToCompleteOnShutdown = false;
@@ -86,6 +89,22 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		this.threadFactory = (threadFactory != null ? threadFactory : this);
 	}
 
+	/**
+	 * Specify whether to use virtual threads instead of platform threads for
+	 * the ExecutorService's workers. Requires JDK 21 or higher.
+	 * <p>Default is {@code false}. If set to {@code true}, the pool creates
+	 * virtual threads named according to the thread name prefix, unless an
+	 * external {@link #setThreadFactory ThreadFactory} has been specified.
+	 * The pool size settings continue to apply, effectively limiting the
+	 * concurrency of the virtual threads; for unbounded use, consider a
+	 * {@link VirtualThreadTaskExecutor} instead.
+	 * @since 6.0
+	 * @see VirtualThreadTaskExecutor#getVirtualThreadFactory()
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
 	@Override
 	public void setThreadNamePrefix(@Nullable String threadNamePrefix) {
 		super.setThreadNamePrefix(threadNamePrefix);
@@ -183,7 +202,11 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		if (!this.threadNamePrefixSet && this.beanName != null) {
 			setThreadNamePrefix(this.beanName + "-");
 		}
-		this.executor = initializeExecutor(this.threadFactory, this.rejectedExecutionHandler);
+		ThreadFactory factory = this.threadFactory;
+		if (this.virtualThreads && factory == this) {
+			factory = new VirtualThreadTaskExecutor(getThreadNamePrefix()).getVirtualThreadFactory();
+		}
+		this.executor = initializeExecutor(factory, this.rejectedExecutionHandler);
 	}
 
 	/**
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BoundedConcurrentMap}.
+ *
+ * @author agent (agent@local)
+ */
+class BoundedConcurrentMapTests {
+
+	private final AtomicLong ticker = new AtomicLong();
+
+	private final List<String> evicted = new ArrayList<>();
+
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		BoundedConcurrentMap<String, String> map = createMap(3, null);
+		map.put("a", "1");
+		map.put("b", "2");
+		map.put("c", "3");
+		assertThat(map.get("a")).isEqualTo("1");
+		assertThat(map.get("c")).isEqualTo("3");
+		map.put("d", "4");
+		assertThat(map).hasSize(3).containsOnlyKeys("a", "c", "d");
+		assertThat(this.evicted).containsExactly("b");
+		assertThat(map.getWeight()).isEqualTo(3);
+	}
+
+	@Test
+	void evictsInInsertionOrderWithoutReads() {
+		BoundedConcurrentMap<String, String> map = createMap(2, null);
+		map.put("a", "1");
+		map.put("b", "2");
+		map.put("c", "3");
+		map.put("d", "4");
+		assertThat(map).containsOnlyKeys("c", "d");
+		assertThat(this.evicted).containsExactly("a", "b");
+	}
+
+	@Test
+	void replaceDoesNotCountTwice() {
+		BoundedConcurrentMap<String, String> map = createMap(2, null);
+		for (int i = 0; i < 100; i++) {
+			map.put("a", "1-" + i);
+			map.put("b", "2-" + i);
+		}
+		assertThat(map).hasSize(2);
+		assertThat(map.getWeight()).isEqualTo(2);
+		assertThat(map.get("a")).isEqualTo("1-99");
+		assertThat(this.evicted).isEmpty();
+	}
+
+	@Test
+	void evictsByWeight() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(10,
+				(key, value) -> value.length(), null, (key, value) -> this.evicted.add(key), this.ticker::get);
+		map.put("a", "12345");
+		map.put("b", "1234");
+		assertThat(map.getWeight()).isEqualTo(9);
+		map.put("c", "12");
+		assertThat(map).containsOnlyKeys("b", "c");
+		assertThat(map.getWeight()).isEqualTo(6);
+	}
+
+	@Test
+	void expiresAfterTimeToLive() {
+		BoundedConcurrentMap<String, String> map = createMap(Long.MAX_VALUE, Duration.ofNanos(100));
+		map.put("a", "1");
+		this.ticker.set(50);
+		map.put("b", "2");
+		assertThat(map.get("a")).isEqualTo("1");
+		this.ticker.set(100);
+		assertThat(map.get("a")).isNull();
+		assertThat(map.containsKey("a")).isFalse();
+		assertThat(map.get("b")).isEqualTo("2");
+		assertThat(this.evicted).containsExactly("a");
+		this.ticker.set(200);
+		map.put("c", "3");
+		assertThat(map).containsOnlyKeys("c");
+		assertThat(this.evicted).containsExactly("a", "b");
+	}
+
+	@Test
+	void putIfAbsentReplacesExpiredEntry() {
+		BoundedConcurrentMap<String, String> map = createMap(Long.MAX_VALUE, Duration.ofNanos(100));
+		assertThat(map.putIfAbsent("a", "1")).isNull();
+		assertThat(map.putIfAbsent("a", "2")).isEqualTo("1");
+		this.ticker.set(100);
+		assertThat(map.putIfAbsent("a", "3")).isNull();
+		assertThat(map.get("a")).isEqualTo("3");
+		assertThat(this.evicted).containsExactly("a");
+	}
+
+	@Test
+	void conditionalOperations() {
+		BoundedConcurrentMap<String, String> map = createMap(10, null);
+		assertThat(map.replace("a", "1")).isNull();
+		map.put("a", "1");
+		assertThat(map.replace("a", "2")).isEqualTo("1");
+		assertThat(map.replace("a", "1", "3")).isFalse();
+		assertThat(map.replace("a", "2", "3")).isTrue();
+		assertThat(map.remove("a", "2")).isFalse();
+		assertThat(map.remove("a", "3")).isTrue();
+		assertThat(map).isEmpty();
+		assertThat(map.getWeight()).isZero();
+	}
+
+	@Test
+	void clearAndIterate() {
+		BoundedConcurrentMap<String, String> map = createMap(10, null);
+		map.put("a", "1");
+		map.put("b", "2");
+		assertThat(map.entrySet()).hasSize(2);
+		map.entrySet().removeIf(entry -> entry.getKey().equals("a"));
+		assertThat(map).containsOnlyKeys("b");
+		map.clear();
+		assertThat(map).isEmpty();
+		assertThat(map.getWeight()).isZero();
+		assertThat(this.evicted).isEmpty();
+	}
+
+	@Test
+	void staysBoundedUnderConcurrentWrites() throws Exception {
+		BoundedConcurrentMap<Integer, Integer> map = new BoundedConcurrentMap<>(100);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10000; i++) {
+						int key = ThreadLocalRandom.current().nextInt(1000);
+						if (map.get(key) == null) {
+							map.put(key, key);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(map.size()).isLessThanOrEqualTo(100);
+		assertThat(map.getWeight()).isEqualTo(map.size());
+	}
+
+
+	private BoundedConcurrentMap<String, String> createMap(long maximumSize, Duration timeToLive) {
+		return new BoundedConcurrentMap<>(maximumSize, null, timeToLive,
+				(key, value) -> this.evicted.add(key), this.ticker::get);
+	}
+
+}
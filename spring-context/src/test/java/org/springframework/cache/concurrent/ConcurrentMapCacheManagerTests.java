@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,15 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
  * @author Juergen Hoeller
@@ -131,4 +134,89 @@ public class ConcurrentMapCacheManagerTests {
 		assertThat(cache1x.get("key")).isNull();
 	}
 
+	@Test
+	public void testMaximumSize() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setMaximumSize(2);
+		cm.setRecordStatistics(true);
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1.getNativeCache()).isInstanceOf(BoundedConcurrentMap.class);
+
+		cache1.put("key1", "value1");
+		cache1.put("key2", "value2");
+		assertThat(cache1.get("key1").get()).isEqualTo("value1");
+		cache1.put("key3", "value3");
+		assertThat(cache1.getNativeCache()).hasSize(2);
+		assertThat(cache1.get("key1").get()).isEqualTo("value1");
+		assertThat(cache1.get("key2")).isNull();
+
+		ConcurrentMapCacheStatistics statistics = cache1.getStatistics();
+		assertThat(statistics).isNotNull();
+		assertThat(statistics.getHitCount()).isEqualTo(2);
+		assertThat(statistics.getMissCount()).isEqualTo(1);
+		assertThat(statistics.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testMaximumWeightWithStoreByValue() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setBeanClassLoader(getClass().getClassLoader());
+		cm.setStoreByValue(true);
+		cm.setWeigher((key, value) -> ((byte[]) value).length);
+		cm.setMaximumWeight(1024);
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1.isStoreByValue()).isTrue();
+
+		for (int i = 0; i < 100; i++) {
+			cache1.put("key" + i, "value" + i);
+		}
+		BoundedConcurrentMap<?, ?> store = (BoundedConcurrentMap<?, ?>) cache1.getNativeCache();
+		assertThat(store.getWeight()).isLessThanOrEqualTo(1024);
+		assertThat(store.size()).isLessThan(100);
+		assertThat(cache1.get("key99").get()).isEqualTo("value99");
+	}
+
+	@Test
+	public void testMaximumSizeNotCombinableWithWeigher() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setWeigher((key, value) -> 1);
+		assertThatIllegalStateException().isThrownBy(() -> cm.setMaximumSize(2));
+
+		ConcurrentMapCacheManager cm2 = new ConcurrentMapCacheManager("c1");
+		cm2.setMaximumSize(2);
+		assertThatIllegalStateException().isThrownBy(() -> cm2.setWeigher((key, value) -> 1));
+		assertThatIllegalStateException().isThrownBy(() -> cm2.setMaximumWeight(1024));
+	}
+
+	@Test
+	public void testTimeToLive() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setTimeToLive(Duration.ofMinutes(10));
+		assertThat(cm.getTimeToLive()).isEqualTo(Duration.ofMinutes(10));
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1.getNativeCache()).isInstanceOf(BoundedConcurrentMap.class);
+		assertThat(cache1.getStatistics()).isNull();
+		cache1.put("key1", "value1");
+		assertThat(cache1.get("key1").get()).isEqualTo("value1");
+	}
+
+	@Test
+	public void testLoadStatistics() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		assertThat(cm.isRecordStatistics()).isFalse();
+		cm.setRecordStatistics(true);
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1.getNativeCache()).isNotInstanceOf(BoundedConcurrentMap.class);
+
+		assertThat(cache1.get("key1", () -> "value1")).isEqualTo("value1");
+		assertThat(cache1.get("key1", () -> "value2")).isEqualTo("value1");
+		ConcurrentMapCacheStatistics statistics = cache1.getStatistics();
+		assertThat(statistics.getHitCount()).isEqualTo(1);
+		assertThat(statistics.getMissCount()).isEqualTo(1);
+		assertThat(statistics.getHitRate()).isEqualTo(0.5);
+		assertThat(statistics.getLoadSuccessCount()).isEqualTo(1);
+		assertThat(statistics.getLoadFailureCount()).isEqualTo(0);
+		assertThat(statistics.getTotalLoadTime()).isGreaterThanOrEqualTo(0);
+	}
+
 }
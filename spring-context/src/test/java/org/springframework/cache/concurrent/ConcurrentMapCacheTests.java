@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,15 @@ package org.springframework.cache.concurrent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +36,7 @@ import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheT
 import org.springframework.core.serializer.support.SerializationDelegate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
@@ -115,6 +123,79 @@ public class ConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<Con
 			.withMessageContaining("Some garbage");
 	}
 
+	@Test
+	public void testGetWithValueLoaderCoalescesConcurrentLoads() throws Exception {
+		String key = createRandomKey();
+		AtomicInteger invocations = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> this.cache.get(key, () -> {
+					invocations.incrementAndGet();
+					loading.countDown();
+					release.await();
+					return "value";
+				})));
+			}
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(this.cache.get(key).get()).isEqualTo("value");
+	}
+
+	@Test
+	public void testRetrieve() throws Exception {
+		String key = createRandomKey();
+		assertThat(this.cache.retrieve(key)).isNull();
+		this.cache.put(key, "value");
+		assertThat(this.cache.retrieve(key).get()).isEqualTo("value");
+		this.cache.put(key, null);
+		assertThat(this.cache.retrieve(key).get()).isNull();
+	}
+
+	@Test
+	public void testRetrieveWithLoaderCoalescesConcurrentLoads() throws Exception {
+		String key = createRandomKey();
+		AtomicInteger invocations = new AtomicInteger();
+		CompletableFuture<String> load = new CompletableFuture<>();
+		CompletableFuture<String> first = this.cache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return load;
+		});
+		CompletableFuture<String> second = this.cache.retrieve(key, () -> {
+			invocations.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		assertThat(first).isNotDone();
+		assertThat(second).isNotDone();
+		load.complete("value");
+		assertThat(first.get()).isEqualTo("value");
+		assertThat(second.get()).isEqualTo("value");
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(this.cache.get(key).get()).isEqualTo("value");
+		assertThat(this.cache.retrieve(key, () -> CompletableFuture.completedFuture("other")).get()).isEqualTo("value");
+	}
+
+	@Test
+	public void testRetrieveWithFailingLoader() {
+		String key = createRandomKey();
+		CompletableFuture<String> result = this.cache.retrieve(key,
+				() -> CompletableFuture.failedFuture(new IllegalStateException("expected")));
+		assertThatExceptionOfType(Exception.class).isThrownBy(result::get)
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get(key)).isNull();
+	}
+
 
 	private ConcurrentMapCache createCacheWithStoreByValue() {
 		return new ConcurrentMapCache(CACHE_NAME, this.nativeCache, true,
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for caching the result values of methods returning a
+ * {@link CompletableFuture}, a {@link Mono} or a {@link Flux}.
+ *
+ * @author agent (agent@local)
+ */
+public class CacheAsyncReturnTypeTests {
+
+	private ConfigurableApplicationContext context;
+
+	private AsyncService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setUp() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.context.getBean(CacheInterceptor.class).setAsyncResultCaching(true);
+		this.service = this.context.getBean(AsyncService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+	}
+
+	@AfterEach
+	public void closeContext() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void completableFuture() throws Exception {
+		Long first = this.service.future("key").get();
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.future("key").get()).isEqualTo(first);
+		assertThat(this.service.future("other").get()).isNotEqualTo(first);
+	}
+
+	@Test
+	public void completableFutureSync() throws Exception {
+		Long first = this.service.futureSync("key").get();
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.futureSync("key").get()).isEqualTo(first);
+	}
+
+	@Test
+	public void completableFutureFailureNotCached() {
+		assertThatExceptionOfType(Exception.class).isThrownBy(() -> this.service.failingFuture("key").get())
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	public void completableFutureEvict() throws Exception {
+		Long first = this.service.future("key").get();
+		this.service.evict("key").get();
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.future("key").get()).isNotEqualTo(first);
+	}
+
+	@Test
+	public void mono() {
+		Mono<Long> mono = this.service.mono("key");
+		assertThat(this.cache.get("key")).isNull();
+		Long first = mono.block();
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.mono("key").block()).isEqualTo(first);
+	}
+
+	@Test
+	public void monoSync() {
+		Long first = this.service.monoSync("key").block();
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.monoSync("key").block()).isEqualTo(first);
+	}
+
+	@Test
+	public void emptyMonoNotCached() {
+		assertThat(this.service.emptyMono("key").block()).isNull();
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.emptyMono("key").block()).isNull();
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	public void emptyMonoSyncNotCached() {
+		assertThat(this.service.emptyMonoSync("key").block()).isNull();
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+	@Test
+	public void flux() {
+		List<Long> first = this.service.flux("key").collectList().block();
+		assertThat(first).hasSize(2);
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.flux("key").collectList().block()).isEqualTo(first);
+	}
+
+	@Test
+	public void fluxSync() {
+		List<Long> first = this.service.fluxSync("key").collectList().block();
+		assertThat(this.cache.get("key").get()).isEqualTo(first);
+		assertThat(this.service.fluxSync("key").collectList().block()).isEqualTo(first);
+	}
+
+	@Test
+	public void asyncResultCachingNotEnabledByDefault() throws Exception {
+		try (ConfigurableApplicationContext defaultContext = new AnnotationConfigApplicationContext(Config.class)) {
+			assertThat(defaultContext.getBean(CacheInterceptor.class).isAsyncResultCaching()).isFalse();
+			AsyncService defaultService = defaultContext.getBean(AsyncService.class);
+			Cache defaultCache = defaultContext.getBean(CacheManager.class).getCache("test");
+			CompletableFuture<Long> first = defaultService.future("key");
+			assertThat(defaultCache.get("key").get()).isSameAs(first);
+			assertThat(defaultService.future("key")).isSameAs(first);
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("test");
+			cacheManager.setAllowNullValues(false);
+			return cacheManager;
+		}
+
+		@Bean
+		public AsyncService asyncService() {
+			return new AsyncService();
+		}
+	}
+
+
+	@Cacheable("test")
+	public static class AsyncService {
+
+		private final AtomicLong counter = new AtomicLong();
+
+		public CompletableFuture<Long> future(Object key) {
+			return CompletableFuture.supplyAsync(this.counter::getAndIncrement);
+		}
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public CompletableFuture<Long> futureSync(Object key) {
+			return CompletableFuture.supplyAsync(this.counter::getAndIncrement);
+		}
+
+		public CompletableFuture<Long> failingFuture(Object key) {
+			return CompletableFuture.failedFuture(new IllegalStateException("expected"));
+		}
+
+		@CacheEvict("test")
+		public CompletableFuture<Void> evict(Object key) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		public Mono<Long> mono(Object key) {
+			return Mono.fromSupplier(this.counter::getAndIncrement);
+		}
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public Mono<Long> monoSync(Object key) {
+			return Mono.fromSupplier(this.counter::getAndIncrement);
+		}
+
+		public Mono<Long> emptyMono(Object key) {
+			return Mono.empty();
+		}
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public Mono<Long> emptyMonoSync(Object key) {
+			return Mono.empty();
+		}
+
+		public Flux<Long> flux(Object key) {
+			return Flux.just(this.counter.getAndIncrement(), this.counter.getAndIncrement());
+		}
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public Flux<Long> fluxSync(Object key) {
+			return Flux.just(this.counter.getAndIncrement(), this.counter.getAndIncrement());
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@code @Cacheable(batch=true)} operations.
+ *
+ * @author agent (agent@local)
+ */
+public class CacheBatchTests {
+
+	private ConfigurableApplicationContext context;
+
+	private BatchService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setUp() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(BatchService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+	}
+
+	@AfterEach
+	public void closeContext() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void loadsMissingKeysOnly() {
+		assertThat(this.service.find(List.of("a", "b"))).containsExactly(entry("a"), entry("b"));
+		assertThat(this.cache.get("a").get()).isEqualTo("A");
+		assertThat(this.cache.get("b").get()).isEqualTo("B");
+
+		Map<String, String> result = this.service.find(List.of("b", "c", "a"));
+		assertThat(result).containsExactly(entry("b"), entry("c"), entry("a"));
+		assertThat(this.service.getInvocations()).containsExactly(List.of("a", "b"), List.of("c"));
+	}
+
+	@Test
+	public void allKeysCached() {
+		this.service.find(List.of("a", "b"));
+		assertThat(this.service.find(List.of("b", "a"))).containsExactly(entry("b"), entry("a"));
+		assertThat(this.service.getInvocations()).hasSize(1);
+	}
+
+	@Test
+	public void keyArgumentTypeIsPreserved() {
+		this.service.findSet("x", Set.of("a"));
+		this.service.findSet("x", Set.of("a", "b"));
+		assertThat(this.service.getInvocations()).hasSize(2);
+		assertThat(this.service.getInvocations().get(1)).isInstanceOf(Set.class).containsExactly("b");
+	}
+
+	@Test
+	public void unlessIsEvaluatedPerValue() {
+		Map<String, String> result = this.service.findWithUnless(List.of("a", "none"));
+		assertThat(result).containsOnlyKeys("a", "none");
+		assertThat(this.cache.get("a").get()).isEqualTo("A");
+		assertThat(this.cache.get("none")).isNull();
+
+		this.service.findWithUnless(List.of("a", "none"));
+		assertThat(this.service.getInvocations()).containsExactly(List.of("a", "none"), List.of("none"));
+	}
+
+	@Test
+	public void conditionNotPassing() {
+		this.service.findWithCondition(List.of("a", "b", "c"));
+		this.service.findWithCondition(List.of("a", "b", "c"));
+		assertThat(this.service.getInvocations()).hasSize(2);
+		assertThat(this.cache.get("a")).isNull();
+	}
+
+	@Test
+	public void invalidKeyArgument() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.invalidKey("x", List.of("a")))
+				.withMessageContaining("Collection argument");
+	}
+
+	@Test
+	public void nullKeyRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.service.find(Arrays.asList("a", null)))
+				.withMessageContaining("null keys");
+		assertThat(this.service.getInvocations()).isEmpty();
+	}
+
+	@Test
+	public void invalidReturnType() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.invalidReturnType(List.of("a")))
+				.withMessageContaining("Map return type");
+	}
+
+	@Test
+	public void invalidSync() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.invalidSync(List.of("a")))
+				.withMessageContaining("sync=true");
+	}
+
+
+	private static Map.Entry<String, String> entry(String key) {
+		return Map.entry(key, key.toUpperCase());
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		BatchService batchService() {
+			return new BatchService();
+		}
+	}
+
+
+	static class BatchService {
+
+		private final List<Collection<String>> invocations = new ArrayList<>();
+
+		public List<Collection<String>> getInvocations() {
+			return this.invocations;
+		}
+
+		@Cacheable(cacheNames = "test", batch = true)
+		public Map<String, String> find(List<String> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "test", key = "#p1", batch = true)
+		public Map<String, String> findSet(String prefix, Set<String> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "test", batch = true, unless = "#result == null")
+		public Map<String, String> findWithUnless(List<String> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "test", batch = true, condition = "#p0.size() < 3")
+		public Map<String, String> findWithCondition(List<String> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "test", batch = true)
+		public Map<String, String> invalidKey(String prefix, List<String> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(cacheNames = "test", batch = true)
+		public List<String> invalidReturnType(List<String> ids) {
+			return ids;
+		}
+
+		@Cacheable(cacheNames = "test", batch = true, sync = true)
+		public Map<String, String> invalidSync(List<String> ids) {
+			return load(ids);
+		}
+
+		private Map<String, String> load(Collection<String> ids) {
+			this.invocations.add(ids);
+			Map<String, String> result = new LinkedHashMap<>();
+			for (String id : ids) {
+				result.put(id, (id.equals("none") ? null : id.toUpperCase()));
+			}
+			return result;
+		}
+	}
+
+}
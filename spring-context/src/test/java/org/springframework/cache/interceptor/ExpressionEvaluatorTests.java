@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -136,6 +136,35 @@ public class ExpressionEvaluatorTests {
 		assertThat(value).isEqualTo(String.class.getName());
 	}
 
+	@Test
+	public void argumentIndexForPlainArgumentReference() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		assertThat(this.eval.getArgumentIndex("#a", method)).isEqualTo(0);
+		assertThat(this.eval.getArgumentIndex(" #b ", method)).isEqualTo(1);
+		assertThat(this.eval.getArgumentIndex("#p0", method)).isEqualTo(0);
+		assertThat(this.eval.getArgumentIndex("#a1", method)).isEqualTo(1);
+	}
+
+	@Test
+	public void argumentIndexForOtherExpressions() {
+		Method method = ReflectionUtils.findMethod(
+				AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		assertThat(this.eval.getArgumentIndex("#c", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("#p2", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("#a.toString()", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("#root.args[0]", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("#result", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("'a'", method)).isEqualTo(-1);
+		assertThat(this.eval.getArgumentIndex("#", method)).isEqualTo(-1);
+	}
+
+	@Test
+	public void argumentIndexWithVarArgs() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "varArgs", Object[].class);
+		assertThat(this.eval.getArgumentIndex("#p0", method)).isEqualTo(-1);
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		return createEvaluationContext(result, null);
 	}
@@ -156,6 +185,10 @@ public class ExpressionEvaluatorTests {
 		@Caching(cacheable = { @Cacheable(value = "test", key = "#a"), @Cacheable(value = "test", key = "#b") })
 		public void multipleCaching(Object a, Object b) {
 		}
+
+		@Cacheable(value = "test", key = "#p0")
+		public void varArgs(Object... args) {
+		}
 	}
 
 }
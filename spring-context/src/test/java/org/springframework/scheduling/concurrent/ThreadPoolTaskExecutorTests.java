@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,9 +21,11 @@ import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * @author Juergen Hoeller
@@ -112,4 +114,21 @@ class ThreadPoolTaskExecutorTests extends AbstractSchedulingTaskExecutorTests {
 		assertThat(executor.getThreadPoolExecutor().getKeepAliveTime(TimeUnit.SECONDS)).isEqualTo(60);
 	}
 
+	@Test
+	void virtualThreads() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported(), "Virtual threads not supported");
+		ThreadPoolTaskExecutor virtualExecutor = new ThreadPoolTaskExecutor();
+		virtualExecutor.setThreadNamePrefix("virtual-");
+		virtualExecutor.setVirtualThreads(true);
+		virtualExecutor.afterPropertiesSet();
+		try {
+			Thread thread = virtualExecutor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+			assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+			assertThat(thread.getName()).startsWith("virtual-");
+		}
+		finally {
+			virtualExecutor.shutdown();
+		}
+	}
+
 }
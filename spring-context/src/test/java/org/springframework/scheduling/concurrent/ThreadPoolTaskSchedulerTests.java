@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,12 +26,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.TriggerContext;
 import org.springframework.util.ErrorHandler;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * @author Mark Fisher
@@ -96,6 +98,25 @@ public class ThreadPoolTaskSchedulerTests extends AbstractSchedulingTaskExecutor
 		assertThreadNamePrefix(task);
 	}
 
+	@Test
+	void scheduleOneTimeTaskOnVirtualThread() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported(), "Virtual threads not supported");
+		ThreadPoolTaskScheduler virtualScheduler = new ThreadPoolTaskScheduler();
+		virtualScheduler.setThreadNamePrefix(this.threadNamePrefix);
+		virtualScheduler.setVirtualThreads(true);
+		virtualScheduler.afterPropertiesSet();
+		try {
+			TestTask task = new TestTask(this.testName, 1);
+			Future<?> future = virtualScheduler.schedule(task, new Date());
+			future.get(1000, TimeUnit.MILLISECONDS);
+			assertThat(future.isDone()).isTrue();
+			assertThreadNamePrefix(task);
+		}
+		finally {
+			virtualScheduler.shutdown();
+		}
+	}
+
 	@Test
 	void scheduleOneTimeFailingTaskWithoutErrorHandler() throws Exception {
 		TestTask task = new TestTask(this.testName, 0);
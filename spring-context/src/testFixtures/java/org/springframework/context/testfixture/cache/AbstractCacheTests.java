@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.context.testfixture.cache;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
@@ -113,6 +116,45 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertThat((Object) cache.get("enescu")).isNull();
 	}
 
+	@Test
+	public void testCachePutAllGetAll() {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		String key3 = createRandomKey();
+		assertThat(cache.getAll(Arrays.asList(key1, key2, key3))).isEmpty();
+
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put(key1, "enescu");
+		entries.put(key2, null);
+		cache.putAll(entries);
+		assertThat(cache.get(key1).get()).isEqualTo("enescu");
+		assertThat(cache.get(key2)).isNotNull();
+		assertThat(cache.get(key2).get()).isNull();
+
+		Map<Object, Object> result = cache.getAll(Arrays.asList(key1, key2, key3));
+		assertThat(result).containsOnlyKeys(key1, key2);
+		assertThat(result.get(key1)).isEqualTo("enescu");
+		assertThat(result.get(key2)).isNull();
+	}
+
+	@Test
+	public void testCacheEvictAll() {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		String key3 = createRandomKey();
+		cache.put(key1, "enescu");
+		cache.put(key2, "vlaicu");
+		cache.put(key3, "george");
+		cache.evictAll(Arrays.asList(key1, key2));
+		assertThat(cache.get(key1)).isNull();
+		assertThat(cache.get(key2)).isNull();
+		assertThat(cache.get(key3).get()).isEqualTo("george");
+	}
+
 	@Test
 	public void testCacheGetCallable() {
 		doTestCacheGetCallable("test");
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for blocking I/O-bound tasks on a bounded platform thread pool
+ * versus {@link VirtualThreadTaskExecutor} and {@link SimpleAsyncTaskExecutor}
+ * in virtual thread mode, simulating request handling beyond typical pool limits.
+ * Requires JDK 21+ for the virtual thread variants.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadTaskExecutorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class ExecutorState {
+
+		@Param({"platformPool", "virtual", "simpleVirtual"})
+		public String executorType;
+
+		@Param({"1000", "10000"})
+		public int concurrentRequests;
+
+		@Param("200")
+		public int platformPoolSize;
+
+		@Param("10")
+		public int blockingMillis;
+
+		public TaskExecutor executor;
+
+		private ExecutorService pool;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			switch (this.executorType) {
+				case "platformPool" -> {
+					this.pool = Executors.newFixedThreadPool(this.platformPoolSize);
+					this.executor = this.pool::execute;
+				}
+				case "virtual" -> this.executor = new VirtualThreadTaskExecutor("benchmark-");
+				case "simpleVirtual" -> {
+					SimpleAsyncTaskExecutor simpleExecutor = new SimpleAsyncTaskExecutor("benchmark-");
+					simpleExecutor.setVirtualThreads(true);
+					this.executor = simpleExecutor;
+				}
+				default -> throw new IllegalStateException("Unknown executor type: " + this.executorType);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			if (this.pool != null) {
+				this.pool.shutdownNow();
+			}
+		}
+	}
+
+	@Benchmark
+	public void blockingRequests(ExecutorState state) throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(state.concurrentRequests);
+		for (int i = 0; i < state.concurrentRequests; i++) {
+			state.executor.execute(() -> {
+				try {
+					// simulates a blocking remote call
+					Thread.sleep(state.blockingMillis);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					latch.countDown();
+				}
+			});
+		}
+		latch.await();
+	}
+
+}
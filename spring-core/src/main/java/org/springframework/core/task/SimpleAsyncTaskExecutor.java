@@ -38,7 +38,8 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  *
  * <p><b>NOTE: This implementation does not reuse threads!</b> Consider a
  * thread-pooling TaskExecutor implementation instead, in particular for
- * executing a large number of short-lived tasks.
+ * executing a large number of short-lived tasks. Alternatively, on JDK 21+,
+ * consider setting {@link #setVirtualThreads} to {@code true}.
  *
  * @author Juergen Hoeller
  * @since 2.0
@@ -66,6 +67,11 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	/** Internal concurrency throttle used by this executor. */
 	private final ConcurrencyThrottleAdapter concurrencyThrottle = new ConcurrencyThrottleAdapter();
 
+	private boolean virtualThreads;
+
+	@Nullable
+	private transient volatile ThreadFactory virtualThreadFactory;
+
 	@Nullable
 	private ThreadFactory threadFactory;
 
@@ -97,15 +103,61 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	}
 
 
+	/**
+	 * Switch this executor to virtual threads. Requires JDK 21 or higher.
+	 * <p>The default is {@code false}, indicating platform threads.
+	 * Set this flag to {@code true} in order to create virtual threads instead,
+	 * named according to the current {@link #setThreadNamePrefix thread name prefix}
+	 * when each thread gets created. Any concurrency limit still applies.
+	 * <p>Virtual threads cannot be combined with an external
+	 * {@link #setThreadFactory ThreadFactory}: for custom virtual threads,
+	 * pass a virtual thread factory to {@link #setThreadFactory} instead.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported on the current JVM
+	 * @throws IllegalStateException if an external ThreadFactory has been set
+	 * @since 6.0
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public void setVirtualThreads(boolean virtual) {
+		if (virtual) {
+			Assert.state(this.threadFactory == null,
+					"Virtual threads cannot be combined with an external ThreadFactory");
+			if (!VirtualThreadDelegate.isSupported()) {
+				throw new UnsupportedOperationException("Virtual threads not supported on this JVM");
+			}
+		}
+		this.virtualThreads = virtual;
+		this.virtualThreadFactory = null;
+	}
+
+	/**
+	 * Return whether this executor creates virtual threads.
+	 * @since 6.0
+	 * @see #setVirtualThreads
+	 */
+	public final boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	@Override
+	public void setThreadNamePrefix(@Nullable String threadNamePrefix) {
+		super.setThreadNamePrefix(threadNamePrefix);
+		this.virtualThreadFactory = null;
+	}
+
 	/**
 	 * Specify an external factory to use for creating new Threads,
 	 * instead of relying on the local properties of this executor.
 	 * <p>You may specify an inner ThreadFactory bean or also a ThreadFactory reference
 	 * obtained from JNDI (on a Jakarta EE server) or some other lookup mechanism.
+	 * <p>Not to be combined with {@link #setVirtualThreads}.
+	 * @throws IllegalStateException if virtual threads have been switched on
 	 * @see #setThreadNamePrefix
 	 * @see #setThreadPriority
 	 */
 	public void setThreadFactory(@Nullable ThreadFactory threadFactory) {
+		Assert.state(threadFactory == null || !this.virtualThreads,
+				"An external ThreadFactory cannot be combined with virtual threads");
 		this.threadFactory = threadFactory;
 	}
 
@@ -238,15 +290,35 @@ public class SimpleAsyncTaskExecutor extends CustomizableThreadCreator
 	 * Template method for the actual execution of a task.
 	 * <p>The default implementation creates a new Thread and starts it.
 	 * @param task the Runnable to execute
+	 * @see #setVirtualThreads
 	 * @see #setThreadFactory
 	 * @see #createThread
 	 * @see java.lang.Thread#start()
 	 */
 	protected void doExecute(Runnable task) {
-		Thread thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		Thread thread;
+		if (this.virtualThreads) {
+			thread = getVirtualThreadFactory().newThread(task);
+		}
+		else {
+			thread = (this.threadFactory != null ? this.threadFactory.newThread(task) : createThread(task));
+		}
 		thread.start();
 	}
 
+	/**
+	 * Obtain the virtual thread factory for the current thread name prefix,
+	 * lazily creating it on first use after a prefix change.
+	 */
+	private ThreadFactory getVirtualThreadFactory() {
+		ThreadFactory factory = this.virtualThreadFactory;
+		if (factory == null) {
+			factory = VirtualThreadDelegate.virtualThreadFactory(getThreadNamePrefix());
+			this.virtualThreadFactory = factory;
+		}
+		return factory;
+	}
+
 
 	/**
 	 * Subclass of the general ConcurrencyThrottleSupport class,
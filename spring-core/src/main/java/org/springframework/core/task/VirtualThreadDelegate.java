@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal delegate for virtual thread handling on JDK 21+, accessing the
+ * {@code Thread.Builder} API reflectively since this codebase is compiled
+ * against a JDK 17 baseline. On earlier JDKs (or on JDK 19/20 without the
+ * preview features enabled), all factory methods throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see VirtualThreadTaskExecutor
+ */
+final class VirtualThreadDelegate {
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameWithCounterMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	static {
+		Method ofVirtual = null;
+		Method nameWithCounter = null;
+		Method factory = null;
+		try {
+			Class<?> builderClass = ClassUtils.forName(
+					"java.lang.Thread$Builder", VirtualThreadDelegate.class.getClassLoader());
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			nameWithCounter = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+		}
+		catch (ClassNotFoundException | NoSuchMethodException ex) {
+			// JDK < 19: no virtual thread support at all
+		}
+		ofVirtualMethod = ofVirtual;
+		nameWithCounterMethod = nameWithCounter;
+		factoryMethod = factory;
+	}
+
+
+	private VirtualThreadDelegate() {
+	}
+
+
+	/**
+	 * Determine whether virtual threads are available on the current JVM.
+	 */
+	public static boolean isSupported() {
+		if (ofVirtualMethod == null) {
+			return false;
+		}
+		try {
+			newBuilder();
+			return true;
+		}
+		catch (UnsupportedOperationException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create a {@link ThreadFactory} for virtual threads without specific names.
+	 */
+	public static ThreadFactory virtualThreadFactory() {
+		return (ThreadFactory) invoke(factoryMethod, newBuilder());
+	}
+
+	/**
+	 * Create a {@link ThreadFactory} for virtual threads, naming each thread
+	 * with the given prefix followed by an increasing counter.
+	 * @param threadNamePrefix the prefix to use for the thread names
+	 */
+	public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		Object builder = invoke(nameWithCounterMethod, newBuilder(), threadNamePrefix, 0L);
+		return (ThreadFactory) invoke(factoryMethod, builder);
+	}
+
+
+	private static Object newBuilder() {
+		if (ofVirtualMethod == null) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+		try {
+			return ofVirtualMethod.invoke(null);
+		}
+		catch (ReflectiveOperationException ex) {
+			// JDK 19/20 without --enable-preview
+			throw new UnsupportedOperationException("Virtual threads not enabled on this JVM", ex);
+		}
+	}
+
+	private static Object invoke(@Nullable Method method, Object target, Object... args) {
+		if (method == null) {
+			throw new UnsupportedOperationException("Virtual threads not supported on JDK <21");
+		}
+		Object result = ReflectionUtils.invokeMethod(method, target, args);
+		if (result == null) {
+			throw new IllegalStateException("Unexpected null result from " + method);
+		}
+		return result;
+	}
+
+}
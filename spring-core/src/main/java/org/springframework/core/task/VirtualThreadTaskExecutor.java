@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link TaskExecutor} implementation based on virtual threads in JDK 21+.
+ * The only configuration option is a thread name prefix.
+ *
+ * <p>For additional features such as concurrency limits or task decoration,
+ * consider using {@link SimpleAsyncTaskExecutor#setVirtualThreads} instead.
+ *
+ * <p>Since virtual threads are cheap to create, this executor starts a new
+ * virtual thread for every task and does not pool them. It is a natural fit
+ * for blocking I/O-bound work such as MVC {@code Callable} processing or
+ * {@code @Async} methods, scaling well beyond typical platform thread pool
+ * limits. Note that blocking within a {@code synchronized} block pins the
+ * virtual thread to its carrier thread; prefer {@code java.util.concurrent}
+ * locks in code that runs on this executor.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see SimpleAsyncTaskExecutor#setVirtualThreads
+ */
+public class VirtualThreadTaskExecutor implements AsyncTaskExecutor {
+
+	private final ThreadFactory virtualThreadFactory;
+
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} without thread naming.
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported on the current JVM
+	 */
+	public VirtualThreadTaskExecutor() {
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory();
+	}
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} with thread names based
+	 * on the given thread name prefix followed by a counter (e.g. "test-0").
+	 * @param threadNamePrefix the prefix for thread names (e.g. "test-")
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 * supported on the current JVM
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		this.virtualThreadFactory = VirtualThreadDelegate.virtualThreadFactory(threadNamePrefix);
+	}
+
+
+	/**
+	 * Determine whether virtual threads are available on the current JVM,
+	 * i.e. whether this executor can be instantiated.
+	 */
+	public static boolean isSupported() {
+		return VirtualThreadDelegate.isSupported();
+	}
+
+
+	/**
+	 * Return the underlying virtual {@link ThreadFactory}.
+	 * Can also be used for custom thread creation elsewhere.
+	 */
+	public final ThreadFactory getVirtualThreadFactory() {
+		return this.virtualThreadFactory;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		Assert.notNull(task, "Runnable must not be null");
+		this.virtualThreadFactory.newThread(task).start();
+	}
+
+	@Override
+	@Deprecated
+	public void execute(Runnable task, long startTimeout) {
+		execute(task);
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		execute(future);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future);
+		return future;
+	}
+
+}
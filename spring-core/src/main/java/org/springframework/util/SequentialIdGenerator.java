@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link IdGenerator} that combines random most significant bits, chosen
+ * once per instance, with a counter for the least significant bits. Ids are
+ * monotonically increasing for a given generator instance and cost a single
+ * atomic increment, while ids from different instances, e.g. in different
+ * JVMs, remain distinct with high probability.
+ * <p>Unlike {@link AlternativeJdkIdGenerator}, the generated ids are predictable
+ * and should not be used where an id must not be guessable.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see SimpleIdGenerator
+ */
+public class SequentialIdGenerator implements IdGenerator {
+
+	private final long mostSigBits;
+
+	private final AtomicLong leastSigBits = new AtomicLong();
+
+
+	public SequentialIdGenerator() {
+		long mostSigBits = new SecureRandom().nextLong();
+		// Never produce the all-zero UUID
+		this.mostSigBits = (mostSigBits != 0 ? mostSigBits : 1);
+	}
+
+
+	@Override
+	public UUID generateId() {
+		return new UUID(this.mostSigBits, this.leastSigBits.incrementAndGet());
+	}
+
+}
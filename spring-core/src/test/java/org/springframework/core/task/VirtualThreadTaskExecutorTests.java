@@ -0,0 +1,179 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for {@link VirtualThreadTaskExecutor} and the virtual thread mode
+ * of {@link SimpleAsyncTaskExecutor}. Only effective on JDK 21+.
+ *
+ * @author agent (agent@local)
+ */
+class VirtualThreadTaskExecutorTests {
+
+	@Test
+	void virtualThreadsWithoutName() throws Exception {
+		assumeVirtualThreads();
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		Future<Thread> future = executor.submit(Thread::currentThread);
+		Thread thread = future.get(1, TimeUnit.SECONDS);
+		assertThat(isVirtual(thread)).isTrue();
+		assertThat(thread.getName()).isEmpty();
+	}
+
+	@Test
+	void virtualThreadsWithNamePrefix() throws Exception {
+		assumeVirtualThreads();
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		Thread first = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+		Thread second = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+		assertThat(isVirtual(first)).isTrue();
+		assertThat(first.getName()).isEqualTo("test-0");
+		assertThat(second.getName()).isEqualTo("test-1");
+	}
+
+	@Test
+	void blockingTasksExceedingPlatformThreadLimits() throws Exception {
+		assumeVirtualThreads();
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		int taskCount = 10_000;
+		CountDownLatch started = new CountDownLatch(taskCount);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger completed = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>(taskCount);
+		for (int i = 0; i < taskCount; i++) {
+			futures.add(executor.submit(() -> {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				completed.incrementAndGet();
+			}));
+		}
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		assertThat(completed.get()).isEqualTo(taskCount);
+	}
+
+	@Test
+	void simpleAsyncTaskExecutorWithVirtualThreads() throws Exception {
+		assumeVirtualThreads();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("virtual-");
+		executor.setVirtualThreads(true);
+		assertThat(executor.isVirtualThreads()).isTrue();
+		Thread thread = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+		assertThat(isVirtual(thread)).isTrue();
+		assertThat(thread.getName()).startsWith("virtual-");
+	}
+
+	@Test
+	void simpleAsyncTaskExecutorWithVirtualThreadsAndConcurrencyLimit() throws Exception {
+		assumeVirtualThreads();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		executor.setVirtualThreads(true);
+		executor.setConcurrencyLimit(2);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(executor.submit(() -> {
+				maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				active.decrementAndGet();
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		assertThat(maxActive.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void simpleAsyncTaskExecutorSwitchedBackToPlatformThreads() throws Exception {
+		assumeVirtualThreads();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		executor.setVirtualThreads(true);
+		executor.setVirtualThreads(false);
+		assertThat(executor.isVirtualThreads()).isFalse();
+		Thread thread = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+		assertThat(isVirtual(thread)).isFalse();
+	}
+
+	@Test
+	void simpleAsyncTaskExecutorWithVirtualThreadsAndLaterNamePrefix() throws Exception {
+		assumeVirtualThreads();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		executor.setVirtualThreads(true);
+		executor.setThreadNamePrefix("later-");
+		Thread thread = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+		assertThat(isVirtual(thread)).isTrue();
+		assertThat(thread.getName()).startsWith("later-");
+	}
+
+	@Test
+	void simpleAsyncTaskExecutorRejectsVirtualThreadsWithThreadFactory() {
+		assumeVirtualThreads();
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(Thread::new);
+		assertThatIllegalStateException().isThrownBy(() -> executor.setVirtualThreads(true));
+
+		SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor();
+		virtualExecutor.setVirtualThreads(true);
+		assertThatIllegalStateException().isThrownBy(() -> virtualExecutor.setThreadFactory(Thread::new));
+	}
+
+	@Test
+	void unsupportedWithoutVirtualThreads() {
+		assumeFalse(VirtualThreadTaskExecutor.isSupported(), "Virtual threads supported");
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(
+				VirtualThreadTaskExecutor::new);
+	}
+
+
+	private static void assumeVirtualThreads() {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported(), "Virtual threads not supported");
+	}
+
+	private static boolean isVirtual(Thread thread) throws Exception {
+		return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+	}
+
+}
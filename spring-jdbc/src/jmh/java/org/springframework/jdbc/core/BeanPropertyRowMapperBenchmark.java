@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for mapping rows from an in-memory H2 database through
+ * {@link BeanPropertyRowMapper} and {@link DataClassRowMapper}, compared
+ * to a hand-written {@link RowMapper}.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanPropertyRowMapperBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"1000"})
+		public int rows;
+
+		@Param({"manual", "BeanPropertyRowMapper", "DataClassRowMapper"})
+		public String mapper;
+
+		public EmbeddedDatabase database;
+
+		public JdbcTemplate jdbcTemplate;
+
+		public RowMapper<?> rowMapper;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.database = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+			this.jdbcTemplate = new JdbcTemplate(this.database);
+			this.jdbcTemplate.execute("create table person (id bigint primary key, first_name varchar(50), " +
+					"last_name varchar(50), age int, balance decimal(12,2), last_login timestamp)");
+			List<Object[]> batchArgs = new ArrayList<>(this.rows);
+			for (int i = 0; i < this.rows; i++) {
+				batchArgs.add(new Object[] {i, "first" + i, "last" + i, i % 100,
+						BigDecimal.valueOf(i, 2), new Timestamp(i * 1000L)});
+			}
+			this.jdbcTemplate.batchUpdate("insert into person values (?, ?, ?, ?, ?, ?)", batchArgs);
+			this.rowMapper = switch (this.mapper) {
+				case "BeanPropertyRowMapper" -> new BeanPropertyRowMapper<>(PersonBean.class);
+				case "DataClassRowMapper" -> new DataClassRowMapper<>(PersonRecord.class);
+				default -> (RowMapper<PersonRecord>) (rs, rowNum) -> new PersonRecord(rs.getLong(1),
+						rs.getString(2), rs.getString(3), rs.getInt(4), rs.getBigDecimal(5), rs.getTimestamp(6));
+			};
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			this.database.shutdown();
+		}
+	}
+
+	@Benchmark
+	public List<?> mapRows(BenchmarkState state) {
+		return state.jdbcTemplate.query("select id, first_name, last_name, age, balance, last_login from person",
+				state.rowMapper);
+	}
+
+
+	public record PersonRecord(long id, String firstName, String lastName, int age, BigDecimal balance,
+			Timestamp lastLogin) {
+	}
+
+
+	public static class PersonBean {
+
+		private long id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		private BigDecimal balance;
+
+		private Timestamp lastLogin;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return this.firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return this.lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public BigDecimal getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public Timestamp getLastLogin() {
+			return this.lastLogin;
+		}
+
+		public void setLastLogin(Timestamp lastLogin) {
+			this.lastLogin = lastLogin;
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.metadata.MetaDataProviderCache;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Benchmark for inserting rows into an in-memory H2 database through a
+ * {@link SimpleJdbcInsert} created per operation, with and without a shared
+ * {@link MetaDataProviderCache} and PreparedStatement caching.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SimpleJdbcInsertBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"false", "true"})
+		public boolean metaDataCache;
+
+		@Param({"0", "64"})
+		public int statementCacheSize;
+
+		public SingleConnectionDataSource dataSource;
+
+		public MetaDataProviderCache providerCache;
+
+		public long id;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.dataSource = new SingleConnectionDataSource(
+					"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+			this.dataSource.setStatementCacheSize(this.statementCacheSize);
+			new JdbcTemplate(this.dataSource).execute(
+					"create table person (id bigint primary key, first_name varchar(50), last_name varchar(50), age int)");
+			this.providerCache = (this.metaDataCache ? new MetaDataProviderCache() : null);
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			new JdbcTemplate(this.dataSource).execute("shutdown");
+			this.dataSource.destroy();
+		}
+	}
+
+	@Benchmark
+	public int insert(BenchmarkState state) {
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(state.dataSource).withTableName("person");
+		if (state.providerCache != null) {
+			insert.withMetaDataProviderCache(state.providerCache);
+		}
+		long id = state.id++;
+		return insert.execute(Map.of("id", id, "first_name", "first" + id, "last_name", "last" + id, "age", 42));
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for borrowing and returning Connections from a {@link PoolingDataSource}
+ * under contention, compared to obtaining physical Connections from an embedded
+ * H2 database directly.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(8)
+public class PoolingDataSourceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"unpooled", "pooled"})
+		public String dataSourceType;
+
+		@Param({"2", "8"})
+		public int maxPoolSize;
+
+		public EmbeddedDatabase database;
+
+		public DataSource dataSource;
+
+		public JdbcTemplate jdbcTemplate;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.database = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+			if (this.dataSourceType.equals("pooled")) {
+				PoolingDataSource pool = new PoolingDataSource(this.database);
+				pool.setMaxPoolSize(this.maxPoolSize);
+				pool.setConnectionTimeout(Duration.ofMinutes(1));
+				this.dataSource = pool;
+			}
+			else {
+				this.dataSource = this.database;
+			}
+			this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			if (this.dataSource instanceof PoolingDataSource pool) {
+				pool.destroy();
+			}
+			this.database.shutdown();
+		}
+	}
+
+	@Benchmark
+	public boolean borrowAndReturn(BenchmarkState state) throws SQLException {
+		try (Connection con = state.dataSource.getConnection()) {
+			return con.getAutoCommit();
+		}
+	}
+
+	@Benchmark
+	public Integer query(BenchmarkState state) {
+		return state.jdbcTemplate.queryForObject("select 1", Integer.class);
+	}
+
+}
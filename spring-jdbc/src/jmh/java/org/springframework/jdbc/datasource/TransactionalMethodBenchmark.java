@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * Benchmark for the overhead of invoking {@code @Transactional} methods with a
+ * {@link DataSourceTransactionManager} against an embedded H2 database, covering
+ * the transaction synchronization state management per transaction.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionalMethodBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public EmbeddedDatabase database;
+
+		public PoolingDataSource dataSource;
+
+		public TransactionalService service;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.database = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+			this.dataSource = new PoolingDataSource(this.database);
+			DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(this.dataSource);
+
+			ProxyFactory proxyFactory = new ProxyFactory(new DefaultTransactionalService(this.dataSource));
+			proxyFactory.addInterface(TransactionalService.class);
+			proxyFactory.addAdvice(
+					new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+			this.service = (TransactionalService) proxyFactory.getProxy();
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			this.dataSource.destroy();
+			this.database.shutdown();
+		}
+	}
+
+	@Benchmark
+	public void emptyTransactionalMethod(BenchmarkState state) {
+		state.service.doNothing();
+	}
+
+	@Benchmark
+	public boolean transactionalMethodWithConnectionLookup(BenchmarkState state) {
+		return state.service.lookupConnection();
+	}
+
+
+	public interface TransactionalService {
+
+		@Transactional
+		void doNothing();
+
+		@Transactional
+		boolean lookupConnection();
+	}
+
+
+	static class DefaultTransactionalService implements TransactionalService {
+
+		private final DataSource dataSource;
+
+		DefaultTransactionalService(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		@Override
+		public void doNothing() {
+		}
+
+		@Override
+		public boolean lookupConnection() {
+			Connection con = DataSourceUtils.getConnection(this.dataSource);
+			try {
+				return DataSourceUtils.isConnectionTransactional(con, this.dataSource);
+			}
+			finally {
+				DataSourceUtils.releaseConnection(con, this.dataSource);
+			}
+		}
+	}
+
+}
@@ -16,15 +16,28 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,10 +45,13 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -43,6 +59,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -68,6 +85,12 @@ import org.springframework.util.StringUtils;
  * Be aware that if you use the values from the generated bean to update the database the primitive value
  * will have been set to the primitive's default value instead of null.
  *
+ * <p>The mapping of columns to properties is resolved once per column layout of the
+ * mapped result sets and reused for all of their rows: values which are assignable to
+ * the target property type are applied through the property's write method directly,
+ * whereas values that need conversion still go through a {@link BeanWrapper} which
+ * gets initialized via {@link #initBeanWrapper} in such a case.
+ *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
  * For best performance, consider using a custom {@link RowMapper} implementation.
  *
@@ -79,6 +102,11 @@ import org.springframework.util.StringUtils;
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final int MAX_MAPPING_PLANS = 32;
+
+
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -104,6 +132,17 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** The default constructor of the mapped class, once resolved. */
+	@Nullable
+	private Constructor<T> defaultConstructor;
+
+	/** Cache of mapping plans, keyed by the column names of the mapped result sets. */
+	private final Map<List<String>, MappingPlan> mappingPlans = new ConcurrentHashMap<>(4);
+
+	/** The mapping plan for the most recently mapped result set. */
+	@Nullable
+	private volatile ResultSetMappingPlan currentMappingPlan;
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -201,6 +240,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	public void setConversionService(@Nullable ConversionService conversionService) {
 		this.conversionService = conversionService;
+		clearMappingPlans();
 	}
 
 	/**
@@ -222,6 +262,8 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		this.mappedClass = mappedClass;
 		this.mappedFields = new HashMap<>();
 		this.mappedProperties = new HashSet<>();
+		this.defaultConstructor = null;
+		clearMappingPlans();
 
 		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(mappedClass)) {
 			if (pd.getWriteMethod() != null) {
@@ -245,6 +287,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		if (this.mappedFields != null) {
 			this.mappedFields.remove(lowerCaseName(propertyName));
 			this.mappedFields.remove(underscoreName(propertyName));
+			clearMappingPlans();
 		}
 	}
 
@@ -294,56 +337,58 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
-		BeanWrapperImpl bw = new BeanWrapperImpl();
-		initBeanWrapper(bw);
-
-		T mappedObject = constructMappedInstance(rs, bw);
-		bw.setBeanInstance(mappedObject);
-
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int columnCount = rsmd.getColumnCount();
-		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<>() : null);
-
-		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			String field = lowerCaseName(StringUtils.delete(column, " "));
-			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
-			if (pd != null) {
-				try {
-					Object value = getColumnValue(rs, index, pd);
-					if (rowNumber == 0 && logger.isDebugEnabled()) {
-						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
-								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
-					}
+		MappingPlan plan = obtainMappingPlan(rs);
+		RowTypeConverter tc = new RowTypeConverter();
+
+		T mappedObject = constructMappedInstance(rs, tc);
+		tc.setMappedObject(mappedObject);
+
+		for (int i = 0; i < plan.columnIndexes.length; i++) {
+			int index = plan.columnIndexes[i];
+			String column = plan.columnNames[i];
+			PropertyDescriptor pd = plan.properties[i];
+			try {
+				Object value = getColumnValue(rs, index, pd);
+				if (rowNumber == 0 && logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				MethodHandle setter = plan.setters[i];
+				if (setter != null && plan.isDirectlyApplicable(plan.propertyValueTypes, i, value, pd.getPropertyType())) {
 					try {
-						bw.setPropertyValue(pd.getName(), value);
+						setter.invokeExact((Object) mappedObject, value);
 					}
-					catch (TypeMismatchException ex) {
-						if (value == null && this.primitivesDefaultedForNullValue) {
-							if (logger.isDebugEnabled()) {
-								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-										" and column '" + column + "' with null value when setting property '" +
-										pd.getName() + "' of type '" +
-										ClassUtils.getQualifiedName(pd.getPropertyType()) +
-										"' on object: " + mappedObject, ex);
-							}
-						}
-						else {
-							throw ex;
+					catch (Throwable ex) {
+						throw new MethodInvocationException(
+								new PropertyChangeEvent(mappedObject, pd.getName(), null, value), ex);
+					}
+					continue;
+				}
+				try {
+					tc.getBeanWrapper().setPropertyValue(pd.getName(), value);
+				}
+				catch (TypeMismatchException ex) {
+					if (value == null && this.primitivesDefaultedForNullValue) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+									" and column '" + column + "' with null value when setting property '" +
+									pd.getName() + "' of type '" +
+									ClassUtils.getQualifiedName(pd.getPropertyType()) +
+									"' on object: " + mappedObject, ex);
 						}
 					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
+					else {
+						throw ex;
 					}
 				}
-				catch (NotWritablePropertyException ex) {
-					throw new DataRetrievalFailureException(
-							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
-				}
+			}
+			catch (NotWritablePropertyException ex) {
+				throw new DataRetrievalFailureException(
+						"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
 			}
 		}
 
-		if (populatedProperties != null && !populatedProperties.equals(this.mappedProperties)) {
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
 			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
 					"necessary to populate object of " + this.mappedClass + ": " + this.mappedProperties);
 		}
@@ -351,6 +396,95 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return mappedObject;
 	}
 
+	/**
+	 * Obtain the mapping plan for the given result set, resolving the mapped
+	 * columns once per column layout and reusing the plan for subsequent rows.
+	 */
+	final MappingPlan obtainMappingPlan(ResultSet rs) throws SQLException {
+		ResultSetMappingPlan current = this.currentMappingPlan;
+		if (current != null && current.resultSet.get() == rs) {
+			return current.plan;
+		}
+		ResultSetMetaData rsmd = rs.getMetaData();
+		String[] columnNames = new String[rsmd.getColumnCount()];
+		for (int index = 1; index <= columnNames.length; index++) {
+			columnNames[index - 1] = JdbcUtils.lookupColumnName(rsmd, index);
+		}
+		List<String> layout = Arrays.asList(columnNames);
+		MappingPlan plan = this.mappingPlans.get(layout);
+		if (plan == null) {
+			plan = createMappingPlan(rs, columnNames);
+			if (this.mappingPlans.size() < MAX_MAPPING_PLANS) {
+				this.mappingPlans.put(layout, plan);
+			}
+		}
+		this.currentMappingPlan = new ResultSetMappingPlan(rs, plan);
+		return plan;
+	}
+
+	private MappingPlan createMappingPlan(ResultSet rs, String[] columnNames) throws SQLException {
+		int[] columnIndexes = new int[columnNames.length];
+		String[] mappedColumnNames = new String[columnNames.length];
+		PropertyDescriptor[] properties = new PropertyDescriptor[columnNames.length];
+		MethodHandle[] setters = new MethodHandle[columnNames.length];
+		Set<String> populatedProperties = new HashSet<>();
+		int count = 0;
+		for (int index = 1; index <= columnNames.length; index++) {
+			String column = columnNames[index - 1];
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
+			if (pd != null) {
+				columnIndexes[count] = index;
+				mappedColumnNames[count] = column;
+				properties[count] = pd;
+				setters[count] = createSetter(pd);
+				populatedProperties.add(pd.getName());
+				count++;
+			}
+		}
+		// A custom ConversionService may convert even assignable values
+		ConversionService cs = getConversionService();
+		boolean directlyApplicable = ((cs == null || cs == DefaultConversionService.getSharedInstance()) &&
+				ReflectionUtils.findMethod(getClass(), "initBeanWrapper",
+						BeanWrapper.class).getDeclaringClass() == BeanPropertyRowMapper.class);
+		return new MappingPlan(Arrays.copyOf(columnIndexes, count), Arrays.copyOf(mappedColumnNames, count),
+				Arrays.copyOf(properties, count), Arrays.copyOf(setters, count),
+				populatedProperties.equals(this.mappedProperties), directlyApplicable,
+				resolveConstructorColumnIndexes(rs));
+	}
+
+	@Nullable
+	private MethodHandle createSetter(PropertyDescriptor pd) {
+		Method writeMethod = pd.getWriteMethod();
+		if (writeMethod == null) {
+			return null;
+		}
+		try {
+			ReflectionUtils.makeAccessible(writeMethod);
+			return MethodHandles.lookup().unreflect(writeMethod).asType(SETTER_TYPE);
+		}
+		catch (IllegalAccessException | RuntimeException ex) {
+			// Not accessible through a MethodHandle: use a BeanWrapper for this property
+			return null;
+		}
+	}
+
+	/**
+	 * Resolve the column indexes for the constructor arguments of the mapped
+	 * class, if the mapped instance is constructed from column values.
+	 * @param rs the ResultSet to resolve the columns against
+	 * @return the column index per constructor argument, or {@code null} if none
+	 */
+	@Nullable
+	int[] resolveConstructorColumnIndexes(ResultSet rs) throws SQLException {
+		return null;
+	}
+
+	private void clearMappingPlans() {
+		this.mappingPlans.clear();
+		this.currentMappingPlan = null;
+	}
+
 	/**
 	 * Construct an instance of the mapped class for the current row.
 	 * @param rs the ResultSet to map (pre-initialized for the current row)
@@ -361,7 +495,18 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	protected T constructMappedInstance(ResultSet rs, TypeConverter tc) throws SQLException  {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
-		return BeanUtils.instantiateClass(this.mappedClass);
+		Constructor<T> ctor = this.defaultConstructor;
+		if (ctor == null) {
+			try {
+				ctor = this.mappedClass.getDeclaredConstructor();
+			}
+			catch (NoSuchMethodException ex) {
+				// Let BeanUtils resolve a primary constructor or report the failure
+				return BeanUtils.instantiateClass(this.mappedClass);
+			}
+			this.defaultConstructor = ctor;
+		}
+		return BeanUtils.instantiateClass(ctor);
 	}
 
 	/**
@@ -442,4 +587,161 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return rowMapper;
 	}
 
+
+	/**
+	 * Column-to-property mapping resolved for a specific column layout.
+	 */
+	static final class MappingPlan {
+
+		final int[] columnIndexes;
+
+		final String[] columnNames;
+
+		final PropertyDescriptor[] properties;
+
+		final MethodHandle[] setters;
+
+		final boolean fullyPopulated;
+
+		final boolean directlyApplicable;
+
+		@Nullable
+		final int[] constructorColumnIndexes;
+
+		/** Value types which turned out to be directly applicable, per property. */
+		final Class<?>[] propertyValueTypes;
+
+		/** Value types which turned out to be directly applicable, per constructor argument. */
+		final Class<?>[] constructorValueTypes;
+
+		MappingPlan(int[] columnIndexes, String[] columnNames, PropertyDescriptor[] properties,
+				MethodHandle[] setters, boolean fullyPopulated, boolean directlyApplicable,
+				@Nullable int[] constructorColumnIndexes) {
+
+			this.columnIndexes = columnIndexes;
+			this.columnNames = columnNames;
+			this.properties = properties;
+			this.setters = setters;
+			this.fullyPopulated = fullyPopulated;
+			this.directlyApplicable = directlyApplicable;
+			this.constructorColumnIndexes = constructorColumnIndexes;
+			this.propertyValueTypes = new Class<?>[columnIndexes.length];
+			this.constructorValueTypes = new Class<?>[constructorColumnIndexes != null ?
+					constructorColumnIndexes.length : 0];
+		}
+
+		/**
+		 * Determine whether the given value can be applied as-is, that is, whether
+		 * a {@link BeanWrapper} would not perform any conversion on it.
+		 * @param valueTypes the value types known to be applicable per target
+		 * @param target the index of the target property or constructor argument
+		 * @param value the value to apply
+		 * @param requiredType the type of the target property or constructor argument
+		 */
+		boolean isDirectlyApplicable(Class<?>[] valueTypes, int target, @Nullable Object value,
+				Class<?> requiredType) {
+
+			if (!this.directlyApplicable) {
+				return false;
+			}
+			if (value == null) {
+				return (!requiredType.isPrimitive() && requiredType != Optional.class);
+			}
+			Class<?> valueType = value.getClass();
+			if (valueType == valueTypes[target]) {
+				return true;
+			}
+			if (value instanceof Collection || value instanceof Map) {
+				return false;
+			}
+			boolean applicable = (valueType.isArray() ?
+					(valueType == requiredType || requiredType == Object.class) :
+					ClassUtils.isAssignableValue(requiredType, value));
+			if (applicable) {
+				// Same value type for the same target: no need to check again
+				valueTypes[target] = valueType;
+			}
+			return applicable;
+		}
+	}
+
+
+	/**
+	 * Mapping plan for a specific result set, held weakly so that
+	 * a mapper does not keep a completed result set reachable.
+	 */
+	private static final class ResultSetMappingPlan {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final MappingPlan plan;
+
+		ResultSetMappingPlan(ResultSet resultSet, MappingPlan plan) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.plan = plan;
+		}
+	}
+
+
+	/**
+	 * {@link TypeConverter} for a single row, delegating to a {@link BeanWrapper}
+	 * which only gets created and initialized when actually needed.
+	 */
+	private final class RowTypeConverter implements TypeConverter {
+
+		@Nullable
+		private BeanWrapperImpl beanWrapper;
+
+		@Nullable
+		private Object mappedObject;
+
+		void setMappedObject(Object mappedObject) {
+			this.mappedObject = mappedObject;
+			if (this.beanWrapper != null) {
+				this.beanWrapper.setBeanInstance(mappedObject);
+			}
+		}
+
+		BeanWrapper getBeanWrapper() {
+			if (this.beanWrapper == null) {
+				this.beanWrapper = new BeanWrapperImpl();
+				initBeanWrapper(this.beanWrapper);
+				if (this.mappedObject != null) {
+					this.beanWrapper.setBeanInstance(this.mappedObject);
+				}
+			}
+			return this.beanWrapper;
+		}
+
+		@Override
+		@Nullable
+		public <V> V convertIfNecessary(@Nullable Object value, @Nullable Class<V> requiredType) {
+			return getBeanWrapper().convertIfNecessary(value, requiredType);
+		}
+
+		@Override
+		@Nullable
+		public <V> V convertIfNecessary(@Nullable Object value, @Nullable Class<V> requiredType,
+				@Nullable MethodParameter methodParam) {
+
+			return getBeanWrapper().convertIfNecessary(value, requiredType, methodParam);
+		}
+
+		@Override
+		@Nullable
+		public <V> V convertIfNecessary(@Nullable Object value, @Nullable Class<V> requiredType,
+				@Nullable Field field) {
+
+			return getBeanWrapper().convertIfNecessary(value, requiredType, field);
+		}
+
+		@Override
+		@Nullable
+		public <V> V convertIfNecessary(@Nullable Object value, @Nullable Class<V> requiredType,
+				@Nullable TypeDescriptor typeDescriptor) {
+
+			return getBeanWrapper().convertIfNecessary(value, requiredType, typeDescriptor);
+		}
+	}
+
 }
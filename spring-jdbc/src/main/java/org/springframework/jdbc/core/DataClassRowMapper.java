@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -90,18 +90,34 @@ public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
 		}
 	}
 
+	@Override
+	@Nullable
+	int[] resolveConstructorColumnIndexes(ResultSet rs) throws SQLException {
+		if (this.constructorParameterNames == null) {
+			return null;
+		}
+		int[] columnIndexes = new int[this.constructorParameterNames.length];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			columnIndexes[i] = rs.findColumn(underscoreName(this.constructorParameterNames[i]));
+		}
+		return columnIndexes;
+	}
+
 	@Override
 	protected T constructMappedInstance(ResultSet rs, TypeConverter tc) throws SQLException  {
 		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
 
 		Object[] args;
 		if (this.constructorParameterNames != null && this.constructorParameterTypes != null) {
+			MappingPlan plan = obtainMappingPlan(rs);
+			int[] columnIndexes = plan.constructorColumnIndexes;
+			Assert.state(columnIndexes != null, "Constructor columns not resolved");
 			args = new Object[this.constructorParameterNames.length];
 			for (int i = 0; i < args.length; i++) {
-				String name = underscoreName(this.constructorParameterNames[i]);
 				TypeDescriptor td = this.constructorParameterTypes[i];
-				Object value = getColumnValue(rs, rs.findColumn(name), td.getType());
-				args[i] = tc.convertIfNecessary(value, td.getType(), td);
+				Object value = getColumnValue(rs, columnIndexes[i], td.getType());
+				args[i] = (plan.isDirectlyApplicable(plan.constructorValueTypes, i, value, td.getType()) ? value :
+						tc.convertIfNecessary(value, td.getType(), td));
 			}
 		}
 		else {
@@ -0,0 +1,915 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Streaming batch writer for a single SQL statement, sending the given items
+ * to the database in chunks instead of materializing the complete batch first.
+ * Typically obtained through {@link JdbcTemplate#batchWriter} or
+ * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate#batchWriter},
+ * configured once and then reused for any number of {@code write} calls.
+ *
+ * <p>A chunk is flushed as soon as it reaches the configured
+ * {@linkplain #setBatchSize batch size} or, if an
+ * {@linkplain #setItemSizeEstimator item size estimator} has been specified,
+ * the configured {@linkplain #setMaxBatchBytes maximum number of bytes}.
+ * With a {@linkplain #setTargetChunkTime target chunk time}, the number of items
+ * per chunk adapts to the execution time measured for the preceding chunk,
+ * within the limit of the batch size.
+ * All chunks of a {@code write} call are executed on the same JDBC Connection,
+ * participating in a current Spring-managed transaction if any.
+ *
+ * <p>For drivers without native rewriting of batched inserts, a single-row
+ * {@code INSERT ... VALUES (?, ?)} statement can be
+ * {@linkplain #setRewriteMultiRowInsert rewritten} into a multi-row
+ * {@code INSERT ... VALUES (?, ?), (?, ?), ...} statement per chunk,
+ * trading a JDBC batch of many small statements for a single statement.
+ *
+ * <p>Each executed chunk can be reported to a {@linkplain #setChunkListener listener},
+ * including the time spent executing it and, if requested, the keys generated for
+ * the chunk, so that generated keys are streamed rather than accumulated.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @param <T> the item type
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ */
+public class JdbcBatchWriter<T> {
+
+	/**
+	 * Default maximum number of bind parameters per rewritten multi-row statement.
+	 */
+	public static final int DEFAULT_MAX_PARAMETERS_PER_STATEMENT = 32767;
+
+	private static final Log logger = LogFactory.getLog(JdbcBatchWriter.class);
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sql;
+
+	private final ParameterizedPreparedStatementSetter<T> pss;
+
+	private int batchSize = 1000;
+
+	private long maxBatchBytes = -1;
+
+	private long targetChunkTime = -1;
+
+	@Nullable
+	private ToLongFunction<? super T> itemSizeEstimator;
+
+	private boolean rewriteMultiRowInsert = false;
+
+	private int maxParametersPerStatement = DEFAULT_MAX_PARAMETERS_PER_STATEMENT;
+
+	private boolean returnGeneratedKeys = false;
+
+	@Nullable
+	private String[] generatedKeyColumnNames;
+
+	@Nullable
+	private Consumer<Chunk> chunkListener;
+
+
+	/**
+	 * Create a new {@code JdbcBatchWriter} for the given statement.
+	 * @param jdbcTemplate the JdbcTemplate to obtain Connections and
+	 * statement settings from
+	 * @param sql the SQL statement to execute for each item
+	 * @param pss the strategy used to set parameters for an item, always
+	 * setting parameters at index 1 to n for the given item
+	 */
+	public JdbcBatchWriter(JdbcTemplate jdbcTemplate, String sql, ParameterizedPreparedStatementSetter<T> pss) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.hasText(sql, "SQL must not be empty");
+		Assert.notNull(pss, "ParameterizedPreparedStatementSetter must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.sql = sql;
+		this.pss = pss;
+	}
+
+
+	/**
+	 * Return the SQL statement executed for each item.
+	 */
+	public String getSql() {
+		return this.sql;
+	}
+
+	/**
+	 * Set the maximum number of items per chunk. Default is 1000.
+	 * <p>With {@linkplain #setRewriteMultiRowInsert multi-row rewriting},
+	 * a chunk may be smaller in order to stay within the
+	 * {@linkplain #setMaxParametersPerStatement parameter limit}.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the maximum number of items per chunk.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the maximum estimated number of bytes per chunk, as determined by the
+	 * {@linkplain #setItemSizeEstimator item size estimator}. Default is -1,
+	 * indicating that chunks are only limited by the batch size.
+	 * <p>A chunk always contains at least one item, even if that single item
+	 * exceeds the limit.
+	 */
+	public void setMaxBatchBytes(long maxBatchBytes) {
+		this.maxBatchBytes = maxBatchBytes;
+	}
+
+	/**
+	 * Return the maximum estimated number of bytes per chunk.
+	 */
+	public long getMaxBatchBytes() {
+		return this.maxBatchBytes;
+	}
+
+	/**
+	 * Specify a function estimating the number of bytes that a given item
+	 * contributes to a chunk, for use with {@link #setMaxBatchBytes}.
+	 */
+	public void setItemSizeEstimator(@Nullable ToLongFunction<? super T> itemSizeEstimator) {
+		this.itemSizeEstimator = itemSizeEstimator;
+	}
+
+	/**
+	 * Return the function estimating the number of bytes per item, if any.
+	 */
+	@Nullable
+	public ToLongFunction<? super T> getItemSizeEstimator() {
+		return this.itemSizeEstimator;
+	}
+
+	/**
+	 * Set a target execution time per chunk, adapting the number of items per
+	 * chunk to the execution time measured for the preceding chunk: shrinking
+	 * chunks that take longer than the target and growing chunks that complete
+	 * faster, by at most a factor of 2 per chunk and never beyond the
+	 * {@linkplain #setBatchSize batch size}. Default is none, i.e. fixed-size chunks.
+	 * <p>Useful for keeping individual round trips (and the locks held by them)
+	 * short for items of varying cost, without tuning the batch size upfront.
+	 */
+	public void setTargetChunkTime(@Nullable Duration targetChunkTime) {
+		Assert.isTrue(targetChunkTime == null || !targetChunkTime.isNegative(),
+				"Target chunk time must not be negative");
+		this.targetChunkTime = (targetChunkTime != null ? targetChunkTime.toNanos() : -1);
+	}
+
+	/**
+	 * Return the target execution time per chunk, if any.
+	 */
+	@Nullable
+	public Duration getTargetChunkTime() {
+		return (this.targetChunkTime >= 0 ? Duration.ofNanos(this.targetChunkTime) : null);
+	}
+
+	/**
+	 * Set whether to rewrite a single-row {@code INSERT ... VALUES (...)}
+	 * statement into a multi-row statement per chunk. Default is "false".
+	 * <p>Only recommended for drivers which do not rewrite batched inserts
+	 * themselves. Statements that do not end with a single {@code VALUES}
+	 * group are executed as a regular JDBC batch.
+	 * <p>Note that a multi-row statement reports a single update count per
+	 * chunk, and that the ordering of generated keys is driver-specific.
+	 * @see #setMaxParametersPerStatement
+	 */
+	public void setRewriteMultiRowInsert(boolean rewriteMultiRowInsert) {
+		this.rewriteMultiRowInsert = rewriteMultiRowInsert;
+	}
+
+	/**
+	 * Return whether to rewrite single-row inserts into multi-row statements.
+	 */
+	public boolean isRewriteMultiRowInsert() {
+		return this.rewriteMultiRowInsert;
+	}
+
+	/**
+	 * Set the maximum number of bind parameters that a rewritten multi-row
+	 * statement may contain. Default is 32767.
+	 * <p>Some databases enforce a considerably lower limit, e.g. 2100 for
+	 * SQL Server.
+	 * @see #setRewriteMultiRowInsert
+	 */
+	public void setMaxParametersPerStatement(int maxParametersPerStatement) {
+		Assert.isTrue(maxParametersPerStatement > 0, "Max parameters per statement must be greater than 0");
+		this.maxParametersPerStatement = maxParametersPerStatement;
+	}
+
+	/**
+	 * Return the maximum number of bind parameters per multi-row statement.
+	 */
+	public int getMaxParametersPerStatement() {
+		return this.maxParametersPerStatement;
+	}
+
+	/**
+	 * Set whether to retrieve the keys generated for each chunk through
+	 * {@link Statement#RETURN_GENERATED_KEYS}. Default is "false".
+	 * <p>The keys are exposed per chunk to the {@linkplain #setChunkListener
+	 * chunk listener} and not retained beyond it.
+	 * @see Chunk#getGeneratedKeys()
+	 */
+	public void setReturnGeneratedKeys(boolean returnGeneratedKeys) {
+		this.returnGeneratedKeys = returnGeneratedKeys;
+	}
+
+	/**
+	 * Return whether to retrieve the generated keys for each chunk.
+	 */
+	public boolean isReturnGeneratedKeys() {
+		return this.returnGeneratedKeys;
+	}
+
+	/**
+	 * Set the names of the columns holding generated keys, implicitly
+	 * activating the retrieval of generated keys.
+	 * @see Connection#prepareStatement(String, String[])
+	 */
+	public void setGeneratedKeyColumnNames(@Nullable String... generatedKeyColumnNames) {
+		this.generatedKeyColumnNames = generatedKeyColumnNames;
+	}
+
+	/**
+	 * Return the names of the columns holding generated keys, if any.
+	 */
+	@Nullable
+	public String[] getGeneratedKeyColumnNames() {
+		return this.generatedKeyColumnNames;
+	}
+
+	/**
+	 * Specify a listener to be notified after each executed chunk,
+	 * e.g. for logging progress or recording timings of a bulk load.
+	 */
+	public void setChunkListener(@Nullable Consumer<Chunk> chunkListener) {
+		this.chunkListener = chunkListener;
+	}
+
+	/**
+	 * Return the listener to be notified after each executed chunk, if any.
+	 */
+	@Nullable
+	public Consumer<Chunk> getChunkListener() {
+		return this.chunkListener;
+	}
+
+
+	/**
+	 * Write all items from the given stream.
+	 * <p>The stream is consumed but not closed by this method.
+	 * @param items the items to write
+	 * @return the result of writing all items
+	 * @throws DataAccessException if there is any problem executing a chunk
+	 */
+	public Result write(Stream<? extends T> items) throws DataAccessException {
+		Assert.notNull(items, "Stream must not be null");
+		return write(items.iterator());
+	}
+
+	/**
+	 * Write all items from the given {@code Iterable}.
+	 * @param items the items to write
+	 * @return the result of writing all items
+	 * @throws DataAccessException if there is any problem executing a chunk
+	 */
+	public Result write(Iterable<? extends T> items) throws DataAccessException {
+		Assert.notNull(items, "Iterable must not be null");
+		return write(items.iterator());
+	}
+
+	/**
+	 * Write all items from the given {@code Iterator}, pulling one item at a time
+	 * and keeping at most one chunk of items in memory.
+	 * @param items the items to write
+	 * @return the result of writing all items
+	 * @throws DataAccessException if there is any problem executing a chunk
+	 */
+	public Result write(Iterator<? extends T> items) throws DataAccessException {
+		Assert.notNull(items, "Iterator must not be null");
+		MultiRowInsert multiRowInsert = null;
+		if (this.rewriteMultiRowInsert) {
+			multiRowInsert = MultiRowInsert.parse(this.sql);
+			if (multiRowInsert == null && logger.isDebugEnabled()) {
+				logger.debug("Cannot rewrite SQL statement [" + this.sql + "] into multi-row insert - " +
+						"falling back to regular batch update");
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing streaming SQL batch update [" + this.sql + "] with a batch size of " +
+					this.batchSize + (multiRowInsert != null ? " as multi-row insert" : ""));
+		}
+		Result result = this.jdbcTemplate.execute(new WriteCallback(items, multiRowInsert));
+		Assert.state(result != null, "No result");
+		return result;
+	}
+
+	private long estimateSize(T item) {
+		return (this.itemSizeEstimator != null ? this.itemSizeEstimator.applyAsLong(item) : 0);
+	}
+
+	private boolean exceedsMaxBatchBytes(long bytes) {
+		return (this.maxBatchBytes >= 0 && this.itemSizeEstimator != null && bytes > this.maxBatchBytes);
+	}
+
+	private PreparedStatement prepareStatement(Connection con, String sql) throws SQLException {
+		PreparedStatement ps;
+		if (this.generatedKeyColumnNames != null) {
+			ps = con.prepareStatement(sql, this.generatedKeyColumnNames);
+		}
+		else if (this.returnGeneratedKeys) {
+			ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		}
+		else {
+			ps = con.prepareStatement(sql);
+		}
+		this.jdbcTemplate.applyStatementSettings(ps);
+		return ps;
+	}
+
+	private boolean isCollectGeneratedKeys() {
+		return (this.returnGeneratedKeys || this.generatedKeyColumnNames != null);
+	}
+
+
+	/**
+	 * Callback writing all items on a single Connection, with local chunk state.
+	 */
+	private class WriteCallback implements ConnectionCallback<Result>, SqlProvider {
+
+		private final Iterator<? extends T> items;
+
+		@Nullable
+		private final MultiRowInsert multiRowInsert;
+
+		private List<Map<String, Object>> generatedKeys = new ArrayList<>();
+
+		private long generatedKeyCount;
+
+		private final List<T> pendingItems = new ArrayList<>();
+
+		private long pendingBytes;
+
+		private int pendingCount;
+
+		@Nullable
+		private PreparedStatement ps;
+
+		private int psRows;
+
+		private boolean batchSupported;
+
+		private final List<Integer> pendingUpdateCounts = new ArrayList<>();
+
+		private long itemCount;
+
+		private int chunkCount;
+
+		private long updateCount;
+
+		public WriteCallback(Iterator<? extends T> items, @Nullable MultiRowInsert multiRowInsert) {
+			this.items = items;
+			this.multiRowInsert = multiRowInsert;
+		}
+
+		@Override
+		public String getSql() {
+			return sql;
+		}
+
+		@Override
+		public Result doInConnection(Connection con) throws SQLException, DataAccessException {
+			long startTime = System.nanoTime();
+			int maxRows = batchSize;
+			if (this.multiRowInsert != null) {
+				maxRows = Math.max(1, Math.min(maxRows, maxParametersPerStatement / this.multiRowInsert.parameterCount));
+			}
+			else {
+				this.ps = prepareStatement(con, sql);
+				this.batchSupported = JdbcUtils.supportsBatchUpdates(con);
+			}
+			int chunkRows = maxRows;
+			try {
+				while (this.items.hasNext()) {
+					T item = this.items.next();
+					long size = estimateSize(item);
+					if (this.pendingCount > 0 && exceedsMaxBatchBytes(this.pendingBytes + size)) {
+						chunkRows = adaptChunkRows(flush(con), chunkRows, maxRows);
+					}
+					add(item);
+					this.pendingBytes += size;
+					if (this.pendingCount >= chunkRows) {
+						chunkRows = adaptChunkRows(flush(con), chunkRows, maxRows);
+					}
+				}
+				flush(con);
+			}
+			finally {
+				JdbcUtils.closeStatement(this.ps);
+				if (pss instanceof ParameterDisposer parameterDisposer) {
+					parameterDisposer.cleanupParameters();
+				}
+			}
+			return new Result(this.itemCount, this.chunkCount, this.updateCount, System.nanoTime() - startTime,
+					this.generatedKeyCount);
+		}
+
+		/**
+		 * Determine the number of items for the next chunk, based on the
+		 * execution time of the given chunk relative to the target chunk time.
+		 */
+		private int adaptChunkRows(@Nullable Chunk chunk, int chunkRows, int maxRows) {
+			if (targetChunkTime < 0 || chunk == null) {
+				return chunkRows;
+			}
+			long elapsedTime = Math.max(chunk.getElapsedTime(), 1);
+			long estimate = (long) ((double) chunk.getItemCount() * targetChunkTime / elapsedTime);
+			long lowerBound = Math.max(1, chunkRows / 2);
+			long upperBound = Math.min(maxRows, 2L * chunkRows);
+			return (int) Math.max(lowerBound, Math.min(upperBound, estimate));
+		}
+
+		private void add(T item) throws SQLException {
+			if (this.multiRowInsert != null) {
+				this.pendingItems.add(item);
+			}
+			else {
+				PreparedStatement ps = obtainStatement();
+				pss.setValues(ps, item);
+				if (this.batchSupported) {
+					ps.addBatch();
+				}
+				else {
+					this.pendingUpdateCounts.add(ps.executeUpdate());
+					collectGeneratedKeys(ps);
+				}
+			}
+			this.pendingCount++;
+		}
+
+		@Nullable
+		private Chunk flush(Connection con) throws SQLException {
+			if (this.pendingCount == 0) {
+				return null;
+			}
+			long startTime = System.nanoTime();
+			int[] updateCounts;
+			if (this.multiRowInsert != null) {
+				updateCounts = new int[] {executeMultiRowInsert(con, this.multiRowInsert)};
+			}
+			else if (this.batchSupported) {
+				PreparedStatement ps = obtainStatement();
+				updateCounts = ps.executeBatch();
+				collectGeneratedKeys(ps);
+			}
+			else {
+				updateCounts = new int[this.pendingUpdateCounts.size()];
+				for (int i = 0; i < updateCounts.length; i++) {
+					updateCounts[i] = this.pendingUpdateCounts.get(i);
+				}
+				this.pendingUpdateCounts.clear();
+			}
+			long elapsedTime = System.nanoTime() - startTime;
+			jdbcTemplate.handleWarnings(obtainStatement());
+
+			List<Map<String, Object>> chunkKeys = Collections.emptyList();
+			if (!this.generatedKeys.isEmpty()) {
+				chunkKeys = Collections.unmodifiableList(this.generatedKeys);
+				this.generatedKeyCount += chunkKeys.size();
+				this.generatedKeys = new ArrayList<>();
+			}
+			Chunk chunk = new Chunk(this.chunkCount, this.pendingCount, this.pendingBytes, updateCounts, elapsedTime,
+					chunkKeys);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Sent SQL batch update " + chunk);
+			}
+			this.itemCount += this.pendingCount;
+			this.chunkCount++;
+			for (int count : updateCounts) {
+				if (count > 0) {
+					this.updateCount += count;
+				}
+			}
+			this.pendingCount = 0;
+			this.pendingBytes = 0;
+			if (chunkListener != null) {
+				chunkListener.accept(chunk);
+			}
+			return chunk;
+		}
+
+		private int executeMultiRowInsert(Connection con, MultiRowInsert multiRowInsert) throws SQLException {
+			int rows = this.pendingItems.size();
+			if (this.ps == null || this.psRows != rows) {
+				JdbcUtils.closeStatement(this.ps);
+				this.ps = null;
+				this.ps = prepareStatement(con, multiRowInsert.getSql(rows));
+				this.psRows = rows;
+			}
+			PreparedStatement ps = this.ps;
+			ParameterOffsetHandler handler = new ParameterOffsetHandler(ps);
+			PreparedStatement psToUse = (PreparedStatement) Proxy.newProxyInstance(
+					JdbcBatchWriter.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, handler);
+			for (T item : this.pendingItems) {
+				pss.setValues(psToUse, item);
+				handler.offset += multiRowInsert.parameterCount;
+			}
+			this.pendingItems.clear();
+			int count = ps.executeUpdate();
+			collectGeneratedKeys(ps);
+			return count;
+		}
+
+		private PreparedStatement obtainStatement() {
+			Assert.state(this.ps != null, "No PreparedStatement");
+			return this.ps;
+		}
+
+		private void collectGeneratedKeys(PreparedStatement ps) throws SQLException {
+			if (isCollectGeneratedKeys()) {
+				ResultSet keys = ps.getGeneratedKeys();
+				if (keys != null) {
+					try {
+						RowMapperResultSetExtractor<Map<String, Object>> rse =
+								new RowMapperResultSetExtractor<>(jdbcTemplate.getColumnMapRowMapper());
+						this.generatedKeys.addAll(rse.extractData(keys));
+					}
+					finally {
+						JdbcUtils.closeResultSet(keys);
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Single-row insert statement, split around its {@code VALUES} group.
+	 */
+	static final class MultiRowInsert {
+
+		private final String prefix;
+
+		private final String valuesGroup;
+
+		final int parameterCount;
+
+		private MultiRowInsert(String prefix, String valuesGroup, int parameterCount) {
+			this.prefix = prefix;
+			this.valuesGroup = valuesGroup;
+			this.parameterCount = parameterCount;
+		}
+
+		/**
+		 * Build the statement inserting the given number of rows.
+		 */
+		String getSql(int rows) {
+			StringBuilder sb = new StringBuilder(this.prefix.length() + rows * (this.valuesGroup.length() + 2));
+			sb.append(this.prefix).append(this.valuesGroup);
+			for (int i = 1; i < rows; i++) {
+				sb.append(", ").append(this.valuesGroup);
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * Parse the given statement, if it is an {@code INSERT} statement
+		 * ending with a single parameterized {@code VALUES} group.
+		 * <p>SQL comments are skipped and not included in the rewritten statement.
+		 * @return the parsed statement, or {@code null} if not applicable
+		 */
+		@Nullable
+		static MultiRowInsert parse(String sql) {
+			String statement = stripComments(sql).strip();
+			if (statement.length() < 6 || !statement.regionMatches(true, 0, "insert", 0, 6) ||
+					statement.charAt(statement.length() - 1) != ')') {
+				return null;
+			}
+			int groupStart = -1;
+			int depth = 0;
+			char quote = 0;
+			for (int i = 0; i < statement.length(); i++) {
+				char c = statement.charAt(i);
+				if (quote != 0) {
+					if (c == quote) {
+						quote = 0;
+					}
+				}
+				else if (c == '\'' || c == '"' || c == '`') {
+					quote = c;
+				}
+				else if (c == '(') {
+					if (depth == 0) {
+						groupStart = i;
+					}
+					depth++;
+				}
+				else if (c == ')') {
+					depth--;
+				}
+				else if (c == ';') {
+					return null;
+				}
+			}
+			if (quote != 0 || depth != 0 || groupStart < 0) {
+				return null;
+			}
+			String prefix = statement.substring(0, groupStart).stripTrailing();
+			int keywordStart = prefix.length() - 6;
+			if (keywordStart <= 0 || !prefix.regionMatches(true, keywordStart, "values", 0, 6)) {
+				return null;
+			}
+			char beforeKeyword = prefix.charAt(keywordStart - 1);
+			if (!Character.isWhitespace(beforeKeyword) && beforeKeyword != ')') {
+				return null;
+			}
+			String valuesGroup = statement.substring(groupStart);
+			int parameterCount = 0;
+			for (int i = 0; i < valuesGroup.length(); i++) {
+				char c = valuesGroup.charAt(i);
+				if (quote != 0) {
+					if (c == quote) {
+						quote = 0;
+					}
+				}
+				else if (c == '\'' || c == '"' || c == '`') {
+					quote = c;
+				}
+				else if (c == '?') {
+					parameterCount++;
+				}
+			}
+			return (parameterCount > 0 ? new MultiRowInsert(prefix + " ", valuesGroup, parameterCount) : null);
+		}
+
+		/**
+		 * Replace any comments in the given statement with a single space,
+		 * keeping quoted literals and names as-is.
+		 * @see NamedParameterUtils#skipCommentsAndQuotes
+		 */
+		private static String stripComments(String sql) {
+			char[] statement = sql.toCharArray();
+			StringBuilder sb = new StringBuilder(statement.length);
+			int i = 0;
+			while (i < statement.length) {
+				int skipToPosition = NamedParameterUtils.skipCommentsAndQuotes(statement, i);
+				if (skipToPosition == i) {
+					sb.append(statement[i]);
+					i++;
+				}
+				else {
+					char c = statement[i];
+					if (c == '\'' || c == '"') {
+						sb.append(statement, i, skipToPosition - i);
+					}
+					else {
+						sb.append(' ');
+					}
+					i = skipToPosition;
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+
+	/**
+	 * Invocation handler shifting the parameter index of all {@code setXxx}
+	 * calls, allowing a {@link ParameterizedPreparedStatementSetter} to bind
+	 * each row of a multi-row statement at index 1 to n.
+	 */
+	private static class ParameterOffsetHandler implements InvocationHandler {
+
+		private final PreparedStatement target;
+
+		int offset;
+
+		public ParameterOffsetHandler(PreparedStatement target) {
+			this.target = target;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, @Nullable Object[] args) throws Throwable {
+			if (args != null && args.length >= 2 && args[0] instanceof Integer index &&
+					method.getName().startsWith("set") && method.getParameterTypes()[0] == int.class) {
+				args[0] = index + this.offset;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
+	/**
+	 * Information about a single executed chunk.
+	 */
+	public static final class Chunk {
+
+		private final int index;
+
+		private final int itemCount;
+
+		private final long byteCount;
+
+		private final int[] updateCounts;
+
+		private final long elapsedTime;
+
+		private final List<Map<String, Object>> generatedKeys;
+
+		Chunk(int index, int itemCount, long byteCount, int[] updateCounts, long elapsedTime,
+				List<Map<String, Object>> generatedKeys) {
+
+			this.index = index;
+			this.itemCount = itemCount;
+			this.byteCount = byteCount;
+			this.updateCounts = updateCounts;
+			this.elapsedTime = elapsedTime;
+			this.generatedKeys = generatedKeys;
+		}
+
+		/**
+		 * Return the 0-based index of this chunk within its {@code write} call.
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * Return the number of items in this chunk.
+		 */
+		public int getItemCount() {
+			return this.itemCount;
+		}
+
+		/**
+		 * Return the estimated number of bytes of this chunk,
+		 * or {@code 0} if no item size estimator has been specified.
+		 */
+		public long getByteCount() {
+			return this.byteCount;
+		}
+
+		/**
+		 * Return the update counts reported by the driver: one per item
+		 * for a regular batch, a single one for a multi-row insert.
+		 * @see Statement#executeBatch()
+		 */
+		public int[] getUpdateCounts() {
+			return this.updateCounts;
+		}
+
+		/**
+		 * Return the time spent executing this chunk (in nanoseconds),
+		 * not including the binding of parameters for a regular batch.
+		 */
+		public long getElapsedTime() {
+			return this.elapsedTime;
+		}
+
+		/**
+		 * Return the keys generated for this chunk, in the order returned by the
+		 * driver, or an empty list if the retrieval of keys has not been activated.
+		 * @see JdbcBatchWriter#setReturnGeneratedKeys
+		 * @see JdbcBatchWriter#setGeneratedKeyColumnNames
+		 */
+		public List<Map<String, Object>> getGeneratedKeys() {
+			return this.generatedKeys;
+		}
+
+		@Override
+		public String toString() {
+			return "#" + this.index + " with " + this.itemCount + " items (" + this.byteCount + " bytes, " +
+					"update counts " + Arrays.toString(this.updateCounts) + ", " + this.elapsedTime + " ns)";
+		}
+	}
+
+
+	/**
+	 * Result of a complete {@code write} call.
+	 */
+	public static final class Result {
+
+		private final long itemCount;
+
+		private final int chunkCount;
+
+		private final long updateCount;
+
+		private final long elapsedTime;
+
+		private final long generatedKeyCount;
+
+		Result(long itemCount, int chunkCount, long updateCount, long elapsedTime, long generatedKeyCount) {
+			this.itemCount = itemCount;
+			this.chunkCount = chunkCount;
+			this.updateCount = updateCount;
+			this.elapsedTime = elapsedTime;
+			this.generatedKeyCount = generatedKeyCount;
+		}
+
+		/**
+		 * Return the total number of items written.
+		 */
+		public long getItemCount() {
+			return this.itemCount;
+		}
+
+		/**
+		 * Return the number of chunks executed.
+		 */
+		public int getChunkCount() {
+			return this.chunkCount;
+		}
+
+		/**
+		 * Return the total number of affected rows as reported by the driver,
+		 * not including statements for which no row count is available
+		 * (e.g. {@link Statement#SUCCESS_NO_INFO}).
+		 */
+		public long getUpdateCount() {
+			return this.updateCount;
+		}
+
+		/**
+		 * Return the total time spent in the {@code write} call (in nanoseconds),
+		 * including the retrieval of items from the source.
+		 */
+		public long getElapsedTime() {
+			return this.elapsedTime;
+		}
+
+		/**
+		 * Return the total number of generated keys retrieved, with the keys
+		 * themselves exposed per chunk.
+		 * @see Chunk#getGeneratedKeys()
+		 */
+		public long getGeneratedKeyCount() {
+			return this.generatedKeyCount;
+		}
+
+		@Override
+		public String toString() {
+			return "JdbcBatchWriter.Result[itemCount=" + this.itemCount + ", chunkCount=" + this.chunkCount +
+					", updateCount=" + this.updateCount + ", elapsedTime=" + this.elapsedTime + "]";
+		}
+	}
+
+}
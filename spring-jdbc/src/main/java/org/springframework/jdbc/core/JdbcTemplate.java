@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -863,6 +863,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
 	}
 
+	/**
+	 * Create a {@link PrefetchingQuery} for the given SQL query, fetching and
+	 * mapping rows on a separate thread ahead of the consumer. Results can be
+	 * obtained as a {@link Stream} or as a {@link java.util.concurrent.Flow.Publisher}.
+	 * <p>The returned query can be further configured, e.g. with a custom executor
+	 * or buffer size, and reused for several executions.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper the callback that will map one object per row
+	 * @return the prefetching query
+	 * @since 6.0
+	 * @see #queryForStream(String, RowMapper, Object...)
+	 */
+	public <T> PrefetchingQuery<T> prefetchingQuery(String sql, RowMapper<T> rowMapper) {
+		return new PrefetchingQuery<>(this, sql, rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -1164,6 +1180,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result;
 	}
 
+	/**
+	 * Create a streaming {@link JdbcBatchWriter} for the given SQL statement,
+	 * writing items from a {@link java.util.stream.Stream} or {@link java.util.Iterator}
+	 * in chunks without materializing the complete batch first.
+	 * <p>The returned writer can be further configured, e.g. with a byte-based
+	 * chunk limit or multi-row insert rewriting, and reused for several writes.
+	 * @param sql the SQL statement to execute for each item
+	 * @param pss the strategy used to set parameters for each item
+	 * @return the batch writer for the given statement
+	 * @since 6.0
+	 * @see #batchUpdate(String, Collection, int, ParameterizedPreparedStatementSetter)
+	 */
+	public <T> JdbcBatchWriter<T> batchWriter(String sql, ParameterizedPreparedStatementSetter<T> pss) {
+		return new JdbcBatchWriter<>(this, sql, pss);
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
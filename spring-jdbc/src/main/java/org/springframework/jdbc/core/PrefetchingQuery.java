@@ -0,0 +1,634 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Query that fetches and maps rows on a separate thread, handing them over to
+ * the consumer in batches through a bounded buffer. This allows a large result
+ * to be processed while the driver is still fetching and mapping further rows,
+ * in contrast to {@link JdbcTemplate#queryForStream} where the consumer waits
+ * for every fetch round trip itself.
+ *
+ * <p>Typically obtained through {@link JdbcTemplate#prefetchingQuery}. Results
+ * are exposed as a {@link Stream} or as a {@link Flow.Publisher}; the latter
+ * can be adapted to Reactor through {@code JdkFlowAdapter}. Both apply
+ * backpressure: once the configured number of batches is buffered, the
+ * fetching thread waits for the consumer to catch up.
+ *
+ * <p>The query itself is executed on the calling thread for a {@code Stream},
+ * participating in a current Spring-managed transaction if any. The
+ * transactional Connection is then used by the fetching thread until all
+ * rows have been read, so it must not be used for other statements
+ * until the stream has been closed, and the stream must be closed
+ * before the transaction completes.
+ *
+ * <p>The {@link RowMapper} is invoked on the fetching thread, one row
+ * at a time, since a {@link ResultSet} cursor cannot be shared across
+ * threads. It does not need to be thread-safe unless it is shared
+ * with other queries.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @param <T> the result type
+ * @see JdbcTemplate#queryForStream(String, RowMapper, Object...)
+ */
+public class PrefetchingQuery<T> {
+
+	private static final Object COMPLETE = new Object();
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sql;
+
+	private final RowMapper<T> rowMapper;
+
+	private Executor executor = new SimpleAsyncTaskExecutor("jdbc-prefetch-");
+
+	private int batchSize = 256;
+
+	private int bufferedBatches = 4;
+
+
+	/**
+	 * Create a new {@code PrefetchingQuery} for the given statement.
+	 * @param jdbcTemplate the JdbcTemplate to obtain Connections,
+	 * statement settings and exception translation from
+	 * @param sql the SQL query to execute
+	 * @param rowMapper the callback that will map one object per row
+	 */
+	public PrefetchingQuery(JdbcTemplate jdbcTemplate, String sql, RowMapper<T> rowMapper) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.hasText(sql, "SQL must not be empty");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.sql = sql;
+		this.rowMapper = rowMapper;
+	}
+
+
+	/**
+	 * Return the SQL query to execute.
+	 */
+	public String getSql() {
+		return this.sql;
+	}
+
+	/**
+	 * Set the executor to fetch and map rows with, using a dedicated thread per
+	 * query for as long as the query is being consumed. Default is a
+	 * {@link SimpleAsyncTaskExecutor}.
+	 * <p>On JDK 21 and higher, an executor creating a virtual thread per task
+	 * is a good fit since fetching threads mostly wait on I/O or on the consumer.
+	 */
+	public void setExecutor(Executor executor) {
+		Assert.notNull(executor, "Executor must not be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Return the executor to fetch and map rows with.
+	 */
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Set the number of rows handed over to the consumer at once. Default is 256.
+	 * <p>Consider aligning the {@linkplain JdbcTemplate#setFetchSize fetch size}
+	 * of the JdbcTemplate with this setting.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the number of rows handed over to the consumer at once.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the number of batches to fetch ahead of the consumer. Default is 4.
+	 */
+	public void setBufferedBatches(int bufferedBatches) {
+		Assert.isTrue(bufferedBatches > 0, "Buffered batches must be greater than 0");
+		this.bufferedBatches = bufferedBatches;
+	}
+
+	/**
+	 * Return the number of batches to fetch ahead of the consumer.
+	 */
+	public int getBufferedBatches() {
+		return this.bufferedBatches;
+	}
+
+
+	/**
+	 * Execute the query with the given arguments and return a stream of mapped
+	 * objects, fetched ahead of the consumer on a separate thread.
+	 * <p>The returned stream should be closed after use, for example through a
+	 * try-with-resources clause. Closing it stops fetching further rows and
+	 * waits for the fetching thread to release its resources.
+	 * @param args arguments to bind to the query (leaving it to the
+	 * PreparedStatement to guess the corresponding SQL type)
+	 * @return the result Stream
+	 * @throws DataAccessException if the query fails
+	 */
+	public Stream<T> stream(@Nullable Object... args) throws DataAccessException {
+		return stream(this.jdbcTemplate.newArgPreparedStatementSetter(args));
+	}
+
+	/**
+	 * Execute the query, binding parameters through the given setter,
+	 * and return a stream of mapped objects, fetched ahead of the consumer
+	 * on a separate thread.
+	 * @param pss a callback that knows how to set values on the prepared
+	 * statement (may be {@code null})
+	 * @return the result Stream
+	 * @throws DataAccessException if the query fails
+	 * @see #stream(Object...)
+	 */
+	public Stream<T> stream(@Nullable PreparedStatementSetter pss) throws DataAccessException {
+		Prefetch prefetch = open(pss);
+		Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(
+				Long.MAX_VALUE, Spliterator.ORDERED) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				return prefetch.tryAdvance(action);
+			}
+		};
+		return StreamSupport.stream(spliterator, false).onClose(prefetch::close);
+	}
+
+	/**
+	 * Return a publisher executing the query with the given arguments
+	 * for each subscriber.
+	 * <p>The query is executed once the subscriber signals demand, on a single
+	 * thread obtained from the {@linkplain #setExecutor executor} which then
+	 * fetches rows, up to the configured number of batches ahead of the
+	 * subscriber's demand. Signals are delivered to the subscriber either on
+	 * that thread or on the thread requesting further elements, one at a time.
+	 * Since the query is not executed on the subscribing thread, it does not
+	 * participate in a thread-bound transaction.
+	 * @param args arguments to bind to the query (leaving it to the
+	 * PreparedStatement to guess the corresponding SQL type)
+	 * @return the result Publisher
+	 */
+	public Flow.Publisher<T> publisher(@Nullable Object... args) {
+		return publisher(this.jdbcTemplate.newArgPreparedStatementSetter(args));
+	}
+
+	/**
+	 * Return a publisher executing the query for each subscriber,
+	 * binding parameters through the given setter.
+	 * @param pss a callback that knows how to set values on the prepared
+	 * statement (may be {@code null})
+	 * @return the result Publisher
+	 * @see #publisher(Object...)
+	 */
+	public Flow.Publisher<T> publisher(@Nullable PreparedStatementSetter pss) {
+		return subscriber -> {
+			Assert.notNull(subscriber, "Subscriber must not be null");
+			subscriber.onSubscribe(new PrefetchSubscription(subscriber, pss));
+		};
+	}
+
+
+	private Prefetch open(@Nullable PreparedStatementSetter pss) {
+		Prefetch prefetch = execute(pss, null);
+		try {
+			this.executor.execute(prefetch::fetch);
+		}
+		catch (RuntimeException ex) {
+			prefetch.releaseResources();
+			prefetch.finished.countDown();
+			prefetch.close();
+			throw ex;
+		}
+		return prefetch;
+	}
+
+	private Prefetch execute(@Nullable PreparedStatementSetter pss, @Nullable Runnable listener) {
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		Assert.state(dataSource != null, "No DataSource set");
+		Connection con = DataSourceUtils.getConnection(dataSource);
+		PreparedStatement ps = null;
+		ResultSet rs;
+		try {
+			ps = con.prepareStatement(this.sql);
+			this.jdbcTemplate.applyStatementSettings(ps);
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			rs = ps.executeQuery();
+		}
+		catch (SQLException ex) {
+			if (pss instanceof ParameterDisposer parameterDisposer) {
+				parameterDisposer.cleanupParameters();
+			}
+			JdbcUtils.closeStatement(ps);
+			DataSourceUtils.releaseConnection(con, dataSource);
+			throw this.jdbcTemplate.translateException("PrefetchingQuery", this.sql, ex);
+		}
+		boolean transactional = DataSourceUtils.isConnectionTransactional(con, dataSource);
+		if (transactional) {
+			// Give up our reference to the transactional Connection on the thread it is bound to:
+			// it remains in use by the fetching thread until the query has been closed.
+			DataSourceUtils.releaseConnection(con, dataSource);
+		}
+		return new Prefetch(dataSource, con, transactional, ps, rs, pss, listener);
+	}
+
+
+	/**
+	 * A single execution of the query: rows are fetched into the buffer by the
+	 * executor thread and taken from it by the consuming thread.
+	 */
+	private class Prefetch {
+
+		private final DataSource dataSource;
+
+		private final Connection connection;
+
+		private final boolean transactional;
+
+		private final PreparedStatement statement;
+
+		private final ResultSet resultSet;
+
+		@Nullable
+		private final PreparedStatementSetter pss;
+
+		@Nullable
+		private final Runnable listener;
+
+		private final BlockingQueue<Object> buffer;
+
+		private final CountDownLatch finished = new CountDownLatch(1);
+
+		private volatile boolean cancelled;
+
+		// Consumer-side state
+
+		@Nullable
+		private Iterator<T> current;
+
+		private boolean done;
+
+		private boolean closed;
+
+		Prefetch(DataSource dataSource, Connection connection, boolean transactional,
+				PreparedStatement statement, ResultSet resultSet, @Nullable PreparedStatementSetter pss,
+				@Nullable Runnable listener) {
+
+			this.dataSource = dataSource;
+			this.connection = connection;
+			this.transactional = transactional;
+			this.statement = statement;
+			this.resultSet = resultSet;
+			this.pss = pss;
+			this.listener = listener;
+			// One additional slot for the completion signal after cancellation
+			this.buffer = new ArrayBlockingQueue<>(bufferedBatches + 1);
+		}
+
+		void fetch() {
+			try {
+				int rowNum = 0;
+				List<T> batch = new ArrayList<>(batchSize);
+				while (!this.cancelled && this.resultSet.next()) {
+					batch.add(rowMapper.mapRow(this.resultSet, rowNum++));
+					if (batch.size() >= batchSize) {
+						put(batch);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+				if (!batch.isEmpty()) {
+					put(batch);
+				}
+				put(COMPLETE);
+			}
+			catch (SQLException ex) {
+				put(new Failure(jdbcTemplate.translateException("PrefetchingQuery", sql, ex)));
+			}
+			catch (RuntimeException | Error ex) {
+				put(new Failure(ex));
+			}
+			finally {
+				releaseResources();
+				if (this.cancelled) {
+					// Wake up a consumer blocked on the cleared buffer
+					this.buffer.offer(COMPLETE);
+				}
+				this.finished.countDown();
+			}
+		}
+
+		private void put(Object element) {
+			if (!this.cancelled) {
+				try {
+					this.buffer.put(element);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					this.cancelled = true;
+					return;
+				}
+				if (this.listener != null) {
+					this.listener.run();
+				}
+			}
+		}
+
+		void releaseResources() {
+			JdbcUtils.closeResultSet(this.resultSet);
+			if (this.pss instanceof ParameterDisposer parameterDisposer) {
+				parameterDisposer.cleanupParameters();
+			}
+			JdbcUtils.closeStatement(this.statement);
+			if (!this.transactional) {
+				DataSourceUtils.releaseConnection(this.connection, this.dataSource);
+			}
+		}
+
+		@Nullable
+		Object poll() {
+			return this.buffer.poll();
+		}
+
+		@SuppressWarnings("unchecked")
+		boolean tryAdvance(Consumer<? super T> action) {
+			while (this.current == null || !this.current.hasNext()) {
+				if (this.done || this.cancelled) {
+					return false;
+				}
+				Object element;
+				try {
+					element = this.buffer.take();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					cancel();
+					throw new DataAccessResourceFailureException("Interrupted while waiting for prefetched rows", ex);
+				}
+				if (element == COMPLETE) {
+					this.done = true;
+					return false;
+				}
+				if (element instanceof Failure failure) {
+					this.done = true;
+					failure.rethrow();
+				}
+				this.current = ((List<T>) element).iterator();
+			}
+			action.accept(this.current.next());
+			return true;
+		}
+
+		void cancel() {
+			this.cancelled = true;
+			this.buffer.clear();
+		}
+
+		void close() {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			cancel();
+			try {
+				this.finished.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	/**
+	 * Subscription executing the query and fetching rows on an executor thread
+	 * once demand is signalled. Buffered rows are emitted by whichever thread
+	 * adds demand or fetches a batch, serialized through a work-in-progress counter.
+	 */
+	private class PrefetchSubscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super T> subscriber;
+
+		@Nullable
+		private final PreparedStatementSetter pss;
+
+		private final AtomicLong demand = new AtomicLong();
+
+		private final AtomicInteger workInProgress = new AtomicInteger();
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private volatile boolean cancelled;
+
+		@Nullable
+		private volatile Throwable error;
+
+		@Nullable
+		private volatile Prefetch prefetch;
+
+		// Emitter-side state, guarded by workInProgress
+
+		@Nullable
+		private Iterator<T> current;
+
+		private boolean terminated;
+
+		PrefetchSubscription(Flow.Subscriber<? super T> subscriber, @Nullable PreparedStatementSetter pss) {
+			this.subscriber = subscriber;
+			this.pss = pss;
+		}
+
+		@Override
+		public void request(long n) {
+			if (this.cancelled) {
+				return;
+			}
+			if (n <= 0) {
+				this.error = new IllegalArgumentException(
+						"Number of requested elements must be positive (Reactive Streams rule 3.9)");
+			}
+			else {
+				this.demand.accumulateAndGet(n, (pending, added) ->
+						(pending + added < 0 ? Long.MAX_VALUE : pending + added));
+				if (this.started.compareAndSet(false, true)) {
+					try {
+						executor.execute(this);
+					}
+					catch (RuntimeException ex) {
+						this.error = ex;
+					}
+				}
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			Prefetch prefetch = this.prefetch;
+			if (prefetch != null) {
+				prefetch.cancel();
+			}
+		}
+
+		@Override
+		public void run() {
+			if (this.cancelled) {
+				return;
+			}
+			Prefetch prefetch;
+			try {
+				prefetch = execute(this.pss, this::drain);
+			}
+			catch (Throwable ex) {
+				this.error = ex;
+				drain();
+				return;
+			}
+			this.prefetch = prefetch;
+			if (this.cancelled) {
+				prefetch.cancel();
+			}
+			prefetch.fetch();
+		}
+
+		private void drain() {
+			if (this.workInProgress.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				try {
+					emit();
+				}
+				catch (Throwable ex) {
+					terminate();
+					this.subscriber.onError(ex);
+				}
+				if (this.terminated) {
+					return;
+				}
+				missed = this.workInProgress.addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void emit() {
+			while (!this.cancelled) {
+				Throwable error = this.error;
+				if (error != null) {
+					terminate();
+					this.subscriber.onError(error);
+					return;
+				}
+				if (this.demand.get() == 0) {
+					return;
+				}
+				if (this.current == null || !this.current.hasNext()) {
+					Prefetch prefetch = this.prefetch;
+					Object element = (prefetch != null ? prefetch.poll() : null);
+					if (element == null) {
+						return;
+					}
+					if (element == COMPLETE) {
+						terminate();
+						this.subscriber.onComplete();
+						return;
+					}
+					if (element instanceof Failure failure) {
+						terminate();
+						this.subscriber.onError(failure.ex);
+						return;
+					}
+					this.current = ((List<T>) element).iterator();
+					continue;
+				}
+				T item = this.current.next();
+				this.demand.getAndUpdate(pending -> (pending == Long.MAX_VALUE ? pending : pending - 1));
+				this.subscriber.onNext(item);
+			}
+			this.terminated = true;
+		}
+
+		private void terminate() {
+			this.terminated = true;
+			cancel();
+		}
+	}
+
+
+	/**
+	 * Failure of the fetching thread, rethrown on the consuming thread.
+	 */
+	private static final class Failure {
+
+		private final Throwable ex;
+
+		Failure(Throwable ex) {
+			this.ex = ex;
+		}
+
+		void rethrow() {
+			if (this.ex instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw (Error) this.ex;
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.metadata;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Cache for {@link TableMetaDataProvider} and {@link CallMetaDataProvider}
+ * instances per {@link DataSource}, to be shared across
+ * {@link org.springframework.jdbc.core.simple.SimpleJdbcInsert} and
+ * {@link org.springframework.jdbc.core.simple.SimpleJdbcCall} instances.
+ *
+ * <p>Without such a cache, every {@code SimpleJdbcInsert} or {@code SimpleJdbcCall}
+ * instance retrieves the database meta-data on first use, which is noticeable
+ * for applications creating such objects per operation. With a shared cache,
+ * the meta-data for a specific table or procedure is only retrieved once per
+ * DataSource, or once per {@linkplain #setTimeToLive time-to-live} period
+ * in case of schema changes at runtime.
+ *
+ * <p>Cached providers are keyed by all configuration options which affect
+ * their initialization: catalog, schema and table or procedure name, as well
+ * as the meta-data access flags. Cache entries are softly referenced.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see org.springframework.jdbc.core.simple.SimpleJdbcInsert#withMetaDataProviderCache
+ * @see org.springframework.jdbc.core.simple.SimpleJdbcCall#withMetaDataProviderCache
+ */
+public class MetaDataProviderCache {
+
+	private final Map<DataSource, Map<Object, CachedProvider>> providerCache = new ConcurrentReferenceHashMap<>();
+
+	@Nullable
+	private Duration timeToLive;
+
+
+	/**
+	 * Specify the time after which a cached provider is discarded and
+	 * the meta-data retrieved again. Default is none, keeping cached
+	 * providers until {@linkplain #evict evicted} explicitly.
+	 */
+	public void setTimeToLive(@Nullable Duration timeToLive) {
+		Assert.isTrue(timeToLive == null || !timeToLive.isNegative(), "Time-to-live must not be negative");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Return the time after which a cached provider is discarded, if any.
+	 */
+	@Nullable
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+
+	/**
+	 * Return a {@link TableMetaDataProvider} for the given context,
+	 * creating it through {@link TableMetaDataProviderFactory} if necessary.
+	 * @param dataSource the DataSource to retrieve meta-data from
+	 * @param context the configuration of the table access
+	 * @return the shared TableMetaDataProvider
+	 */
+	public TableMetaDataProvider getTableMetaDataProvider(DataSource dataSource, TableMetaDataContext context) {
+		TableKey key = new TableKey(context.getCatalogName(), context.getSchemaName(), context.getTableName(),
+				context.isAccessTableColumnMetaData(), context.isOverrideIncludeSynonymsDefault());
+		return getProvider(dataSource, key,
+				() -> TableMetaDataProviderFactory.createMetaDataProvider(dataSource, context));
+	}
+
+	/**
+	 * Return a {@link CallMetaDataProvider} for the given context,
+	 * creating it through {@link CallMetaDataProviderFactory} if necessary.
+	 * @param dataSource the DataSource to retrieve meta-data from
+	 * @param context the configuration of the call
+	 * @return the shared CallMetaDataProvider
+	 */
+	public CallMetaDataProvider getCallMetaDataProvider(DataSource dataSource, CallMetaDataContext context) {
+		CallKey key = new CallKey(context.getCatalogName(), context.getSchemaName(), context.getProcedureName(),
+				context.isFunction(), context.isAccessCallParameterMetaData());
+		return getProvider(dataSource, key,
+				() -> CallMetaDataProviderFactory.createMetaDataProvider(dataSource, context));
+	}
+
+	/**
+	 * Remove all cached providers for the given DataSource.
+	 */
+	public void evict(DataSource dataSource) {
+		this.providerCache.remove(dataSource);
+	}
+
+	/**
+	 * Remove all cached providers.
+	 */
+	public void clear() {
+		this.providerCache.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T getProvider(DataSource dataSource, Object key, Supplier<T> providerFactory) {
+		Map<Object, CachedProvider> providers =
+				this.providerCache.computeIfAbsent(dataSource, ds -> new ConcurrentHashMap<>());
+		long now = System.nanoTime();
+		CachedProvider cached = providers.get(key);
+		if (cached == null || cached.isExpired(now)) {
+			// Concurrent misses for the same key wait for a single retrieval
+			cached = providers.compute(key, (k, existing) -> (existing != null && !existing.isExpired(now) ?
+					existing : new CachedProvider(providerFactory.get(), this.timeToLive, now)));
+		}
+		return (T) cached.provider;
+	}
+
+
+	private record TableKey(@Nullable String catalogName, @Nullable String schemaName, @Nullable String tableName,
+			boolean accessTableColumnMetaData, boolean overrideIncludeSynonymsDefault) {
+	}
+
+
+	private record CallKey(@Nullable String catalogName, @Nullable String schemaName, @Nullable String procedureName,
+			boolean function, boolean accessCallParameterMetaData) {
+	}
+
+
+	private static final class CachedProvider {
+
+		final Object provider;
+
+		private final boolean expires;
+
+		private final long expirationTime;
+
+		CachedProvider(Object provider, @Nullable Duration timeToLive, long creationTime) {
+			this.provider = provider;
+			this.expires = (timeToLive != null);
+			this.expirationTime = (timeToLive != null ? creationTime + timeToLive.toNanos() : 0);
+		}
+
+		boolean isExpired(long now) {
+			return (this.expires && now - this.expirationTime >= 0);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -76,6 +76,10 @@ public class TableMetaDataContext {
 	@Nullable
 	private TableMetaDataProvider metaDataProvider;
 
+	/** Shared cache to obtain the provider from, if any. */
+	@Nullable
+	private MetaDataProviderCache metaDataProviderCache;
+
 	// Are we using generated key columns
 	private boolean generatedKeyColumnsUsed = false;
 
@@ -161,6 +165,24 @@ public class TableMetaDataContext {
 		return this.tableColumns;
 	}
 
+	/**
+	 * Specify a shared cache to obtain the {@link TableMetaDataProvider} from,
+	 * instead of retrieving the meta-data for this context individually.
+	 * @since 6.0
+	 */
+	public void setMetaDataProviderCache(@Nullable MetaDataProviderCache metaDataProviderCache) {
+		this.metaDataProviderCache = metaDataProviderCache;
+	}
+
+	/**
+	 * Return the shared cache to obtain the {@link TableMetaDataProvider} from, if any.
+	 * @since 6.0
+	 */
+	@Nullable
+	public MetaDataProviderCache getMetaDataProviderCache() {
+		return this.metaDataProviderCache;
+	}
+
 
 	/**
 	 * Process the current meta-data with the provided configuration options.
@@ -169,7 +191,9 @@ public class TableMetaDataContext {
 	 * @param generatedKeyNames name of generated keys
 	 */
 	public void processMetaData(DataSource dataSource, List<String> declaredColumns, String[] generatedKeyNames) {
-		this.metaDataProvider = TableMetaDataProviderFactory.createMetaDataProvider(dataSource, this);
+		this.metaDataProvider = (this.metaDataProviderCache != null ?
+				this.metaDataProviderCache.getTableMetaDataProvider(dataSource, this) :
+				TableMetaDataProviderFactory.createMetaDataProvider(dataSource, this));
 		this.tableColumns = reconcileColumnsToUse(declaredColumns, generatedKeyNames);
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcBatchWriter;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
@@ -39,7 +40,10 @@ import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlParameterValue;
 import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
@@ -385,6 +389,36 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 				});
 	}
 
+	/**
+	 * Create a streaming {@link JdbcBatchWriter} for the given SQL statement
+	 * with named parameters, writing a {@link SqlParameterSource} per item.
+	 * <p>In contrast to {@link #batchUpdate(String, SqlParameterSource[])}, the
+	 * parameter sources are pulled from a {@link java.util.stream.Stream} or
+	 * {@link java.util.Iterator} and sent in chunks. Since the statement is
+	 * prepared before the first item is available, collection values are
+	 * not expanded into individual placeholders.
+	 * @param sql the SQL statement to execute for each item
+	 * @return the batch writer for the given statement
+	 * @since 6.0
+	 * @see JdbcTemplate#batchWriter
+	 */
+	public JdbcBatchWriter<SqlParameterSource> batchWriter(String sql) {
+		ParsedSql parsedSql = getParsedSql(sql);
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, null);
+		return new JdbcBatchWriter<>(getJdbcTemplate(), sqlToUse, (ps, paramSource) -> {
+			Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+			for (int i = 0; i < values.length; i++) {
+				Object value = values[i];
+				if (value instanceof SqlParameterValue paramValue) {
+					StatementCreatorUtils.setParameterValue(ps, i + 1, paramValue, paramValue.getValue());
+				}
+				else {
+					StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, value);
+				}
+			}
+		});
+	}
+
 
 	/**
 	 * Build a {@link PreparedStatementCreator} based on the given SQL and named parameters.
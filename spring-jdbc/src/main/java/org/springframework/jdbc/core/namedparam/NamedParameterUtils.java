@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -206,13 +206,15 @@ public abstract class NamedParameterUtils {
 	 * @param statement character array containing SQL statement
 	 * @param position current position of statement
 	 * @return next position to process after any comments or quotes are skipped
+	 * (or the given position if there is no comment or quote at that position)
+	 * @since 6.0
 	 */
-	private static int skipCommentsAndQuotes(char[] statement, int position) {
+	public static int skipCommentsAndQuotes(char[] statement, int position) {
 		for (int i = 0; i < START_SKIP.length; i++) {
 			if (statement[position] == START_SKIP[i].charAt(0)) {
 				boolean match = true;
 				for (int j = 1; j < START_SKIP[i].length(); j++) {
-					if (statement[position + j] != START_SKIP[i].charAt(j)) {
+					if (position + j >= statement.length || statement[position + j] != START_SKIP[i].charAt(j)) {
 						match = false;
 						break;
 					}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import javax.sql.DataSource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.metadata.MetaDataProviderCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 /**
@@ -147,6 +148,18 @@ public class SimpleJdbcCall extends AbstractJdbcCall implements SimpleJdbcCallOp
 		return this;
 	}
 
+	/**
+	 * Obtain the call meta-data from the given shared cache.
+	 * @param metaDataProviderCache the cache to use
+	 * @return the instance of this SimpleJdbcCall
+	 * @since 6.0
+	 * @see #setMetaDataProviderCache
+	 */
+	public SimpleJdbcCall withMetaDataProviderCache(MetaDataProviderCache metaDataProviderCache) {
+		setMetaDataProviderCache(metaDataProviderCache);
+		return this;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T executeFunction(Class<T> returnType, Object... args) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Map;
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.metadata.MetaDataProviderCache;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
 
@@ -112,6 +113,18 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return this;
 	}
 
+	/**
+	 * Obtain the table meta-data from the given shared cache.
+	 * @param metaDataProviderCache the cache to use
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 6.0
+	 * @see #setMetaDataProviderCache
+	 */
+	public SimpleJdbcInsert withMetaDataProviderCache(MetaDataProviderCache metaDataProviderCache) {
+		setMetaDataProviderCache(metaDataProviderCache);
+		return this;
+	}
+
 	@Override
 	public int execute(Map<String, ?> args) {
 		return doExecute(args);
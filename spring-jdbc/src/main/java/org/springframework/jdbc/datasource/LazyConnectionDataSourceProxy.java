@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.Constants;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * Proxy for a target DataSource, fetching actual JDBC Connections lazily,
@@ -91,6 +92,8 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 	@Nullable
 	private Integer defaultTransactionIsolation;
 
+	private int statementCacheSize = 0;
+
 
 	/**
 	 * Create a new LazyConnectionDataSourceProxy.
@@ -152,6 +155,29 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 		setDefaultTransactionIsolation(constants.asNumber(constantName).intValue());
 	}
 
+	/**
+	 * Specify the maximum number of idle PreparedStatements to cache per
+	 * Connection handle, keyed by SQL and statement options. Default is 0,
+	 * not caching any statements.
+	 * <p>Statement caching is useful for drivers without a built-in statement
+	 * cache, for code which repeatedly prepares the same SQL statements within
+	 * a transaction. Cached statements are closed before the target Connection
+	 * gets closed, i.e. before it is returned to a connection pool.
+	 * @see SingleConnectionDataSource#setStatementCacheSize
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		Assert.isTrue(statementCacheSize >= 0, "'statementCacheSize' must not be negative");
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Return the maximum number of idle PreparedStatements to cache
+	 * per Connection handle.
+	 */
+	public int getStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+
 
 	@Override
 	public void afterPropertiesSet() {
@@ -269,6 +295,9 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 		@Nullable
 		private Connection target;
 
+		@Nullable
+		private PreparedStatementCache statementCache;
+
 		public LazyConnectionInvocationHandler() {
 			this.autoCommit = defaultAutoCommit();
 			this.transactionIsolation = defaultTransactionIsolation();
@@ -374,6 +403,20 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 			// Target Connection already fetched,
 			// or target Connection necessary for current operation ->
 			// invoke method on target connection.
+			switch (method.getName()) {
+				case "prepareStatement":
+					getTargetConnection(method);
+					if (this.statementCache != null) {
+						return this.statementCache.prepareStatement((Connection) proxy, method, args);
+					}
+					break;
+				case "close":
+					if (this.statementCache != null) {
+						this.statementCache.close();
+						this.statementCache = null;
+					}
+					break;
+			}
 			try {
 				return method.invoke(getTargetConnection(method), args);
 			}
@@ -424,6 +467,9 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 				if (this.autoCommit != null && this.autoCommit != this.target.getAutoCommit()) {
 					this.target.setAutoCommit(this.autoCommit);
 				}
+				if (statementCacheSize > 0) {
+					this.statementCache = new PreparedStatementCache(this.target, statementCacheSize);
+				}
 			}
 
 			else {
@@ -0,0 +1,804 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Lightweight pooling proxy for a target DataSource, keeping a bounded number
+ * of physical JDBC Connections open for reuse. Typically used with a
+ * {@link DriverManagerDataSource} or {@link SimpleDriverDataSource} target
+ * in tests, tools and small services which do not warrant a full-fledged
+ * connection pool library.
+ *
+ * <p>Connections are handed out as {@link ConnectionProxy} handles which return
+ * their physical Connection to the pool on {@code close()}, so this DataSource
+ * works transparently with {@link DataSourceUtils}, {@link DataSourceTransactionManager}
+ * and its {@link ConnectionHolder}. On return, Statements left open through a
+ * handle are closed, a pending transaction is rolled back, and auto-commit,
+ * read-only and transaction isolation settings changed through the handle
+ * are reset.
+ *
+ * <p>The pool is lock-free for the common case: each connection entry carries
+ * an atomic state, and a borrowing thread scans the entries for an idle one,
+ * then creates a new connection up to the {@linkplain #setMaxPoolSize maximum
+ * pool size}. Only when the pool is exhausted does a thread wait to be signalled
+ * on return of a connection, up to the {@linkplain #setConnectionTimeout
+ * connection timeout}.
+ *
+ * <p>Connections which have been idle for longer than the
+ * {@linkplain #setValidationInterval validation interval} are validated on
+ * borrow, through the {@linkplain #setValidationQuery validation query} or
+ * {@link Connection#isValid}. Connections older than the
+ * {@linkplain #setMaxLifetime maximum lifetime} are closed and replaced.
+ * Optionally, connections held for longer than a
+ * {@linkplain #setLeakDetectionThreshold leak detection threshold} are logged
+ * along with the stack trace of the borrowing code.
+ *
+ * <p>{@link #getConnection(String, String)} is not pooled but delegates to
+ * the target DataSource directly.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see #getConnection()
+ * @see #destroy()
+ */
+public class PoolingDataSource extends DelegatingDataSource implements DisposableBean {
+
+	private static final int STATE_IDLE = 0;
+
+	private static final int STATE_IN_USE = 1;
+
+	private static final int STATE_REMOVED = -1;
+
+	private static final int STATEMENT_PRUNE_THRESHOLD = 32;
+
+	private static final Log logger = LogFactory.getLog(PoolingDataSource.class);
+
+
+	private int maxPoolSize = 10;
+
+	private Duration connectionTimeout = Duration.ofSeconds(30);
+
+	@Nullable
+	private String validationQuery;
+
+	private Duration validationInterval = Duration.ofSeconds(1);
+
+	private Duration validationTimeout = Duration.ofSeconds(5);
+
+	@Nullable
+	private Duration maxLifetime = Duration.ofMinutes(30);
+
+	@Nullable
+	private Duration leakDetectionThreshold;
+
+	private final List<PooledConnection> connections = new CopyOnWriteArrayList<>();
+
+	private final ReentrantLock waitLock = new ReentrantLock();
+
+	private final Condition connectionReturned = this.waitLock.newCondition();
+
+	private final AtomicInteger poolSize = new AtomicInteger();
+
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	private final LongAdder borrowCount = new LongAdder();
+
+	private final LongAdder creationCount = new LongAdder();
+
+	private final LongAdder timeoutCount = new LongAdder();
+
+	private final LongAdder leakCount = new LongAdder();
+
+	@Nullable
+	private volatile ScheduledExecutorService leakDetector;
+
+	private volatile boolean closed;
+
+
+	/**
+	 * Create a new PoolingDataSource.
+	 * @see #setTargetDataSource
+	 */
+	public PoolingDataSource() {
+	}
+
+	/**
+	 * Create a new PoolingDataSource.
+	 * @param targetDataSource the target DataSource to obtain physical Connections from
+	 */
+	public PoolingDataSource(DataSource targetDataSource) {
+		setTargetDataSource(targetDataSource);
+		afterPropertiesSet();
+	}
+
+
+	/**
+	 * Set the maximum number of physical Connections to keep open,
+	 * both in use and idle. Default is 10.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		Assert.isTrue(maxPoolSize > 0, "'maxPoolSize' must be positive");
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	/**
+	 * Return the maximum number of physical Connections to keep open.
+	 */
+	public int getMaxPoolSize() {
+		return this.maxPoolSize;
+	}
+
+	/**
+	 * Set the maximum time to wait for a Connection when the pool is exhausted,
+	 * throwing an {@link SQLTransientConnectionException} afterwards.
+	 * Default is 30 seconds.
+	 */
+	public void setConnectionTimeout(Duration connectionTimeout) {
+		Assert.isTrue(!connectionTimeout.isNegative(), "'connectionTimeout' must not be negative");
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	/**
+	 * Return the maximum time to wait for a Connection.
+	 */
+	public Duration getConnectionTimeout() {
+		return this.connectionTimeout;
+	}
+
+	/**
+	 * Set a query to validate idle Connections with, e.g. "SELECT 1".
+	 * <p>Default is none, validating through {@link Connection#isValid}
+	 * which is the preferable choice for JDBC 4 compliant drivers.
+	 * @see #setValidationInterval
+	 */
+	public void setValidationQuery(@Nullable String validationQuery) {
+		this.validationQuery = validationQuery;
+	}
+
+	/**
+	 * Return the query to validate idle Connections with, if any.
+	 */
+	@Nullable
+	public String getValidationQuery() {
+		return this.validationQuery;
+	}
+
+	/**
+	 * Set the idle time after which a Connection gets validated on borrow.
+	 * Default is 1 second; specify {@link Duration#ZERO} for validating
+	 * on every borrow.
+	 */
+	public void setValidationInterval(Duration validationInterval) {
+		Assert.isTrue(!validationInterval.isNegative(), "'validationInterval' must not be negative");
+		this.validationInterval = validationInterval;
+	}
+
+	/**
+	 * Return the idle time after which a Connection gets validated on borrow.
+	 */
+	public Duration getValidationInterval() {
+		return this.validationInterval;
+	}
+
+	/**
+	 * Set the timeout for validating a Connection. Default is 5 seconds.
+	 */
+	public void setValidationTimeout(Duration validationTimeout) {
+		Assert.isTrue(!validationTimeout.isNegative(), "'validationTimeout' must not be negative");
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Return the timeout for validating a Connection.
+	 */
+	public Duration getValidationTimeout() {
+		return this.validationTimeout;
+	}
+
+	/**
+	 * Set the maximum lifetime of a physical Connection, after which it gets
+	 * closed on return or on borrow and replaced with a new Connection.
+	 * Default is 30 minutes; specify {@code null} for an unlimited lifetime.
+	 */
+	public void setMaxLifetime(@Nullable Duration maxLifetime) {
+		Assert.isTrue(maxLifetime == null || (!maxLifetime.isNegative() && !maxLifetime.isZero()),
+				"'maxLifetime' must be positive");
+		this.maxLifetime = maxLifetime;
+	}
+
+	/**
+	 * Return the maximum lifetime of a physical Connection, if any.
+	 */
+	@Nullable
+	public Duration getMaxLifetime() {
+		return this.maxLifetime;
+	}
+
+	/**
+	 * Set the time after which a borrowed Connection is considered leaked,
+	 * logging a warning with the stack trace of the borrowing code.
+	 * <p>Default is none. Note that leak detection captures a stack trace
+	 * on every borrow; it is primarily meant for development and testing.
+	 */
+	public void setLeakDetectionThreshold(@Nullable Duration leakDetectionThreshold) {
+		Assert.isTrue(leakDetectionThreshold == null || !leakDetectionThreshold.isNegative(),
+				"'leakDetectionThreshold' must not be negative");
+		this.leakDetectionThreshold = leakDetectionThreshold;
+	}
+
+	/**
+	 * Return the time after which a borrowed Connection is considered leaked, if any.
+	 */
+	@Nullable
+	public Duration getLeakDetectionThreshold() {
+		return this.leakDetectionThreshold;
+	}
+
+
+	/**
+	 * Return the current number of physical Connections, both in use and idle.
+	 */
+	public int getPoolSize() {
+		return this.poolSize.get();
+	}
+
+	/**
+	 * Return the current number of Connections in use.
+	 */
+	public int getActiveCount() {
+		return countConnections(STATE_IN_USE);
+	}
+
+	/**
+	 * Return the current number of idle Connections.
+	 */
+	public int getIdleCount() {
+		return countConnections(STATE_IDLE);
+	}
+
+	/**
+	 * Return the current number of threads waiting for a Connection.
+	 */
+	public int getPendingCount() {
+		return this.waiters.get();
+	}
+
+	/**
+	 * Return the total number of Connections handed out so far.
+	 */
+	public long getBorrowCount() {
+		return this.borrowCount.sum();
+	}
+
+	/**
+	 * Return the total number of physical Connections created so far.
+	 */
+	public long getCreationCount() {
+		return this.creationCount.sum();
+	}
+
+	/**
+	 * Return the total number of Connection requests which timed out.
+	 */
+	public long getTimeoutCount() {
+		return this.timeoutCount.sum();
+	}
+
+	/**
+	 * Return the total number of Connections detected as leaked.
+	 * @see #setLeakDetectionThreshold
+	 */
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+	private int countConnections(int state) {
+		int count = 0;
+		for (PooledConnection entry : this.connections) {
+			if (entry.state.get() == state) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Obtain a pooled Connection, reusing an idle physical Connection if
+	 * available or creating a new one up to the maximum pool size, else
+	 * waiting for a Connection to be returned.
+	 * <p>The returned Connection handle implements the ConnectionProxy interface,
+	 * allowing to retrieve the underlying target Connection.
+	 * @return a pooled Connection handle
+	 * @throws SQLTransientConnectionException if no Connection became available
+	 * within the connection timeout
+	 * @see ConnectionProxy#getTargetConnection()
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long deadline = System.nanoTime() + this.connectionTimeout.toNanos();
+		while (true) {
+			if (this.closed) {
+				throw new SQLException("PoolingDataSource has been closed");
+			}
+			PooledConnection entry = borrowConnection(deadline);
+			if (entry == null && this.closed) {
+				throw new SQLException("PoolingDataSource has been closed");
+			}
+			if (entry == null) {
+				this.timeoutCount.increment();
+				throw new SQLTransientConnectionException("Connection not available: request timed out after " +
+						this.connectionTimeout.toMillis() + " ms (pool size " + getPoolSize() +
+						", active " + getActiveCount() + ", pending " + getPendingCount() + ")");
+			}
+			long now = System.nanoTime();
+			if (isExpired(entry, now) || (entry.used &&
+					now - entry.lastAccessTime >= this.validationInterval.toNanos() && !isValid(entry.target))) {
+				removeConnection(entry);
+				continue;
+			}
+			entry.used = true;
+			entry.lastAccessTime = now;
+			this.borrowCount.increment();
+			scheduleLeakDetection(entry);
+			return (Connection) Proxy.newProxyInstance(
+					ConnectionProxy.class.getClassLoader(),
+					new Class<?>[] {ConnectionProxy.class},
+					new PooledConnectionInvocationHandler(entry));
+		}
+	}
+
+	/**
+	 * Close all idle physical Connections and mark this pool as closed.
+	 * Connections in use are closed when returned.
+	 */
+	@Override
+	public void destroy() {
+		this.closed = true;
+		for (PooledConnection entry : this.connections) {
+			if (entry.state.compareAndSet(STATE_IDLE, STATE_REMOVED)) {
+				removeConnection(entry);
+			}
+		}
+		ScheduledExecutorService leakDetector = this.leakDetector;
+		if (leakDetector != null) {
+			leakDetector.shutdownNow();
+		}
+		this.waitLock.lock();
+		try {
+			this.connectionReturned.signalAll();
+		}
+		finally {
+			this.waitLock.unlock();
+		}
+	}
+
+
+	@Nullable
+	private PooledConnection borrowConnection(long deadline) throws SQLException {
+		PooledConnection entry = pollIdleConnection();
+		if (entry != null) {
+			return entry;
+		}
+		entry = createConnection();
+		if (entry != null) {
+			return entry;
+		}
+
+		this.waitLock.lock();
+		this.waiters.incrementAndGet();
+		try {
+			// Registered as a waiter before scanning: a Connection returned from now on
+			// is either found by the scan or signalled once we wait on the condition.
+			long remaining = deadline - System.nanoTime();
+			while (!this.closed) {
+				entry = pollIdleConnection();
+				if (entry != null) {
+					return entry;
+				}
+				if (remaining <= 0) {
+					return null;
+				}
+				remaining = this.connectionReturned.awaitNanos(remaining);
+			}
+			return null;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a Connection", ex);
+		}
+		finally {
+			this.waiters.decrementAndGet();
+			this.waitLock.unlock();
+		}
+	}
+
+	@Nullable
+	private PooledConnection pollIdleConnection() {
+		for (PooledConnection entry : this.connections) {
+			if (entry.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Create a new physical Connection in use if the pool has not reached
+	 * its maximum size yet.
+	 * @return the new pool entry, or {@code null} if the pool is full
+	 */
+	@Nullable
+	private PooledConnection createConnection() throws SQLException {
+		int size;
+		do {
+			size = this.poolSize.get();
+			if (size >= this.maxPoolSize) {
+				return null;
+			}
+		}
+		while (!this.poolSize.compareAndSet(size, size + 1));
+
+		try {
+			PooledConnection entry = new PooledConnection(obtainTargetDataSource().getConnection());
+			this.connections.add(entry);
+			this.creationCount.increment();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Created pooled JDBC Connection: " + entry.target);
+			}
+			return entry;
+		}
+		catch (SQLException | RuntimeException ex) {
+			this.poolSize.decrementAndGet();
+			throw ex;
+		}
+	}
+
+	private void returnConnection(PooledConnection entry) {
+		ScheduledFuture<?> leakTask = entry.leakTask;
+		if (leakTask != null) {
+			leakTask.cancel(false);
+			entry.leakTask = null;
+		}
+		long now = System.nanoTime();
+		if (this.closed || entry.broken || isExpired(entry, now)) {
+			removeConnection(entry);
+			return;
+		}
+		try {
+			entry.reset();
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not reset pooled JDBC Connection - discarding it", ex);
+			removeConnection(entry);
+			return;
+		}
+		entry.lastAccessTime = now;
+		entry.state.set(STATE_IDLE);
+
+		// Wake up a thread waiting for a Connection, if any
+		if (this.waiters.get() > 0) {
+			this.waitLock.lock();
+			try {
+				this.connectionReturned.signal();
+			}
+			finally {
+				this.waitLock.unlock();
+			}
+		}
+	}
+
+	private void removeConnection(PooledConnection entry) {
+		entry.state.set(STATE_REMOVED);
+		if (this.connections.remove(entry)) {
+			this.poolSize.decrementAndGet();
+			try {
+				entry.target.close();
+			}
+			catch (Throwable ex) {
+				logger.debug("Could not close pooled JDBC Connection", ex);
+			}
+		}
+		if (!this.closed && this.waiters.get() > 0) {
+			// Replace the removed Connection for a waiting thread
+			try {
+				PooledConnection replacement = createConnection();
+				if (replacement != null) {
+					returnConnection(replacement);
+				}
+			}
+			catch (SQLException | RuntimeException ex) {
+				logger.debug("Could not create replacement JDBC Connection", ex);
+			}
+		}
+	}
+
+	private boolean isExpired(PooledConnection entry, long now) {
+		Duration maxLifetime = this.maxLifetime;
+		return (maxLifetime != null && now - entry.creationTime >= maxLifetime.toNanos());
+	}
+
+	private boolean isValid(Connection con) {
+		int timeout = (int) Math.max(this.validationTimeout.toSeconds(), 1);
+		try {
+			if (this.validationQuery != null) {
+				try (Statement stmt = con.createStatement()) {
+					stmt.setQueryTimeout(timeout);
+					stmt.execute(this.validationQuery);
+				}
+				return true;
+			}
+			return con.isValid(timeout);
+		}
+		catch (SQLException | RuntimeException ex) {
+			logger.debug("Validation of pooled JDBC Connection failed", ex);
+			return false;
+		}
+	}
+
+	private void scheduleLeakDetection(PooledConnection entry) {
+		Duration threshold = this.leakDetectionThreshold;
+		if (threshold == null) {
+			return;
+		}
+		ScheduledExecutorService leakDetector = this.leakDetector;
+		if (leakDetector == null) {
+			synchronized (this) {
+				leakDetector = this.leakDetector;
+				if (leakDetector == null) {
+					ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+						Thread thread = new Thread(runnable, "PoolingDataSource-leak-detection");
+						thread.setDaemon(true);
+						return thread;
+					});
+					executor.setRemoveOnCancelPolicy(true);
+					this.leakDetector = leakDetector = executor;
+				}
+			}
+		}
+		Exception borrowTrace = new Exception("Connection borrowed here");
+		entry.leakTask = leakDetector.schedule(() -> {
+			this.leakCount.increment();
+			logger.warn("Connection leak detected: " + entry.target + " has been in use for more than " +
+					threshold.toMillis() + " ms", borrowTrace);
+		}, threshold.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+
+	/**
+	 * A physical Connection in the pool, along with its pooling state.
+	 */
+	private static class PooledConnection {
+
+		final Connection target;
+
+		final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+
+		final long creationTime = System.nanoTime();
+
+		volatile long lastAccessTime = this.creationTime;
+
+		@Nullable
+		volatile ScheduledFuture<?> leakTask;
+
+		volatile boolean used;
+
+		volatile boolean broken;
+
+		private final boolean defaultAutoCommit;
+
+		private final boolean defaultReadOnly;
+
+		private final int defaultTransactionIsolation;
+
+		boolean autoCommitDirty;
+
+		boolean readOnlyDirty;
+
+		boolean transactionIsolationDirty;
+
+		private final List<Statement> openStatements = new ArrayList<>();
+
+		private int statementPruneThreshold = STATEMENT_PRUNE_THRESHOLD;
+
+		PooledConnection(Connection target) throws SQLException {
+			this.target = target;
+			this.defaultAutoCommit = target.getAutoCommit();
+			this.defaultReadOnly = target.isReadOnly();
+			this.defaultTransactionIsolation = target.getTransactionIsolation();
+		}
+
+		/**
+		 * Track a Statement created through a handle, to be closed on return
+		 * unless closed by the application already.
+		 */
+		void trackStatement(Statement statement) {
+			if (this.openStatements.size() >= this.statementPruneThreshold) {
+				this.openStatements.removeIf(PooledConnection::isClosed);
+				this.statementPruneThreshold = Math.max(STATEMENT_PRUNE_THRESHOLD, this.openStatements.size() * 2);
+			}
+			this.openStatements.add(statement);
+		}
+
+		/**
+		 * Close Statements left open through a handle, roll back an unfinished
+		 * transaction, and reset Connection settings changed through the handle.
+		 */
+		void reset() throws SQLException {
+			if (!this.openStatements.isEmpty()) {
+				for (Statement statement : this.openStatements) {
+					try {
+						statement.close();
+					}
+					catch (SQLException ex) {
+						logger.debug("Could not close JDBC Statement left open on pooled Connection", ex);
+					}
+				}
+				this.openStatements.clear();
+				this.statementPruneThreshold = STATEMENT_PRUNE_THRESHOLD;
+			}
+			if (!this.target.getAutoCommit()) {
+				this.target.rollback();
+			}
+			if (this.autoCommitDirty) {
+				if (this.target.getAutoCommit() != this.defaultAutoCommit) {
+					this.target.setAutoCommit(this.defaultAutoCommit);
+				}
+				this.autoCommitDirty = false;
+			}
+			if (this.readOnlyDirty) {
+				this.target.setReadOnly(this.defaultReadOnly);
+				this.readOnlyDirty = false;
+			}
+			if (this.transactionIsolationDirty) {
+				this.target.setTransactionIsolation(this.defaultTransactionIsolation);
+				this.transactionIsolationDirty = false;
+			}
+			this.target.clearWarnings();
+		}
+
+		private static boolean isClosed(Statement statement) {
+			try {
+				return statement.isClosed();
+			}
+			catch (SQLException ex) {
+				return true;
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a pooled Connection handle,
+	 * returning the physical Connection to the pool on close.
+	 */
+	private class PooledConnectionInvocationHandler implements InvocationHandler {
+
+		private final PooledConnection entry;
+
+		private boolean closed;
+
+		PooledConnectionInvocationHandler(PooledConnection entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled Connection proxy for [" + this.entry.target + "]";
+				case "close":
+					// Handle close method: return physical Connection to the pool.
+					if (!this.closed) {
+						this.closed = true;
+						returnConnection(this.entry);
+					}
+					return null;
+				case "isClosed":
+					return (this.closed || this.entry.target.isClosed());
+			}
+
+			if (this.closed) {
+				throw new SQLException("Illegal operation: connection handle has been closed");
+			}
+
+			switch (method.getName()) {
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.entry.target;
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "setAutoCommit":
+					this.entry.autoCommitDirty = true;
+					break;
+				case "setReadOnly":
+					this.entry.readOnlyDirty = true;
+					break;
+				case "setTransactionIsolation":
+					this.entry.transactionIsolationDirty = true;
+					break;
+			}
+
+			// Invoke method on target Connection.
+			try {
+				Object result = method.invoke(this.entry.target, args);
+				if (result instanceof Statement statement) {
+					// createStatement, prepareStatement or prepareCall: close on return if left open.
+					this.entry.trackStatement(statement);
+				}
+				return result;
+			}
+			catch (InvocationTargetException ex) {
+				Throwable targetEx = ex.getTargetException();
+				if (targetEx instanceof SQLException sqlEx && sqlEx.getSQLState() != null &&
+						sqlEx.getSQLState().startsWith("08")) {
+					// Connection exception: discard physical Connection on return.
+					this.entry.broken = true;
+				}
+				throw targetEx;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Cache of idle {@link PreparedStatement PreparedStatements} for a single
+ * physical JDBC Connection, for drivers without a built-in statement cache.
+ *
+ * <p>{@code prepareStatement} calls on the Connection proxy are served from this
+ * cache if an idle statement for the same SQL and options is available. The
+ * returned statement handles put their statement back into the cache on
+ * {@code close()}, evicting the least recently used statement beyond the
+ * configured limit. Before a statement becomes idle, its parameters and
+ * batch are cleared, and any max rows, fetch size or query timeout set
+ * through the handle are reset to the driver defaults.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see SingleConnectionDataSource#setStatementCacheSize
+ * @see LazyConnectionDataSourceProxy#setStatementCacheSize
+ */
+final class PreparedStatementCache {
+
+	private static final Log logger = LogFactory.getLog(PreparedStatementCache.class);
+
+
+	private final Connection target;
+
+	private final Map<List<Object>, CachedStatement> idleStatements;
+
+	private boolean closed;
+
+
+	PreparedStatementCache(Connection target, int cacheLimit) {
+		this.target = target;
+		this.idleStatements = new LinkedHashMap<>(cacheLimit, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedStatement> eldest) {
+				if (size() > cacheLimit) {
+					closeStatement(eldest.getValue().statement());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+
+	/**
+	 * Obtain a PreparedStatement for the given {@code prepareStatement}
+	 * invocation, reusing an idle statement if possible.
+	 * @param connectionProxy the Connection proxy to expose from the statement
+	 * @param method the {@code prepareStatement} variant invoked
+	 * @param args the arguments of the invocation
+	 * @return a statement handle which returns to this cache on close
+	 */
+	PreparedStatement prepareStatement(Connection connectionProxy, Method method, Object[] args)
+			throws SQLException {
+
+		List<Object> key = createKey(args);
+		CachedStatement statement;
+		synchronized (this.idleStatements) {
+			statement = this.idleStatements.remove(key);
+		}
+		if (statement == null) {
+			try {
+				statement = new CachedStatement((PreparedStatement) method.invoke(this.target, args));
+			}
+			catch (InvocationTargetException ex) {
+				if (ex.getTargetException() instanceof SQLException sqlException) {
+					throw sqlException;
+				}
+				throw new IllegalStateException(ex.getTargetException());
+			}
+			catch (IllegalAccessException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(
+				PreparedStatement.class.getClassLoader(),
+				new Class<?>[] {PreparedStatement.class},
+				new CachedStatementInvocationHandler(statement, key, connectionProxy));
+	}
+
+	/**
+	 * Close all idle statements, to be called before closing the Connection.
+	 * Statements still in use are closed when their handle gets closed.
+	 */
+	void close() {
+		synchronized (this.idleStatements) {
+			this.closed = true;
+			for (Iterator<CachedStatement> it = this.idleStatements.values().iterator(); it.hasNext();) {
+				closeStatement(it.next().statement());
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Return the number of idle statements currently cached.
+	 */
+	int size() {
+		synchronized (this.idleStatements) {
+			return this.idleStatements.size();
+		}
+	}
+
+	private void release(List<Object> key, CachedStatement statement, boolean settingsModified) {
+		try {
+			if (!statement.reset(settingsModified)) {
+				return;
+			}
+		}
+		catch (SQLException ex) {
+			closeStatement(statement.statement());
+			return;
+		}
+		synchronized (this.idleStatements) {
+			if (!this.closed && !this.idleStatements.containsKey(key)) {
+				this.idleStatements.put(key, statement);
+				return;
+			}
+		}
+		closeStatement(statement.statement());
+	}
+
+	private static List<Object> createKey(Object[] args) {
+		List<Object> key = new ArrayList<>(args.length);
+		for (Object arg : args) {
+			if (arg instanceof int[] columnIndexes) {
+				key.add(Arrays.stream(columnIndexes).boxed().toList());
+			}
+			else if (arg instanceof String[] columnNames) {
+				key.add(Arrays.asList(columnNames));
+			}
+			else {
+				key.add(arg);
+			}
+		}
+		return key;
+	}
+
+	private static void closeStatement(PreparedStatement statement) {
+		try {
+			statement.close();
+		}
+		catch (SQLException ex) {
+			logger.trace("Could not close cached JDBC PreparedStatement", ex);
+		}
+	}
+
+
+	/**
+	 * A physical statement along with the driver defaults for
+	 * the settings which a handle may change.
+	 */
+	private record CachedStatement(PreparedStatement statement, int maxRows, int fetchSize, int queryTimeout) {
+
+		CachedStatement(PreparedStatement statement) throws SQLException {
+			this(statement, statement.getMaxRows(), statement.getFetchSize(), statement.getQueryTimeout());
+		}
+
+		/**
+		 * Reset the statement for reuse by the next handle.
+		 * @return {@code false} if the statement has been closed already
+		 */
+		boolean reset(boolean settingsModified) throws SQLException {
+			if (this.statement.isClosed()) {
+				return false;
+			}
+			this.statement.clearParameters();
+			this.statement.clearBatch();
+			this.statement.clearWarnings();
+			if (settingsModified) {
+				this.statement.setMaxRows(this.maxRows);
+				this.statement.setFetchSize(this.fetchSize);
+				this.statement.setQueryTimeout(this.queryTimeout);
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a statement handle, returning the
+	 * target statement to the cache on close.
+	 */
+	private class CachedStatementInvocationHandler implements InvocationHandler {
+
+		private final CachedStatement cachedStatement;
+
+		private final PreparedStatement target;
+
+		private final List<Object> key;
+
+		private final Connection connectionProxy;
+
+		private boolean settingsModified;
+
+		private boolean closed;
+
+		CachedStatementInvocationHandler(CachedStatement cachedStatement, List<Object> key, Connection connectionProxy) {
+			this.cachedStatement = cachedStatement;
+			this.target = cachedStatement.statement();
+			this.key = key;
+			this.connectionProxy = connectionProxy;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return (proxy == args[0]);
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "close":
+					if (!this.closed) {
+						this.closed = true;
+						release(this.key, this.cachedStatement, this.settingsModified);
+					}
+					return null;
+				case "setMaxRows", "setLargeMaxRows", "setFetchSize", "setQueryTimeout":
+					this.settingsModified = true;
+					break;
+				case "isClosed":
+					return (this.closed || this.target.isClosed());
+				case "getConnection":
+					return this.connectionProxy;
+				case "unwrap":
+					return (((Class<?>) args[0]).isInstance(proxy) ? proxy : this.target.unwrap((Class<?>) args[0]));
+				case "isWrapperFor":
+					return (((Class<?>) args[0]).isInstance(proxy) || this.target.isWrapperFor((Class<?>) args[0]));
+			}
+
+			if (this.closed) {
+				throw new SQLException("Illegal operation: statement is closed");
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
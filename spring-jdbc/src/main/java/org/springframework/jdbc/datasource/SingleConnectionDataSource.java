@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,6 +61,9 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 	@Nullable
 	private Boolean autoCommit;
 
+	/** Maximum number of idle PreparedStatements to cache. */
+	private int statementCacheSize = 0;
+
 	/** Wrapped Connection. */
 	@Nullable
 	private Connection target;
@@ -69,6 +72,10 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 	@Nullable
 	private Connection connection;
 
+	/** PreparedStatement cache for the wrapped Connection, if any. */
+	@Nullable
+	private PreparedStatementCache statementCache;
+
 	/** Synchronization monitor for the shared Connection. */
 	private final Object connectionMonitor = new Object();
 
@@ -155,6 +162,36 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 		return this.autoCommit;
 	}
 
+	/**
+	 * Specify the maximum number of idle PreparedStatements to cache for the
+	 * shared Connection, keyed by SQL and statement options. Default is 0,
+	 * not caching any statements.
+	 * <p>Statement caching is useful for drivers without a built-in statement
+	 * cache, avoiding a repeated parse of the same SQL on the database side.
+	 * It only applies to a close-suppressing Connection proxy, returning each
+	 * PreparedStatement to the cache when closed by the calling code.
+	 * @see #setSuppressClose
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		Assert.isTrue(statementCacheSize >= 0, "'statementCacheSize' must not be negative");
+		synchronized (this.connectionMonitor) {
+			this.statementCacheSize = statementCacheSize;
+			if (this.target != null && this.connection != this.target) {
+				// Re-create Connection proxy with the new cache settings.
+				closeStatementCache();
+				this.connection = getCloseSuppressingConnectionProxy(this.target);
+			}
+		}
+	}
+
+	/**
+	 * Return the maximum number of idle PreparedStatements to cache
+	 * for the shared Connection.
+	 */
+	public int getStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+
 
 	@Override
 	public Connection getConnection() throws SQLException {
@@ -259,6 +296,7 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 	 * Close the underlying shared Connection.
 	 */
 	private void closeConnection() {
+		closeStatementCache();
 		if (this.target != null) {
 			try {
 				this.target.close();
@@ -269,29 +307,48 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 		}
 	}
 
+	/**
+	 * Close the PreparedStatement cache for the shared Connection, if any.
+	 */
+	private void closeStatementCache() {
+		if (this.statementCache != null) {
+			this.statementCache.close();
+			this.statementCache = null;
+		}
+	}
+
 	/**
 	 * Wrap the given Connection with a proxy that delegates every method call to it
 	 * but suppresses close calls.
 	 * @param target the original Connection to wrap
 	 * @return the wrapped Connection
+	 * @see #setStatementCacheSize
 	 */
 	protected Connection getCloseSuppressingConnectionProxy(Connection target) {
+		if (this.statementCacheSize > 0) {
+			this.statementCache = new PreparedStatementCache(target, this.statementCacheSize);
+		}
 		return (Connection) Proxy.newProxyInstance(
 				ConnectionProxy.class.getClassLoader(),
 				new Class<?>[] {ConnectionProxy.class},
-				new CloseSuppressingInvocationHandler(target));
+				new CloseSuppressingInvocationHandler(target, this.statementCache));
 	}
 
 
 	/**
-	 * Invocation handler that suppresses close calls on JDBC Connections.
+	 * Invocation handler that suppresses close calls on JDBC Connections,
+	 * optionally serving PreparedStatements from a cache.
 	 */
 	private static class CloseSuppressingInvocationHandler implements InvocationHandler {
 
 		private final Connection target;
 
-		public CloseSuppressingInvocationHandler(Connection target) {
+		@Nullable
+		private final PreparedStatementCache statementCache;
+
+		public CloseSuppressingInvocationHandler(Connection target, @Nullable PreparedStatementCache statementCache) {
 			this.target = target;
+			this.statementCache = statementCache;
 		}
 
 		@Override
@@ -318,6 +375,11 @@ public class SingleConnectionDataSource extends DriverManagerDataSource implemen
 					return (((Class<?>) args[0]).isInstance(proxy) ? proxy : this.target.unwrap((Class<?>) args[0]));
 				case "isWrapperFor":
 					return (((Class<?>) args[0]).isInstance(proxy) || this.target.isWrapperFor((Class<?>) args[0]));
+				case "prepareStatement":
+					if (this.statementCache != null) {
+						return this.statementCache.prepareStatement((Connection) proxy, method, args);
+					}
+					break;
 			}
 
 			// Invoke method on target Connection.
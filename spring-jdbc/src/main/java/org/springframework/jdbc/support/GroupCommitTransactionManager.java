@@ -0,0 +1,776 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.Assert;
+
+/**
+ * {@link JdbcTransactionManager} variant which coalesces concurrent short write
+ * transactions into shared physical transactions ("group commit"), trading a
+ * bounded amount of latency for fewer commits (and therefore fewer log flushes)
+ * on the database.
+ *
+ * <p>Grouping applies to transactions demarcated through the
+ * {@link CallbackPreferringPlatformTransactionManager#execute} callback style, i.e.
+ * through {@link org.springframework.transaction.support.TransactionTemplate} or a
+ * {@link org.springframework.transaction.interceptor.TransactionInterceptor} for
+ * {@code @Transactional} methods, since grouped work may need to be re-executed.
+ * Plain {@code getTransaction}/{@code commit} calls behave exactly like in
+ * {@code JdbcTransactionManager}, as do callbacks which are not eligible for
+ * grouping: existing transactions, non-default isolation levels or timeouts,
+ * read-only transactions, and propagation behaviors other than
+ * {@code PROPAGATION_REQUIRED} and {@code PROPAGATION_REQUIRES_NEW}.
+ *
+ * <p>The first caller arriving while no group is open becomes the leader of a new
+ * group. It waits until the {@link #setMaxGroupDelay maximum group delay} has
+ * elapsed since the group was opened, until the group reaches its
+ * {@link #setMaxGroupSize maximum size}, or until no other transaction is in
+ * progress which could still join, then begins a physical transaction. The
+ * callbacks of all members then run one after another, each on its own calling
+ * thread with the shared Connection bound to it and within a savepoint of its
+ * own. Finally, the leader commits the physical transaction and hands the
+ * outcome to all members.
+ *
+ * <p>Failure semantics:
+ * <ul>
+ * <li>A callback throwing an exception or marking its transaction rollback-only
+ * gets rolled back to its savepoint, leaving all other members unaffected.</li>
+ * <li>If the physical transaction cannot be committed (or cannot be begun), all
+ * members whose callback completed successfully get re-executed individually,
+ * each in its own physical transaction, with the outcome of the individual
+ * execution reported to the caller.</li>
+ * </ul>
+ * Transactional callbacks therefore need to be safe for re-execution, just like
+ * with any retry mechanism. Transaction synchronizations registered during a
+ * grouped execution receive {@code beforeCommit}/{@code beforeCompletion} at the
+ * end of their callback and {@code afterCommit}/{@code afterCompletion} once the
+ * outcome of the physical transaction is known.
+ *
+ * <p>Grouping trades latency for throughput: a grouped transaction may wait for
+ * up to the maximum group delay for further members, then for the callbacks of
+ * the members before it and for the shared commit. Its latency is therefore bounded
+ * by the maximum group delay plus the execution time of its group, in exchange for
+ * a single commit per group. A caller arriving while no other transaction is in
+ * progress is executed individually without any delay, so the trade-off only
+ * applies under concurrent load.
+ *
+ * <p>Note that members of a group run sequentially on the shared Connection: a
+ * callback must not wait for another transaction which could be a member of the
+ * same group.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see #setMaxGroupSize
+ * @see #setMaxGroupDelay
+ * @see org.springframework.transaction.support.TransactionTemplate
+ */
+@SuppressWarnings("serial")
+public class GroupCommitTransactionManager extends JdbcTransactionManager
+		implements CallbackPreferringPlatformTransactionManager {
+
+	private int maxGroupSize = 16;
+
+	private long maxGroupDelayNanos = TimeUnit.MILLISECONDS.toNanos(2);
+
+	private transient ReentrantLock lock = new ReentrantLock();
+
+	@Nullable
+	private transient Group openGroup;
+
+	private transient int inProgressCount;
+
+	private final AtomicLong groupCommitCount = new AtomicLong();
+
+	private final AtomicLong groupedTransactionCount = new AtomicLong();
+
+	private final AtomicLong retryCount = new AtomicLong();
+
+
+	/**
+	 * Create a new GroupCommitTransactionManager instance.
+	 * A DataSource has to be set to be able to use it.
+	 * @see #setDataSource
+	 */
+	public GroupCommitTransactionManager() {
+		super();
+	}
+
+	/**
+	 * Create a new GroupCommitTransactionManager instance.
+	 * @param dataSource the JDBC DataSource to manage transactions for
+	 */
+	public GroupCommitTransactionManager(DataSource dataSource) {
+		this();
+		setDataSource(dataSource);
+		afterPropertiesSet();
+	}
+
+
+	/**
+	 * Set the maximum number of transactions to coalesce into a single
+	 * physical transaction. Default is 16.
+	 */
+	public void setMaxGroupSize(int maxGroupSize) {
+		Assert.isTrue(maxGroupSize > 0, "'maxGroupSize' must be positive");
+		this.maxGroupSize = maxGroupSize;
+	}
+
+	/**
+	 * Return the maximum number of transactions per physical transaction.
+	 */
+	public int getMaxGroupSize() {
+		return this.maxGroupSize;
+	}
+
+	/**
+	 * Set the maximum time, measured from the opening of a group, that the leader
+	 * waits for further transactions to join before beginning the physical
+	 * transaction. Default is 2 milliseconds.
+	 * <p>This bounds the additional latency per transaction before its execution;
+	 * the leader does not wait at all if no other transaction is in progress.
+	 */
+	public void setMaxGroupDelay(Duration maxGroupDelay) {
+		Assert.isTrue(!maxGroupDelay.isNegative(), "'maxGroupDelay' must not be negative");
+		this.maxGroupDelayNanos = maxGroupDelay.toNanos();
+	}
+
+	/**
+	 * Return the maximum time that the leader of a group waits for further transactions.
+	 */
+	public Duration getMaxGroupDelay() {
+		return Duration.ofNanos(this.maxGroupDelayNanos);
+	}
+
+	/**
+	 * Return the number of physical transactions committed for a group
+	 * of more than one transaction.
+	 */
+	public long getGroupCommitCount() {
+		return this.groupCommitCount.get();
+	}
+
+	/**
+	 * Return the number of transactions committed as part of a group.
+	 */
+	public long getGroupedTransactionCount() {
+		return this.groupedTransactionCount.get();
+	}
+
+	/**
+	 * Return the number of transactions which had to be re-executed individually
+	 * because their group could not be committed.
+	 */
+	public long getRetryCount() {
+		return this.retryCount.get();
+	}
+
+
+	@Override
+	@Nullable
+	public <T> T execute(@Nullable TransactionDefinition definition, TransactionCallback<T> callback)
+			throws TransactionException {
+
+		TransactionDefinition def = (definition != null ? definition : TransactionDefinition.withDefaults());
+		if (!isGroupable(def)) {
+			return executeIndividually(def, callback);
+		}
+		return executeInGroup(def, callback);
+	}
+
+	/**
+	 * Determine whether the given transaction is eligible for grouping.
+	 * @param definition the transaction definition
+	 * @return {@code true} to coalesce the transaction with concurrent ones,
+	 * {@code false} to execute it individually
+	 */
+	protected boolean isGroupable(TransactionDefinition definition) {
+		int propagation = definition.getPropagationBehavior();
+		return (this.maxGroupSize > 1 &&
+				(propagation == TransactionDefinition.PROPAGATION_REQUIRED ||
+						propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW) &&
+				definition.getIsolationLevel() == TransactionDefinition.ISOLATION_DEFAULT &&
+				!definition.isReadOnly() &&
+				determineTimeout(definition) == TransactionDefinition.TIMEOUT_DEFAULT &&
+				!TransactionSynchronizationManager.isSynchronizationActive() &&
+				!TransactionSynchronizationManager.hasResource(obtainDataSource()));
+	}
+
+	/**
+	 * Execute the given callback in a transaction of its own, analogous to
+	 * {@link org.springframework.transaction.support.TransactionTemplate#execute}.
+	 */
+	@Nullable
+	private <T> T executeIndividually(TransactionDefinition definition, TransactionCallback<T> callback) {
+		TransactionStatus status = getTransaction(definition);
+		T result;
+		try {
+			result = callback.doInTransaction(status);
+		}
+		catch (RuntimeException | Error ex) {
+			// Transactional code threw application exception -> rollback
+			rollbackOnException(status, ex);
+			throw ex;
+		}
+		catch (Throwable ex) {
+			// Transactional code threw unexpected exception -> rollback
+			rollbackOnException(status, ex);
+			throw new UndeclaredThrowableException(ex, "TransactionCallback threw undeclared checked exception");
+		}
+		commit(status);
+		return result;
+	}
+
+	private void rollbackOnException(TransactionStatus status, Throwable ex) {
+		logger.debug("Initiating transaction rollback on application exception", ex);
+		try {
+			rollback(status);
+		}
+		catch (TransactionSystemException ex2) {
+			logger.error("Application exception overridden by rollback exception", ex);
+			ex2.initApplicationException(ex);
+			throw ex2;
+		}
+		catch (RuntimeException | Error ex2) {
+			logger.error("Application exception overridden by rollback exception", ex);
+			throw ex2;
+		}
+	}
+
+	@Nullable
+	private <T> T executeInGroup(TransactionDefinition definition, TransactionCallback<T> callback) {
+		Membership membership = joinGroup();
+		try {
+			return executeAsMember(membership.group(), membership.index(), definition, callback);
+		}
+		finally {
+			leaveGroup();
+		}
+	}
+
+	@Nullable
+	private <T> T executeAsMember(Group group, int index, TransactionDefinition definition,
+			TransactionCallback<T> callback) {
+
+		boolean leader = (index == 0);
+		if (leader) {
+			awaitMembers(group);
+			if (group.size == 1) {
+				// No concurrent transactions: no need for savepoints
+				return executeIndividually(definition, callback);
+			}
+			beginGroup(group);
+		}
+
+		Turn<T> turn = null;
+		try {
+			if (awaitTurn(group, index)) {
+				try {
+					turn = runTurn(group, definition, callback);
+				}
+				catch (RuntimeException | Error ex) {
+					markBroken(group);
+					throw ex;
+				}
+				finally {
+					advanceTurn(group);
+				}
+			}
+		}
+		finally {
+			if (leader) {
+				completeGroup(group);
+			}
+		}
+
+		if (turn == null) {
+			// Group broken before our callback got executed
+			return executeIndividually(definition, callback);
+		}
+		if (turn.failure != null) {
+			if (turn.failure instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (turn.failure instanceof Error error) {
+				throw error;
+			}
+			throw new UndeclaredThrowableException(turn.failure, "TransactionCallback threw undeclared checked exception");
+		}
+		if (!turn.joined) {
+			// Rolled back to savepoint due to rollback-only marker
+			return turn.result;
+		}
+
+		if (awaitCompletion(group)) {
+			this.groupedTransactionCount.incrementAndGet();
+			try {
+				TransactionSynchronizationUtils.invokeAfterCommit(turn.synchronizations);
+			}
+			finally {
+				TransactionSynchronizationUtils.invokeAfterCompletion(
+						turn.synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+			}
+			return turn.result;
+		}
+		else {
+			TransactionSynchronizationUtils.invokeAfterCompletion(
+					turn.synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+			this.retryCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Re-executing transaction individually after failed group commit");
+			}
+			return executeIndividually(definition, callback);
+		}
+	}
+
+	/**
+	 * Join the currently open group or open a new one, with the caller as leader.
+	 * A group which has been open for longer than the maximum group delay
+	 * is not joined anymore.
+	 */
+	private Membership joinGroup() {
+		this.lock.lock();
+		try {
+			this.inProgressCount++;
+			long now = System.nanoTime();
+			Group group = this.openGroup;
+			if (group != null && now - group.openTime >= this.maxGroupDelayNanos) {
+				closeGroup(group);
+				group = null;
+			}
+			if (group == null) {
+				group = new Group(this.lock.newCondition(), now);
+				this.openGroup = group;
+			}
+			int index = group.size++;
+			if (group.size >= this.maxGroupSize) {
+				closeGroup(group);
+			}
+			return new Membership(group, index);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void leaveGroup() {
+		this.lock.lock();
+		try {
+			this.inProgressCount--;
+			Group group = this.openGroup;
+			if (group != null) {
+				// The leader may not need to wait for further members anymore
+				group.condition.signalAll();
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait for further members to join, until the maximum group delay has elapsed
+	 * since the group was opened or no other transaction is in progress.
+	 */
+	private void awaitMembers(Group group) {
+		this.lock.lock();
+		try {
+			long nanos = group.openTime + this.maxGroupDelayNanos - System.nanoTime();
+			while (!group.closed && nanos > 0 && this.inProgressCount > group.size) {
+				try {
+					nanos = group.condition.awaitNanos(nanos);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			closeGroup(group);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void closeGroup(Group group) {
+		if (!group.closed) {
+			group.closed = true;
+			if (this.openGroup == group) {
+				this.openGroup = null;
+			}
+			group.condition.signalAll();
+		}
+	}
+
+	/**
+	 * Begin the physical transaction for the given group, as its leader.
+	 */
+	private void beginGroup(Group group) {
+		Connection con = null;
+		try {
+			con = obtainDataSource().getConnection();
+			if (con.getAutoCommit()) {
+				group.mustRestoreAutoCommit = true;
+				con.setAutoCommit(false);
+			}
+			group.connection = con;
+		}
+		catch (Throwable ex) {
+			if (con != null) {
+				closeConnection(con);
+			}
+			logger.debug("Could not begin physical transaction for group", ex);
+			group.broken = true;
+		}
+		this.lock.lock();
+		try {
+			group.started = true;
+			group.condition.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until it is the turn of the member with the given index.
+	 * @return {@code true} to proceed with the turn, or {@code false}
+	 * if the group is broken
+	 */
+	private boolean awaitTurn(Group group, int index) {
+		this.lock.lock();
+		try {
+			while (!group.broken && !(group.started && group.turn == index)) {
+				group.condition.awaitUninterruptibly();
+			}
+			return !group.broken;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void advanceTurn(Group group) {
+		this.lock.lock();
+		try {
+			group.turn++;
+			group.condition.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Run the callback of a member on the shared Connection, within a savepoint.
+	 */
+	@Nullable
+	private <T> Turn<T> runTurn(Group group, TransactionDefinition definition, TransactionCallback<T> callback) {
+		Connection con = group.connection;
+		Assert.state(con != null, "No group Connection");
+		Savepoint savepoint;
+		try {
+			savepoint = con.setSavepoint();
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not create savepoint - rolling back entire group", ex);
+			markBroken(group);
+			return null;
+		}
+
+		DataSource dataSource = obtainDataSource();
+		boolean synchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
+		Turn<T> turn = new Turn<>();
+		GroupConnectionHolder conHolder = new GroupConnectionHolder(con);
+		TransactionSynchronizationManager.bindResource(dataSource, conHolder);
+		if (synchronization) {
+			TransactionSynchronizationManager.initSynchronization();
+			TransactionSynchronizationManager.setActualTransactionActive(true);
+			TransactionSynchronizationManager.setCurrentTransactionName(definition.getName());
+		}
+		try {
+			SimpleTransactionStatus status = new SimpleTransactionStatus(true);
+			turn.result = callback.doInTransaction(status);
+			if (status.isRollbackOnly()) {
+				rollbackTurn(group, con, savepoint, synchronization);
+			}
+			else if (conHolder.isRollbackOnly()) {
+				// Participating transaction marked the whole transaction as rollback-only
+				rollbackTurn(group, con, savepoint, synchronization);
+				turn.failure = new UnexpectedRollbackException(
+						"Transaction rolled back because it has been marked as rollback-only");
+			}
+			else {
+				if (synchronization) {
+					TransactionSynchronizationUtils.triggerBeforeCommit(false);
+					TransactionSynchronizationUtils.triggerBeforeCompletion();
+					turn.synchronizations = TransactionSynchronizationManager.getSynchronizations();
+				}
+				con.releaseSavepoint(savepoint);
+				turn.joined = true;
+			}
+		}
+		catch (Throwable ex) {
+			turn.failure = ex;
+			turn.joined = false;
+			rollbackTurn(group, con, savepoint, synchronization);
+		}
+		finally {
+			if (synchronization) {
+				TransactionSynchronizationManager.clear();
+			}
+			TransactionSynchronizationManager.unbindResource(dataSource);
+		}
+		return turn;
+	}
+
+	private void rollbackTurn(Group group, Connection con, Savepoint savepoint, boolean synchronization) {
+		List<TransactionSynchronization> synchronizations = Collections.emptyList();
+		if (synchronization) {
+			TransactionSynchronizationUtils.triggerBeforeCompletion();
+			synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		}
+		try {
+			con.rollback(savepoint);
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not roll back to savepoint - rolling back entire group", ex);
+			markBroken(group);
+		}
+		TransactionSynchronizationUtils.invokeAfterCompletion(
+				synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+	}
+
+	private void markBroken(Group group) {
+		this.lock.lock();
+		try {
+			group.broken = true;
+			group.condition.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Commit or roll back the physical transaction once all members had their
+	 * turn, as the leader of the group, and publish the outcome.
+	 */
+	private void completeGroup(Group group) {
+		boolean committed = false;
+		try {
+			this.lock.lock();
+			try {
+				while (!group.broken && group.turn < group.size) {
+					group.condition.awaitUninterruptibly();
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+
+			Connection con = group.connection;
+			if (con != null) {
+				try {
+					if (!group.broken) {
+						con.commit();
+						committed = true;
+						this.groupCommitCount.incrementAndGet();
+					}
+					else {
+						con.rollback();
+					}
+				}
+				catch (SQLException ex) {
+					logger.debug("Could not complete physical transaction for group", ex);
+					try {
+						con.rollback();
+					}
+					catch (SQLException ex2) {
+						logger.debug("Could not roll back physical transaction for group", ex2);
+					}
+				}
+				finally {
+					if (group.mustRestoreAutoCommit) {
+						try {
+							con.setAutoCommit(true);
+						}
+						catch (SQLException ex) {
+							logger.debug("Could not reset JDBC Connection after transaction", ex);
+						}
+					}
+					closeConnection(con);
+				}
+			}
+		}
+		finally {
+			// Always publish the outcome, so that no member keeps waiting for it
+			this.lock.lock();
+			try {
+				group.committed = committed;
+				group.completed = true;
+				group.condition.signalAll();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Wait for the outcome of the physical transaction of the given group.
+	 * @return {@code true} if committed, {@code false} if rolled back
+	 */
+	private boolean awaitCompletion(Group group) {
+		this.lock.lock();
+		try {
+			while (!group.completed) {
+				group.condition.awaitUninterruptibly();
+			}
+			return group.committed;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void closeConnection(Connection con) {
+		try {
+			con.close();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not close JDBC Connection", ex);
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Serialization support
+	//---------------------------------------------------------------------
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		// Rely on default serialization; just initialize state after deserialization.
+		ois.defaultReadObject();
+
+		// Initialize transient fields.
+		this.lock = new ReentrantLock();
+	}
+
+
+	/**
+	 * A group of transactions sharing a physical transaction.
+	 * All state is guarded by the transaction manager's lock, except for
+	 * the Connection which is only accessed by the member whose turn it is.
+	 */
+	private static final class Group {
+
+		final Condition condition;
+
+		final long openTime;
+
+		int size;
+
+		boolean closed;
+
+		boolean started;
+
+		int turn;
+
+		boolean broken;
+
+		boolean completed;
+
+		boolean committed;
+
+		@Nullable
+		Connection connection;
+
+		boolean mustRestoreAutoCommit;
+
+		Group(Condition condition, long openTime) {
+			this.condition = condition;
+			this.openTime = openTime;
+		}
+	}
+
+
+	/**
+	 * A caller's membership in a group, with its position in the order of turns.
+	 */
+	private record Membership(Group group, int index) {
+	}
+
+
+	/**
+	 * The outcome of a member's callback within the shared physical transaction.
+	 */
+	private static final class Turn<T> {
+
+		@Nullable
+		T result;
+
+		@Nullable
+		Throwable failure;
+
+		boolean joined;
+
+		List<TransactionSynchronization> synchronizations = new ArrayList<>(0);
+	}
+
+
+	/**
+	 * ConnectionHolder for the shared Connection of a group, exposed as
+	 * transactional to data access code within a member's callback.
+	 */
+	private static final class GroupConnectionHolder extends ConnectionHolder {
+
+		GroupConnectionHolder(Connection connection) {
+			super(connection, true);
+			setSynchronizedWithTransaction(true);
+		}
+	}
+
+}
@@ -23,6 +23,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Date;
 
 import org.springframework.beans.BeanWrapper;
@@ -172,6 +173,17 @@ public abstract class AbstractRowMapperTests {
 			return jdbcTemplate;
 		}
 
+		public ResultSet getResultSet() {
+			return resultSet;
+		}
+
+		public void setRowCount(int rowCount) throws Exception {
+			Boolean[] next = new Boolean[rowCount];
+			Arrays.fill(next, true);
+			next[rowCount - 1] = false;
+			given(resultSet.next()).willReturn(true, next);
+		}
+
 		public void verifyClosed() throws Exception {
 			verify(resultSet).close();
 			verify(statement).close();
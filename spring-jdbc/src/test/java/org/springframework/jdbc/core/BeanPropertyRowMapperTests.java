@@ -16,13 +16,16 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyEditorSupport;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.test.ConcretePerson;
 import org.springframework.jdbc.core.test.DatePerson;
@@ -34,6 +37,7 @@ import org.springframework.jdbc.core.test.SpacePerson;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link BeanPropertyRowMapper}.
@@ -151,6 +155,54 @@ class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	void mappingPlanReusedForAllRows() throws Exception {
+		Mock mock = new Mock();
+		mock.setRowCount(3);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new BeanPropertyRowMapper<>(Person.class));
+		assertThat(result).hasSize(3);
+		result.forEach(this::verifyPerson);
+		verify(mock.getResultSet()).getMetaData();
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingWithCustomizedBeanWrapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new BeanPropertyRowMapper<>(Person.class) {
+					@Override
+					protected void initBeanWrapper(BeanWrapper bw) {
+						super.initBeanWrapper(bw);
+						bw.registerCustomEditor(String.class, new PropertyEditorSupport() {
+							@Override
+							public void setAsText(String text) {
+								setValue(text.toUpperCase());
+							}
+						});
+					}
+				});
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getName()).isEqualTo("BUBBA");
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingWithCustomConversionService() throws Exception {
+		DefaultConversionService conversionService = new DefaultConversionService();
+		conversionService.addConverter(String.class, String.class, String::toUpperCase);
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				BeanPropertyRowMapper.newInstance(Person.class, conversionService));
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getName()).isEqualTo("BUBBA");
+		mock.verifyClosed();
+	}
+
 	@ParameterizedTest
 	@CsvSource({
 		"age, age",
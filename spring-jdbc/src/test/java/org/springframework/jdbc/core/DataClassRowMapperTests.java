@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,11 +23,13 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.jdbc.core.test.ConstructorPerson;
 import org.springframework.jdbc.core.test.ConstructorPersonWithGenerics;
 import org.springframework.jdbc.core.test.ConstructorPersonWithSetters;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Juergen Hoeller
@@ -91,6 +93,36 @@ public class DataClassRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testStaticQueryWithDataRecordAndMultipleRows() throws Exception {
+		Mock mock = new Mock();
+		mock.setRowCount(3);
+		List<RecordPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new DataClassRowMapper<>(RecordPerson.class));
+		assertThat(result).hasSize(3);
+		result.forEach(this::verifyPerson);
+		verify(mock.getResultSet()).findColumn("name");
+		verify(mock.getResultSet()).findColumn("birth_date");
+
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testStaticQueryWithDataRecordAndCustomConversionService() throws Exception {
+		DefaultConversionService conversionService = new DefaultConversionService();
+		conversionService.addConverter(String.class, String.class, String::toUpperCase);
+		DataClassRowMapper<RecordPerson> mapper = new DataClassRowMapper<>(RecordPerson.class);
+		mapper.setConversionService(conversionService);
+		Mock mock = new Mock();
+		List<RecordPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).name()).isEqualTo("BUBBA");
+
+		mock.verifyClosed();
+	}
+
 	protected void verifyPerson(RecordPerson person) {
 		assertThat(person.name()).isEqualTo("Bubba");
 		assertThat(person.age()).isEqualTo(22L);
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Integration tests for {@link JdbcBatchWriter} against an embedded H2 database.
+ *
+ * @author agent (agent@local)
+ */
+class JdbcBatchWriterTests {
+
+	private static final String INSERT_SQL = "insert into person (name, age) values (?, ?)";
+
+	private static final ParameterizedPreparedStatementSetter<Person> PERSON_SETTER = (ps, person) -> {
+		ps.setString(1, person.name());
+		ps.setInt(2, person.age());
+	};
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@BeforeEach
+	void setUp() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("create table person (id bigint auto_increment primary key, " +
+				"name varchar(50) not null, age int)");
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void writeStreamInChunks() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setBatchSize(3);
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		JdbcBatchWriter.Result result = writer.write(people(7));
+
+		assertThat(result.getItemCount()).isEqualTo(7);
+		assertThat(result.getChunkCount()).isEqualTo(3);
+		assertThat(result.getUpdateCount()).isEqualTo(7);
+		assertThat(result.getGeneratedKeyCount()).isEqualTo(0);
+		assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.getGeneratedKeys()).isEmpty());
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getItemCount).containsExactly(3, 3, 1);
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getIndex).containsExactly(0, 1, 2);
+		assertThat(chunks.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+		assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.getElapsedTime()).isPositive());
+		assertPeople(7);
+	}
+
+	@Test
+	void writeEmptyStream() {
+		JdbcBatchWriter.Result result = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER).write(people(0));
+		assertThat(result.getItemCount()).isZero();
+		assertThat(result.getChunkCount()).isZero();
+		assertPeople(0);
+	}
+
+	@Test
+	void writeWithMaxBatchBytes() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setItemSizeEstimator(person -> person.name().length());
+		writer.setMaxBatchBytes(15);
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		writer.write(people(5));
+
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getItemCount).containsExactly(2, 2, 1);
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getByteCount).containsExactly(14L, 14L, 7L);
+		assertPeople(5);
+	}
+
+	@Test
+	void writeWithMultiRowInsert() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setBatchSize(4);
+		writer.setRewriteMultiRowInsert(true);
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		JdbcBatchWriter.Result result = writer.write(people(10));
+
+		assertThat(result.getItemCount()).isEqualTo(10);
+		assertThat(result.getUpdateCount()).isEqualTo(10);
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getItemCount).containsExactly(4, 4, 2);
+		assertThat(chunks.get(0).getUpdateCounts()).containsExactly(4);
+		assertPeople(10);
+	}
+
+	@Test
+	void writeWithMultiRowInsertAndParameterLimit() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setRewriteMultiRowInsert(true);
+		writer.setMaxParametersPerStatement(7);
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		writer.write(people(5));
+
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getItemCount).containsExactly(3, 2);
+		assertPeople(5);
+	}
+
+	@Test
+	void writeWithGeneratedKeys() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setBatchSize(2);
+		writer.setGeneratedKeyColumnNames("id");
+		List<Long> keys = new ArrayList<>();
+		writer.setChunkListener(chunk -> {
+			assertThat(chunk.getGeneratedKeys()).hasSize(chunk.getItemCount());
+			chunk.getGeneratedKeys().forEach(key -> keys.add(((Number) key.get("ID")).longValue()));
+		});
+
+		JdbcBatchWriter.Result result = writer.write(people(5));
+
+		assertThat(result.getGeneratedKeyCount()).isEqualTo(5);
+		assertThat(keys).containsExactly(1L, 2L, 3L, 4L, 5L);
+	}
+
+	@Test
+	void writeWithMultiRowInsertAndGeneratedKeys() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setRewriteMultiRowInsert(true);
+		writer.setReturnGeneratedKeys(true);
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		JdbcBatchWriter.Result result = writer.write(people(3));
+
+		assertThat(result.getGeneratedKeyCount()).isEqualTo(3);
+		assertThat(chunks).singleElement().satisfies(chunk -> assertThat(chunk.getGeneratedKeys()).hasSize(3));
+	}
+
+	@Test
+	void writeWithTargetChunkTime() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setBatchSize(4);
+		// Every chunk exceeds the target: halve the chunk size each time
+		writer.setTargetChunkTime(Duration.ofNanos(1));
+		List<JdbcBatchWriter.Chunk> chunks = new ArrayList<>();
+		writer.setChunkListener(chunks::add);
+
+		JdbcBatchWriter.Result result = writer.write(people(7));
+
+		assertThat(result.getItemCount()).isEqualTo(7);
+		assertThat(chunks).extracting(JdbcBatchWriter.Chunk::getItemCount).containsExactly(4, 2, 1);
+		assertPeople(7);
+	}
+
+	@Test
+	void writeWithFailingChunk() {
+		JdbcBatchWriter<Person> writer = this.jdbcTemplate.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setBatchSize(2);
+		List<Person> people = List.of(new Person("person0", 0), new Person("person1", 1), new Person(null, 2));
+
+		assertThatExceptionOfType(DataIntegrityViolationException.class).isThrownBy(() -> writer.write(people))
+				.withMessageContaining(INSERT_SQL);
+		assertPeople(2);
+	}
+
+	@Test
+	void writeWithStatementSettings() throws SQLException {
+		List<Integer> queryTimeouts = new ArrayList<>();
+		JdbcTemplate template = new JdbcTemplate(this.database) {
+			@Override
+			protected void applyStatementSettings(Statement stmt) throws SQLException {
+				super.applyStatementSettings(stmt);
+				queryTimeouts.add(stmt.getQueryTimeout());
+			}
+		};
+		template.setQueryTimeout(5);
+
+		template.batchWriter(INSERT_SQL, PERSON_SETTER).write(people(2));
+		JdbcBatchWriter<Person> writer = template.batchWriter(INSERT_SQL, PERSON_SETTER);
+		writer.setRewriteMultiRowInsert(true);
+		writer.write(people(2));
+
+		assertThat(queryTimeouts).hasSize(2).containsOnly(5);
+		assertPeople(4);
+	}
+
+	@Test
+	void writeWithNamedParameters() {
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+		JdbcBatchWriter<SqlParameterSource> writer =
+				namedTemplate.batchWriter("insert into person (name, age) values (:name, :age)");
+		writer.setBatchSize(4);
+		writer.setRewriteMultiRowInsert(true);
+
+		JdbcBatchWriter.Result result = writer.write(people(9).map(person ->
+				new MapSqlParameterSource("name", person.name()).addValue("age", person.age())));
+
+		assertThat(result.getItemCount()).isEqualTo(9);
+		assertThat(result.getChunkCount()).isEqualTo(3);
+		assertPeople(9);
+	}
+
+	@Test
+	void parseMultiRowInsert() {
+		JdbcBatchWriter.MultiRowInsert insert = JdbcBatchWriter.MultiRowInsert.parse(INSERT_SQL);
+		assertThat(insert).isNotNull();
+		assertThat(insert.parameterCount).isEqualTo(2);
+		assertThat(insert.getSql(3)).isEqualTo(
+				"insert into person (name, age) values (?, ?), (?, ?), (?, ?)");
+
+		insert = JdbcBatchWriter.MultiRowInsert.parse("INSERT INTO t(a, b)VALUES(?, '(?)')");
+		assertThat(insert).isNotNull();
+		assertThat(insert.parameterCount).isEqualTo(1);
+		assertThat(insert.getSql(2)).isEqualTo("INSERT INTO t(a, b)VALUES (?, '(?)'), (?, '(?)')");
+
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse("update t set a = ? where (b = ?)")).isNull();
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse("insert into t select a from s where (b = ?)")).isNull();
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse("insert into t (a) values (?) on conflict do nothing")).isNull();
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse("insert into t (a) values ('x')")).isNull();
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse("insert into t (a) values (?); delete from t")).isNull();
+
+		insert = JdbcBatchWriter.MultiRowInsert.parse(
+				"/* load */ insert into t (a, b) values -- one row\n(?, '--?') -- trailing");
+		assertThat(insert).isNotNull();
+		assertThat(insert.parameterCount).isEqualTo(1);
+		assertThat(insert.getSql(2)).isEqualTo("insert into t (a, b) values (?, '--?'), (?, '--?')");
+		assertThat(JdbcBatchWriter.MultiRowInsert.parse(
+				"insert into t (a) values (?) /* ; delete from t */")).isNotNull();
+	}
+
+
+	private static Stream<Person> people(int count) {
+		return IntStream.range(0, count).mapToObj(i -> new Person("person" + i, i));
+	}
+
+	private void assertPeople(int count) {
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from person", Integer.class)).isEqualTo(count);
+		if (count > 0) {
+			assertThat(this.jdbcTemplate.queryForList("select name from person order by id", String.class))
+					.containsExactlyElementsOf(people(count).map(Person::name).toList());
+		}
+	}
+
+
+	record Person(String name, int age) {
+	}
+
+}
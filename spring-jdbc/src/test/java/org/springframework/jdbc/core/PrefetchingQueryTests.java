@@ -0,0 +1,287 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Integration tests for {@link PrefetchingQuery} against an embedded H2 database.
+ *
+ * @author agent (agent@local)
+ */
+class PrefetchingQueryTests {
+
+	private static final int ROWS = 1000;
+
+	private static final String SELECT_SQL = "select id from item where id >= ? order by id";
+
+	private static final RowMapper<Integer> ID_MAPPER = (rs, rowNum) -> rs.getInt(1);
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	void setUp() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("create table item (id int primary key)");
+		this.jdbcTemplate.<Integer>batchWriter("insert into item values (?)", (ps, id) -> ps.setInt(1, id))
+				.write(IntStream.range(0, ROWS).boxed());
+		this.executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void streamAllRows() {
+		PrefetchingQuery<Integer> query = createQuery();
+		try (Stream<Integer> stream = query.stream(0)) {
+			assertThat(stream.toList()).containsExactlyElementsOf(expectedIds(0));
+		}
+	}
+
+	@Test
+	void streamWithoutRows() {
+		try (Stream<Integer> stream = createQuery().stream(ROWS)) {
+			assertThat(stream.toList()).isEmpty();
+		}
+	}
+
+	@Test
+	void streamClosedEarly() throws Exception {
+		PrefetchingQuery<Integer> query = createQuery();
+		try (Stream<Integer> stream = query.stream(0)) {
+			assertThat(stream.limit(5).toList()).containsExactly(0, 1, 2, 3, 4);
+		}
+		this.executor.shutdown();
+		assertThat(this.executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void streamWithinTransaction() {
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.database));
+		List<Integer> ids = tt.execute(status -> {
+			this.jdbcTemplate.update("insert into item values (?)", ROWS);
+			try (Stream<Integer> stream = createQuery().stream(ROWS - 1)) {
+				return stream.toList();
+			}
+		});
+		assertThat(ids).containsExactly(ROWS - 1, ROWS);
+	}
+
+	@Test
+	void streamWithinTransactionClosedOnOtherThread() throws Exception {
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.database));
+		Integer count = tt.execute(status -> {
+			Stream<Integer> stream = createQuery().stream(ROWS - 2);
+			try {
+				this.executor.submit(stream::close).get();
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+			return this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class);
+		});
+		assertThat(count).isEqualTo(ROWS);
+	}
+
+	@Test
+	void streamWithFailingRowMapper() {
+		PrefetchingQuery<Integer> query = new PrefetchingQuery<>(this.jdbcTemplate, SELECT_SQL, (rs, rowNum) -> {
+			if (rowNum == 100) {
+				throw new IllegalStateException("Mapping failure");
+			}
+			return rs.getInt(1);
+		});
+		query.setExecutor(this.executor);
+		query.setBatchSize(10);
+		try (Stream<Integer> stream = query.stream(0)) {
+			assertThatIllegalStateException().isThrownBy(stream::toList).withMessage("Mapping failure");
+		}
+	}
+
+	@Test
+	void streamWithInvalidSql() {
+		PrefetchingQuery<Integer> query = this.jdbcTemplate.prefetchingQuery("select id from nonexistent", ID_MAPPER);
+		assertThatExceptionOfType(BadSqlGrammarException.class).isThrownBy(() -> query.stream());
+	}
+
+	@Test
+	void publishAllRows() throws Exception {
+		CollectingSubscriber subscriber = new CollectingSubscriber(10, Long.MAX_VALUE);
+		createQuery().publisher(0).subscribe(subscriber);
+
+		assertThat(subscriber.terminated.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(subscriber.error.get()).isNull();
+		assertThat(subscriber.completed.get()).isTrue();
+		assertThat(subscriber.items).containsExactlyElementsOf(expectedIds(0));
+	}
+
+	@Test
+	void publishWithSingleThreadExecutor() throws Exception {
+		PrefetchingQuery<Integer> query = createQuery();
+		query.setExecutor(Executors.newSingleThreadExecutor());
+		CollectingSubscriber subscriber = new CollectingSubscriber(10, Long.MAX_VALUE);
+		query.publisher(0).subscribe(subscriber);
+
+		assertThat(subscriber.terminated.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(subscriber.error.get()).isNull();
+		assertThat(subscriber.items).containsExactlyElementsOf(expectedIds(0));
+		((ExecutorService) query.getExecutor()).shutdown();
+	}
+
+	@Test
+	void publishWithCancellation() throws Exception {
+		CollectingSubscriber subscriber = new CollectingSubscriber(3, 7);
+		createQuery().publisher(0).subscribe(subscriber);
+
+		assertThat(subscriber.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+		this.executor.shutdown();
+		assertThat(this.executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(subscriber.items).containsExactly(0, 1, 2, 3, 4, 5, 6);
+		assertThat(subscriber.completed.get()).isFalse();
+		assertThat(subscriber.error.get()).isNull();
+	}
+
+	@Test
+	void publishWithInvalidRequest() throws Exception {
+		CollectingSubscriber subscriber = new CollectingSubscriber(0, Long.MAX_VALUE);
+		createQuery().publisher(0).subscribe(subscriber);
+
+		assertThat(subscriber.terminated.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(subscriber.error.get()).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void publishWithInvalidSql() throws Exception {
+		PrefetchingQuery<Integer> query = this.jdbcTemplate.prefetchingQuery("select id from nonexistent", ID_MAPPER);
+		query.setExecutor(this.executor);
+		CollectingSubscriber subscriber = new CollectingSubscriber(1, Long.MAX_VALUE);
+		query.publisher().subscribe(subscriber);
+
+		assertThat(subscriber.terminated.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(subscriber.error.get()).isInstanceOf(BadSqlGrammarException.class);
+	}
+
+
+	private PrefetchingQuery<Integer> createQuery() {
+		PrefetchingQuery<Integer> query = this.jdbcTemplate.prefetchingQuery(SELECT_SQL, ID_MAPPER);
+		query.setExecutor(this.executor);
+		query.setBatchSize(16);
+		query.setBufferedBatches(2);
+		return query;
+	}
+
+	private static List<Integer> expectedIds(int from) {
+		return IntStream.range(from, ROWS).boxed().toList();
+	}
+
+
+	private static class CollectingSubscriber implements Flow.Subscriber<Integer> {
+
+		private final long requestSize;
+
+		private final long cancelAfter;
+
+		final List<Integer> items = new CopyOnWriteArrayList<>();
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		final AtomicReference<Boolean> completed = new AtomicReference<>(false);
+
+		final CountDownLatch terminated = new CountDownLatch(1);
+
+		final CountDownLatch cancelled = new CountDownLatch(1);
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private Flow.Subscription subscription;
+
+		CollectingSubscriber(long requestSize, long cancelAfter) {
+			this.requestSize = requestSize;
+			this.cancelAfter = cancelAfter;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			this.pending.set((int) this.requestSize);
+			subscription.request(this.requestSize);
+		}
+
+		@Override
+		public void onNext(Integer item) {
+			this.items.add(item);
+			if (this.items.size() == this.cancelAfter) {
+				this.subscription.cancel();
+				this.cancelled.countDown();
+			}
+			else if (this.pending.decrementAndGet() == 0) {
+				this.pending.set((int) this.requestSize);
+				this.subscription.request(this.requestSize);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.error.set(throwable);
+			this.terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			this.completed.set(true);
+			this.terminated.countDown();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.metadata.MetaDataProviderCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -107,6 +108,35 @@ class SimpleJdbcInsertTests {
 		verify(tableResultSet).close();
 	}
 
+	@Test
+	void retrieveColumnNamesFromSharedMetaDataProviderCache() throws Exception {
+		ResultSet tableResultSet = mock(ResultSet.class);
+		given(tableResultSet.next()).willReturn(true, false);
+
+		given(databaseMetaData.getUserName()).willReturn("me");
+		given(databaseMetaData.getTables(null, null, "me", null)).willReturn(tableResultSet);
+
+		ResultSet columnResultSet = mock(ResultSet.class);
+		given(databaseMetaData.getColumns(null, "me", null, null)).willReturn(columnResultSet);
+		given(columnResultSet.next()).willReturn(true, true, false);
+		given(columnResultSet.getString("COLUMN_NAME")).willReturn("col1", "col2");
+		given(columnResultSet.getInt("DATA_TYPE")).willReturn(Types.VARCHAR);
+		given(columnResultSet.getBoolean("NULLABLE")).willReturn(false);
+
+		MetaDataProviderCache cache = new MetaDataProviderCache();
+		SimpleJdbcInsert insert1 = new SimpleJdbcInsert(dataSource).withTableName("me").withMetaDataProviderCache(cache);
+		insert1.compile();
+		SimpleJdbcInsert insert2 = new SimpleJdbcInsert(dataSource).withTableName("me").withMetaDataProviderCache(cache);
+		insert2.compile();
+		assertThat(insert1.getInsertString()).isEqualTo("INSERT INTO me (col1, col2) VALUES(?, ?)");
+		assertThat(insert2.getInsertString()).isEqualTo("INSERT INTO me (col1, col2) VALUES(?, ?)");
+
+		// Meta-data retrieved only once: see verify(connection).close() in verifyClosed()
+		verify(dataSource).getConnection();
+		verify(columnResultSet).close();
+		verify(tableResultSet).close();
+	}
+
 	@Test  // gh-26486
 	void exceptionThrownWhileRetrievingColumnNamesFromMetadata() throws Exception {
 		ResultSet tableResultSet = mock(ResultSet.class);
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Integration tests for {@link PoolingDataSource} against an embedded H2 database.
+ *
+ * @author agent (agent@local)
+ */
+class PoolingDataSourceTests {
+
+	private EmbeddedDatabase database;
+
+	private PoolingDataSource dataSource;
+
+
+	@BeforeEach
+	void setUp() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.dataSource = new PoolingDataSource(this.database);
+		this.dataSource.setMaxPoolSize(2);
+		this.dataSource.setConnectionTimeout(Duration.ofMillis(200));
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.dataSource.destroy();
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void reuseConnection() throws SQLException {
+		Connection con1 = this.dataSource.getConnection();
+		Connection target1 = ((ConnectionProxy) con1).getTargetConnection();
+		assertThat(this.dataSource.getActiveCount()).isEqualTo(1);
+		con1.close();
+		assertThat(con1.isClosed()).isTrue();
+		assertThat(target1.isClosed()).isFalse();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(con1::createStatement);
+
+		Connection con2 = this.dataSource.getConnection();
+		assertThat(con2).isNotSameAs(con1);
+		assertThat(((ConnectionProxy) con2).getTargetConnection()).isSameAs(target1);
+		con2.close();
+
+		assertThat(this.dataSource.getPoolSize()).isEqualTo(1);
+		assertThat(this.dataSource.getIdleCount()).isEqualTo(1);
+		assertThat(this.dataSource.getBorrowCount()).isEqualTo(2);
+		assertThat(this.dataSource.getCreationCount()).isEqualTo(1);
+	}
+
+	@Test
+	void timeoutWhenExhausted() throws SQLException {
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		assertThatExceptionOfType(SQLTransientConnectionException.class)
+				.isThrownBy(this.dataSource::getConnection);
+		assertThat(this.dataSource.getTimeoutCount()).isEqualTo(1);
+		con1.close();
+		con2.close();
+	}
+
+	@Test
+	void handoffToWaitingThread() throws Exception {
+		this.dataSource.setConnectionTimeout(Duration.ofSeconds(5));
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		Connection target1 = ((ConnectionProxy) con1).getTargetConnection();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Connection> future = executor.submit(() -> {
+				try (Connection con = this.dataSource.getConnection()) {
+					return ((ConnectionProxy) con).getTargetConnection();
+				}
+			});
+			while (this.dataSource.getPendingCount() == 0) {
+				Thread.sleep(5);
+			}
+			con1.close();
+			assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(target1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		con2.close();
+		assertThat(this.dataSource.getPoolSize()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentBorrowAndReturn() throws Exception {
+		this.dataSource.setConnectionTimeout(Duration.ofSeconds(10));
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 200; j++) {
+						assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.dataSource.getBorrowCount()).isEqualTo(1600);
+		assertThat(this.dataSource.getPoolSize()).isLessThanOrEqualTo(2);
+		assertThat(this.dataSource.getActiveCount()).isZero();
+		assertThat(this.dataSource.getTimeoutCount()).isZero();
+	}
+
+	@Test
+	void resetConnectionStateOnReturn() throws SQLException {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		jdbcTemplate.execute("create table item (id int primary key)");
+
+		Connection con = this.dataSource.getConnection();
+		con.setAutoCommit(false);
+		con.setReadOnly(true);
+		con.createStatement().execute("insert into item values (1)");
+		con.close();
+
+		try (Connection con2 = this.dataSource.getConnection()) {
+			assertThat(con2.getAutoCommit()).isTrue();
+			assertThat(con2.isReadOnly()).isFalse();
+		}
+		assertThat(jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isZero();
+	}
+
+	@Test
+	void rollbackOnReturnWithoutAutoCommitChangeThroughHandle() throws SQLException {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		jdbcTemplate.execute("create table item (id int primary key)");
+
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		target.setAutoCommit(false);
+		con.createStatement().execute("insert into item values (1)");
+		con.close();
+		target.setAutoCommit(true);
+
+		assertThat(jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isZero();
+	}
+
+	@Test
+	void closeStatementsOnReturn() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Statement stmt = con.createStatement();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		Statement closedStmt = con.createStatement();
+		closedStmt.close();
+		con.close();
+
+		assertThat(stmt.isClosed()).isTrue();
+		assertThat(ps.isClosed()).isTrue();
+		try (Connection con2 = this.dataSource.getConnection()) {
+			assertThat(con2.createStatement().isClosed()).isFalse();
+		}
+	}
+
+	@Test
+	void transactionManagerIntegration() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		jdbcTemplate.execute("create table item (id int primary key)");
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+
+		tt.executeWithoutResult(status -> {
+			jdbcTemplate.update("insert into item values (1)");
+			jdbcTemplate.update("insert into item values (2)");
+			assertThat(this.dataSource.getActiveCount()).isEqualTo(1);
+		});
+		tt.executeWithoutResult(status -> {
+			jdbcTemplate.update("insert into item values (3)");
+			status.setRollbackOnly();
+		});
+
+		assertThat(jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(2);
+		assertThat(this.dataSource.getActiveCount()).isZero();
+		assertThat(this.dataSource.getPoolSize()).isEqualTo(1);
+	}
+
+	@Test
+	void discardInvalidConnection() throws SQLException {
+		this.dataSource.setValidationInterval(Duration.ZERO);
+		this.dataSource.setValidationQuery("select 1 from nonexistent");
+		this.dataSource.setMaxPoolSize(1);
+
+		this.dataSource.getConnection().close();
+		this.dataSource.getConnection().close();
+		assertThat(this.dataSource.getCreationCount()).isEqualTo(2);
+		assertThat(this.dataSource.getPoolSize()).isEqualTo(1);
+
+		this.dataSource.setValidationQuery("select 1");
+		long created = this.dataSource.getCreationCount();
+		this.dataSource.getConnection().close();
+		this.dataSource.getConnection().close();
+		assertThat(this.dataSource.getCreationCount()).isEqualTo(created);
+	}
+
+	@Test
+	void discardExpiredConnection() throws Exception {
+		this.dataSource.setMaxLifetime(Duration.ofMillis(50));
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		Thread.sleep(100);
+		con.close();
+		assertThat(target.isClosed()).isTrue();
+		assertThat(this.dataSource.getPoolSize()).isZero();
+	}
+
+	@Test
+	void detectLeakedConnection() throws Exception {
+		this.dataSource.setLeakDetectionThreshold(Duration.ofMillis(20));
+		Connection con = this.dataSource.getConnection();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.dataSource.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.dataSource.getLeakCount()).isEqualTo(1);
+		con.close();
+
+		this.dataSource.getConnection().close();
+		Thread.sleep(50);
+		assertThat(this.dataSource.getLeakCount()).isEqualTo(1);
+	}
+
+	@Test
+	void destroyClosesConnections() throws SQLException {
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		Connection target1 = ((ConnectionProxy) con1).getTargetConnection();
+		Connection target2 = ((ConnectionProxy) con2).getTargetConnection();
+		con1.close();
+
+		this.dataSource.destroy();
+		assertThat(target1.isClosed()).isTrue();
+		assertThat(target2.isClosed()).isFalse();
+		con2.close();
+		assertThat(target2.isClosed()).isTrue();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(this.dataSource::getConnection);
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for PreparedStatement caching in {@link SingleConnectionDataSource}
+ * and {@link LazyConnectionDataSourceProxy}.
+ *
+ * @author agent (agent@local)
+ */
+class PreparedStatementCacheTests {
+
+	private final Connection connection = mock(Connection.class);
+
+	private final PreparedStatement ps1 = mock(PreparedStatement.class);
+
+	private final PreparedStatement ps2 = mock(PreparedStatement.class);
+
+	private final PreparedStatement ps3 = mock(PreparedStatement.class);
+
+
+	@Test
+	void singleConnectionDataSourceReusesStatement() throws SQLException {
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		SingleConnectionDataSource ds = new SingleConnectionDataSource(this.connection, true);
+		ds.setStatementCacheSize(10);
+
+		Connection con = ds.getConnection();
+		PreparedStatement handle1 = con.prepareStatement("sql1");
+		assertThat(handle1.getConnection()).isSameAs(con);
+		handle1.setString(1, "a");
+		handle1.executeUpdate();
+		handle1.close();
+		assertThat(handle1.isClosed()).isTrue();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(handle1::executeUpdate);
+
+		PreparedStatement handle2 = con.prepareStatement("sql1");
+		handle2.executeUpdate();
+		handle2.close();
+
+		verify(this.connection, times(1)).prepareStatement("sql1");
+		verify(this.ps1, times(2)).executeUpdate();
+		verify(this.ps1, times(2)).clearParameters();
+		verify(this.ps1, never()).close();
+
+		ds.destroy();
+		verify(this.ps1).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	void singleConnectionDataSourceResetsStatementSettings() throws SQLException {
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		given(this.ps1.getFetchSize()).willReturn(10);
+		SingleConnectionDataSource ds = new SingleConnectionDataSource(this.connection, true);
+		ds.setStatementCacheSize(10);
+
+		Connection con = ds.getConnection();
+		PreparedStatement handle1 = con.prepareStatement("sql1");
+		handle1.setMaxRows(5);
+		handle1.setFetchSize(100);
+		handle1.setQueryTimeout(30);
+		handle1.addBatch();
+		handle1.close();
+		con.prepareStatement("sql1").close();
+
+		verify(this.connection, times(1)).prepareStatement("sql1");
+		verify(this.ps1, times(2)).clearBatch();
+		verify(this.ps1, times(1)).setMaxRows(0);
+		verify(this.ps1, times(1)).setFetchSize(10);
+		verify(this.ps1, times(1)).setQueryTimeout(0);
+	}
+
+	@Test
+	void singleConnectionDataSourceDistinguishesStatementOptions() throws SQLException {
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		given(this.connection.prepareStatement("sql1", new String[] {"id"})).willReturn(this.ps2);
+		SingleConnectionDataSource ds = new SingleConnectionDataSource(this.connection, true);
+		ds.setStatementCacheSize(10);
+
+		Connection con = ds.getConnection();
+		con.prepareStatement("sql1").close();
+		con.prepareStatement("sql1", new String[] {"id"}).close();
+		con.prepareStatement("sql1", new String[] {"id"}).close();
+		con.prepareStatement("sql1").close();
+
+		verify(this.connection, times(1)).prepareStatement("sql1");
+		verify(this.connection, times(1)).prepareStatement("sql1", new String[] {"id"});
+	}
+
+	@Test
+	void singleConnectionDataSourceEvictsLeastRecentlyUsed() throws SQLException {
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		given(this.connection.prepareStatement("sql2")).willReturn(this.ps2);
+		given(this.connection.prepareStatement("sql3")).willReturn(this.ps3);
+		SingleConnectionDataSource ds = new SingleConnectionDataSource(this.connection, true);
+		ds.setStatementCacheSize(2);
+
+		Connection con = ds.getConnection();
+		con.prepareStatement("sql1").close();
+		con.prepareStatement("sql2").close();
+		con.prepareStatement("sql1").close();
+		con.prepareStatement("sql3").close();
+
+		verify(this.ps2).close();
+		verify(this.ps1, never()).close();
+		verify(this.ps3, never()).close();
+	}
+
+	@Test
+	void singleConnectionDataSourceWithoutCache() throws SQLException {
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		SingleConnectionDataSource ds = new SingleConnectionDataSource(this.connection, true);
+
+		Connection con = ds.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql1");
+		assertThat(ps).isSameAs(this.ps1);
+		ps.close();
+		con.prepareStatement("sql1").close();
+
+		verify(this.connection, times(2)).prepareStatement("sql1");
+		verify(this.ps1, times(2)).close();
+	}
+
+	@Test
+	void lazyConnectionDataSourceProxyReusesStatementPerConnection() throws SQLException {
+		DataSource targetDataSource = mock(DataSource.class);
+		given(targetDataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.prepareStatement("sql1")).willReturn(this.ps1);
+		LazyConnectionDataSourceProxy ds = new LazyConnectionDataSourceProxy();
+		ds.setTargetDataSource(targetDataSource);
+		ds.setDefaultAutoCommit(true);
+		ds.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		ds.setStatementCacheSize(10);
+		ds.afterPropertiesSet();
+
+		Connection con = ds.getConnection();
+		con.prepareStatement("sql1").close();
+		con.prepareStatement("sql1").close();
+		verify(this.connection, times(1)).prepareStatement("sql1");
+		verify(this.ps1, never()).close();
+
+		con.close();
+		verify(this.ps1).close();
+		verify(this.connection).close();
+	}
+
+}
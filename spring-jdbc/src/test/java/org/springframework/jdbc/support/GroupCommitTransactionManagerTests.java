@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link GroupCommitTransactionManager} against an embedded H2 database.
+ *
+ * @author agent (agent@local)
+ */
+class GroupCommitTransactionManagerTests {
+
+	private static final int GROUP_SIZE = 4;
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(GROUP_SIZE + 1);
+
+
+	@BeforeEach
+	void setup() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE item (id INT PRIMARY KEY)");
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+		this.database.shutdown();
+		assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+	}
+
+
+	@Test
+	void concurrentTransactionsCommittedAsGroup() throws Exception {
+		GroupCommitTransactionManager tm = createTransactionManager(this.database);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		AtomicInteger afterCommitCount = new AtomicInteger();
+
+		List<Future<Integer>> futures = submitAll(tt, i -> tt.execute(status -> {
+			assertThat(TransactionSynchronizationManager.hasResource(this.database)).isTrue();
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					afterCommitCount.incrementAndGet();
+				}
+			});
+			return insert(i);
+		}));
+
+		for (Future<Integer> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+		}
+		assertThat(countItems()).isEqualTo(GROUP_SIZE);
+		assertThat(afterCommitCount.get()).isEqualTo(GROUP_SIZE);
+		assertThat(tm.getGroupCommitCount()).isEqualTo(1);
+		assertThat(tm.getGroupedTransactionCount()).isEqualTo(GROUP_SIZE);
+		assertThat(tm.getRetryCount()).isZero();
+	}
+
+	@Test
+	void failedMemberRolledBackIndividually() throws Exception {
+		GroupCommitTransactionManager tm = createTransactionManager(this.database);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+
+		List<Future<Integer>> futures = submitAll(tt, i -> tt.execute(status -> {
+			int count = insert(i);
+			if (i == 1) {
+				throw new IllegalStateException("failure in member " + i);
+			}
+			if (i == 2) {
+				status.setRollbackOnly();
+			}
+			return count;
+		}));
+
+		for (int i = 0; i < GROUP_SIZE; i++) {
+			Future<Integer> future = futures.get(i);
+			if (i == 1) {
+				assertThatExceptionOfType(ExecutionException.class)
+						.isThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+						.withCauseInstanceOf(IllegalStateException.class);
+			}
+			else {
+				assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+			}
+		}
+		assertThat(this.jdbcTemplate.queryForList("SELECT id FROM item ORDER BY id", Integer.class))
+				.containsExactly(0, 3);
+		assertThat(tm.getGroupCommitCount()).isEqualTo(1);
+		assertThat(tm.getGroupedTransactionCount()).isEqualTo(2);
+		assertThat(tm.getRetryCount()).isZero();
+	}
+
+	@Test
+	void failedGroupCommitRetriedIndividually() throws Exception {
+		AtomicBoolean failCommit = new AtomicBoolean(true);
+		DataSource dataSource = new DelegatingDataSource(this.database) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection con = super.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+						new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+							if (method.getName().equals("commit") && failCommit.compareAndSet(true, false)) {
+								throw new SQLException("Commit failure");
+							}
+							return method.invoke(con, args);
+						});
+			}
+		};
+		GroupCommitTransactionManager tm = createTransactionManager(dataSource);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		AtomicInteger executionCount = new AtomicInteger();
+
+		List<Future<Integer>> futures = submitAll(tt, i -> tt.execute(status -> {
+			executionCount.incrementAndGet();
+			return new JdbcTemplate(dataSource).update("INSERT INTO item VALUES (?)", i);
+		}));
+
+		for (Future<Integer> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+		}
+		assertThat(countItems()).isEqualTo(GROUP_SIZE);
+		assertThat(executionCount.get()).isEqualTo(GROUP_SIZE * 2);
+		assertThat(tm.getGroupCommitCount()).isZero();
+		assertThat(tm.getRetryCount()).isEqualTo(GROUP_SIZE);
+	}
+
+	@Test
+	void nonGroupableTransactionsExecutedIndividually() {
+		GroupCommitTransactionManager tm = createTransactionManager(this.database);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+
+		Integer count = tt.execute(status -> {
+			assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+			return countItems();
+		});
+		assertThat(count).isZero();
+
+		tt.setReadOnly(false);
+		tt.setPropagationBehavior(TransactionTemplate.PROPAGATION_NOT_SUPPORTED);
+		Integer updated = tt.execute(status -> insert(1));
+		assertThat(updated).isEqualTo(1);
+
+		assertThat(countItems()).isEqualTo(1);
+		assertThat(tm.getGroupCommitCount()).isZero();
+		assertThat(tm.getGroupedTransactionCount()).isZero();
+	}
+
+	@Test
+	void singleTransactionExecutedWithoutDelay() {
+		GroupCommitTransactionManager tm = createTransactionManager(this.database);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+
+		long start = System.nanoTime();
+		assertThat(tt.execute(status -> insert(1))).isEqualTo(1);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+		assertThat(tm.getGroupCommitCount()).isZero();
+	}
+
+	@Test
+	void nestedTransactionParticipatesInGroupMember() throws Exception {
+		GroupCommitTransactionManager tm = createTransactionManager(this.database);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+
+		List<Future<Integer>> futures = submitAll(tt, i -> tt.execute(status ->
+				tt.execute(innerStatus -> insert(i))));
+
+		for (Future<Integer> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+		}
+		assertThat(countItems()).isEqualTo(GROUP_SIZE);
+		assertThat(tm.getGroupCommitCount()).isEqualTo(1);
+	}
+
+
+	private GroupCommitTransactionManager createTransactionManager(DataSource dataSource) {
+		GroupCommitTransactionManager tm = new GroupCommitTransactionManager(dataSource);
+		tm.setMaxGroupSize(GROUP_SIZE);
+		// Long enough for the group to fill up in any case
+		tm.setMaxGroupDelay(Duration.ofSeconds(30));
+		return tm;
+	}
+
+	/**
+	 * Submit a group of tasks while another transaction is in progress, so that
+	 * the leader waits for the group to fill up instead of executing individually.
+	 */
+	private List<Future<Integer>> submitAll(TransactionTemplate tt, IntFunction<Integer> task) throws Exception {
+		CountDownLatch blockerStarted = new CountDownLatch(1);
+		CountDownLatch groupDone = new CountDownLatch(GROUP_SIZE);
+		this.executor.submit(() -> tt.execute(status -> {
+			blockerStarted.countDown();
+			try {
+				return groupDone.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}));
+		assertThat(blockerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		List<Future<Integer>> futures = new ArrayList<>(GROUP_SIZE);
+		for (int i = 0; i < GROUP_SIZE; i++) {
+			int index = i;
+			futures.add(this.executor.submit(() -> {
+				try {
+					return task.apply(index);
+				}
+				finally {
+					groupDone.countDown();
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private int insert(int id) {
+		return this.jdbcTemplate.update("INSERT INTO item VALUES (?)", id);
+	}
+
+	private int countItems() {
+		Integer count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+		return (count != null ? count : 0);
+	}
+
+}
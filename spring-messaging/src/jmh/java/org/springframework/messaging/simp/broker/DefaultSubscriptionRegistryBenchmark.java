@@ -157,6 +157,56 @@ public class DefaultSubscriptionRegistryBenchmark {
 		}
 	}
 
+	@State(Scope.Benchmark)
+	public static class PerEntityServerState {
+		@Param({"100000", "250000"})
+		public int subscriptions;
+
+		@Param({"1000", "100000"})
+		public int entities;
+
+		@Param({"exact", "mixedPatterns"})
+		String subscriptionTypes;
+
+		public DefaultSubscriptionRegistry registry;
+
+		public String[] destinations;
+
+		public Message<?> findMessage;
+
+		@Setup(Level.Trial)
+		public void doSetup() {
+			this.findMessage = MessageBuilder.createMessage("",  SimpMessageHeaderAccessor.create().getMessageHeaders());
+
+			this.registry = new DefaultSubscriptionRegistry();
+			this.registry.setSelectorHeaderName(null);
+
+			this.destinations = IntStream.range(0, this.entities)
+					.mapToObj(i -> "/topic/entity/" + i + "/updates")
+					.toArray(String[]::new);
+
+			// One subscription per session, as with many clients watching single entities
+			for (int i = 0; i < this.subscriptions; i++) {
+				int entity = i % this.entities;
+				String destination = ("mixedPatterns".equals(this.subscriptionTypes) && i % 10 == 0 ?
+						"/topic/entity/" + entity + "/**" : this.destinations[entity]);
+				this.registry.registerSubscription(subscribeMessage("sessionId_" + i, "subscription_" + i, destination));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class PerEntityFindRequest {
+
+		private int counter;
+
+		public String nextDestination(PerEntityServerState serverState) {
+			// Stride through the entities: with more entities than the cache limit, most lookups miss
+			this.counter = (this.counter + 7919) % serverState.destinations.length;
+			return serverState.destinations[this.counter];
+		}
+	}
+
 	@Benchmark
 	public void registerUnregister(ServerState serverState, Requests request, Blackhole blackhole) {
 		serverState.registry.registerSubscription(request.subscribe);
@@ -170,6 +220,11 @@ public class DefaultSubscriptionRegistryBenchmark {
 		return serverState.registry.findSubscriptionsInternal(request.destination, serverState.findMessage);
 	}
 
+	@Benchmark
+	public MultiValueMap<String, String> findPerEntity(PerEntityServerState serverState, PerEntityFindRequest request) {
+		return serverState.registry.findSubscriptionsInternal(request.nextDestination(serverState), serverState.findMessage);
+	}
+
 	public static Message<?> subscribeMessage(String sessionId, String subscriptionId, String dest) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
 		accessor.setSessionId(sessionId);
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Benchmark for 1-to-many broadcasts through a {@link SimpleBrokerMessageHandler},
+ * with and without delivery shards. Each invocation broadcasts one message to all
+ * sessions and waits until it has been sent to every subscriber.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SimpleBrokerMessageHandlerBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BrokerState {
+
+		@Param({"50000"})
+		public int sessions;
+
+		@Param({"0", "1", "4"})
+		public int deliveryShards;
+
+		public SimpleBrokerMessageHandler messageHandler;
+
+		public CountingChannel outboundChannel;
+
+		public Message<?> broadcast;
+
+		public long sent;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.outboundChannel = new CountingChannel();
+			this.messageHandler = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(),
+					this.outboundChannel, new ExecutorSubscribableChannel(), Collections.emptyList());
+			this.messageHandler.setDeliveryShards(this.deliveryShards);
+			this.messageHandler.start();
+
+			for (int i = 0; i < this.sessions; i++) {
+				String sessionId = "session" + i;
+				SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+				connect.setSessionId(sessionId);
+				this.messageHandler.handleMessage(MessageBuilder.createMessage("", connect.getMessageHeaders()));
+
+				SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+				subscribe.setSessionId(sessionId);
+				subscribe.setSubscriptionId("subscription" + i);
+				subscribe.setDestination("/topic/broadcast");
+				this.messageHandler.handleMessage(MessageBuilder.createMessage("", subscribe.getMessageHeaders()));
+			}
+
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			accessor.setDestination("/topic/broadcast");
+			accessor.setNativeHeader("content-type", "application/json");
+			this.broadcast = MessageBuilder.createMessage(
+					"{\"price\":42.0,\"symbol\":\"SPRG\"}".getBytes(), accessor.getMessageHeaders());
+
+			this.outboundChannel.count.reset();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.messageHandler.stop();
+		}
+	}
+
+	@Benchmark
+	public long broadcast(BrokerState state) {
+		state.messageHandler.handleMessage(state.broadcast);
+		state.sent += state.sessions;
+		while (state.outboundChannel.count.sum() < state.sent) {
+			Thread.onSpinWait();
+		}
+		return state.sent;
+	}
+
+
+	static class CountingChannel implements MessageChannel {
+
+		final LongAdder count = new LongAdder();
+
+		@Override
+		public boolean send(Message<?> message, long timeout) {
+			if (message.getHeaders().get(SimpMessageHeaderAccessor.MESSAGE_TYPE_HEADER) == SimpMessageType.MESSAGE) {
+				this.count.increment();
+			}
+			return true;
+		}
+	}
+
+}
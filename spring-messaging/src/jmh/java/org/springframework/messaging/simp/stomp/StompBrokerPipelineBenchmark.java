@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.IdTimestampMessageHeaderInitializer;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Benchmark for a STOMP SEND frame travelling from the client inbound side,
+ * through a {@link SimpleBrokerMessageHandler}, to the client outbound side,
+ * mirroring the header handling of {@code StompSubProtocolHandler}: decode,
+ * update and seal the inbound headers, broadcast, then wrap the outbound
+ * headers as a STOMP MESSAGE frame and encode it.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompBrokerPipelineBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class PipelineState {
+
+		@Param({"1", "10"})
+		public int subscribers;
+
+		@Param({"default", "sequential"})
+		public String idGeneration;
+
+		public StompDecoder decoder;
+
+		public SimpleBrokerMessageHandler messageHandler;
+
+		public EncodingChannel outboundChannel;
+
+		public byte[] frame;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			IdTimestampMessageHeaderInitializer initializer = new IdTimestampMessageHeaderInitializer();
+			if (this.idGeneration.equals("sequential")) {
+				initializer.setSequentialIdGeneration();
+			}
+
+			this.decoder = new StompDecoder();
+			this.decoder.setHeaderInitializer(initializer);
+
+			this.outboundChannel = new EncodingChannel();
+			this.messageHandler = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(),
+					this.outboundChannel, new ExecutorSubscribableChannel(), Collections.emptyList());
+			this.messageHandler.setHeaderInitializer(initializer);
+			this.messageHandler.start();
+
+			for (int i = 0; i < this.subscribers; i++) {
+				String sessionId = "session" + i;
+				SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+				connect.setSessionId(sessionId);
+				this.messageHandler.handleMessage(MessageBuilder.createMessage("", connect.getMessageHeaders()));
+
+				SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+				subscribe.setSessionId(sessionId);
+				subscribe.setSubscriptionId("subscription" + i);
+				subscribe.setDestination("/topic/quotes");
+				this.messageHandler.handleMessage(MessageBuilder.createMessage("", subscribe.getMessageHeaders()));
+			}
+
+			this.frame = ("SEND\ndestination:/topic/quotes\ncontent-type:application/json\n" +
+					"content-length:30\n\n{\"price\":42.0,\"symbol\":\"SPRG\"}\0").getBytes(StandardCharsets.UTF_8);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.messageHandler.stop();
+		}
+	}
+
+	@Benchmark
+	public long sendToSubscribers(PipelineState state) {
+		List<Message<byte[]>> messages = state.decoder.decode(ByteBuffer.wrap(state.frame));
+		for (Message<byte[]> message : messages) {
+			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+			accessor.setSessionId("sender");
+			accessor.setSessionAttributes(Collections.emptyMap());
+			accessor.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, accessor.getHeartbeat());
+			accessor.setImmutable();
+			state.messageHandler.handleMessage(message);
+		}
+		return state.outboundChannel.bytes;
+	}
+
+
+	static class EncodingChannel implements MessageChannel {
+
+		private final StompEncoder encoder = new StompEncoder();
+
+		long bytes;
+
+		@Override
+		public boolean send(Message<?> message, long timeout) {
+			if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+				return true;
+			}
+			StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+			if (accessor.getCommand() == null || StompCommand.SEND.equals(accessor.getCommand())) {
+				accessor.updateStompCommandAsServerMessage();
+			}
+			this.bytes += this.encoder.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload()).length;
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Benchmark for decoding small STOMP frames with a {@link StompDecoder}, either
+ * from complete frames, or with a {@link BufferingStompDecoder} from frames
+ * that arrive in several chunks.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompDecoderBenchmark {
+
+	@State(Scope.Thread)
+	public static class DecoderState {
+
+		@Param({"1", "4", "16"})
+		public int chunksPerFrame;
+
+		public StompDecoder decoder;
+
+		public BufferingStompDecoder bufferingDecoder;
+
+		public byte[] frame;
+
+		public byte[][] chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.decoder = new StompDecoder();
+			this.bufferingDecoder = new BufferingStompDecoder(this.decoder, 64 * 1024);
+			this.frame = ("SEND\ndestination:/app/orders\ncontent-type:application/json\nreceipt:r-1234\n\n" +
+					"{\"symbol\":\"SPRG\",\"side\":\"BUY\",\"qty\":100,\"px\":42.00}\0").getBytes(StandardCharsets.UTF_8);
+			this.chunks = new byte[this.chunksPerFrame][];
+			int chunkSize = (this.frame.length + this.chunksPerFrame - 1) / this.chunksPerFrame;
+			for (int i = 0; i < this.chunksPerFrame; i++) {
+				int start = Math.min(i * chunkSize, this.frame.length);
+				int end = Math.min(start + chunkSize, this.frame.length);
+				this.chunks[i] = new byte[end - start];
+				System.arraycopy(this.frame, start, this.chunks[i], 0, end - start);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<Message<byte[]>> decodeFrame(DecoderState state) {
+		return state.decoder.decode(ByteBuffer.wrap(state.frame));
+	}
+
+	@Benchmark
+	public void decodeChunks(DecoderState state, Blackhole blackhole) {
+		for (byte[] chunk : state.chunks) {
+			blackhole.consume(state.bufferingDecoder.decode(ByteBuffer.wrap(chunk)));
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Benchmark for encoding the {@code MESSAGE} frames of a broadcast with a
+ * {@link StompEncoder}, i.e. frames for the same payload that only differ in
+ * their {@code subscription} and {@code message-id} headers, compared to
+ * frames with a unique payload each.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompEncoderBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class EncoderState {
+
+		@Param({"1000"})
+		public int subscribers;
+
+		@Param({"64", "1024", "16384"})
+		public int payloadSize;
+
+		public StompEncoder encoder;
+
+		public byte[] payload;
+
+		public Map<String, Object>[] headers;
+
+		@Setup(Level.Trial)
+		@SuppressWarnings("unchecked")
+		public void setup() {
+			this.encoder = new StompEncoder();
+			this.payload = new byte[this.payloadSize];
+			this.headers = new Map[this.subscribers];
+			for (int i = 0; i < this.subscribers; i++) {
+				SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+				accessor.setDestination("/topic/prices");
+				accessor.setSessionId("session" + i);
+				accessor.setSubscriptionId("subscription" + i);
+				accessor.setNativeHeader("content-type", "application/json");
+				Message<byte[]> message = MessageBuilder.createMessage(this.payload, accessor.getMessageHeaders());
+				StompHeaderAccessor stompAccessor = StompHeaderAccessor.wrap(message);
+				stompAccessor.updateStompCommandAsServerMessage();
+				this.headers[i] = stompAccessor.getMessageHeaders();
+			}
+		}
+	}
+
+	@Benchmark
+	public void broadcast(EncoderState state, Blackhole blackhole) {
+		for (Map<String, Object> headers : state.headers) {
+			blackhole.consume(state.encoder.encode(headers, state.payload));
+		}
+	}
+
+	@Benchmark
+	public void uniquePayloads(EncoderState state, Blackhole blackhole) {
+		for (Map<String, Object> headers : state.headers) {
+			blackhole.consume(state.encoder.encode(headers, new byte[state.payloadSize]));
+		}
+	}
+
+}
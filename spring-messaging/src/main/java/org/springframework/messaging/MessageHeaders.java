@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,11 +20,15 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
 
@@ -33,6 +37,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.AlternativeJdkIdGenerator;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.IdGenerator;
 
@@ -62,6 +67,10 @@ import org.springframework.util.IdGenerator;
  * A third option is to use {@link org.springframework.messaging.support.MessageHeaderAccessor}
  * or one of its subclasses to create specific categories of headers.
  *
+ * <p>Creating {@code MessageHeaders} from another {@code MessageHeaders} instance
+ * does not copy the header entries. Instead, the entries of the original are
+ * shared and only the differences, such as a new {@link #ID}, are recorded.
+ *
  * @author Arjen Poutsma
  * @author Mark Fisher
  * @author Gary Russell
@@ -135,26 +144,16 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	 * @param timestamp the {@link #TIMESTAMP} header value
 	 */
 	protected MessageHeaders(@Nullable Map<String, Object> headers, @Nullable UUID id, @Nullable Long timestamp) {
-		this.headers = (headers != null ? new HashMap<>(headers) : new HashMap<>());
-
-		if (id == null) {
-			this.headers.put(ID, getIdGenerator().generateId());
-		}
-		else if (id == ID_VALUE_NONE) {
-			this.headers.remove(ID);
-		}
-		else {
-			this.headers.put(ID, id);
-		}
-
-		if (timestamp == null) {
-			this.headers.put(TIMESTAMP, System.currentTimeMillis());
-		}
-		else if (timestamp < 0) {
-			this.headers.remove(TIMESTAMP);
+		if (headers instanceof MessageHeaders messageHeaders) {
+			HeaderMap headerMap = messageHeaders.copyHeaders();
+			initIdAndTimestamp(headerMap, id, timestamp);
+			this.headers = headerMap;
 		}
 		else {
-			this.headers.put(TIMESTAMP, timestamp);
+			// Populate the new map before it is wrapped, so that it can be shared as is
+			HashMap<String, Object> map = (headers != null ? new HashMap<>(headers) : new HashMap<>());
+			initIdAndTimestamp(map, id, timestamp);
+			this.headers = new HeaderMap(map);
 		}
 	}
 
@@ -174,10 +173,39 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	}
 
 
+	private static void initIdAndTimestamp(Map<String, Object> headers, @Nullable UUID id, @Nullable Long timestamp) {
+		if (id == null) {
+			headers.put(ID, getIdGenerator().generateId());
+		}
+		else if (id == ID_VALUE_NONE) {
+			headers.remove(ID);
+		}
+		else {
+			headers.put(ID, id);
+		}
+
+		if (timestamp == null) {
+			headers.put(TIMESTAMP, System.currentTimeMillis());
+		}
+		else if (timestamp < 0) {
+			headers.remove(TIMESTAMP);
+		}
+		else {
+			headers.put(TIMESTAMP, timestamp);
+		}
+	}
+
+
 	protected Map<String, Object> getRawHeaders() {
 		return this.headers;
 	}
 
+	private HeaderMap copyHeaders() {
+		// Deserialized instances hold a plain HashMap
+		return (this.headers instanceof HeaderMap headerMap ?
+				headerMap.copy() : new HeaderMap(new HashMap<>(this.headers)));
+	}
+
 	protected static IdGenerator getIdGenerator() {
 		IdGenerator generator = idGenerator;
 		return (generator != null ? generator : defaultIdGenerator);
@@ -348,4 +376,231 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 		return this.headers.toString();
 	}
 
+
+	/**
+	 * Header storage that can be shared between {@code MessageHeaders} instances.
+	 * <p>The state is held in an immutable {@link Overlay}: a base map that is
+	 * never modified once wrapped, and a small delta map with the changes on top
+	 * of it. Changes replace the overlay, until the delta grows too large and is
+	 * merged into a new base map. Copies share the current overlay as is, and
+	 * never write to the original.
+	 * <p>Serialized as a plain {@link HashMap}.
+	 */
+	@SuppressWarnings("serial")
+	private static final class HeaderMap extends AbstractMap<String, Object> implements Serializable {
+
+		private static final int MAX_DELTA_SIZE = 8;
+
+		private static final Object NULL_VALUE = new Object();
+
+		private static final Object REMOVED = new Object();
+
+		private Overlay overlay;
+
+		HeaderMap(HashMap<String, Object> base) {
+			this.overlay = new Overlay(base, null, base.size());
+		}
+
+		private HeaderMap(Overlay overlay) {
+			this.overlay = overlay;
+		}
+
+		HeaderMap copy() {
+			return new HeaderMap(this.overlay);
+		}
+
+		@Override
+		public int size() {
+			return this.overlay.size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.overlay.containsKey(key);
+		}
+
+		@Override
+		@Nullable
+		public Object get(Object key) {
+			return this.overlay.get(key);
+		}
+
+		@Override
+		@Nullable
+		public Object put(String key, @Nullable Object value) {
+			Overlay current = this.overlay;
+			Object previous = current.get(key);
+			this.overlay = current.with(key, (value != null ? value : NULL_VALUE));
+			return previous;
+		}
+
+		@Override
+		@Nullable
+		public Object remove(Object key) {
+			Overlay current = this.overlay;
+			if (!current.containsKey(key)) {
+				return null;
+			}
+			Object previous = current.get(key);
+			this.overlay = current.with((String) key, REMOVED);
+			return previous;
+		}
+
+		@Override
+		public void clear() {
+			this.overlay = new Overlay(new HashMap<>(), null, 0);
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new OverlayEntrySet();
+		}
+
+		private Object writeReplace() {
+			return this.overlay.merge();
+		}
+
+
+		/**
+		 * Immutable header state: a base map plus the changes on top of it.
+		 * Neither map is modified after the overlay is created.
+		 */
+		private record Overlay(HashMap<String, Object> base, @Nullable HashMap<String, Object> delta, int size) {
+
+			boolean containsKey(Object key) {
+				if (this.delta != null) {
+					Object value = this.delta.get(key);
+					if (value != null) {
+						return (value != REMOVED);
+					}
+				}
+				return this.base.containsKey(key);
+			}
+
+			@Nullable
+			Object get(Object key) {
+				if (this.delta != null) {
+					Object value = this.delta.get(key);
+					if (value != null) {
+						return (value != REMOVED && value != NULL_VALUE ? value : null);
+					}
+				}
+				return this.base.get(key);
+			}
+
+			Overlay with(String key, Object value) {
+				boolean present = containsKey(key);
+				HashMap<String, Object> newDelta = (this.delta != null ? new HashMap<>(this.delta) : new HashMap<>());
+				newDelta.put(key, value);
+				int newSize = (value == REMOVED ? (present ? this.size - 1 : this.size) :
+						(present ? this.size : this.size + 1));
+				Overlay overlay = new Overlay(this.base, newDelta, newSize);
+				return (newDelta.size() > MAX_DELTA_SIZE ? new Overlay(overlay.merge(), null, newSize) : overlay);
+			}
+
+			HashMap<String, Object> merge() {
+				HashMap<String, Object> merged = new HashMap<>(this.base);
+				if (this.delta != null) {
+					this.delta.forEach((key, value) -> {
+						if (value == REMOVED) {
+							merged.remove(key);
+						}
+						else {
+							merged.put(key, value != NULL_VALUE ? value : null);
+						}
+					});
+				}
+				return merged;
+			}
+		}
+
+
+		/**
+		 * Iterates over the base entries that are not overridden, followed by
+		 * the delta entries that are not removals, of the overlay at the time
+		 * the iterator was created. Changes through the iterator or the entries
+		 * are written back to the map, without affecting the iteration.
+		 */
+		private final class OverlayEntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+			@Override
+			public int size() {
+				return HeaderMap.this.size();
+			}
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				Overlay overlay = HeaderMap.this.overlay;
+				HashMap<String, Object> delta = overlay.delta();
+				Iterator<Map.Entry<String, Object>> baseIterator = overlay.base().entrySet().iterator();
+				Iterator<Map.Entry<String, Object>> deltaIterator =
+						(delta != null ? delta.entrySet().iterator() : Collections.emptyIterator());
+
+				return new Iterator<>() {
+
+					@Nullable
+					private Map.Entry<String, Object> nextEntry = advance();
+
+					@Nullable
+					private String lastKey;
+
+					@Nullable
+					private Map.Entry<String, Object> advance() {
+						while (baseIterator.hasNext()) {
+							Map.Entry<String, Object> entry = baseIterator.next();
+							if (delta == null || !delta.containsKey(entry.getKey())) {
+								return new OverlayEntry(entry.getKey(), entry.getValue());
+							}
+						}
+						while (deltaIterator.hasNext()) {
+							Map.Entry<String, Object> entry = deltaIterator.next();
+							Object value = entry.getValue();
+							if (value != REMOVED) {
+								return new OverlayEntry(entry.getKey(), (value != NULL_VALUE ? value : null));
+							}
+						}
+						return null;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return (this.nextEntry != null);
+					}
+
+					@Override
+					public Map.Entry<String, Object> next() {
+						Map.Entry<String, Object> entry = this.nextEntry;
+						if (entry == null) {
+							throw new NoSuchElementException();
+						}
+						this.lastKey = entry.getKey();
+						this.nextEntry = advance();
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						Assert.state(this.lastKey != null, "No current entry");
+						HeaderMap.this.remove(this.lastKey);
+						this.lastKey = null;
+					}
+				};
+			}
+		}
+
+
+		private final class OverlayEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+			OverlayEntry(String key, @Nullable Object value) {
+				super(key, value);
+			}
+
+			@Override
+			public Object setValue(Object value) {
+				HeaderMap.this.put(getKey(), value);
+				return super.setValue(value);
+			}
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import org.springframework.messaging.simp.SimpLogging;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.InterceptableChannel;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -163,6 +164,12 @@ public abstract class AbstractBrokerMessageHandler
 	 * will be sent to the {@code "clientOutboundChannel"} one at a time in
 	 * order to preserve the order of publication. Enable this only if needed
 	 * since there is some performance overhead to keep messages in order.
+	 * <p>If the {@code "clientOutboundChannel"} is an
+	 * {@link ExecutorSubscribableChannel} with dispatch workers and the session
+	 * id as {@link ExecutorSubscribableChannel#setAffinityHeader affinity header},
+	 * it already handles the messages of a session in order, and messages are
+	 * sent to it directly. In that case, a message sent while the queue of its
+	 * worker is full is rejected rather than handled out of order.
 	 * @param preservePublishOrder whether to publish in order
 	 * @since 5.1
 	 */
@@ -343,8 +350,14 @@ public abstract class AbstractBrokerMessageHandler
 	 * @since 5.1
 	 */
 	protected MessageChannel getClientOutboundChannelForSession(String sessionId) {
-		return this.preservePublishOrder ?
-				new OrderedMessageChannelDecorator(getClientOutboundChannel(), logger) : getClientOutboundChannel();
+		return (this.preservePublishOrder && !isOrderedBySession(getClientOutboundChannel()) ?
+				new OrderedMessageChannelDecorator(getClientOutboundChannel(), logger) : getClientOutboundChannel());
+	}
+
+	private static boolean isOrderedBySession(MessageChannel channel) {
+		return (channel instanceof ExecutorSubscribableChannel execChannel &&
+				execChannel.getExecutor() != null && execChannel.getDispatchWorkers() > 0 &&
+				SimpMessageHeaderAccessor.SESSION_ID_HEADER.equals(execChannel.getAffinityHeader()));
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.messaging.simp.broker;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -58,6 +59,11 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 6.0, destinations not present in the cache are resolved through an
+ * index of subscriptions by exact destination and by pattern prefix, so that
+ * the cost of a lookup depends on the number of matching subscriptions rather
+ * than on the total number of subscriptions.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -88,12 +94,17 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final SessionRegistry sessionRegistry = new SessionRegistry();
 
+	private volatile SubscriptionIndex subscriptionIndex = new SubscriptionIndex(this.pathMatcher);
+
 
 	/**
 	 * Specify the {@link PathMatcher} to use.
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		SubscriptionIndex index = new SubscriptionIndex(pathMatcher);
+		this.sessionRegistry.forEachSubscription(index::addSubscription);
+		this.subscriptionIndex = index;
 	}
 
 	/**
@@ -154,8 +165,22 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		Expression expression = getSelectorExpression(message.getHeaders());
 		Subscription subscription = new Subscription(subscriptionId, destination, isPattern, expression);
 
-		this.sessionRegistry.addSubscription(sessionId, subscription);
-		this.destinationCache.updateAfterNewSubscription(sessionId, subscription);
+		// Update session, index and cache under the session's lock, so that a concurrent
+		// unregisterAllSubscriptions does not leave the subscription in the index
+		while (true) {
+			SessionInfo info = this.sessionRegistry.getOrCreateSession(sessionId);
+			synchronized (info) {
+				if (info.isRemoved()) {
+					// Session unregistered in the meantime: register it anew
+					continue;
+				}
+				if (info.addSubscription(subscription)) {
+					this.subscriptionIndex.addSubscription(sessionId, subscription);
+					this.destinationCache.updateAfterNewSubscription(sessionId, subscription);
+				}
+				return;
+			}
+		}
 	}
 
 	@Nullable
@@ -187,9 +212,12 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
 		SessionInfo info = this.sessionRegistry.getSession(sessionId);
 		if (info != null) {
-			Subscription subscription = info.removeSubscription(subscriptionId);
-			if (subscription != null) {
-				this.destinationCache.updateAfterRemovedSubscription(sessionId, subscription);
+			synchronized (info) {
+				Subscription subscription = info.removeSubscription(subscriptionId);
+				if (subscription != null) {
+					this.subscriptionIndex.removeSubscription(sessionId, subscription);
+					this.destinationCache.updateAfterRemovedSubscription(sessionId, subscription);
+				}
 			}
 		}
 	}
@@ -198,7 +226,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionInfo info = this.sessionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
-			this.destinationCache.updateAfterRemovedSession(sessionId, info);
+			synchronized (info) {
+				info.markRemoved();
+				for (Subscription subscription : info.getSubscriptions()) {
+					this.subscriptionIndex.removeSubscription(sessionId, subscription);
+				}
+				this.destinationCache.updateAfterRemovedSession(sessionId, info);
+			}
 		}
 	}
 
@@ -223,6 +257,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		return result;
 	}
 
+	private static List<String> concat(List<String> subscriptionIds, List<String> otherSubscriptionIds) {
+		List<String> result = new ArrayList<>(subscriptionIds.size() + otherSubscriptionIds.size());
+		result.addAll(subscriptionIds);
+		result.addAll(otherSubscriptionIds);
+		return result;
+	}
+
 	private boolean evaluateExpression(@Nullable Expression expression, Message<?> message) {
 		if (expression == null) {
 			return true;
@@ -276,15 +317,10 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		private LinkedMultiValueMap<String, String> computeMatchingSubscriptions(String destination) {
 			LinkedMultiValueMap<String, String> sessionIdToSubscriptionIds = new LinkedMultiValueMap<>();
-			DefaultSubscriptionRegistry.this.sessionRegistry.forEachSubscription((sessionId, subscription) -> {
-				if (subscription.isPattern()) {
-					if (pathMatcher.match(subscription.getDestination(), destination)) {
-						addMatchedSubscriptionId(sessionIdToSubscriptionIds, sessionId, subscription.getId());
-					}
-				}
-				else if (destination.equals(subscription.getDestination())) {
-					addMatchedSubscriptionId(sessionIdToSubscriptionIds, sessionId, subscription.getId());
-				}
+			subscriptionIndex.forEachMatch(destination, (sessionId, subscriptionIds) -> {
+				// Copy lists with several elements, as callers may modify the returned lists
+				List<String> matches = (subscriptionIds.size() == 1 ? subscriptionIds : new ArrayList<>(subscriptionIds));
+				sessionIdToSubscriptionIds.merge(sessionId, matches, DefaultSubscriptionRegistry::concat);
 			});
 			return sessionIdToSubscriptionIds;
 		}
@@ -297,11 +333,12 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				if (subscriptionIds == null) {
 					return Collections.singletonList(subscriptionId);
 				}
+				else if (subscriptionIds.contains(subscriptionId)) {
+					// Already resolved from the index concurrently
+					return subscriptionIds;
+				}
 				else {
-					List<String> result = new ArrayList<>(subscriptionIds.size() + 1);
-					result.addAll(subscriptionIds);
-					result.add(subscriptionId);
-					return result;
+					return concat(subscriptionIds, Collections.singletonList(subscriptionId));
 				}
 			});
 		}
@@ -378,6 +415,182 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 	}
 
+	/**
+	 * Index of all subscriptions by destination, used to compute the matches for
+	 * destinations not present in the {@link DestinationCache}.
+	 * <p>Subscriptions to exact destinations are kept in a hash map. Subscriptions
+	 * to patterns are kept in a trie keyed by the literal leading segments of the
+	 * pattern, so that only patterns sharing a prefix with the destination are
+	 * considered, and grouped by pattern, so that each distinct pattern is matched
+	 * once regardless of how many sessions subscribe to it.
+	 * <p>Lookups are non-blocking; modifications are serialized.
+	 */
+	private static final class SubscriptionIndex {
+
+		private static final String[] NO_SEGMENTS = new String[0];
+
+		private final PathMatcher pathMatcher;
+
+		@Nullable
+		private final String pathSeparator;
+
+		// destination -> [sessionId -> subscriptionId's]
+		private final Map<String, Map<String, List<String>>> exactDestinations = new ConcurrentHashMap<>();
+
+		private final PatternNode patternRoot = new PatternNode();
+
+		private final Object monitor = new Object();
+
+		public SubscriptionIndex(PathMatcher pathMatcher) {
+			this.pathMatcher = pathMatcher;
+			this.pathSeparator = determinePathSeparator(pathMatcher);
+		}
+
+		/**
+		 * Determine the separator to split destinations into segments by, if the
+		 * given matcher is known to compare literal segments for exact equality:
+		 * i.e. a plain {@link AntPathMatcher} that is case-sensitive and does not
+		 * trim tokens. As AntPathMatcher does not expose its configuration, this
+		 * is derived from its behavior. Otherwise, all patterns are indexed at the
+		 * root of the trie.
+		 */
+		@Nullable
+		private static String determinePathSeparator(PathMatcher pathMatcher) {
+			if (pathMatcher.getClass() != AntPathMatcher.class ||
+					pathMatcher.match("a", "A") || pathMatcher.match("a", " a")) {
+				return null;
+			}
+			String combined = pathMatcher.combine("a", "b");
+			if (combined.length() < 3 || !combined.startsWith("a") || !combined.endsWith("b")) {
+				return null;
+			}
+			return combined.substring(1, combined.length() - 1);
+		}
+
+		public void addSubscription(String sessionId, Subscription subscription) {
+			String destination = subscription.getDestination();
+			synchronized (this.monitor) {
+				Map<String, Map<String, List<String>>> subscribersByDestination;
+				if (subscription.isPattern()) {
+					PatternNode node = this.patternRoot;
+					for (String segment : getLiteralSegments(destination)) {
+						node = node.children.computeIfAbsent(segment, _segment -> new PatternNode());
+					}
+					subscribersByDestination = node.patterns;
+				}
+				else {
+					subscribersByDestination = this.exactDestinations;
+				}
+				subscribersByDestination
+						.computeIfAbsent(destination, _destination -> new ConcurrentHashMap<>())
+						.merge(sessionId, Collections.singletonList(subscription.getId()), DefaultSubscriptionRegistry::concat);
+			}
+		}
+
+		public void removeSubscription(String sessionId, Subscription subscription) {
+			String destination = subscription.getDestination();
+			synchronized (this.monitor) {
+				if (!subscription.isPattern()) {
+					removeSubscriber(this.exactDestinations, destination, sessionId, subscription.getId());
+					return;
+				}
+				String[] segments = getLiteralSegments(destination);
+				PatternNode[] path = new PatternNode[segments.length + 1];
+				path[0] = this.patternRoot;
+				for (int i = 0; i < segments.length; i++) {
+					path[i + 1] = path[i].children.get(segments[i]);
+					if (path[i + 1] == null) {
+						return;
+					}
+				}
+				removeSubscriber(path[segments.length].patterns, destination, sessionId, subscription.getId());
+				// Prune nodes without any patterns left
+				for (int i = segments.length; i > 0 && path[i].isEmpty(); i--) {
+					path[i - 1].children.remove(segments[i - 1]);
+				}
+			}
+		}
+
+		private void removeSubscriber(Map<String, Map<String, List<String>>> subscribersByDestination,
+				String destination, String sessionId, String subscriptionId) {
+
+			Map<String, List<String>> subscribers = subscribersByDestination.get(destination);
+			if (subscribers == null) {
+				return;
+			}
+			subscribers.computeIfPresent(sessionId, (_sessionId, subscriptionIds) -> {
+				if (subscriptionIds.size() == 1) {
+					return (subscriptionId.equals(subscriptionIds.get(0)) ? null : subscriptionIds);
+				}
+				List<String> result = new ArrayList<>(subscriptionIds);
+				result.remove(subscriptionId);
+				return (result.size() == 1 ? Collections.singletonList(result.get(0)) : result);
+			});
+			if (subscribers.isEmpty()) {
+				subscribersByDestination.remove(destination);
+			}
+		}
+
+		/**
+		 * Invoke the given callback with the subscription ids of each session
+		 * that has subscriptions matching the given destination.
+		 */
+		public void forEachMatch(String destination, BiConsumer<String, List<String>> consumer) {
+			Map<String, List<String>> subscribers = this.exactDestinations.get(destination);
+			if (subscribers != null) {
+				subscribers.forEach(consumer);
+			}
+			String[] segments = (this.pathSeparator != null ?
+					StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true) : NO_SEGMENTS);
+			PatternNode node = this.patternRoot;
+			int depth = 0;
+			while (node != null) {
+				node.patterns.forEach((pattern, patternSubscribers) -> {
+					if (this.pathMatcher.match(pattern, destination)) {
+						patternSubscribers.forEach(consumer);
+					}
+				});
+				node = (depth < segments.length ? node.children.get(segments[depth++]) : null);
+			}
+		}
+
+		/**
+		 * Return the leading segments of the given pattern that contain no wildcards
+		 * or URI variables, and therefore need to be matched exactly by a destination.
+		 */
+		private String[] getLiteralSegments(String pattern) {
+			if (this.pathSeparator == null) {
+				return NO_SEGMENTS;
+			}
+			String[] segments = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator, false, true);
+			int count = 0;
+			while (count < segments.length && isLiteral(segments[count])) {
+				count++;
+			}
+			return (count < segments.length ? Arrays.copyOf(segments, count) : segments);
+		}
+
+		private static boolean isLiteral(String segment) {
+			return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+		}
+	}
+
+	/**
+	 * Node in the trie of pattern subscriptions.
+	 */
+	private static final class PatternNode {
+
+		// literal segment -> child node
+		private final Map<String, PatternNode> children = new ConcurrentHashMap<>();
+
+		// pattern -> [sessionId -> subscriptionId's]
+		private final Map<String, Map<String, List<String>>> patterns = new ConcurrentHashMap<>();
+
+		public boolean isEmpty() {
+			return (this.children.isEmpty() && this.patterns.isEmpty());
+		}
+	}
+
 	/**
 	 * Registry for all session and their subscriptions.
 	 */
@@ -395,9 +608,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				info.getSubscriptions().forEach(subscription -> consumer.accept(sessionId, subscription)));
 		}
 
-		public void addSubscription(String sessionId, Subscription subscription) {
-			SessionInfo info = this.sessions.computeIfAbsent(sessionId, _sessionId -> new SessionInfo());
-			info.addSubscription(subscription);
+		public SessionInfo getOrCreateSession(String sessionId) {
+			return this.sessions.computeIfAbsent(sessionId, _sessionId -> new SessionInfo());
 		}
 
 		@Nullable
@@ -407,13 +619,17 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 	/**
-	 * Container for the subscriptions of a session.
+	 * Container for the subscriptions of a session. Modifications are made while
+	 * holding the lock of the instance, along with the corresponding updates
+	 * of the subscription index and the destination cache.
 	 */
 	private static final class SessionInfo {
 
 		// subscriptionId -> Subscription
 		private final Map<String, Subscription> subscriptionMap = new ConcurrentHashMap<>();
 
+		private boolean removed;
+
 		public Collection<Subscription> getSubscriptions() {
 			return this.subscriptionMap.values();
 		}
@@ -423,14 +639,22 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.subscriptionMap.get(subscriptionId);
 		}
 
-		public void addSubscription(Subscription subscription) {
-			this.subscriptionMap.putIfAbsent(subscription.getId(), subscription);
+		public boolean addSubscription(Subscription subscription) {
+			return (this.subscriptionMap.putIfAbsent(subscription.getId(), subscription) == null);
 		}
 
 		@Nullable
 		public Subscription removeSubscription(String subscriptionId) {
 			return this.subscriptionMap.remove(subscriptionId);
 		}
+
+		public boolean isRemoved() {
+			return this.removed;
+		}
+
+		public void markRemoved() {
+			this.removed = true;
+		}
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,16 @@ package org.springframework.messaging.simp.broker;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -34,7 +41,9 @@ import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderInitializer;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
 
@@ -43,6 +52,11 @@ import org.springframework.util.PathMatcher;
  * {@link SimpMessageType}, keeps track of subscriptions with the help of a
  * {@link SubscriptionRegistry} and sends messages to subscribers.
  *
+ * <p>By default, messages are sent to all subscribers on the thread that
+ * handles the message. Alternatively, sessions can be partitioned across a
+ * number of {@link #setDeliveryShards delivery shards} in order to spread the
+ * fan-out of messages with many subscribers over multiple cores.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0
@@ -70,6 +84,12 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	private int deliveryShards;
+
+	private int deliveryShardQueueCapacity = 10000;
+
+	private RejectedExecutionHandler deliveryShardRejectedExecutionHandler = new ThreadPoolExecutor.AbortPolicy();
+
 
 	private SubscriptionRegistry subscriptionRegistry;
 
@@ -78,6 +98,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private ScheduledFuture<?> heartbeatFuture;
 
+	@Nullable
+	private volatile ExecutorService[] deliveryExecutors;
+
 
 	/**
 	 * Create a SimpleBrokerMessageHandler instance with the given message channels
@@ -249,9 +272,95 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure the number of delivery shards to partition sessions across.
+	 * Each shard is a single thread that owns the sessions assigned to it and
+	 * sends messages to their subscriptions one at a time, in the order in which
+	 * messages were broadcast, while different shards serve their sessions in
+	 * parallel. The thread that handles a message only looks up the subscriptions
+	 * and hands them over to the shards.
+	 * <p>Note that when the client outbound channel is backed by a thread pool,
+	 * {@link #setPreservePublishOrder preservePublishOrder} is still required for
+	 * messages to reach each client in the same order.
+	 * <p>Connect, disconnect and heartbeat messages for a session are sent
+	 * through its shard as well, preserving their order relative to messages
+	 * for its subscriptions.
+	 * <p>By default this is set to 0, in which case messages are sent to all
+	 * subscribers on the thread that handles the message.
+	 * @since 6.0
+	 * @see #setDeliveryShardQueueCapacity
+	 * @see #setDeliveryShardRejectedExecutionHandler
+	 */
+	public void setDeliveryShards(int deliveryShards) {
+		Assert.isTrue(deliveryShards >= 0, "'deliveryShards' must not be negative");
+		this.deliveryShards = deliveryShards;
+	}
+
+	/**
+	 * Return the configured number of delivery shards.
+	 * @since 6.0
+	 */
+	public int getDeliveryShards() {
+		return this.deliveryShards;
+	}
+
+	/**
+	 * Configure the maximum number of pending deliveries per delivery shard.
+	 * Once a shard is that far behind, further deliveries are handed to the
+	 * {@link #setDeliveryShardRejectedExecutionHandler rejection policy}.
+	 * <p>By default this is set to 10000.
+	 * @since 6.0
+	 * @see #setDeliveryShards
+	 */
+	public void setDeliveryShardQueueCapacity(int deliveryShardQueueCapacity) {
+		Assert.isTrue(deliveryShardQueueCapacity > 0, "'deliveryShardQueueCapacity' must be positive");
+		this.deliveryShardQueueCapacity = deliveryShardQueueCapacity;
+	}
+
+	/**
+	 * Return the configured maximum number of pending deliveries per delivery shard.
+	 * @since 6.0
+	 */
+	public int getDeliveryShardQueueCapacity() {
+		return this.deliveryShardQueueCapacity;
+	}
+
+	/**
+	 * Configure the policy for deliveries to a shard whose queue is full.
+	 * <p>By default, such deliveries are dropped and logged as errors. A
+	 * {@link ThreadPoolExecutor.CallerRunsPolicy} applies backpressure instead,
+	 * sending on the thread that handles the message, at the expense of
+	 * the ordering of messages for the sessions of that shard.
+	 * @since 6.0
+	 * @see #setDeliveryShardQueueCapacity
+	 */
+	public void setDeliveryShardRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+		Assert.notNull(rejectedExecutionHandler, "RejectedExecutionHandler must not be null");
+		this.deliveryShardRejectedExecutionHandler = rejectedExecutionHandler;
+	}
+
+	/**
+	 * Return the configured policy for deliveries to a shard whose queue is full.
+	 * @since 6.0
+	 */
+	public RejectedExecutionHandler getDeliveryShardRejectedExecutionHandler() {
+		return this.deliveryShardRejectedExecutionHandler;
+	}
+
 
 	@Override
 	public void startInternal() {
+		if (this.deliveryShards > 0 && this.deliveryExecutors == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("simpBrokerDelivery-");
+			threadFactory.setDaemon(true);
+			ExecutorService[] executors = new ExecutorService[this.deliveryShards];
+			for (int i = 0; i < executors.length; i++) {
+				executors[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<>(this.deliveryShardQueueCapacity), threadFactory,
+						this.deliveryShardRejectedExecutionHandler);
+			}
+			this.deliveryExecutors = executors;
+		}
 		publishBrokerAvailableEvent();
 		if (this.taskScheduler != null) {
 			long interval = initHeartbeatTaskDelay();
@@ -284,6 +393,13 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (this.heartbeatFuture != null) {
 			this.heartbeatFuture.cancel(true);
 		}
+		ExecutorService[] executors = this.deliveryExecutors;
+		if (executors != null) {
+			this.deliveryExecutors = null;
+			for (ExecutorService executor : executors) {
+				executor.shutdown();
+			}
+		}
 	}
 
 	@Override
@@ -320,7 +436,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 				connectAck.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, message);
 				connectAck.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, heartbeatOut);
 				Message<byte[]> messageOut = MessageBuilder.createMessage(EMPTY_PAYLOAD, connectAck.getMessageHeaders());
-				getClientOutboundChannel().send(messageOut);
+				sendToSession(sessionId, getClientOutboundChannel(), messageOut);
 			}
 		}
 		else if (SimpMessageType.DISCONNECT.equals(messageType)) {
@@ -376,7 +492,49 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		}
 		initHeaders(accessor);
 		Message<byte[]> message = MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
-		getClientOutboundChannel().send(message);
+		sendToSession(sessionId, getClientOutboundChannel(), message);
+	}
+
+	/**
+	 * Send a message to a single session, through the delivery shard of the
+	 * session if configured, so that it is ordered with messages to subscribers.
+	 */
+	private void sendToSession(String sessionId, MessageChannel channel, Message<?> message) {
+		ExecutorService[] executors = this.deliveryExecutors;
+		if (executors == null) {
+			channel.send(message);
+			return;
+		}
+		deliver(executors[shardFor(sessionId, executors.length)], () -> {
+			try {
+				channel.send(message);
+			}
+			catch (Throwable ex) {
+				if (logger.isErrorEnabled()) {
+					logger.error("Failed to send " + message, ex);
+				}
+			}
+		}, message);
+	}
+
+	private void deliver(ExecutorService executor, Runnable delivery, Message<?> message) {
+		try {
+			executor.execute(delivery);
+		}
+		catch (RejectedExecutionException ex) {
+			if (executor.isShutdown()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Broker stopped, not delivering " + message);
+				}
+			}
+			else if (logger.isErrorEnabled()) {
+				logger.error("Delivery shard queue full, dropping " + message);
+			}
+		}
+	}
+
+	private static int shardFor(String sessionId, int shards) {
+		return (sessionId.hashCode() & Integer.MAX_VALUE) % shards;
 	}
 
 	protected void sendMessageToSubscribers(@Nullable String destination, Message<?> message) {
@@ -384,8 +542,42 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (!subscriptions.isEmpty() && logger.isDebugEnabled()) {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
+		ExecutorService[] executors = this.deliveryExecutors;
+		if (executors == null || subscriptions.isEmpty()) {
+			sendMessageToSessions(subscriptions, message);
+			return;
+		}
+		MultiValueMap<String, String>[] partitions = partitionByShard(subscriptions, executors.length);
+		for (int i = 0; i < partitions.length; i++) {
+			MultiValueMap<String, String> partition = partitions[i];
+			if (partition != null) {
+				deliver(executors[i], () -> sendMessageToSessions(partition, message), message);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private MultiValueMap<String, String>[] partitionByShard(MultiValueMap<String, String> subscriptions, int shards) {
+		MultiValueMap<String, String>[] partitions = new MultiValueMap[shards];
+		subscriptions.forEach((sessionId, subscriptionIds) -> {
+			int shard = shardFor(sessionId, shards);
+			MultiValueMap<String, String> partition = partitions[shard];
+			if (partition == null) {
+				partition = new LinkedMultiValueMap<>();
+				partitions[shard] = partition;
+			}
+			partition.put(sessionId, subscriptionIds);
+		});
+		return partitions;
+	}
+
+	private void sendMessageToSessions(Map<String, List<String>> subscriptions, Message<?> message) {
 		long now = System.currentTimeMillis();
 		subscriptions.forEach((sessionId, subscriptionIds) -> {
+			SessionInfo info = this.sessions.get(sessionId);
+			if (info == null) {
+				return;
+			}
 			for (String subscriptionId : subscriptionIds) {
 				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				initHeaders(headerAccessor);
@@ -395,20 +587,17 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 				headerAccessor.setLeaveMutable(true);
 				Object payload = message.getPayload();
 				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
-				SessionInfo info = this.sessions.get(sessionId);
-				if (info != null) {
-					try {
-						info.getClientOutboundChannel().send(reply);
-					}
-					catch (Throwable ex) {
-						if (logger.isErrorEnabled()) {
-							logger.error("Failed to send " + message, ex);
-						}
-					}
-					finally {
-						info.setLastWriteTime(now);
+				try {
+					info.getClientOutboundChannel().send(reply);
+				}
+				catch (Throwable ex) {
+					if (logger.isErrorEnabled()) {
+						logger.error("Failed to send " + message, ex);
 					}
 				}
+				finally {
+					info.setLastWriteTime(now);
+				}
 			}
 		});
 	}
@@ -517,7 +706,8 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 					initHeaders(accessor);
 					accessor.setLeaveMutable(true);
 					MessageHeaders headers = accessor.getMessageHeaders();
-					info.getClientOutboundChannel().send(MessageBuilder.createMessage(EMPTY_PAYLOAD, headers));
+					sendToSession(info.getSessionId(), info.getClientOutboundChannel(),
+							MessageBuilder.createMessage(EMPTY_PAYLOAD, headers));
 				}
 			}
 		}
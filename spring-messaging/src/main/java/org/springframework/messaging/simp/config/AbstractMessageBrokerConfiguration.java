@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,6 +43,7 @@ import org.springframework.messaging.converter.StringMessageConverter;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
 import org.springframework.messaging.simp.SimpLogging;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
 import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
@@ -156,6 +157,10 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
+		if (reg.hasSessionAffinity()) {
+			channel.setDispatchWorkers(reg.getSessionAffinityWorkers());
+			channel.setAffinityHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER);
+		}
 		return channel;
 	}
 
@@ -192,6 +197,10 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
+		if (reg.hasSessionAffinity()) {
+			channel.setDispatchWorkers(reg.getSessionAffinityWorkers());
+			channel.setAffinityHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER);
+		}
 		return channel;
 	}
 
@@ -418,9 +427,11 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 			return null;
 		}
 		Assert.isInstanceOf(MultiServerUserRegistry.class, userRegistry, "MultiServerUserRegistry required");
-		return new UserRegistryMessageHandler((MultiServerUserRegistry) userRegistry,
-				brokerMessagingTemplate, brokerRegistry.getUserRegistryBroadcast(),
-				messageBrokerTaskScheduler);
+		UserRegistryMessageHandler handler = new UserRegistryMessageHandler(
+				(MultiServerUserRegistry) userRegistry, brokerMessagingTemplate,
+				brokerRegistry.getUserRegistryBroadcast(), messageBrokerTaskScheduler);
+		handler.setIncrementalBroadcast(brokerRegistry.isUserRegistryIncrementalBroadcast());
+		return handler;
 	}
 
 	// Expose alias for 4.1 compatibility
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,8 @@ public class ChannelRegistration {
 
 	private final List<ChannelInterceptor> interceptors = new ArrayList<>();
 
+	private int sessionAffinityWorkers;
+
 
 	/**
 	 * Configure the thread pool backing this message channel.
@@ -70,6 +72,26 @@ public class ChannelRegistration {
 	}
 
 
+	/**
+	 * Dispatch messages through the given number of workers, each of which
+	 * handles the messages of the sessions assigned to it in batches and in
+	 * the order they were sent. This reduces the number of tasks submitted to
+	 * the thread pool, and for the "clientOutboundChannel" it allows
+	 * {@link MessageBrokerRegistry#setPreservePublishOrder preservePublishOrder}
+	 * to be supported without a separate queue per session.
+	 * <p>By default this is not enabled, and every message is submitted to
+	 * the thread pool once per subscriber.
+	 * @param workers the number of workers, typically a small multiple of the
+	 * thread pool size
+	 * @since 6.0
+	 * @see org.springframework.messaging.support.ExecutorSubscribableChannel#setDispatchWorkers
+	 */
+	public ChannelRegistration sessionAffinity(int workers) {
+		this.sessionAffinityWorkers = workers;
+		return this;
+	}
+
+
 	protected boolean hasTaskExecutor() {
 		return (this.registration != null);
 	}
@@ -82,4 +104,12 @@ public class ChannelRegistration {
 		return this.interceptors;
 	}
 
+	protected boolean hasSessionAffinity() {
+		return (this.sessionAffinityWorkers > 0);
+	}
+
+	protected int getSessionAffinityWorkers() {
+		return this.sessionAffinityWorkers;
+	}
+
 }
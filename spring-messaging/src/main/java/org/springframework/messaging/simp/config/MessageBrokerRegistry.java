@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -123,6 +123,11 @@ public class MessageBrokerRegistry {
 				this.brokerRelayRegistration.getUserRegistryBroadcast() : null);
 	}
 
+	protected boolean isUserRegistryIncrementalBroadcast() {
+		return (this.brokerRelayRegistration != null &&
+				this.brokerRelayRegistration.isUserRegistryIncrementalBroadcast());
+	}
+
 	/**
 	 * Configure one or more prefixes to filter destinations targeting application
 	 * annotated methods. For example destinations prefixed with "/app" may be
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,8 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private String selectorHeaderName = "selector";
 
+	private int deliveryShards;
+
 
 	/**
 	 * Create a new {@code SimpleBrokerRegistration}.
@@ -97,6 +99,18 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 		this.selectorHeaderName = selectorHeaderName;
 	}
 
+	/**
+	 * Configure the number of single-threaded delivery shards to partition
+	 * sessions across for sending messages to subscribers.
+	 * <p>By default this is 0, i.e. messages are sent on the handling thread.
+	 * @since 6.0
+	 * @see SimpleBrokerMessageHandler#setDeliveryShards
+	 */
+	public SimpleBrokerRegistration setDeliveryShards(int deliveryShards) {
+		this.deliveryShards = deliveryShards;
+		return this;
+	}
+
 
 	@Override
 	protected SimpleBrokerMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
@@ -109,6 +123,7 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 			handler.setHeartbeatValue(this.heartbeat);
 		}
 		handler.setSelectorHeaderName(this.selectorHeaderName);
+		handler.setDeliveryShards(this.deliveryShards);
 		return handler;
 	}
 
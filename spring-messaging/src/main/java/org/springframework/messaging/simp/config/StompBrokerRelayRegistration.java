@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,12 +61,16 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 
 	private boolean autoStartup = true;
 
+	private int multiplexedConnectionCount;
+
 	@Nullable
 	private String userDestinationBroadcast;
 
 	@Nullable
 	private String userRegistryBroadcast;
 
+	private boolean userRegistryIncrementalBroadcast;
+
 
 	/**
 	 * Create a new {@code StompBrokerRelayRegistration}.
@@ -211,6 +215,19 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		return this;
 	}
 
+	/**
+	 * Set the number of shared TCP connections to multiplex client sessions
+	 * over, instead of opening a TCP connection to the broker per client session.
+	 * <p>By default this is set to 0, i.e. one TCP connection per client session.
+	 * @param connectionCount the number of shared connections
+	 * @since 6.0
+	 * @see StompBrokerRelayMessageHandler#setMultiplexedConnectionCount(int)
+	 */
+	public StompBrokerRelayRegistration setMultiplexedConnectionCount(int connectionCount) {
+		this.multiplexedConnectionCount = connectionCount;
+		return this;
+	}
+
 	/**
 	 * Configure whether the {@link StompBrokerRelayMessageHandler} should start
 	 * automatically when the Spring ApplicationContext is refreshed.
@@ -259,6 +276,24 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		return this.userRegistryBroadcast;
 	}
 
+	/**
+	 * Whether user registry broadcasts should contain only the changes since
+	 * the previous broadcast, in a compact binary encoding, with a periodic
+	 * full update, rather than a full snapshot every time.
+	 * <p>By default this is set to {@code false}.
+	 * @param incrementalBroadcast whether to broadcast incremental updates
+	 * @since 6.0
+	 * @see org.springframework.messaging.simp.user.UserRegistryMessageHandler#setIncrementalBroadcast
+	 */
+	public StompBrokerRelayRegistration setUserRegistryIncrementalBroadcast(boolean incrementalBroadcast) {
+		this.userRegistryIncrementalBroadcast = incrementalBroadcast;
+		return this;
+	}
+
+	protected boolean isUserRegistryIncrementalBroadcast() {
+		return this.userRegistryIncrementalBroadcast;
+	}
+
 
 	@Override
 	protected StompBrokerRelayMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
@@ -291,6 +326,7 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 			handler.setTaskScheduler(this.taskScheduler);
 		}
 
+		handler.setMultiplexedConnectionCount(this.multiplexedConnectionCount);
 		handler.setAutoStartup(this.autoStartup);
 
 		return handler;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,6 @@ package org.springframework.messaging.simp.stomp;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -42,6 +40,10 @@ import org.springframework.util.MultiValueMap;
  * be used any more as its internal state is not guaranteed to be consistent.
  * It is expected that the underlying session is closed at that point.
  *
+ * <p>Incomplete content is accumulated in a single buffer, and decoding is
+ * attempted again only once new content contains the null octet that
+ * terminates a frame, and, if known, the "content-length" has been reached.
+ *
  * @author Rossen Stoyanchev
  * @since 4.0.3
  * @see StompDecoder
@@ -52,7 +54,17 @@ public class BufferingStompDecoder {
 
 	private final int bufferSizeLimit;
 
-	private final Queue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+	/**
+	 * Incomplete content, ready to be read, or {@code null} if none.
+	 */
+	@Nullable
+	private ByteBuffer buffer;
+
+	/**
+	 * Whether {@link #buffer} was allocated here, and may therefore be
+	 * appended to, as opposed to a buffer that was passed in.
+	 */
+	private boolean bufferOwned;
 
 	@Nullable
 	private volatile Integer expectedContentLength;
@@ -93,59 +105,87 @@ public class BufferingStompDecoder {
 	 * value is used to determine how much more data is needed before a new
 	 * attempt to decode is made.
 	 * <p>If there was not enough data to parse the "content-length", or if there
-	 * is "content-length" header, every subsequent call to decode attempts to
-	 * parse again with all available data. Therefore the presence of a "content-length"
-	 * header helps to optimize the decoding of large messages.
+	 * is no "content-length" header, every subsequent call to decode with data
+	 * that contains a null octet attempts to parse again with all available data.
+	 * Therefore the presence of a "content-length" header helps to optimize the
+	 * decoding of large messages.
 	 * @param newBuffer a buffer containing new data to decode
 	 * @return decoded messages or an empty list
 	 * @throws StompConversionException raised in case of decoding issues
 	 */
 	public List<Message<byte[]>> decode(ByteBuffer newBuffer) {
-		this.chunks.add(newBuffer);
-		checkBufferLimits();
-
-		Integer contentLength = this.expectedContentLength;
-		if (contentLength != null && getBufferSize() < contentLength) {
-			return Collections.emptyList();
+		ByteBuffer bufferToDecode;
+		if (this.buffer == null) {
+			bufferToDecode = newBuffer;
+			checkBufferLimits(bufferToDecode.remaining());
+		}
+		else {
+			boolean frameEnd = containsNullOctet(newBuffer);
+			bufferToDecode = append(this.buffer, newBuffer);
+			checkBufferLimits(bufferToDecode.remaining());
+			Integer contentLength = this.expectedContentLength;
+			if (!frameEnd || (contentLength != null && bufferToDecode.remaining() < contentLength)) {
+				// Incomplete content can't have turned into a complete frame
+				return Collections.emptyList();
+			}
 		}
 
-		ByteBuffer bufferToDecode = assembleChunksAndReset();
+		this.buffer = null;
+		this.expectedContentLength = null;
 		MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
 		List<Message<byte[]>> messages = this.stompDecoder.decode(bufferToDecode, headers);
 
 		if (bufferToDecode.hasRemaining()) {
-			this.chunks.add(bufferToDecode);
+			if (bufferToDecode != newBuffer && this.bufferOwned) {
+				bufferToDecode.compact().flip();
+			}
+			else {
+				this.bufferOwned = false;
+			}
+			this.buffer = bufferToDecode;
 			this.expectedContentLength = StompHeaderAccessor.getContentLength(headers);
 		}
 
 		return messages;
 	}
 
-	private ByteBuffer assembleChunksAndReset() {
-		ByteBuffer result;
-		if (this.chunks.size() == 1) {
-			result = this.chunks.remove();
-		}
-		else {
-			result = ByteBuffer.allocate(getBufferSize());
-			for (ByteBuffer partial : this.chunks) {
-				result.put(partial);
+	private static boolean containsNullOctet(ByteBuffer byteBuffer) {
+		for (int i = byteBuffer.position(); i < byteBuffer.limit(); i++) {
+			if (byteBuffer.get(i) == 0) {
+				return true;
 			}
-			result.flip();
 		}
-		this.chunks.clear();
-		this.expectedContentLength = null;
+		return false;
+	}
+
+	/**
+	 * Append the new content to the incomplete content, in place if possible.
+	 * @return the buffer holding all content, ready to be read
+	 */
+	private ByteBuffer append(ByteBuffer buffer, ByteBuffer newBuffer) {
+		int size = buffer.remaining() + newBuffer.remaining();
+		if (this.bufferOwned && buffer.capacity() - buffer.limit() >= newBuffer.remaining()) {
+			int position = buffer.position();
+			buffer.position(buffer.limit()).limit(buffer.limit() + newBuffer.remaining());
+			buffer.put(newBuffer);
+			buffer.position(position);
+			return buffer;
+		}
+		ByteBuffer result = ByteBuffer.allocate(Math.max(size, Math.min(size * 2, this.bufferSizeLimit)));
+		result.put(buffer).put(newBuffer).flip();
+		this.buffer = result;
+		this.bufferOwned = true;
 		return result;
 	}
 
-	private void checkBufferLimits() {
+	private void checkBufferLimits(int bufferSize) {
 		Integer contentLength = this.expectedContentLength;
 		if (contentLength != null && contentLength > this.bufferSizeLimit) {
 			throw new StompConversionException(
 					"STOMP 'content-length' header value " + this.expectedContentLength +
 					"  exceeds configured buffer size limit " + this.bufferSizeLimit);
 		}
-		if (getBufferSize() > this.bufferSizeLimit) {
+		if (bufferSize > this.bufferSizeLimit) {
 			throw new StompConversionException("The configured STOMP buffer size limit of " +
 					this.bufferSizeLimit + " bytes has been exceeded");
 		}
@@ -155,11 +195,8 @@ public class BufferingStompDecoder {
 	 * Calculate the current buffer size.
 	 */
 	public int getBufferSize() {
-		int size = 0;
-		for (ByteBuffer buffer : this.chunks) {
-			size = size + buffer.remaining();
-		}
-		return size;
+		ByteBuffer buffer = this.buffer;
+		return (buffer != null ? buffer.remaining() : 0);
 	}
 
 	/**
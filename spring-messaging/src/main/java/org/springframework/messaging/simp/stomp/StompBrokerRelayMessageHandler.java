@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,19 @@
 package org.springframework.messaging.simp.stomp;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -75,6 +81,9 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * <li>{@link #setSystemHeartbeatReceiveInterval}</li>
  * </ul>
  *
+ * <p>Alternatively, client sessions can be multiplexed over a small, fixed number
+ * of shared TCP connections, see {@link #setMultiplexedConnectionCount(int)}.
+ *
  * @author Rossen Stoyanchev
  * @author Andy Wilkinson
  * @since 4.0
@@ -86,6 +95,14 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	 */
 	public static final String SYSTEM_SESSION_ID = "_system_";
 
+	/**
+	 * The prefix for the session IDs of shared, multiplexed connections.
+	 * @since 6.0
+	 */
+	public static final String MULTIPLEXED_SESSION_ID_PREFIX = "_multiplexed_";
+
+	private static final String TRANSACTION_HEADER = "transaction";
+
 	/** STOMP recommended error of margin for receiving heartbeats. */
 	private static final long HEARTBEAT_MULTIPLIER = 3;
 
@@ -145,6 +162,10 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	@Nullable
 	private TaskScheduler taskScheduler;
 
+	private int multiplexedConnectionCount;
+
+	private final List<MultiplexedConnectionHandler> multiplexedConnections = new CopyOnWriteArrayList<>();
+
 
 	/**
 	 * Create a StompBrokerRelayMessageHandler instance with the given message channels
@@ -406,7 +427,8 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	 * Return the current count of TCP connection to the broker.
 	 */
 	public int getConnectionCount() {
-		return this.connectionHandlers.size();
+		return (this.multiplexedConnections.isEmpty() ?
+				this.connectionHandlers.size() : this.multiplexedConnections.size() + 1);
 	}
 
 	/**
@@ -425,6 +447,52 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		return this.taskScheduler;
 	}
 
+	/**
+	 * Configure the number of shared TCP connections over which to multiplex
+	 * client sessions, instead of opening a TCP connection per client session.
+	 * <p>In this mode, the CONNECT frame of a client is not forwarded. Instead,
+	 * the session is assigned to the shared connection with the fewest sessions,
+	 * all of which are connected with the {@link #setClientLogin client login}
+	 * and {@link #setClientPasscode passcode}, and the client is sent a CONNECTED
+	 * frame once that connection is ready. Subscription, receipt, and
+	 * transaction ids are remapped to be unique on the shared connection, and
+	 * broker messages are routed back to sessions by subscription id. A
+	 * DISCONNECT unsubscribes the session from the broker and aborts its open
+	 * transactions rather than closing the connection, and if a shared
+	 * connection is lost, all its sessions are sent an ERROR frame. Heartbeats
+	 * are only exchanged on the shared connections, with the "system" heartbeat
+	 * settings, and clients are not offered heartbeats.
+	 * <p>Sessions on a shared connection are only partially isolated from each
+	 * other. Client frames the broker would reject, such as a SEND without a
+	 * destination, or an ACK or COMMIT for an unknown subscription or
+	 * transaction, are rejected by the relay with an ERROR frame to the
+	 * offending session only. All other client frames are forwarded with a
+	 * receipt request, at the cost of a RECEIPT frame per client frame, so that
+	 * an ERROR frame from the broker can be reported to the session that caused
+	 * it. However, the broker closes the connection after an ERROR frame, and
+	 * so all other sessions on the shared connection are also sent an ERROR
+	 * frame and must reconnect. The "subscription" header of STOMP 1.1 ACK and
+	 * NACK frames is remapped, while STOMP 1.2 ack ids are forwarded as is.
+	 * <p>When the default {@link ReactorNettyTcpClient} is used, it is also set
+	 * to {@link ReactorNettyTcpClient#setPipelinedWrites pipeline writes}.
+	 * <p>By default this is set to 0, i.e. one TCP connection per client session.
+	 * @param connectionCount the number of shared connections
+	 * @since 6.0
+	 */
+	public void setMultiplexedConnectionCount(int connectionCount) {
+		Assert.isTrue(connectionCount >= 0, "Multiplexed connection count must not be negative");
+		this.multiplexedConnectionCount = connectionCount;
+	}
+
+	/**
+	 * Return the configured number of shared TCP connections to multiplex
+	 * client sessions over.
+	 * @since 6.0
+	 */
+	public int getMultiplexedConnectionCount() {
+		return this.multiplexedConnectionCount;
+	}
+
 
 	@Override
 	protected void startInternal() {
@@ -436,29 +504,43 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			logger.info("Starting \"system\" session, " + toString());
 		}
 
+		StompHeaderAccessor accessor = createConnectHeaders(SYSTEM_SESSION_ID, this.systemLogin, this.systemPasscode);
+		SystemSessionConnectionHandler handler = new SystemSessionConnectionHandler(accessor);
+		this.connectionHandlers.put(handler.getSessionId(), handler);
+
+		this.stats.incrementConnectCount();
+		this.tcpClient.connect(handler, new FixedIntervalReconnectStrategy(5000));
+
+		this.multiplexedConnections.clear();
+		for (int i = 0; i < this.multiplexedConnectionCount; i++) {
+			String sessionId = MULTIPLEXED_SESSION_ID_PREFIX + i;
+			accessor = createConnectHeaders(sessionId, this.clientLogin, this.clientPasscode);
+			MultiplexedConnectionHandler connectionHandler = new MultiplexedConnectionHandler(sessionId, accessor);
+			this.multiplexedConnections.add(connectionHandler);
+			this.stats.incrementConnectCount();
+			this.tcpClient.connect(connectionHandler, new FixedIntervalReconnectStrategy(5000));
+		}
+
+		if (this.taskScheduler != null) {
+			this.taskScheduler.scheduleWithFixedDelay(new ClientSendMessageCountTask(), 5000);
+		}
+	}
+
+	private StompHeaderAccessor createConnectHeaders(String sessionId, String login, String passcode) {
 		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
 		accessor.setAcceptVersion("1.1,1.2");
-		accessor.setLogin(this.systemLogin);
-		accessor.setPasscode(this.systemPasscode);
+		accessor.setLogin(login);
+		accessor.setPasscode(passcode);
 		accessor.setHeartbeat(this.systemHeartbeatSendInterval, this.systemHeartbeatReceiveInterval);
 		String virtualHost = getVirtualHost();
 		if (virtualHost != null) {
 			accessor.setHost(virtualHost);
 		}
-		accessor.setSessionId(SYSTEM_SESSION_ID);
+		accessor.setSessionId(sessionId);
 		if (logger.isDebugEnabled()) {
 			logger.debug("Forwarding " + accessor.getShortLogMessage(EMPTY_PAYLOAD));
 		}
-
-		SystemSessionConnectionHandler handler = new SystemSessionConnectionHandler(accessor);
-		this.connectionHandlers.put(handler.getSessionId(), handler);
-
-		this.stats.incrementConnectCount();
-		this.tcpClient.connect(handler, new FixedIntervalReconnectStrategy(5000));
-
-		if (this.taskScheduler != null) {
-			this.taskScheduler.scheduleWithFixedDelay(new ClientSendMessageCountTask(), 5000);
-		}
+		return accessor;
 	}
 
 	private ReactorNettyTcpClient<byte[]> initTcpClient() {
@@ -469,6 +551,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		ReactorNettyCodec<byte[]> codec = new StompReactorNettyCodec(decoder);
 		ReactorNettyTcpClient<byte[]> client = new ReactorNettyTcpClient<>(this.relayHost, this.relayPort, codec);
 		client.setLogger(SimpLogging.forLog(client.getLogger()));
+		client.setPipelinedWrites(this.multiplexedConnectionCount > 0);
 		return client;
 	}
 
@@ -561,6 +644,14 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			if (getVirtualHost() != null) {
 				stompAccessor.setHost(getVirtualHost());
 			}
+			if (!this.multiplexedConnections.isEmpty()) {
+				MultiplexedConnectionHandler connection = selectMultiplexedConnection();
+				MultiplexedSessionHandler handler = new MultiplexedSessionHandler(sessionId, stompAccessor, connection);
+				this.connectionHandlers.put(sessionId, handler);
+				this.stats.incrementConnectCount();
+				connection.register(handler);
+				return;
+			}
 			RelayConnectionHandler handler = new RelayConnectionHandler(sessionId, stompAccessor);
 			this.connectionHandlers.put(sessionId, handler);
 			this.stats.incrementConnectCount();
@@ -600,6 +691,25 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		}
 	}
 
+	/**
+	 * Select the shared connection with the fewest sessions, preferring those
+	 * that are connected, so sessions are not assigned to a connection that is
+	 * down while another one could serve them.
+	 */
+	private MultiplexedConnectionHandler selectMultiplexedConnection() {
+		MultiplexedConnectionHandler selected = this.multiplexedConnections.get(0);
+		boolean selectedConnected = selected.isStompConnected();
+		for (MultiplexedConnectionHandler connection : this.multiplexedConnections) {
+			boolean connected = connection.isStompConnected();
+			if ((connected && !selectedConnected) || (connected == selectedConnected &&
+					connection.getSessionCount() < selected.getSessionCount())) {
+				selected = connection;
+				selectedConnected = connected;
+			}
+		}
+		return selected;
+	}
+
 	@Override
 	public String toString() {
 		return "StompBrokerRelay[" + getTcpClientInfo() + "]";
@@ -715,7 +825,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			}
 		}
 
-		private void sendStompErrorFrameToClient(String errorText) {
+		void sendStompErrorFrameToClient(String errorText) {
 			if (this.isRemoteClientSession) {
 				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
 				if (getHeaderInitializer() != null) {
@@ -783,6 +893,39 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			}
 		}
 
+		/**
+		 * Set up heartbeats on the TCP connection itself, as negotiated through
+		 * the CONNECT and the given CONNECTED headers, for connections that are
+		 * not tied to a client session.
+		 */
+		protected void initTcpConnectionHeartbeats(StompHeaderAccessor connectedHeaders) {
+			TcpConnection<byte[]> con = getTcpConnection();
+			Assert.state(con != null, "No TcpConnection available");
+
+			long clientSendInterval = getConnectHeaders().getHeartbeat()[0];
+			long clientReceiveInterval = getConnectHeaders().getHeartbeat()[1];
+			long serverSendInterval = connectedHeaders.getHeartbeat()[0];
+			long serverReceiveInterval = connectedHeaders.getHeartbeat()[1];
+
+			if (clientSendInterval > 0 && serverReceiveInterval > 0) {
+				long interval = Math.max(clientSendInterval, serverReceiveInterval);
+				con.onWriteInactivity(() ->
+						con.send(HEARTBEAT_MESSAGE).addCallback(
+								result -> {},
+								ex -> handleTcpConnectionFailure(
+										"Failed to forward heartbeat: " + ex.getMessage(), ex)), interval);
+			}
+			if (clientReceiveInterval > 0 && serverSendInterval > 0) {
+				final long interval = Math.max(clientReceiveInterval, serverSendInterval) * HEARTBEAT_MULTIPLIER;
+				con.onReadInactivity(
+						() -> handleTcpConnectionFailure("No messages received in " + interval + " ms.", null), interval);
+			}
+		}
+
+		boolean isStompConnected() {
+			return this.isStompConnected;
+		}
+
 		/**
 		 * Whether to forward a heartbeat message in lieu of a message with a non-broker
 		 * destination. This is done if client-side heartbeats are expected and if there
@@ -987,27 +1130,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 		@Override
 		protected void initHeartbeats(StompHeaderAccessor connectedHeaders) {
-			TcpConnection<byte[]> con = getTcpConnection();
-			Assert.state(con != null, "No TcpConnection available");
-
-			long clientSendInterval = getConnectHeaders().getHeartbeat()[0];
-			long clientReceiveInterval = getConnectHeaders().getHeartbeat()[1];
-			long serverSendInterval = connectedHeaders.getHeartbeat()[0];
-			long serverReceiveInterval = connectedHeaders.getHeartbeat()[1];
-
-			if (clientSendInterval > 0 && serverReceiveInterval > 0) {
-				long interval = Math.max(clientSendInterval, serverReceiveInterval);
-				con.onWriteInactivity(() ->
-						con.send(HEARTBEAT_MESSAGE).addCallback(
-								result -> {},
-								ex -> handleTcpConnectionFailure(
-										"Failed to forward heartbeat: " + ex.getMessage(), ex)), interval);
-			}
-			if (clientReceiveInterval > 0 && serverSendInterval > 0) {
-				final long interval = Math.max(clientReceiveInterval, serverSendInterval) * HEARTBEAT_MULTIPLIER;
-				con.onReadInactivity(
-						() -> handleTcpConnectionFailure("No messages received in " + interval + " ms.", null), interval);
-			}
+			initTcpConnectionHeartbeats(connectedHeaders);
 		}
 
 		private void sendSystemSubscriptions() {
@@ -1096,6 +1219,455 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	}
 
 
+	/**
+	 * Shared TCP connection to the broker over which client sessions are multiplexed.
+	 * Keeps the routing tables from broker subscription and receipt ids to sessions.
+	 */
+	private class MultiplexedConnectionHandler extends RelayConnectionHandler {
+
+		private final Map<String, MultiplexedSessionHandler> sessions = new ConcurrentHashMap<>();
+
+		private final Map<String, Route> subscriptionRoutes = new ConcurrentHashMap<>();
+
+		private final Map<String, Route> receiptRoutes = new ConcurrentHashMap<>();
+
+		private final AtomicLong idCounter = new AtomicLong();
+
+		MultiplexedConnectionHandler(String sessionId, StompHeaderAccessor connectHeaders) {
+			super(sessionId, connectHeaders, false);
+		}
+
+		int getSessionCount() {
+			return this.sessions.size();
+		}
+
+		void register(MultiplexedSessionHandler session) {
+			this.sessions.put(session.getSessionId(), session);
+			if (isStompConnected()) {
+				session.afterSharedConnectionReady();
+			}
+		}
+
+		void unregister(MultiplexedSessionHandler session) {
+			this.sessions.remove(session.getSessionId());
+		}
+
+		/**
+		 * Map the given client-side id to a new id unique on this connection.
+		 */
+		String addSubscriptionRoute(MultiplexedSessionHandler session, String subscriptionId) {
+			String brokerId = String.valueOf(this.idCounter.incrementAndGet());
+			this.subscriptionRoutes.put(brokerId, new Route(session, subscriptionId));
+			return brokerId;
+		}
+
+		void removeSubscriptionRoute(String brokerId) {
+			this.subscriptionRoutes.remove(brokerId);
+		}
+
+		/**
+		 * Map a receipt to a new id unique on this connection, or request a
+		 * receipt on behalf of the session if the given receipt id is
+		 * {@code null}, in which case the RECEIPT is not passed on to the client.
+		 */
+		String addReceiptRoute(MultiplexedSessionHandler session, @Nullable String receiptId) {
+			String brokerId = String.valueOf(this.idCounter.incrementAndGet());
+			this.receiptRoutes.put(brokerId, new Route(session, receiptId));
+			return brokerId;
+		}
+
+		@Override
+		protected void afterStompConnected(StompHeaderAccessor connectedHeaders) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Multiplexed connection " + getSessionId() + " connected.");
+			}
+			super.afterStompConnected(connectedHeaders);
+			for (MultiplexedSessionHandler session : this.sessions.values()) {
+				session.afterSharedConnectionReady();
+			}
+		}
+
+		@Override
+		protected void initHeartbeats(StompHeaderAccessor connectedHeaders) {
+			initTcpConnectionHeartbeats(connectedHeaders);
+		}
+
+		@Override
+		protected void handleInboundMessage(Message<?> message) {
+			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+			if (accessor == null) {
+				return;
+			}
+			StompCommand command = accessor.getCommand();
+			if (StompCommand.MESSAGE.equals(command)) {
+				String subscriptionId = accessor.getSubscriptionId();
+				Route route = (subscriptionId != null ? this.subscriptionRoutes.get(subscriptionId) : null);
+				if (route == null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("No session for " + accessor.getShortLogMessage(message.getPayload()));
+					}
+					return;
+				}
+				accessor.setSubscriptionId(route.id());
+				route.session().handleRoutedMessage(message, accessor);
+			}
+			else if (StompCommand.RECEIPT.equals(command)) {
+				String receiptId = accessor.getReceiptId();
+				Route route = (receiptId != null ? this.receiptRoutes.remove(receiptId) : null);
+				if (route != null && route.id() != null) {
+					accessor.setReceiptId(route.id());
+					route.session().handleRoutedMessage(message, accessor);
+				}
+			}
+			else if (StompCommand.ERROR.equals(command)) {
+				// The broker closes the connection after an ERROR frame
+				String receiptId = accessor.getReceiptId();
+				Route route = (receiptId != null ? this.receiptRoutes.remove(receiptId) : null);
+				clearConnection();
+				if (route == null) {
+					String error = accessor.getMessage();
+					failSessions(error != null ? error : "ERROR frame received from broker.");
+					return;
+				}
+				// The frame that caused the error is known, send the error only to its session
+				if (route.id() != null) {
+					accessor.setReceiptId(route.id());
+				}
+				else {
+					accessor.removeNativeHeader(StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER);
+				}
+				MultiplexedSessionHandler session = route.session();
+				try {
+					session.handleRoutedMessage(message, accessor);
+				}
+				finally {
+					session.clearConnection();
+				}
+				failSessions("Connection to broker closed after an ERROR frame caused by another session.");
+			}
+		}
+
+		@Override
+		protected void handleTcpConnectionFailure(String error, @Nullable Throwable ex) {
+			super.handleTcpConnectionFailure(error, ex);
+			failSessions(error);
+		}
+
+		@Override
+		public void afterConnectionClosed() {
+			super.afterConnectionClosed();
+			failSessions("Connection to broker closed.");
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			if (!isStompConnected()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Multiplexed connection " + getSessionId() + " inactive, ignoring " +
+							accessor.getShortLogMessage(message.getPayload()));
+				}
+				return EMPTY_TASK;
+			}
+			return super.forward(message, accessor);
+		}
+
+		private void failSessions(String error) {
+			for (MultiplexedSessionHandler session : this.sessions.values()) {
+				try {
+					session.sendStompErrorFrameToClient(error);
+				}
+				finally {
+					session.clearConnection();
+				}
+			}
+			this.subscriptionRoutes.clear();
+			this.receiptRoutes.clear();
+		}
+
+		@Override
+		protected boolean shouldSendHeartbeatForIgnoredMessage() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedConnectionHandler[sessionId=" + getSessionId() +
+					", sessions=" + this.sessions.size() + "]";
+		}
+	}
+
+
+	/**
+	 * A client session multiplexed over a shared connection, with the mapping
+	 * of its subscription ids to those used on the shared connection, and the
+	 * transactions it has open.
+	 */
+	private class MultiplexedSessionHandler extends RelayConnectionHandler {
+
+		private final MultiplexedConnectionHandler connection;
+
+		private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+		private final Set<String> transactions = ConcurrentHashMap.newKeySet();
+
+		private final AtomicBoolean connected = new AtomicBoolean();
+
+		MultiplexedSessionHandler(String sessionId, StompHeaderAccessor connectHeaders,
+				MultiplexedConnectionHandler connection) {
+
+			super(sessionId, connectHeaders);
+			this.connection = connection;
+		}
+
+		/**
+		 * Send the CONNECTED frame to the client, the first time the shared
+		 * connection is ready after the session was registered.
+		 */
+		void afterSharedConnectionReady() {
+			if (!this.connected.compareAndSet(false, true)) {
+				return;
+			}
+			StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+			if (getHeaderInitializer() != null) {
+				getHeaderInitializer().initHeaders(accessor);
+			}
+			Set<String> acceptVersion = getConnectHeaders().getAcceptVersion();
+			accessor.setVersion(acceptVersion.contains("1.2") ? "1.2" : "1.1");
+			accessor.setHeartbeat(0, 0);
+			accessor.setSessionId(getSessionId());
+			Principal user = getConnectHeaders().getUser();
+			if (user != null) {
+				accessor.setUser(user);
+			}
+			accessor.setLeaveMutable(true);
+			Message<byte[]> message = MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Sending " + accessor.getShortLogMessage(EMPTY_PAYLOAD) +
+						" over " + this.connection.getSessionId());
+			}
+			afterStompConnected(accessor);
+			handleInboundMessage(message);
+		}
+
+		void handleRoutedMessage(Message<?> message, StompHeaderAccessor accessor) {
+			accessor.setSessionId(getSessionId());
+			Principal user = getConnectHeaders().getUser();
+			if (user != null) {
+				accessor.setUser(user);
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("Received " + accessor.getDetailedLogMessage(message.getPayload()));
+			}
+			handleInboundMessage(message);
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			StompCommand command = accessor.getCommand();
+			if (command == null || !this.connected.get()) {
+				// Heartbeats are only exchanged on the shared connection
+				return EMPTY_TASK;
+			}
+
+			if (StompCommand.DISCONNECT.equals(command)) {
+				unsubscribeAll(accessor.getReceipt());
+				clearConnection();
+				return EMPTY_TASK;
+			}
+
+			String error = validateClientFrame(command, accessor);
+			if (error != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Rejecting " + accessor.getShortLogMessage(message.getPayload()) +
+							" in session " + getSessionId() + ": " + error);
+				}
+				sendStompErrorFrameToClient(error);
+				clearConnection();
+				return EMPTY_TASK;
+			}
+
+			// Copy the headers, since the message may be seen by other subscribers
+			StompHeaderAccessor brokerAccessor = StompHeaderAccessor.wrap(
+					MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders()));
+			if (StompCommand.SUBSCRIBE.equals(command)) {
+				String subscriptionId = accessor.getSubscriptionId();
+				Assert.state(subscriptionId != null, "No subscription id");
+				String brokerId = this.connection.addSubscriptionRoute(this, subscriptionId);
+				String previousId = this.subscriptions.put(subscriptionId, brokerId);
+				if (previousId != null) {
+					this.connection.removeSubscriptionRoute(previousId);
+				}
+				brokerAccessor.setSubscriptionId(brokerId);
+			}
+			else if (StompCommand.UNSUBSCRIBE.equals(command)) {
+				String subscriptionId = accessor.getSubscriptionId();
+				String brokerId = (subscriptionId != null ? this.subscriptions.remove(subscriptionId) : null);
+				if (brokerId == null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring " + accessor.getShortLogMessage(message.getPayload()) +
+								", no such subscription in session " + getSessionId());
+					}
+					return EMPTY_TASK;
+				}
+				this.connection.removeSubscriptionRoute(brokerId);
+				brokerAccessor.setSubscriptionId(brokerId);
+			}
+			else if (StompCommand.ACK.equals(command) || StompCommand.NACK.equals(command)) {
+				// STOMP 1.1 refers to the subscription, STOMP 1.2 to the broker's ack id
+				String subscriptionId = accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+				String brokerId = (subscriptionId != null ? this.subscriptions.get(subscriptionId) : null);
+				if (brokerId != null) {
+					brokerAccessor.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, brokerId);
+				}
+			}
+
+			// Always request a receipt, so that an ERROR from the broker can be attributed
+			brokerAccessor.setReceipt(this.connection.addReceiptRoute(this, accessor.getReceipt()));
+			String transaction = accessor.getFirstNativeHeader(TRANSACTION_HEADER);
+			if (transaction != null) {
+				if (StompCommand.BEGIN.equals(command)) {
+					this.transactions.add(transaction);
+				}
+				else if (StompCommand.COMMIT.equals(command) || StompCommand.ABORT.equals(command)) {
+					this.transactions.remove(transaction);
+				}
+				brokerAccessor.setNativeHeader(TRANSACTION_HEADER, getSessionId() + ":" + transaction);
+			}
+			brokerAccessor.setSessionId(this.connection.getSessionId());
+
+			Message<?> messageToSend = MessageBuilder.createMessage(message.getPayload(), brokerAccessor.getMessageHeaders());
+			return this.connection.forward(messageToSend, brokerAccessor);
+		}
+
+		/**
+		 * Check for client frames the broker would reply to with an ERROR frame,
+		 * which would close the shared connection for all its sessions.
+		 * @return the error to send to the client, or {@code null} if valid
+		 */
+		@Nullable
+		private String validateClientFrame(StompCommand command, StompHeaderAccessor accessor) {
+			String transaction = accessor.getFirstNativeHeader(TRANSACTION_HEADER);
+			if (StompCommand.SEND.equals(command)) {
+				if (accessor.getDestination() == null) {
+					return "SEND frame without a destination.";
+				}
+			}
+			else if (StompCommand.SUBSCRIBE.equals(command)) {
+				if (accessor.getDestination() == null || accessor.getSubscriptionId() == null) {
+					return "SUBSCRIBE frame without a destination or id.";
+				}
+				return null;
+			}
+			else if (StompCommand.UNSUBSCRIBE.equals(command)) {
+				return null;
+			}
+			else if (StompCommand.ACK.equals(command) || StompCommand.NACK.equals(command)) {
+				String subscriptionId = accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+				if (subscriptionId != null && !this.subscriptions.containsKey(subscriptionId)) {
+					return command + " frame for unknown subscription '" + subscriptionId + "'.";
+				}
+				if (subscriptionId == null && accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER) == null) {
+					return command + " frame without an id.";
+				}
+			}
+			else if (StompCommand.BEGIN.equals(command)) {
+				if (transaction == null) {
+					return "BEGIN frame without a transaction.";
+				}
+				return (this.transactions.contains(transaction) ?
+						"Transaction '" + transaction + "' already started." : null);
+			}
+			else if (StompCommand.COMMIT.equals(command) || StompCommand.ABORT.equals(command)) {
+				if (transaction == null) {
+					return command + " frame without a transaction.";
+				}
+			}
+			else {
+				return "Unexpected " + command + " frame.";
+			}
+			if (transaction != null && !this.transactions.contains(transaction)) {
+				return "Unknown transaction '" + transaction + "'.";
+			}
+			return null;
+		}
+
+		/**
+		 * Abort the transactions the session left open, which the broker would
+		 * otherwise only abort when the shared connection is closed.
+		 */
+		private void abortTransactions() {
+			List<String> transactions = new ArrayList<>(this.transactions);
+			this.transactions.clear();
+			for (String transaction : transactions) {
+				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ABORT);
+				accessor.setNativeHeader(TRANSACTION_HEADER, getSessionId() + ":" + transaction);
+				accessor.setSessionId(this.connection.getSessionId());
+				this.connection.forward(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()), accessor);
+			}
+		}
+
+		/**
+		 * Remove the subscriptions of the session from the broker. If a receipt is
+		 * requested, it is sent with the last UNSUBSCRIBE, or right away if there
+		 * are no subscriptions.
+		 */
+		private void unsubscribeAll(@Nullable String receiptId) {
+			List<String> brokerIds = new ArrayList<>(this.subscriptions.values());
+			this.subscriptions.clear();
+			for (int i = 0; i < brokerIds.size(); i++) {
+				String brokerId = brokerIds.get(i);
+				this.connection.removeSubscriptionRoute(brokerId);
+				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+				accessor.setSubscriptionId(brokerId);
+				if (receiptId != null && i == brokerIds.size() - 1) {
+					accessor.setReceipt(this.connection.addReceiptRoute(this, receiptId));
+				}
+				accessor.setSessionId(this.connection.getSessionId());
+				this.connection.forward(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()), accessor);
+			}
+			if (receiptId != null && brokerIds.isEmpty()) {
+				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.RECEIPT);
+				if (getHeaderInitializer() != null) {
+					getHeaderInitializer().initHeaders(accessor);
+				}
+				accessor.setReceiptId(receiptId);
+				accessor.setLeaveMutable(true);
+				handleRoutedMessage(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()), accessor);
+			}
+		}
+
+		@Override
+		public void clearConnection() {
+			super.clearConnection();
+			this.connection.unregister(this);
+			if (this.connection.isStompConnected()) {
+				abortTransactions();
+				unsubscribeAll(null);
+			}
+			else {
+				this.subscriptions.values().forEach(this.connection::removeSubscriptionRoute);
+				this.subscriptions.clear();
+				this.transactions.clear();
+			}
+		}
+
+		@Override
+		protected boolean shouldSendHeartbeatForIgnoredMessage() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedSessionHandler[sessionId=" + getSessionId() +
+					", connection=" + this.connection.getSessionId() + "]";
+		}
+	}
+
+
+	private record Route(MultiplexedSessionHandler session, @Nullable String id) {
+	}
+
+
 	private class ClientSendMessageCountTask implements Runnable {
 
 		@Override
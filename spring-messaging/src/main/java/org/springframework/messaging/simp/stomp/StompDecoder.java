@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -32,7 +31,6 @@ import org.springframework.messaging.support.MessageHeaderInitializer;
 import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StreamUtils;
 
 /**
  * Decodes one or more STOMP frames contained in a {@link ByteBuffer}.
@@ -53,6 +51,35 @@ public class StompDecoder {
 
 	private static final Log logger = SimpLogging.forLogName(StompDecoder.class);
 
+	private static final StompCommand[] COMMANDS = StompCommand.values();
+
+	private static final byte[][] COMMAND_BYTES = new byte[COMMANDS.length][];
+
+	/**
+	 * Common header names, returned as the same String instances when decoded
+	 * rather than creating a new String for every header of every frame.
+	 */
+	private static final String[] HEADER_NAMES = {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_HEADER, StompHeaderAccessor.STOMP_ACK_HEADER,
+			StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER,
+			StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_HEARTBEAT_HEADER, StompHeaderAccessor.STOMP_LOGIN_HEADER,
+			StompHeaderAccessor.STOMP_PASSCODE_HEADER, StompHeaderAccessor.STOMP_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER};
+
+	private static final byte[][] HEADER_NAME_BYTES = new byte[HEADER_NAMES.length][];
+
+	static {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			COMMAND_BYTES[i] = COMMANDS[i].name().getBytes(StandardCharsets.US_ASCII);
+		}
+		for (int i = 0; i < HEADER_NAMES.length; i++) {
+			HEADER_NAME_BYTES[i] = HEADER_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
@@ -135,12 +162,13 @@ public class StompDecoder {
 		skipEol(byteBuffer);
 		byteBuffer.mark();
 
-		String command = readCommand(byteBuffer);
-		if (command.length() > 0) {
+		int commandStart = byteBuffer.position();
+		int commandEnd = readCommand(byteBuffer);
+		if (commandEnd > commandStart) {
 			StompHeaderAccessor headerAccessor = null;
 			byte[] payload = null;
 			if (byteBuffer.remaining() > 0) {
-				StompCommand stompCommand = StompCommand.valueOf(command);
+				StompCommand stompCommand = toCommand(byteBuffer, commandStart, commandEnd);
 				headerAccessor = StompHeaderAccessor.create(stompCommand);
 				initHeaders(headerAccessor);
 				readHeaders(byteBuffer, headerAccessor, stompCommand);
@@ -207,12 +235,29 @@ public class StompDecoder {
 		}
 	}
 
-	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
+	/**
+	 * Read the command line, leaving the buffer positioned after its EOL, if any.
+	 * @return the (absolute) end index of the command
+	 */
+	private int readCommand(ByteBuffer byteBuffer) {
+		while (byteBuffer.remaining() > 0) {
+			int end = byteBuffer.position();
+			if (tryConsumeEndOfLine(byteBuffer)) {
+				return end;
+			}
+			byteBuffer.get();
 		}
-		return StreamUtils.copyToString(command, StandardCharsets.UTF_8);
+		return byteBuffer.position();
+	}
+
+	private StompCommand toCommand(ByteBuffer byteBuffer, int start, int end) {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (matches(byteBuffer, start, end, COMMAND_BYTES[i])) {
+				return COMMANDS[i];
+			}
+		}
+		// Raises IllegalArgumentException for an unknown command
+		return StompCommand.valueOf(toString(byteBuffer, start, end));
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor, StompCommand command) {
@@ -222,27 +267,31 @@ public class StompDecoder {
 				command != StompCommand.STOMP);
 
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
+			int start = byteBuffer.position();
+			int end = start;
+			int colonIndex = -1;
 			boolean headerComplete = false;
 			while (byteBuffer.hasRemaining()) {
+				end = byteBuffer.position();
 				if (tryConsumeEndOfLine(byteBuffer)) {
 					headerComplete = true;
 					break;
 				}
-				headerStream.write(byteBuffer.get());
+				if (byteBuffer.get() == ':' && colonIndex == -1) {
+					colonIndex = end;
+				}
+				end++;
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = StreamUtils.copyToString(headerStream, StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
+			if (end > start && headerComplete) {
+				if (colonIndex <= start) {
 					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
+						throw new StompConversionException("Illegal header: '" + toString(byteBuffer, start, end) +
 								"'. A header must be of the form <name>:[<value>].");
 					}
 				}
 				else {
-					String headerName = shouldUnescape ? unescape(header.substring(0, colonIndex)) : header.substring(0, colonIndex);
-					String headerValue = shouldUnescape ? unescape(header.substring(colonIndex + 1)) : header.substring(colonIndex + 1);
+					String headerName = readHeaderName(byteBuffer, start, colonIndex, shouldUnescape);
+					String headerValue = readHeaderValue(byteBuffer, colonIndex + 1, end, shouldUnescape);
 					try {
 						headerAccessor.addNativeHeader(headerName, headerValue);
 					}
@@ -259,6 +308,48 @@ public class StompDecoder {
 		}
 	}
 
+	private String readHeaderName(ByteBuffer byteBuffer, int start, int end, boolean shouldUnescape) {
+		for (int i = 0; i < HEADER_NAMES.length; i++) {
+			if (matches(byteBuffer, start, end, HEADER_NAME_BYTES[i])) {
+				return HEADER_NAMES[i];
+			}
+		}
+		return readHeaderValue(byteBuffer, start, end, shouldUnescape);
+	}
+
+	private String readHeaderValue(ByteBuffer byteBuffer, int start, int end, boolean shouldUnescape) {
+		String value = toString(byteBuffer, start, end);
+		return (shouldUnescape && value.indexOf('\\') != -1 ? unescape(value) : value);
+	}
+
+	/**
+	 * Whether the content between the given (absolute) indexes matches the given bytes.
+	 */
+	private static boolean matches(ByteBuffer byteBuffer, int start, int end, byte[] bytes) {
+		if (end - start != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (byteBuffer.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decode the content between the given (absolute) indexes as UTF-8,
+	 * without changing the position of the buffer.
+	 */
+	private static String toString(ByteBuffer byteBuffer, int start, int end) {
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		byteBuffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
 	/**
 	 * See STOMP Spec 1.2:
 	 * <a href="https://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
@@ -325,16 +416,17 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
+			int start = byteBuffer.position();
+			int limit = byteBuffer.limit();
+			for (int i = start; i < limit; i++) {
+				if (byteBuffer.get(i) == 0) {
+					byte[] payload = new byte[i - start];
+					byteBuffer.get(payload);
+					byteBuffer.get();
+					return payload;
 				}
 			}
+			byteBuffer.position(limit);
 		}
 		return null;
 	}
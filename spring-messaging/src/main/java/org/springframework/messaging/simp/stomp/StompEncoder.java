@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import java.lang.ref.WeakReference;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.logging.Log;
 
@@ -38,6 +40,11 @@ import org.springframework.util.Assert;
 /**
  * An encoder for STOMP frames.
  *
+ * <p>As of 6.0, the headers of {@code MESSAGE} frames that are shared across
+ * subscribers of a broadcast, i.e. frames for the same payload instance that differ
+ * only in their {@code subscription} and {@code message-id} headers, are encoded
+ * once and then reused for each frame of the broadcast.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -53,6 +60,10 @@ public class StompEncoder  {
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
 
+	private static final int SHARED_FRAME_CACHE_SIZE = 32;
+
+	private static final byte[] MESSAGE_COMMAND_BYTES = (StompCommand.MESSAGE + "\n").getBytes(StandardCharsets.UTF_8);
+
 
 	private final Map<String, byte[]> headerKeyAccessCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
 
@@ -71,6 +82,13 @@ public class StompEncoder  {
 				}
 			};
 
+	private final AtomicReferenceArray<SharedFrame> sharedFrameCache =
+			new AtomicReferenceArray<>(SHARED_FRAME_CACHE_SIZE);
+
+	/** The payload of the last MESSAGE frame not found in the cache, compared by identity. */
+	@Nullable
+	private volatile byte[] lastPayload;
+
 
 	/**
 	 * Encodes the given STOMP {@code message} into a {@code byte[]}.
@@ -101,6 +119,16 @@ public class StompEncoder  {
 			throw new IllegalStateException("Missing STOMP command: " + headers);
 		}
 
+		if (command == StompCommand.MESSAGE) {
+			Map<String, List<String>> nativeHeaders = getNativeHeaders(headers);
+			if (nativeHeaders != null) {
+				byte[] result = encodeSharedMessage(nativeHeaders, payload);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
 		Result result = new DefaultResult();
 		result.add(command.toString().getBytes(StandardCharsets.UTF_8));
 		result.add(LINE_FEED_BYTE);
@@ -114,9 +142,7 @@ public class StompEncoder  {
 	private void writeHeaders(
 			StompCommand command, Map<String, Object> headers, byte[] payload, Result result) {
 
-		@SuppressWarnings("unchecked")
-		Map<String,List<String>> nativeHeaders =
-				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+		Map<String,List<String>> nativeHeaders = getNativeHeaders(headers);
 
 		if (logger.isTraceEnabled()) {
 			logger.trace("Encoding STOMP " + command + ", headers=" + nativeHeaders);
@@ -157,6 +183,100 @@ public class StompEncoder  {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static Map<String, List<String>> getNativeHeaders(Map<String, Object> headers) {
+		return (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+	}
+
+	/**
+	 * Encode a {@code MESSAGE} frame, reusing the encoded shared headers of a
+	 * previous frame for the same payload instance and the same shared headers,
+	 * so that only the per-frame headers need to be encoded.
+	 * <p>The shared headers are only captured once a payload instance is encoded
+	 * for the second time in a row, i.e. when it is actually broadcast. A frame
+	 * with a unique payload only replaces the last payload seen, and is then
+	 * encoded as usual, without allocating a cache entry or evicting the shared
+	 * headers of a broadcast.
+	 * @return the encoded frame, or {@code null} if the payload is not broadcast
+	 */
+	@Nullable
+	private byte[] encodeSharedMessage(Map<String, List<String>> nativeHeaders, byte[] payload) {
+		// Index by length: an identity hash would have to be installed on every new payload
+		int index = payload.length & (SHARED_FRAME_CACHE_SIZE - 1);
+		SharedFrame sharedFrame = this.sharedFrameCache.get(index);
+		boolean cached = (sharedFrame != null && sharedFrame.isFor(payload));
+		if (!cached && this.lastPayload != payload) {
+			this.lastPayload = payload;
+			return null;
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Encoding STOMP MESSAGE, headers=" + nativeHeaders);
+		}
+
+		if (!cached || !sharedFrame.matches(nativeHeaders)) {
+			sharedFrame = createSharedFrame(nativeHeaders, payload);
+			this.sharedFrameCache.set(index, sharedFrame);
+		}
+
+		byte[] sharedHeaders = sharedFrame.getEncodedHeaders();
+		byte[] frameHeaders = encodePerFrameHeaders(nativeHeaders, payload);
+		byte[] result = new byte[MESSAGE_COMMAND_BYTES.length + sharedHeaders.length +
+				frameHeaders.length + payload.length + 1];
+		int position = 0;
+		System.arraycopy(MESSAGE_COMMAND_BYTES, 0, result, position, MESSAGE_COMMAND_BYTES.length);
+		position += MESSAGE_COMMAND_BYTES.length;
+		System.arraycopy(sharedHeaders, 0, result, position, sharedHeaders.length);
+		position += sharedHeaders.length;
+		System.arraycopy(frameHeaders, 0, result, position, frameHeaders.length);
+		position += frameHeaders.length;
+		System.arraycopy(payload, 0, result, position, payload.length);
+		return result;
+	}
+
+	private SharedFrame createSharedFrame(Map<String, List<String>> nativeHeaders, byte[] payload) {
+		Map<String, List<String>> sharedHeaders = new LinkedHashMap<>(nativeHeaders.size());
+		Result result = new DefaultResult();
+		for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+			String name = entry.getKey();
+			if (!SharedFrame.isSharedHeader(name)) {
+				continue;
+			}
+			List<String> values = new ArrayList<>(entry.getValue());
+			sharedHeaders.put(name, values);
+			byte[] encodedKey = encodeHeaderKey(name, true);
+			for (String value : values) {
+				result.add(encodedKey);
+				result.add(COLON_BYTE);
+				result.add(encodeHeaderValue(value, true));
+				result.add(LINE_FEED_BYTE);
+			}
+		}
+		return new SharedFrame(payload, sharedHeaders, result.toByteArray());
+	}
+
+	/**
+	 * Encode the per-frame headers, followed by the content-length header and
+	 * the blank line that ends the headers.
+	 */
+	private byte[] encodePerFrameHeaders(Map<String, List<String>> nativeHeaders, byte[] payload) {
+		StringBuilder sb = new StringBuilder(64);
+		appendHeader(sb, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, nativeHeaders);
+		appendHeader(sb, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, nativeHeaders);
+		sb.append("content-length:").append(payload.length).append("\n\n");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void appendHeader(StringBuilder sb, String name, Map<String, List<String>> nativeHeaders) {
+		List<String> values = nativeHeaders.get(name);
+		if (values != null) {
+			for (String value : values) {
+				sb.append(name).append(':').append(escape(value)).append('\n');
+			}
+		}
+	}
+
 	private byte[] encodeHeaderKey(String input, boolean escape) {
 		String inputToUse = (escape ? escape(input) : input);
 		if (this.headerKeyAccessCache.containsKey(inputToUse)) {
@@ -218,6 +338,54 @@ public class StompEncoder  {
 	}
 
 
+	/**
+	 * The encoded headers of a {@code MESSAGE} frame, except for the per-frame
+	 * {@code subscription}, {@code message-id}, and {@code content-length} headers,
+	 * along with the payload and header values they were encoded for.
+	 */
+	private static class SharedFrame {
+
+		private final WeakReference<byte[]> payload;
+
+		private final Map<String, List<String>> headers;
+
+		private final byte[] encodedHeaders;
+
+		SharedFrame(byte[] payload, Map<String, List<String>> headers, byte[] encodedHeaders) {
+			this.payload = new WeakReference<>(payload);
+			this.headers = headers;
+			this.encodedHeaders = encodedHeaders;
+		}
+
+		boolean isFor(byte[] payload) {
+			return (this.payload.get() == payload);
+		}
+
+		boolean matches(Map<String, List<String>> nativeHeaders) {
+			int count = 0;
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (isSharedHeader(entry.getKey())) {
+					if (!entry.getValue().equals(this.headers.get(entry.getKey()))) {
+						return false;
+					}
+					count++;
+				}
+			}
+			return (count == this.headers.size());
+		}
+
+		byte[] getEncodedHeaders() {
+			return this.encodedHeaders;
+		}
+
+		static boolean isSharedHeader(String name) {
+			return !(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER.equals(name) ||
+					StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER.equals(name) ||
+					StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(name));
+		}
+	}
+
+
 	/**
 	 * Accumulates byte content and returns an aggregated byte[] at the end.
 	 */
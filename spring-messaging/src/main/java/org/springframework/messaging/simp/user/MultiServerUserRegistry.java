@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,19 @@
 
 package org.springframework.messaging.simp.user;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -32,6 +39,7 @@ import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.core.Ordered;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -44,12 +52,26 @@ import org.springframework.util.ObjectUtils;
  * handled by {@link UserRegistryMessageHandler} which in turn notifies this
  * registry when updates are received.
  *
+ * <p>Broadcasts are either full snapshots, converted with the configured
+ * {@link MessageConverter}, or, in incremental mode, compact binary updates
+ * that contain only the users added, changed, or removed since the previous
+ * broadcast, along with periodic full updates to resynchronize. Both are
+ * always accepted from remote servers.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
 @SuppressWarnings("serial")
 public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicationListener {
 
+	/* First byte of binary updates, never the first byte of a JSON snapshot */
+	private static final byte BINARY_UPDATE_MARKER = (byte) 0xF5;
+
+	private static final byte FULL_UPDATE = 0;
+
+	private static final byte DELTA_UPDATE = 1;
+
+
 	private final String id;
 
 	private final SimpUserRegistry localRegistry;
@@ -58,9 +80,18 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 
 	private final boolean delegateApplicationEvents;
 
+	/* Remote users by name and by remote registry id, for lookups without iterating registries */
+	private final Map<String, Map<String, TransferSimpUser>> remoteUserIndex = new ConcurrentHashMap<>();
+
 	/* Cross-server session lookup (e.g. same user connected to multiple servers) */
 	private final SessionLookup sessionLookup = new SessionLookup();
 
+	/* Users in the previous incremental broadcast, accessed by the broadcasting task only */
+	@Nullable
+	private Map<String, TransferSimpUser> lastBroadcastUsers;
+
+	private long lastBroadcastVersion;
+
 
 	/**
 	 * Create an instance wrapping the local user registry.
@@ -119,9 +150,9 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 	@Nullable
 	public SimpUser getUser(String userName) {
 		// Prefer remote registries due to cross-server SessionLookup
-		for (UserRegistrySnapshot registry : this.remoteRegistries.values()) {
-			SimpUser user = registry.getUserMap().get(userName);
-			if (user != null) {
+		Map<String, TransferSimpUser> remoteUsers = this.remoteUserIndex.get(userName);
+		if (remoteUsers != null) {
+			for (TransferSimpUser user : remoteUsers.values()) {
 				return user;
 			}
 		}
@@ -166,17 +197,139 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 		return new UserRegistrySnapshot(this.id, this.localRegistry);
 	}
 
+	/**
+	 * Encode the local registry as a binary update for an incremental broadcast.
+	 * @param fullUpdate whether to include all users, or only the changes since
+	 * the previous call
+	 */
+	byte[] getLocalRegistryUpdate(boolean fullUpdate) {
+		Map<String, TransferSimpUser> users = new UserRegistrySnapshot(this.id, this.localRegistry).getUserMap();
+		Map<String, TransferSimpUser> previousUsers = this.lastBroadcastUsers;
+		RegistryUpdate update;
+		if (fullUpdate || previousUsers == null) {
+			update = new RegistryUpdate(this.id, true, this.lastBroadcastVersion + 1, 0, users, Collections.emptySet());
+		}
+		else {
+			Map<String, TransferSimpUser> changedUsers = new HashMap<>();
+			users.forEach((name, user) -> {
+				TransferSimpUser previousUser = previousUsers.get(name);
+				if (previousUser == null || !previousUser.hasSameSessions(user)) {
+					changedUsers.put(name, user);
+				}
+			});
+			Set<String> removedUsers = new HashSet<>();
+			for (String name : previousUsers.keySet()) {
+				if (!users.containsKey(name)) {
+					removedUsers.add(name);
+				}
+			}
+			update = new RegistryUpdate(this.id, false, this.lastBroadcastVersion + 1,
+					this.lastBroadcastVersion, changedUsers, removedUsers);
+		}
+		this.lastBroadcastUsers = users;
+		this.lastBroadcastVersion = update.version();
+		return update.encode();
+	}
+
+	/**
+	 * Forget the users of the previous incremental broadcast, so that the next
+	 * one is a full update.
+	 */
+	void resetLocalRegistryUpdates() {
+		this.lastBroadcastUsers = null;
+	}
+
 	void addRemoteRegistryDto(Message<?> message, MessageConverter converter, long expirationPeriod) {
+		if (message.getPayload() instanceof byte[] bytes && bytes.length > 0 && bytes[0] == BINARY_UPDATE_MARKER) {
+			addRemoteRegistryUpdate(RegistryUpdate.decode(bytes), expirationPeriod);
+			return;
+		}
 		UserRegistrySnapshot registry = (UserRegistrySnapshot) converter.fromMessage(message, UserRegistrySnapshot.class);
 		if (registry != null && !registry.getId().equals(this.id)) {
 			registry.init(expirationPeriod, this.sessionLookup);
-			this.remoteRegistries.put(registry.getId(), registry);
+			synchronized (this.remoteRegistries) {
+				replaceRemoteRegistry(registry);
+			}
 		}
 	}
 
+	private void addRemoteRegistryUpdate(RegistryUpdate update, long expirationPeriod) {
+		if (update.id().equals(this.id)) {
+			return;
+		}
+		synchronized (this.remoteRegistries) {
+			if (update.full()) {
+				UserRegistrySnapshot registry = new UserRegistrySnapshot(update.id(), update.users(), update.version());
+				registry.init(expirationPeriod, this.sessionLookup);
+				replaceRemoteRegistry(registry);
+				return;
+			}
+			UserRegistrySnapshot registry = this.remoteRegistries.get(update.id());
+			if (registry == null) {
+				// Not known yet: wait for the next full update
+				return;
+			}
+			registry.extendExpiration(expirationPeriod);
+			if (registry.getVersion() != update.baseVersion()) {
+				// Missed an update: keep the current state until the next full update
+				return;
+			}
+			for (TransferSimpUser user : update.users().values()) {
+				user.afterDeserialization(this.sessionLookup);
+				registry.getUserMap().put(user.getName(), user);
+				indexRemoteUser(registry.getId(), user);
+			}
+			for (String userName : update.removedUsers()) {
+				registry.getUserMap().remove(userName);
+				unindexRemoteUser(registry.getId(), userName);
+			}
+			registry.setVersion(update.version());
+		}
+	}
+
+	private void replaceRemoteRegistry(UserRegistrySnapshot registry) {
+		UserRegistrySnapshot previous = this.remoteRegistries.put(registry.getId(), registry);
+		for (TransferSimpUser user : registry.getUserMap().values()) {
+			indexRemoteUser(registry.getId(), user);
+		}
+		if (previous != null) {
+			for (String userName : previous.getUserMap().keySet()) {
+				if (!registry.getUserMap().containsKey(userName)) {
+					unindexRemoteUser(registry.getId(), userName);
+				}
+			}
+		}
+	}
+
+	private void indexRemoteUser(String registryId, TransferSimpUser user) {
+		this.remoteUserIndex.compute(user.getName(), (name, users) -> {
+			users = (users != null ? users : new ConcurrentHashMap<>(2));
+			users.put(registryId, user);
+			return users;
+		});
+	}
+
+	private void unindexRemoteUser(String registryId, String userName) {
+		this.remoteUserIndex.computeIfPresent(userName, (name, users) -> {
+			users.remove(registryId);
+			return (users.isEmpty() ? null : users);
+		});
+	}
+
 	void purgeExpiredRegistries() {
 		long now = System.currentTimeMillis();
-		this.remoteRegistries.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+		synchronized (this.remoteRegistries) {
+			this.remoteRegistries.entrySet().removeIf(entry -> {
+				UserRegistrySnapshot registry = entry.getValue();
+				if (!registry.isExpired(now)) {
+					return false;
+				}
+				for (String userName : registry.getUserMap().keySet()) {
+					unindexRemoteUser(registry.getId(), userName);
+				}
+				return true;
+			});
+		}
 	}
 
 
@@ -196,6 +349,8 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 
 		private Map<String, TransferSimpUser> users = Collections.emptyMap();
 
+		private long version;
+
 		private long expirationTime;
 
 		/**
@@ -217,6 +372,15 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			}
 		}
 
+		/**
+		 * Constructor to create a remote registry from a full binary update.
+		 */
+		public UserRegistrySnapshot(String id, Map<String, TransferSimpUser> users, long version) {
+			this.id = id;
+			this.users = users;
+			this.version = version;
+		}
+
 		@SuppressWarnings("unused")
 		public void setId(String id) {
 			this.id = id;
@@ -235,12 +399,26 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			return this.users;
 		}
 
+		public void setVersion(long version) {
+			this.version = version;
+		}
+
+		public long getVersion() {
+			return this.version;
+		}
+
 		public boolean isExpired(long now) {
 			return (now > this.expirationTime);
 		}
 
-		public void init(long expirationPeriod, SessionLookup sessionLookup) {
+		public void extendExpiration(long expirationPeriod) {
 			this.expirationTime = System.currentTimeMillis() + expirationPeriod;
+		}
+
+		public void init(long expirationPeriod, SessionLookup sessionLookup) {
+			extendExpiration(expirationPeriod);
+			// Binary delta updates modify the map while it may be read
+			this.users = new ConcurrentHashMap<>(this.users);
 			for (TransferSimpUser user : this.users.values()) {
 				user.afterDeserialization(sessionLookup);
 			}
@@ -367,6 +545,27 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			}
 		}
 
+		/**
+		 * Whether the given user has the same sessions, with the same
+		 * subscriptions and destinations, as this user.
+		 */
+		private boolean hasSameSessions(TransferSimpUser other) {
+			if (this.sessions.size() != other.sessions.size()) {
+				return false;
+			}
+			Map<String, TransferSimpSession> otherSessions = CollectionUtils.newHashMap(other.sessions.size());
+			for (TransferSimpSession session : other.sessions) {
+				otherSessions.put(session.getId(), session);
+			}
+			for (TransferSimpSession session : this.sessions) {
+				TransferSimpSession otherSession = otherSessions.get(session.getId());
+				if (otherSession == null || !session.hasSameSubscriptions(otherSession)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 
 		@Override
 		public boolean equals(@Nullable Object other) {
@@ -454,6 +653,22 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 			}
 		}
 
+		private boolean hasSameSubscriptions(TransferSimpSession other) {
+			if (this.subscriptions.size() != other.subscriptions.size()) {
+				return false;
+			}
+			Map<String, String> otherDestinations = CollectionUtils.newHashMap(other.subscriptions.size());
+			for (TransferSimpSubscription subscription : other.subscriptions) {
+				otherDestinations.put(subscription.getId(), subscription.getDestination());
+			}
+			for (TransferSimpSubscription subscription : this.subscriptions) {
+				if (!subscription.getDestination().equals(otherDestinations.get(subscription.getId()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 		@Override
 		public boolean equals(@Nullable Object other) {
 			return (this == other || (other instanceof SimpSession && getId().equals(((SimpSession) other).getId())));
@@ -554,6 +769,129 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 	}
 
 
+	/**
+	 * Binary update of a registry, either with all users, or with the users
+	 * changed and removed since the update with the base version.
+	 * <p>The encoding writes each distinct subscription destination once, and
+	 * then refers to destinations by index.
+	 */
+	private record RegistryUpdate(String id, boolean full, long version, long baseVersion,
+			Map<String, TransferSimpUser> users, Set<String> removedUsers) {
+
+		public byte[] encode() {
+			Map<String, Integer> destinations = new HashMap<>();
+			List<String> destinationList = new ArrayList<>();
+			for (TransferSimpUser user : this.users.values()) {
+				for (TransferSimpSession session : user.sessions) {
+					for (TransferSimpSubscription subscription : session.subscriptions) {
+						destinations.computeIfAbsent(subscription.getDestination(), destination -> {
+							destinationList.add(destination);
+							return destinationList.size() - 1;
+						});
+					}
+				}
+			}
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+			try (DataOutputStream out = new DataOutputStream(bos)) {
+				out.writeByte(BINARY_UPDATE_MARKER);
+				out.writeByte(this.full ? FULL_UPDATE : DELTA_UPDATE);
+				out.writeUTF(this.id);
+				out.writeLong(this.version);
+				out.writeLong(this.baseVersion);
+				writeSize(out, destinationList.size());
+				for (String destination : destinationList) {
+					out.writeUTF(destination);
+				}
+				writeSize(out, this.users.size());
+				for (TransferSimpUser user : this.users.values()) {
+					out.writeUTF(user.getName());
+					writeSize(out, user.sessions.size());
+					for (TransferSimpSession session : user.sessions) {
+						out.writeUTF(session.getId());
+						writeSize(out, session.subscriptions.size());
+						for (TransferSimpSubscription subscription : session.subscriptions) {
+							out.writeUTF(subscription.getId());
+							writeSize(out, destinations.get(subscription.getDestination()));
+						}
+					}
+				}
+				writeSize(out, this.removedUsers.size());
+				for (String userName : this.removedUsers) {
+					out.writeUTF(userName);
+				}
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to encode user registry update", ex);
+			}
+			return bos.toByteArray();
+		}
+
+		public static RegistryUpdate decode(byte[] bytes) {
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+				in.readByte();
+				boolean full = (in.readByte() == FULL_UPDATE);
+				String id = in.readUTF();
+				long version = in.readLong();
+				long baseVersion = in.readLong();
+				String[] destinations = new String[readSize(in)];
+				for (int i = 0; i < destinations.length; i++) {
+					destinations[i] = in.readUTF();
+				}
+				int userCount = readSize(in);
+				Map<String, TransferSimpUser> users = CollectionUtils.newHashMap(userCount);
+				for (int i = 0; i < userCount; i++) {
+					TransferSimpUser user = new TransferSimpUser();
+					user.setName(in.readUTF());
+					int sessionCount = readSize(in);
+					for (int j = 0; j < sessionCount; j++) {
+						TransferSimpSession session = new TransferSimpSession();
+						session.setId(in.readUTF());
+						int subscriptionCount = readSize(in);
+						for (int k = 0; k < subscriptionCount; k++) {
+							TransferSimpSubscription subscription = new TransferSimpSubscription();
+							subscription.setId(in.readUTF());
+							subscription.setDestination(destinations[readSize(in)]);
+							session.subscriptions.add(subscription);
+						}
+						user.sessions.add(session);
+					}
+					users.put(user.getName(), user);
+				}
+				int removedCount = readSize(in);
+				Set<String> removedUsers = new HashSet<>();
+				for (int i = 0; i < removedCount; i++) {
+					removedUsers.add(in.readUTF());
+				}
+				return new RegistryUpdate(id, full, version, baseVersion, users, removedUsers);
+			}
+			catch (IOException | IndexOutOfBoundsException ex) {
+				throw new MessageConversionException("Failed to decode user registry update", ex);
+			}
+		}
+
+		/* Unsigned variable-length int, 7 bits per byte */
+		private static void writeSize(DataOutputStream out, int size) throws IOException {
+			while ((size & ~0x7F) != 0) {
+				out.writeByte((size & 0x7F) | 0x80);
+				size >>>= 7;
+			}
+			out.writeByte(size);
+		}
+
+		private static int readSize(DataInputStream in) throws IOException {
+			int size = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = in.readUnsignedByte();
+				size |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return size;
+				}
+			}
+			throw new IOException("Malformed size");
+		}
+	}
+
+
 	/**
 	 * Helper class to find user sessions across all servers.
 	 */
@@ -567,9 +905,9 @@ public class MultiServerUserRegistry implements SimpUserRegistry, SmartApplicati
 					map.put(session.getId(), session);
 				}
 			}
-			for (UserRegistrySnapshot registry : remoteRegistries.values()) {
-				TransferSimpUser transferUser = registry.getUserMap().get(userName);
-				if (transferUser != null) {
+			Map<String, TransferSimpUser> remoteUsers = remoteUserIndex.get(userName);
+			if (remoteUsers != null) {
+				for (TransferSimpUser transferUser : remoteUsers.values()) {
 					transferUser.addSessions(map);
 				}
 			}
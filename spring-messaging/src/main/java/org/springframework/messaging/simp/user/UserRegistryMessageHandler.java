@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,8 +29,10 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
+import org.springframework.util.MimeTypeUtils;
 
 /**
  * {@code MessageHandler} that handles user registry broadcasts from other
@@ -59,6 +61,10 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 
 	private long registryExpirationPeriod = TimeUnit.SECONDS.toMillis(20);
 
+	private boolean incrementalBroadcast;
+
+	private int fullBroadcastInterval = 6;
+
 
 	/**
 	 * Constructor.
@@ -107,9 +113,56 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 		return this.registryExpirationPeriod;
 	}
 
+	/**
+	 * Whether to broadcast only the changes to the local registry since the
+	 * previous broadcast, in a compact binary encoding, with a full update
+	 * every {@link #setFullBroadcastInterval fullBroadcastInterval} broadcasts.
+	 * <p>By default this is set to {@code false} in which case every broadcast
+	 * is a full snapshot converted with the broker template's message converter.
+	 * Incremental broadcasts are always accepted, so this should only be enabled
+	 * once all servers have been upgraded to a version that understands them.
+	 * @param incrementalBroadcast whether to broadcast incremental updates
+	 * @since 6.0
+	 */
+	public void setIncrementalBroadcast(boolean incrementalBroadcast) {
+		this.incrementalBroadcast = incrementalBroadcast;
+	}
+
+	/**
+	 * Whether incremental broadcasts are enabled.
+	 * @since 6.0
+	 */
+	public boolean isIncrementalBroadcast() {
+		return this.incrementalBroadcast;
+	}
+
+	/**
+	 * Configure how often, in number of broadcasts, a full update is sent in
+	 * {@link #setIncrementalBroadcast incremental} mode, allowing servers that
+	 * joined later or missed an update to resynchronize.
+	 * <p>By default this is set to 6, i.e. every minute with the default
+	 * expiration period.
+	 * @param fullBroadcastInterval the number of broadcasts between full updates
+	 * @since 6.0
+	 */
+	public void setFullBroadcastInterval(int fullBroadcastInterval) {
+		Assert.isTrue(fullBroadcastInterval > 0, "'fullBroadcastInterval' must be greater than 0");
+		this.fullBroadcastInterval = fullBroadcastInterval;
+	}
+
+	/**
+	 * Return the configured full broadcast interval.
+	 * @since 6.0
+	 */
+	public int getFullBroadcastInterval() {
+		return this.fullBroadcastInterval;
+	}
+
 
 	@Override
 	public void onApplicationEvent(BrokerAvailabilityEvent event) {
+		// Broadcasts may have been lost while the broker was unavailable
+		this.schedulerTask.requestFullUpdate();
 		if (event.isBrokerAvailable()) {
 			long delay = getRegistryExpirationPeriod() / 2;
 			this.scheduledFuture = this.scheduler.scheduleWithFixedDelay(this.schedulerTask, delay);
@@ -132,14 +185,40 @@ public class UserRegistryMessageHandler implements MessageHandler, ApplicationLi
 
 	private class UserRegistryTask implements Runnable {
 
+		private int broadcastCount;
+
+		private volatile boolean fullUpdateRequested;
+
+		/**
+		 * Start over with a full update on the next run, without changes
+		 * relative to previous broadcasts.
+		 */
+		public void requestFullUpdate() {
+			this.fullUpdateRequested = true;
+		}
+
 		@Override
 		public void run() {
+			if (this.fullUpdateRequested) {
+				this.fullUpdateRequested = false;
+				this.broadcastCount = 0;
+				userRegistry.resetLocalRegistryUpdates();
+			}
 			try {
 				SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				accessor.setHeader(SimpMessageHeaderAccessor.IGNORE_ERROR, true);
 				accessor.setLeaveMutable(true);
-				Object payload = userRegistry.getLocalRegistryDto();
-				brokerTemplate.convertAndSend(getBroadcastDestination(), payload, accessor.getMessageHeaders());
+				if (isIncrementalBroadcast()) {
+					boolean fullUpdate = (this.broadcastCount++ % getFullBroadcastInterval() == 0);
+					byte[] payload = userRegistry.getLocalRegistryUpdate(fullUpdate);
+					accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+					brokerTemplate.send(getBroadcastDestination(),
+							MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+				}
+				else {
+					Object payload = userRegistry.getLocalRegistryDto();
+					brokerTemplate.convertAndSend(getBroadcastDestination(), payload, accessor.getMessageHeaders());
+				}
 			}
 			finally {
 				userRegistry.purgeExpiredRegistries();
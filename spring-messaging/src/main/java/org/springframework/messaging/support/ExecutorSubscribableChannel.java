@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,15 @@ package org.springframework.messaging.support;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -26,21 +34,59 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * A {@link SubscribableChannel} that sends messages to each of its subscribers.
  *
+ * <p>By default, when an {@link Executor} is configured, each message is
+ * submitted to it once per subscriber. Alternatively, a number of
+ * {@link #setDispatchWorkers dispatch workers} can be configured, in which
+ * case messages are queued per worker and each worker drains its queue in
+ * batches, handing each message to all subscribers, with a single executor
+ * task per batch. An {@link #setAffinityHeader affinity header} can be used
+ * to assign all messages with the same header value, e.g. the same session,
+ * to the same worker, so that they are handled in the order they were sent.
+ * The queue of each worker is bounded, and messages that do not fit are
+ * passed to the rejection policy of the executor, or rejected if they have
+ * an affinity header, so that they cannot be handled out of order.
+ *
  * @author Phillip Webb
  * @author Rossen Stoyanchev
  * @since 4.0
  */
 public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 
+	private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+	private static final int DEFAULT_WORKER_QUEUE_CAPACITY = 10000;
+
+	private static final boolean threadPoolTaskExecutorPresent = ClassUtils.isPresent(
+			"org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor",
+			ExecutorSubscribableChannel.class.getClassLoader());
+
+
 	@Nullable
 	private final Executor executor;
 
 	private final List<ExecutorChannelInterceptor> executorInterceptors = new ArrayList<>(4);
 
+	private int dispatchWorkers;
+
+	@Nullable
+	private String affinityHeader;
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	private int workerQueueCapacity = DEFAULT_WORKER_QUEUE_CAPACITY;
+
+	@Nullable
+	private volatile DispatchWorker[] workers;
+
+	private final AtomicInteger nextWorkerIndex = new AtomicInteger();
+
 
 	/**
 	 * Create a new {@link ExecutorSubscribableChannel} instance
@@ -66,6 +112,130 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 		return this.executor;
 	}
 
+	/**
+	 * Configure the number of workers to dispatch messages through, each
+	 * draining its own queue of messages in batches on the configured
+	 * {@link #getExecutor() executor}.
+	 * <p>A worker relies on the executor to either run or reject each of its
+	 * tasks. An executor whose rejection policy silently discards tasks, i.e.
+	 * a {@link ThreadPoolExecutor.DiscardPolicy} or
+	 * {@link ThreadPoolExecutor.DiscardOldestPolicy}, would stall the worker
+	 * and is therefore not supported.
+	 * <p>By default this is set to 0 in which case every message is submitted
+	 * to the executor once per subscriber. This setting has no effect if the
+	 * channel has no executor.
+	 * @param dispatchWorkers the number of workers
+	 * @since 6.0
+	 * @see #setAffinityHeader
+	 */
+	public void setDispatchWorkers(int dispatchWorkers) {
+		Assert.isTrue(dispatchWorkers >= 0, "'dispatchWorkers' must not be negative");
+		this.dispatchWorkers = dispatchWorkers;
+		this.workers = null;
+	}
+
+	/**
+	 * Return the configured number of dispatch workers.
+	 * @since 6.0
+	 */
+	public int getDispatchWorkers() {
+		return this.dispatchWorkers;
+	}
+
+	/**
+	 * Configure the name of a header whose value determines the dispatch
+	 * worker for a message. Messages with the same header value are handled
+	 * by the same worker one at a time, in the order they were sent, while
+	 * messages without the header are spread across workers.
+	 * <p>If the queue of the worker is full, a message with the header is
+	 * rejected with a {@link MessageDeliveryException}, rather than passed to
+	 * the rejection policy of the executor, which could handle it ahead of the
+	 * messages still queued.
+	 * <p>By default this is not set and all messages are spread across workers.
+	 * @param affinityHeader the name of the header
+	 * @since 6.0
+	 * @see #setDispatchWorkers
+	 */
+	public void setAffinityHeader(@Nullable String affinityHeader) {
+		this.affinityHeader = affinityHeader;
+	}
+
+	/**
+	 * Return the configured affinity header name, if any.
+	 * @since 6.0
+	 */
+	@Nullable
+	public String getAffinityHeader() {
+		return this.affinityHeader;
+	}
+
+	/**
+	 * Configure the maximum number of messages a dispatch worker handles in
+	 * a single executor task before it yields and re-submits itself.
+	 * <p>By default this is set to 64.
+	 * @param maxBatchSize the maximum batch size
+	 * @since 6.0
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be greater than 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Return the configured maximum batch size.
+	 * @since 6.0
+	 */
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	/**
+	 * Configure the maximum number of messages each dispatch worker can hold
+	 * in its queue. A message sent to a worker with a full queue is passed to
+	 * the {@link java.util.concurrent.RejectedExecutionHandler rejection policy}
+	 * of the executor, if it is a {@link ThreadPoolExecutor} or a
+	 * {@link ThreadPoolTaskExecutor}, as a task that hands the message to all
+	 * subscribers, e.g. to run it in the sending thread, ahead of the messages
+	 * still queued, or to reject it with an exception. For any other executor,
+	 * the message is rejected with a {@link RejectedExecutionException}.
+	 * Messages with an {@link #setAffinityHeader affinity header} are always
+	 * rejected, since they must not be handled ahead of queued messages.
+	 * <p>By default this is set to 10000.
+	 * @param workerQueueCapacity the queue capacity per worker
+	 * @since 6.0
+	 */
+	public void setWorkerQueueCapacity(int workerQueueCapacity) {
+		Assert.isTrue(workerQueueCapacity > 0, "'workerQueueCapacity' must be greater than 0");
+		this.workerQueueCapacity = workerQueueCapacity;
+	}
+
+	/**
+	 * Return the configured queue capacity per dispatch worker.
+	 * @since 6.0
+	 */
+	public int getWorkerQueueCapacity() {
+		return this.workerQueueCapacity;
+	}
+
+	/**
+	 * Return a snapshot of the time messages spent queued before being handled
+	 * by a {@link #setDispatchWorkers dispatch worker}, aggregated across workers.
+	 * The histogram is empty when dispatch workers are not in use.
+	 * @since 6.0
+	 */
+	public QueueLatencyHistogram getQueueLatencyHistogram() {
+		long[] counts = new long[QueueLatencyHistogram.BUCKET_COUNT];
+		DispatchWorker[] workers = this.workers;
+		if (workers != null) {
+			for (DispatchWorker worker : workers) {
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += worker.latencyCounts.get(i);
+				}
+			}
+		}
+		return new QueueLatencyHistogram(counts);
+	}
+
 	@Override
 	public void setInterceptors(List<ChannelInterceptor> interceptors) {
 		super.setInterceptors(interceptors);
@@ -94,6 +264,10 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 
 	@Override
 	public boolean sendInternal(Message<?> message, long timeout) {
+		if (this.executor != null && this.dispatchWorkers > 0) {
+			getDispatchWorker(message).dispatch(message);
+			return true;
+		}
 		for (MessageHandler handler : getSubscribers()) {
 			SendTask sendTask = new SendTask(message, handler);
 			if (this.executor == null) {
@@ -106,6 +280,233 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 		return true;
 	}
 
+	private DispatchWorker getDispatchWorker(Message<?> message) {
+		DispatchWorker[] workers = this.workers;
+		if (workers == null) {
+			synchronized (this) {
+				workers = this.workers;
+				if (workers == null) {
+					assertNotDiscardingTasks();
+					workers = new DispatchWorker[this.dispatchWorkers];
+					for (int i = 0; i < workers.length; i++) {
+						workers[i] = new DispatchWorker();
+					}
+					this.workers = workers;
+				}
+			}
+		}
+		Object key = getAffinityKey(message);
+		int index = (key != null ? key.hashCode() : this.nextWorkerIndex.getAndIncrement());
+		return workers[(index & Integer.MAX_VALUE) % workers.length];
+	}
+
+	@Nullable
+	private Object getAffinityKey(Message<?> message) {
+		return (this.affinityHeader != null ? message.getHeaders().get(this.affinityHeader) : null);
+	}
+
+	private void assertNotDiscardingTasks() {
+		ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+		if (threadPoolExecutor != null) {
+			RejectedExecutionHandler handler = threadPoolExecutor.getRejectedExecutionHandler();
+			Assert.state(!(handler instanceof ThreadPoolExecutor.DiscardPolicy) &&
+					!(handler instanceof ThreadPoolExecutor.DiscardOldestPolicy),
+					() -> "Dispatch workers require an executor that does not discard tasks, " +
+							"but rejection policy is " + handler.getClass().getName());
+		}
+	}
+
+	@Nullable
+	private ThreadPoolExecutor getThreadPoolExecutor() {
+		if (this.executor instanceof ThreadPoolExecutor threadPoolExecutor) {
+			return threadPoolExecutor;
+		}
+		if (threadPoolTaskExecutorPresent) {
+			return TaskExecutorDelegate.getThreadPoolExecutor(this.executor);
+		}
+		return null;
+	}
+
+
+	/**
+	 * Queue of messages drained in batches on the executor, with each message
+	 * handed to all subscribers before the next one.
+	 */
+	private class DispatchWorker implements Runnable {
+
+		private final Queue<QueuedMessage> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger queueSize = new AtomicInteger();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final AtomicLongArray latencyCounts = new AtomicLongArray(QueueLatencyHistogram.BUCKET_COUNT);
+
+		public void dispatch(Message<?> message) {
+			if (this.queueSize.incrementAndGet() > workerQueueCapacity) {
+				this.queueSize.decrementAndGet();
+				reject(message);
+				return;
+			}
+			this.queue.add(new QueuedMessage(message, System.nanoTime()));
+			schedule();
+		}
+
+		private void reject(Message<?> message) {
+			if (getAffinityKey(message) != null) {
+				// The rejection policy could handle it ahead of the messages still queued
+				throw new MessageDeliveryException(message, "Dispatch worker queue is full");
+			}
+			Runnable task = () -> handleMessage(message);
+			ThreadPoolExecutor threadPoolExecutor = getThreadPoolExecutor();
+			if (threadPoolExecutor == null) {
+				throw new RejectedExecutionException("Dispatch worker queue is full: " + message);
+			}
+			threadPoolExecutor.getRejectedExecutionHandler().rejectedExecution(task, threadPoolExecutor);
+		}
+
+		private void schedule() {
+			// Take the scheduled flag only if the queue is not empty
+			if (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					Assert.state(executor != null, "No Executor");
+					executor.execute(this);
+				}
+				catch (Throwable ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < maxBatchSize; i++) {
+					QueuedMessage queuedMessage = this.queue.poll();
+					if (queuedMessage == null) {
+						break;
+					}
+					this.queueSize.decrementAndGet();
+					long latency = System.nanoTime() - queuedMessage.timestamp();
+					this.latencyCounts.incrementAndGet(QueueLatencyHistogram.getBucket(latency));
+					handleMessage(queuedMessage.message());
+				}
+			}
+			finally {
+				this.scheduled.set(false);
+				schedule();
+			}
+		}
+
+		private void handleMessage(Message<?> message) {
+			for (MessageHandler handler : getSubscribers()) {
+				try {
+					new SendTask(message, handler).run();
+				}
+				catch (Throwable ex) {
+					logger.error("Failed to dispatch " + message, ex);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on spring-context at runtime.
+	 */
+	private static class TaskExecutorDelegate {
+
+		@Nullable
+		static ThreadPoolExecutor getThreadPoolExecutor(@Nullable Executor executor) {
+			return (executor instanceof ThreadPoolTaskExecutor taskExecutor ?
+					taskExecutor.getThreadPoolExecutor() : null);
+		}
+	}
+
+
+	private record QueuedMessage(Message<?> message, long timestamp) {
+	}
+
+
+	/**
+	 * Snapshot of the time messages spent queued before being handled by a
+	 * {@link #setDispatchWorkers dispatch worker}. Bucket 0 counts latencies
+	 * below 1 microsecond, and each following bucket {@code i} counts latencies
+	 * of at least 2<sup>i-1</sup> and less than 2<sup>i</sup> microseconds, with
+	 * the last bucket also counting all greater latencies.
+	 * @since 6.0
+	 */
+	public static final class QueueLatencyHistogram {
+
+		static final int BUCKET_COUNT = 32;
+
+		private final long[] counts;
+
+		QueueLatencyHistogram(long[] counts) {
+			this.counts = counts;
+		}
+
+		static int getBucket(long latencyNanos) {
+			long micros = Math.max(latencyNanos, 0) / 1000;
+			return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+		}
+
+		/**
+		 * Return the count of messages per bucket.
+		 */
+		public long[] getCounts() {
+			return this.counts.clone();
+		}
+
+		/**
+		 * Return the exclusive upper bound of the given bucket in microseconds,
+		 * or {@link Long#MAX_VALUE} for the last bucket.
+		 */
+		public long getUpperBoundMicros(int bucket) {
+			return (bucket < BUCKET_COUNT - 1 ? 1L << bucket : Long.MAX_VALUE);
+		}
+
+		/**
+		 * Return the total number of messages recorded.
+		 */
+		public long getTotalCount() {
+			long total = 0;
+			for (long count : this.counts) {
+				total += count;
+			}
+			return total;
+		}
+
+		/**
+		 * Return the upper bound, in microseconds, of the bucket that contains
+		 * the given percentile, or 0 if no messages were recorded.
+		 * @param percentile a percentile between 0 and 100
+		 */
+		public long getPercentileMicros(double percentile) {
+			Assert.isTrue(percentile >= 0 && percentile <= 100, "'percentile' must be between 0 and 100");
+			long total = getTotalCount();
+			if (total == 0) {
+				return 0;
+			}
+			long threshold = (long) Math.ceil(total * percentile / 100);
+			long count = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				count += this.counts[i];
+				if (count >= threshold && count > 0) {
+					return getUpperBoundMicros(i);
+				}
+			}
+			return getUpperBoundMicros(BUCKET_COUNT - 1);
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getTotalCount() + ", p50<" + getPercentileMicros(50) + "us" +
+					", p99<" + getPercentileMicros(99) + "us" + ", max<" + getPercentileMicros(100) + "us";
+		}
+	}
+
 
 	/**
 	 * Invoke a MessageHandler with ExecutorChannelInterceptors.
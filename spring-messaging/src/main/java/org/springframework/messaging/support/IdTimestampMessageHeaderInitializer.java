@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.messaging.support;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.IdGenerator;
+import org.springframework.util.SequentialIdGenerator;
 
 /**
  * A {@link org.springframework.messaging.support.MessageHeaderInitializer MessageHeaderInitializer}
@@ -44,6 +45,7 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 	 * <p>By default this property is set to {@code null} in which case the default
 	 * IdGenerator of {@link org.springframework.messaging.MessageHeaders} is used.
 	 * <p>To have no ids generated at all, see {@link #setDisableIdGeneration()}.
+	 * For cheaper, sequential ids, see {@link #setSequentialIdGeneration()}.
 	 */
 	public void setIdGenerator(@Nullable IdGenerator idGenerator) {
 		this.idGenerator = idGenerator;
@@ -65,6 +67,16 @@ public class IdTimestampMessageHeaderInitializer implements MessageHeaderInitial
 		this.idGenerator = ID_VALUE_NONE_GENERATOR;
 	}
 
+	/**
+	 * A shortcut for calling {@link #setIdGenerator} with a
+	 * {@link SequentialIdGenerator}, which generates ids with a single atomic
+	 * increment rather than from random bytes per message.
+	 * @since 6.0
+	 */
+	public void setSequentialIdGeneration() {
+		this.idGenerator = new SequentialIdGenerator();
+	}
+
 	/**
 	 * Whether to enable the automatic addition of the
 	 * {@link org.springframework.messaging.MessageHeaders#TIMESTAMP} header on
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,6 +49,10 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 	public static final String NATIVE_HEADERS = "nativeHeaders";
 
 
+	@Nullable
+	private Map<String, List<String>> sharedNativeHeaders;
+
+
 	/**
 	 * Protected constructor to create a new instance.
 	 */
@@ -75,9 +79,16 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 			@SuppressWarnings("unchecked")
 			Map<String, List<String>> map = (Map<String, List<String>>) getHeader(NATIVE_HEADERS);
 			if (map != null) {
-				// setHeader checks for equality but we need copy of native headers
-				setHeader(NATIVE_HEADERS, null);
-				setHeader(NATIVE_HEADERS, new LinkedMultiValueMap<>(map));
+				NativeMessageHeaderAccessor accessor = getAccessor(message, NativeMessageHeaderAccessor.class);
+				if (accessor != null && !accessor.isMutable()) {
+					// Read-only native headers: copy on first modification
+					this.sharedNativeHeaders = map;
+				}
+				else {
+					// setHeader checks for equality but we need copy of native headers
+					setHeader(NATIVE_HEADERS, null);
+					setHeader(NATIVE_HEADERS, new LinkedMultiValueMap<>(map));
+				}
 			}
 		}
 	}
@@ -92,6 +103,25 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		return (Map<String, List<String>>) getHeader(NATIVE_HEADERS);
 	}
 
+	/**
+	 * Return the native headers sub-map for modification, copying it first
+	 * if it is still shared with the message this accessor was created from.
+	 */
+	@Nullable
+	private Map<String, List<String>> getWritableNativeHeaders() {
+		Map<String, List<String>> map = getNativeHeaders();
+		if (map != null && map == this.sharedNativeHeaders) {
+			LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>(map.size());
+			map.forEach((name, values) -> copy.put(name, new ArrayList<>(values)));
+			map = copy;
+			// setHeader checks for equality but we need copy of native headers
+			setHeader(NATIVE_HEADERS, null);
+			setHeader(NATIVE_HEADERS, map);
+		}
+		this.sharedNativeHeaders = null;
+		return map;
+	}
+
 	/**
 	 * Return a copy of the native headers sub-map, or an empty map.
 	 */
@@ -104,7 +134,7 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 	public void setImmutable() {
 		if (isMutable()) {
 			Map<String, List<String>> map = getNativeHeaders();
-			if (map != null) {
+			if (map != null && map != this.sharedNativeHeaders) {
 				// setHeader checks for equality but we need immutable wrapper
 				setHeader(NATIVE_HEADERS, null);
 				setHeader(NATIVE_HEADERS, Collections.unmodifiableMap(map));
@@ -192,10 +222,11 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		if (value == null) {
 			if (map != null && map.get(name) != null) {
 				setModified(true);
-				map.remove(name);
+				getWritableNativeHeaders().remove(name);
 			}
 			return;
 		}
+		map = getWritableNativeHeaders();
 		if (map == null) {
 			map = new LinkedMultiValueMap<>(3);
 			setHeader(NATIVE_HEADERS, map);
@@ -218,10 +249,11 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		if (values == null) {
 			if (map != null && map.get(name) != null) {
 				setModified(true);
-				map.remove(name);
+				getWritableNativeHeaders().remove(name);
 			}
 			return;
 		}
+		map = getWritableNativeHeaders();
 		if (map == null) {
 			map = new LinkedMultiValueMap<>(3);
 			setHeader(NATIVE_HEADERS, map);
@@ -244,7 +276,7 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		if (value == null) {
 			return;
 		}
-		Map<String, List<String>> nativeHeaders = getNativeHeaders();
+		Map<String, List<String>> nativeHeaders = getWritableNativeHeaders();
 		if (nativeHeaders == null) {
 			nativeHeaders = new LinkedMultiValueMap<>(3);
 			setHeader(NATIVE_HEADERS, nativeHeaders);
@@ -276,10 +308,10 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 	public List<String> removeNativeHeader(String headerName) {
 		Assert.state(isMutable(), "Already immutable");
 		Map<String, List<String>> nativeHeaders = getNativeHeaders();
-		if (CollectionUtils.isEmpty(nativeHeaders)) {
+		if (CollectionUtils.isEmpty(nativeHeaders) || !nativeHeaders.containsKey(headerName)) {
 			return null;
 		}
-		return nativeHeaders.remove(headerName);
+		return getWritableNativeHeaders().remove(headerName);
 	}
 
 
@@ -87,6 +87,8 @@ public class ReactorNettyTcpClient<P> implements TcpOperations<P> {
 
 	private Log logger = LogFactory.getLog(ReactorNettyTcpClient.class);
 
+	private boolean pipelinedWrites;
+
 	private volatile boolean stopping;
 
 
@@ -177,6 +179,27 @@ public class ReactorNettyTcpClient<P> implements TcpOperations<P> {
 		return logger;
 	}
 
+	/**
+	 * Whether connections should pipeline writes, i.e. queue messages sent
+	 * concurrently and write them from the event loop with a single flush,
+	 * rather than a write and a flush per message. This reduces system calls
+	 * when many messages are sent over the same connection.
+	 * <p>By default this is set to {@code false}.
+	 * @param pipelinedWrites whether to pipeline writes
+	 * @since 6.0
+	 */
+	public void setPipelinedWrites(boolean pipelinedWrites) {
+		this.pipelinedWrites = pipelinedWrites;
+	}
+
+	/**
+	 * Whether connections pipeline writes.
+	 * @since 6.0
+	 */
+	public boolean isPipelinedWrites() {
+		return this.pipelinedWrites;
+	}
+
 
 	@Override
 	public ListenableFuture<Void> connect(final TcpConnectionHandler<P> handler) {
@@ -317,7 +340,8 @@ public class ReactorNettyTcpClient<P> implements TcpOperations<P> {
 				}
 			});
 			Sinks.Empty<Void> completionSink = Sinks.empty();
-			TcpConnection<P> connection = new ReactorNettyTcpConnection<>(inbound, outbound,  codec, completionSink);
+			TcpConnection<P> connection = new ReactorNettyTcpConnection<>(
+					inbound, outbound, codec, completionSink, pipelinedWrites);
 			scheduler.schedule(() -> this.connectionHandler.afterConnected(connection));
 
 			inbound.withConnection(conn -> conn.addHandlerFirst(new StompMessageDecoder<>(codec)));
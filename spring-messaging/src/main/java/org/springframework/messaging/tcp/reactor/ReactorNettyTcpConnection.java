@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,25 @@
 
 package org.springframework.messaging.tcp.reactor;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.netty.NettyInbound;
 import reactor.netty.NettyOutbound;
 
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.tcp.TcpConnection;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.MonoToListenableFutureAdapter;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 /**
  * Reactor Netty based implementation of {@link TcpConnection}.
@@ -44,14 +53,38 @@ public class ReactorNettyTcpConnection<P> implements TcpConnection<P> {
 
 	private final Sinks.Empty<Void> completionSink;
 
+	@Nullable
+	private Channel channel;
+
+	private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
 
 	public ReactorNettyTcpConnection(NettyInbound inbound, NettyOutbound outbound,
 			ReactorNettyCodec<P> codec, Sinks.Empty<Void> completionSink) {
 
+		this(inbound, outbound, codec, completionSink, false);
+	}
+
+	/**
+	 * Variant of {@link #ReactorNettyTcpConnection(NettyInbound, NettyOutbound,
+	 * ReactorNettyCodec, Sinks.Empty)} with the option to pipeline writes.
+	 * When enabled, messages sent concurrently are queued and written from the
+	 * event loop of the channel with a single flush for all messages written
+	 * together, rather than a write and a flush per message.
+	 * @since 6.0
+	 */
+	public ReactorNettyTcpConnection(NettyInbound inbound, NettyOutbound outbound,
+			ReactorNettyCodec<P> codec, Sinks.Empty<Void> completionSink, boolean pipelinedWrites) {
+
 		this.inbound = inbound;
 		this.outbound = outbound;
 		this.codec = codec;
 		this.completionSink = completionSink;
+		if (pipelinedWrites) {
+			inbound.withConnection(conn -> this.channel = conn.channel());
+		}
 	}
 
 
@@ -59,10 +92,58 @@ public class ReactorNettyTcpConnection<P> implements TcpConnection<P> {
 	public ListenableFuture<Void> send(Message<P> message) {
 		ByteBuf byteBuf = this.outbound.alloc().buffer();
 		this.codec.encode(message, byteBuf);
+		Channel channel = this.channel;
+		if (channel != null) {
+			SettableListenableFuture<Void> future = new SettableListenableFuture<>();
+			this.pendingWrites.add(new PendingWrite(byteBuf, future));
+			if (this.writeScheduled.compareAndSet(false, true)) {
+				try {
+					channel.eventLoop().execute(this::writePendingMessages);
+				}
+				catch (RejectedExecutionException ex) {
+					this.writeScheduled.set(false);
+					failPendingWrites(ex);
+				}
+			}
+			return future;
+		}
 		Mono<Void> sendCompletion = this.outbound.send(Mono.just(byteBuf)).then();
 		return new MonoToListenableFutureAdapter<>(sendCompletion);
 	}
 
+	/**
+	 * Write all queued messages and flush once. Invoked on the event loop.
+	 */
+	private void writePendingMessages() {
+		Channel channel = this.channel;
+		if (channel == null) {
+			return;
+		}
+		// Reset first: messages queued from here on schedule another pass
+		this.writeScheduled.set(false);
+		PendingWrite write;
+		while ((write = this.pendingWrites.poll()) != null) {
+			SettableListenableFuture<Void> future = write.future();
+			channel.write(write.byteBuf()).addListener((ChannelFutureListener) result -> {
+				if (result.isSuccess()) {
+					future.set(null);
+				}
+				else {
+					future.setException(result.cause());
+				}
+			});
+		}
+		channel.flush();
+	}
+
+	private void failPendingWrites(Throwable ex) {
+		PendingWrite write;
+		while ((write = this.pendingWrites.poll()) != null) {
+			write.byteBuf().release();
+			write.future().setException(ex);
+		}
+	}
+
 	@Override
 	public void onReadInactivity(Runnable runnable, long inactivityDuration) {
 		this.inbound.withConnection(conn -> conn.onReadIdle(inactivityDuration, runnable));
@@ -79,4 +160,8 @@ public class ReactorNettyTcpConnection<P> implements TcpConnection<P> {
 		this.completionSink.tryEmitEmpty();
 	}
 
+
+	private record PendingWrite(ByteBuf byteBuf, SettableListenableFuture<Void> future) {
+	}
+
 }
@@ -199,4 +199,92 @@ public class MessageHeadersTests {
 		assertThat(headers.size()).isEqualTo(1);
 	}
 
+	@Test
+	public void copyFromMessageHeaders() throws Exception {
+		Map<String, Object> map = new HashMap<>();
+		map.put("name", "joe");
+		map.put("age", 42);
+		MessageHeaders original = new MessageHeaders(map);
+		MessageHeaders copy = new MessageHeaders(original);
+		assertThat(copy.getId()).isNotEqualTo(original.getId());
+		assertThat(copy).hasSize(4).containsEntry("name", "joe").containsEntry("age", 42);
+
+		MessageHeaders output = SerializationTestUtils.serializeAndDeserialize(copy);
+		assertThat(output).isEqualTo(copy);
+		assertThat(output.hashCode()).isEqualTo(copy.hashCode());
+	}
+
+	@Test
+	public void copyFromMessageHeadersIsIndependent() {
+		@SuppressWarnings("serial")
+		class MyMH extends MessageHeaders {
+			public MyMH(Map<String, Object> headers) {
+				super(headers, ID_VALUE_NONE, -1L);
+			}
+			public Map<String, Object> raw() {
+				return getRawHeaders();
+			}
+		}
+		Map<String, Object> map = new HashMap<>();
+		for (int i = 0; i < 20; i++) {
+			map.put("key" + i, i);
+		}
+		MyMH original = new MyMH(map);
+		MyMH copy = new MyMH(original);
+		copy.raw().put("key0", "changed");
+		copy.raw().remove("key1");
+		copy.raw().put("added", "value");
+		original.raw().put("key2", "changed");
+
+		assertThat(original).hasSize(20).containsEntry("key0", 0).containsEntry("key1", 1)
+				.containsEntry("key2", "changed").doesNotContainKey("added");
+		assertThat(copy).hasSize(20).containsEntry("key0", "changed").doesNotContainKey("key1")
+				.containsEntry("key2", 2).containsEntry("added", "value");
+		assertThat(copy.keySet()).hasSize(20).contains("added").doesNotContain("key1");
+
+		// Enough changes to merge into a new base map
+		for (int i = 0; i < 20; i++) {
+			copy.raw().put("key" + i, "merged");
+		}
+		assertThat(copy).hasSize(21).containsEntry("key1", "merged");
+		assertThat(original).hasSize(20).containsEntry("key1", 1);
+		copy.raw().entrySet().removeIf(entry -> !entry.getKey().startsWith("key"));
+		assertThat(copy).hasSize(20).doesNotContainKey("added");
+	}
+
+	@Test
+	public void iterateCopyFromMessageHeaders() {
+		@SuppressWarnings("serial")
+		class MyMH extends MessageHeaders {
+			public MyMH(Map<String, Object> headers) {
+				super(headers, ID_VALUE_NONE, -1L);
+			}
+			public Map<String, Object> raw() {
+				return getRawHeaders();
+			}
+		}
+		Map<String, Object> map = new HashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+		map.put("c", 3);
+		MyMH original = new MyMH(map);
+		MyMH copy = new MyMH(original);
+		copy.raw().put("a", null);
+		copy.raw().remove("b");
+		copy.raw().put("d", 4);
+
+		assertThat(copy.keySet()).containsExactlyInAnyOrder("a", "c", "d");
+		assertThat(copy.values()).containsExactlyInAnyOrder(null, 3, 4);
+		assertThat(copy.entrySet()).hasSize(3);
+
+		// Changes through the entries do not affect the ongoing iteration
+		for (Map.Entry<String, Object> entry : copy.raw().entrySet()) {
+			entry.setValue(entry.getKey());
+			copy.raw().put("e", 5);
+		}
+		assertThat(copy).hasSize(4).containsEntry("a", "a").containsEntry("c", "c")
+				.containsEntry("d", "d").containsEntry("e", 5);
+		assertThat(original).hasSize(3).containsEntry("a", 1).containsEntry("b", 2).containsEntry("c", 3);
+	}
+
 }
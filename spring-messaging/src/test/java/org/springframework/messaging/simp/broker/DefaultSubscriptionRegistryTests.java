@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +29,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -271,6 +273,61 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(actual.size()).as("Expected no elements " + actual).isEqualTo(0);
 	}
 
+	@Test
+	public void registerSubscriptionsWithPatternsSharingPrefix() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/orders/{id}/**"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/orders/{id}/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/orders/42/*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs04", "/queue/orders/**"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs02", "/**/status"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/orders/42/status"));
+		assertThat(actual).containsOnlyKeys("sess01", "sess02");
+		assertThat(actual.get("sess01")).containsExactlyInAnyOrder("subs01", "subs02", "subs03");
+		assertThat(actual.get("sess02")).containsExactlyInAnyOrder("subs01", "subs02");
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/orders/7/items/1"));
+		assertThat(actual).containsOnlyKeys("sess01", "sess02");
+		assertThat(actual.get("sess01")).containsExactlyInAnyOrder("subs01", "subs03");
+		assertThat(actual.get("sess02")).containsExactly("subs01");
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs01"));
+		this.registry.unregisterAllSubscriptions("sess02");
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/orders/7/status"));
+		assertThat(actual).containsOnlyKeys("sess01");
+		assertThat(actual.get("sess01")).containsExactly("subs03");
+	}
+
+	@Test
+	public void registerSubscriptionsWithCustomPathSeparator() {
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "price.stock.*.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "price.stock.nasdaq.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "price.bond.*"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("price.stock.nasdaq.ibm"));
+		assertThat(actual).containsOnlyKeys("sess01");
+		assertThat(actual.get("sess01")).containsExactlyInAnyOrder("subs01", "subs02");
+
+		actual = this.registry.findSubscriptions(createMessage("price.stock.nyse.ibm"));
+		assertThat(actual.get("sess01")).containsExactly("subs01");
+	}
+
+	@Test
+	public void registerSubscriptionsWithCaseInsensitivePathMatcher() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/PRICE.STOCK.*"));
+
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/TOPIC/price.stock.ibm"));
+		assertThat(actual).containsOnlyKeys("sess01");
+		assertThat(actual.get("sess01")).containsExactly("subs01");
+	}
+
 	@Test
 	public void registerSubscriptionWithSelector() {
 		String sessionId = "sess01";
@@ -388,6 +445,27 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(sort(actual.get(sessIds.get(2)))).isEqualTo(subscriptionIds);
 	}
 
+	@Test
+	public void unregisterAllSubscriptionsConcurrentlyWithSubscribe() throws Exception {
+		for (int i = 0; i < 200; i++) {
+			String sessId = "sess" + i;
+			String dest = "/foo/" + i;
+			CountDownLatch start = new CountDownLatch(1);
+			Thread subscriber = new Thread(() -> {
+				awaitUninterruptibly(start);
+				this.registry.registerSubscription(subscribeMessage(sessId, "subs", dest));
+			});
+			subscriber.start();
+			start.countDown();
+			this.registry.unregisterAllSubscriptions(sessId);
+			subscriber.join();
+
+			// Whichever came first, unregistering now must leave nothing behind
+			this.registry.unregisterAllSubscriptions(sessId);
+			assertThat(this.registry.findSubscriptions(createMessage(dest))).isEmpty();
+		}
+	}
+
 	@Test
 	public void unregisterAllSubscriptionsNoMatch() {
 		this.registry.unregisterAllSubscriptions("bogus");
@@ -453,6 +531,15 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(this.registry.findSubscriptions(createMessage("/bar")).size()).isEqualTo(2);
 	}
 
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ package org.springframework.messaging.simp.broker;
 import java.security.Principal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledFuture;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -112,6 +114,81 @@ public class SimpleBrokerMessageHandlerTests {
 		assertThat(messageCaptured("sess2", "sub3", "/bar")).isTrue();
 	}
 
+	@Test
+	public void subscribePublishWithDeliveryShards() throws Exception {
+		Queue<Message<?>> sent = new ConcurrentLinkedQueue<>();
+		MessageChannel outChannel = (message, timeout) -> sent.add(message);
+		this.messageHandler = new SimpleBrokerMessageHandler(
+				this.clientInChannel, outChannel, this.brokerChannel, Collections.emptyList());
+		this.messageHandler.setDeliveryShards(3);
+		this.messageHandler.start();
+
+		List<String> sessionIds = List.of("sess1", "sess2", "sess3", "sess4", "sess5");
+		for (String sessionId : sessionIds) {
+			this.messageHandler.handleMessage(createConnectMessage(sessionId, new TestPrincipal("joe"), null));
+			this.messageHandler.handleMessage(createSubscriptionMessage(sessionId, "sub1", "/foo"));
+		}
+		for (int i = 0; i < 20; i++) {
+			this.messageHandler.handleMessage(createMessage("/foo", "message" + i));
+		}
+		this.messageHandler.stop();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (countMessages(sent) < 100 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(countMessages(sent)).isEqualTo(100);
+		for (String sessionId : sessionIds) {
+			List<Object> payloads = sent.stream()
+					.filter(message -> SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders())))
+					.filter(message -> sessionId.equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())))
+					.<Object>map(Message::getPayload)
+					.toList();
+			assertThat(payloads).hasSize(20);
+			for (int i = 0; i < 20; i++) {
+				assertThat(payloads.get(i)).isEqualTo("message" + i);
+			}
+		}
+	}
+
+	@Test
+	public void connectAndDisconnectAckOrderedWithDeliveryShards() throws Exception {
+		Queue<Message<?>> sent = new ConcurrentLinkedQueue<>();
+		MessageChannel outChannel = (message, timeout) -> sent.add(message);
+		this.messageHandler = new SimpleBrokerMessageHandler(
+				this.clientInChannel, outChannel, this.brokerChannel, Collections.emptyList());
+		this.messageHandler.setDeliveryShards(2);
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createConnectMessage("sess1", new TestPrincipal("joe"), null));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		for (int i = 0; i < 20; i++) {
+			this.messageHandler.handleMessage(createMessage("/foo", "message" + i));
+		}
+		SimpMessageHeaderAccessor disconnect = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+		disconnect.setSessionId("sess1");
+		this.messageHandler.handleMessage(MessageBuilder.createMessage("", disconnect.getMessageHeaders()));
+		this.messageHandler.stop();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (sent.size() < 22 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		List<SimpMessageType> types = sent.stream()
+				.map(message -> SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))
+				.toList();
+		assertThat(types).hasSize(22);
+		assertThat(types.get(0)).isEqualTo(SimpMessageType.CONNECT_ACK);
+		assertThat(types.subList(1, 21)).containsOnly(SimpMessageType.MESSAGE);
+		assertThat(types.get(21)).isEqualTo(SimpMessageType.DISCONNECT_ACK);
+	}
+
+	private long countMessages(Queue<Message<?>> sent) {
+		return sent.stream()
+				.filter(message -> SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders())))
+				.count();
+	}
+
 	@Test
 	public void subscribeDisconnectPublish() {
 		String sess1 = "sess1";
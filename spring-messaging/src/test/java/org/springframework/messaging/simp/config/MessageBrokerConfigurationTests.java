@@ -209,6 +209,25 @@ public class MessageBrokerConfigurationTests {
 		assertThat(broker.isPreservePublishOrder()).isTrue();
 	}
 
+	@Test
+	public void clientChannelsWithSessionAffinity() {
+		ApplicationContext context = loadConfig(SessionAffinityConfig.class);
+
+		ExecutorSubscribableChannel inboundChannel = context.getBean(
+				"clientInboundChannel", ExecutorSubscribableChannel.class);
+		assertThat(inboundChannel.getDispatchWorkers()).isEqualTo(4);
+		assertThat(inboundChannel.getAffinityHeader()).isEqualTo(SimpMessageHeaderAccessor.SESSION_ID_HEADER);
+
+		ExecutorSubscribableChannel outboundChannel = context.getBean(
+				"clientOutboundChannel", ExecutorSubscribableChannel.class);
+		assertThat(outboundChannel.getDispatchWorkers()).isEqualTo(8);
+		assertThat(outboundChannel.getAffinityHeader()).isEqualTo(SimpMessageHeaderAccessor.SESSION_ID_HEADER);
+
+		ExecutorSubscribableChannel brokerChannel = context.getBean(
+				"brokerChannel", ExecutorSubscribableChannel.class);
+		assertThat(brokerChannel.getDispatchWorkers()).isEqualTo(0);
+	}
+
 	@Test
 	public void brokerChannel() {
 		ApplicationContext context = loadConfig(SimpleBrokerConfig.class);
@@ -672,6 +691,21 @@ public class MessageBrokerConfigurationTests {
 	}
 
 
+	@Configuration
+	static class SessionAffinityConfig extends BaseTestMessageBrokerConfig {
+
+		@Override
+		protected void configureClientInboundChannel(ChannelRegistration registration) {
+			registration.sessionAffinity(4);
+		}
+
+		@Override
+		protected void configureClientOutboundChannel(ChannelRegistration registration) {
+			registration.sessionAffinity(8);
+		}
+	}
+
+
 	@Configuration
 	static abstract class BaseDotSeparatorConfig extends BaseTestMessageBrokerConfig {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageType;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -140,6 +141,35 @@ public class BufferingStompDecoderTests {
 		assertThat(stompDecoder.getExpectedContentLength()).isNull();
 	}
 
+	@Test
+	public void oneMessageInManyChunks() throws InterruptedException {
+		BufferingStompDecoder stompDecoder = new BufferingStompDecoder(STOMP_DECODER, 128);
+		String frame = "SEND\ndestination:/topic/prices\na:alpha\n\nMessage body\0";
+
+		for (int i = 0; i < frame.length() - 1; i++) {
+			List<Message<byte[]>> messages = stompDecoder.decode(toByteBuffer(frame.substring(i, i + 1)));
+			assertThat(messages).isEmpty();
+			assertThat(stompDecoder.getBufferSize()).isEqualTo(i + 1);
+		}
+
+		List<Message<byte[]>> messages = stompDecoder.decode(toByteBuffer("\0" + "\n" + "SEND\na:alpha\n\nMess"));
+		assertThat(messages.size()).isEqualTo(1);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertThat(headers.getDestination()).isEqualTo("/topic/prices");
+		assertThat(headers.getFirstNativeHeader("a")).isEqualTo("alpha");
+		assertThat(new String(messages.get(0).getPayload())).isEqualTo("Message body");
+		assertThat(stompDecoder.getBufferSize()).isEqualTo(18);
+
+		messages = stompDecoder.decode(toByteBuffer("age body\0"));
+		assertThat(messages.size()).isEqualTo(1);
+		assertThat(new String(messages.get(0).getPayload())).isEqualTo("Message body");
+		assertThat(stompDecoder.getBufferSize()).isEqualTo(0);
+
+		messages = stompDecoder.decode(toByteBuffer("\n"));
+		assertThat(messages.size()).isEqualTo(1);
+		assertThat(StompHeaderAccessor.wrap(messages.get(0)).getMessageType()).isEqualTo(SimpMessageType.HEARTBEAT);
+	}
+
 	@Test
 	public void oneFullAndOneSplitWithContentLengthExceedingBufferSize() throws InterruptedException {
 		BufferingStompDecoder stompDecoder = new BufferingStompDecoder(STOMP_DECODER, 128);
@@ -112,6 +112,10 @@ public class StompBrokerRelayMessageHandlerIntegrationTests {
 	}
 
 	private void createAndStartRelay() throws InterruptedException {
+		createAndStartRelay(0);
+	}
+
+	private void createAndStartRelay(int multiplexedConnectionCount) throws InterruptedException {
 		StubMessageChannel channel = new StubMessageChannel();
 		List<String> prefixes = Arrays.asList("/queue/", "/topic/");
 		this.relay = new StompBrokerRelayMessageHandler(channel, this.responseChannel, channel, prefixes);
@@ -120,6 +124,7 @@ public class StompBrokerRelayMessageHandlerIntegrationTests {
 		this.relay.setSystemHeartbeatReceiveInterval(0);
 		this.relay.setSystemHeartbeatSendInterval(0);
 		this.relay.setPreservePublishOrder(true);
+		this.relay.setMultiplexedConnectionCount(multiplexedConnectionCount);
 
 		this.relay.start();
 		this.eventPublisher.expectBrokerAvailabilityEvent(true);
@@ -174,6 +179,44 @@ public class StompBrokerRelayMessageHandlerIntegrationTests {
 		this.responseHandler.expectMessages(send);
 	}
 
+	@Test
+	public void publishSubscribeMultiplexed() throws Exception {
+		logger.debug("Starting test publishSubscribeMultiplexed()");
+
+		this.relay.stop();
+		this.eventPublisher.expectBrokerAvailabilityEvent(false);
+		createAndStartRelay(2);
+
+		String destination = "/topic/test";
+		List<MessageExchange> connects = new ArrayList<>();
+		List<MessageExchange> subscribes = new ArrayList<>();
+		List<MessageExchange> sends = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			String sessionId = "sess" + i;
+			connects.add(MessageExchangeBuilder.connect(sessionId).build());
+			subscribes.add(MessageExchangeBuilder.subscribeWithReceipt(sessionId, "subs1", destination, "r1").build());
+			sends.add(MessageExchangeBuilder.send(destination, "foo").andExpectMessage(sessionId, "subs1").build());
+		}
+		for (MessageExchange connect : connects) {
+			this.relay.handleMessage(connect.message);
+		}
+		this.responseHandler.expectMessages(connects.toArray(new MessageExchange[0]));
+		assertThat(this.relay.getConnectionCount()).isEqualTo(3);
+
+		for (MessageExchange subscribe : subscribes) {
+			this.relay.handleMessage(subscribe.message);
+		}
+		this.responseHandler.expectMessages(subscribes.toArray(new MessageExchange[0]));
+
+		// Each session receives the message on its own subscription
+		this.relay.handleMessage(sends.get(0).message);
+		this.responseHandler.expectMessages(sends.toArray(new MessageExchange[0]));
+
+		MessageExchange disconnect = MessageExchangeBuilder.disconnectWithReceipt("sess0", "r2").build();
+		this.relay.handleMessage(disconnect.message);
+		this.responseHandler.expectMessages(disconnect);
+	}
+
 	@Test
 	public void messageDeliveryExceptionIfSystemSessionForwardFails() throws Exception {
 		logger.debug("Starting test messageDeliveryExceptionIfSystemSessionForwardFails()");
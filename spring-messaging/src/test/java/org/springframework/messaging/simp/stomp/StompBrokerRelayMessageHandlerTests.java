@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -260,6 +260,222 @@ class StompBrokerRelayMessageHandlerTests {
 		assertThat(captor.getValue()).isSameAs(message);
 	}
 
+	@Test
+	void multiplexedSessionsShareConnection() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "jane"));
+
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(2);
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(2);
+		assertThat(this.tcpClient.getSentHeaders(1).getSessionId())
+				.isEqualTo(StompBrokerRelayMessageHandler.MULTIPLEXED_SESSION_ID_PREFIX + 0);
+		assertThat(this.outboundChannel.getMessages()).isEmpty();
+
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(2);
+		StompHeaderAccessor accessor = getOutboundHeaders(0);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.CONNECTED);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+		assertThat(accessor.getUser().getName()).isEqualTo("joe");
+		assertThat(getOutboundHeaders(1).getSessionId()).isEqualTo("sess2");
+	}
+
+	@Test
+	void multiplexedSubscriptionIdsRemapped() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "jane"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "joe", "0", "/topic/foo"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess2", "jane", "0", "/topic/foo"));
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		String subscriptionId1 = this.tcpClient.getSentHeaders(2).getSubscriptionId();
+		String subscriptionId2 = this.tcpClient.getSentHeaders(3).getSubscriptionId();
+		assertThat(this.tcpClient.getSentHeaders(2).getCommand()).isEqualTo(StompCommand.SUBSCRIBE);
+		assertThat(this.tcpClient.getSentHeaders(2).getDestination()).isEqualTo("/topic/foo");
+		assertThat(subscriptionId1).isNotEqualTo(subscriptionId2);
+
+		Message<byte[]> message = message(StompCommand.MESSAGE, null, null, "/topic/foo");
+		StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class).setSubscriptionId(subscriptionId2);
+		this.tcpClient.handleMessage(message);
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(3);
+		StompHeaderAccessor accessor = getOutboundHeaders(2);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.MESSAGE);
+		assertThat(accessor.getSessionId()).isEqualTo("sess2");
+		assertThat(accessor.getUser().getName()).isEqualTo("jane");
+		assertThat(accessor.getSubscriptionId()).isEqualTo("0");
+		assertThat(accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER)).isEqualTo("0");
+	}
+
+	@Test
+	void multiplexedDisconnectUnsubscribes() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "joe", "0", "/topic/foo"));
+		String subscriptionId = this.tcpClient.getSentHeaders(2).getSubscriptionId();
+
+		Message<byte[]> disconnect = message(StompCommand.DISCONNECT, "sess1", "joe", null);
+		StompHeaderAccessor.getAccessor(disconnect, StompHeaderAccessor.class).setReceipt("r1");
+		this.brokerRelay.handleMessage(disconnect);
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		StompHeaderAccessor unsubscribe = this.tcpClient.getSentHeaders(3);
+		assertThat(unsubscribe.getCommand()).isEqualTo(StompCommand.UNSUBSCRIBE);
+		assertThat(unsubscribe.getSubscriptionId()).isEqualTo(subscriptionId);
+		assertThat(unsubscribe.getReceipt()).isNotNull().isNotEqualTo("r1");
+
+		Message<byte[]> receipt = message(StompCommand.RECEIPT, null, null, null);
+		StompHeaderAccessor.getAccessor(receipt, StompHeaderAccessor.class).setReceiptId(unsubscribe.getReceipt());
+		this.tcpClient.handleMessage(receipt);
+
+		StompHeaderAccessor accessor = getOutboundHeaders(this.outboundChannel.getMessages().size() - 1);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.RECEIPT);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+		assertThat(accessor.getReceiptId()).isEqualTo("r1");
+		assertThat(this.brokerRelay.getStats().getTotalHandlers()).isEqualTo(1);
+	}
+
+	@Test
+	void multiplexedConnectionClosedSendsErrorToSessions() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		this.tcpClient.afterConnectionClosed();
+
+		StompHeaderAccessor accessor = getOutboundHeaders(1);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ERROR);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+		assertThat(this.brokerRelay.getStats().getTotalHandlers()).isEqualTo(1);
+	}
+
+	@Test
+	void multiplexedConnectionErrorSentToCausingSession() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "jane"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		String receiptId = this.tcpClient.getSentHeaders(2).getReceipt();
+		assertThat(receiptId).isNotNull();
+
+		Message<byte[]> error = message(StompCommand.ERROR, null, null, null);
+		StompHeaderAccessor errorAccessor = StompHeaderAccessor.getAccessor(error, StompHeaderAccessor.class);
+		errorAccessor.setReceiptId(receiptId);
+		errorAccessor.setMessage("Access refused");
+		this.tcpClient.handleMessage(error);
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(4);
+		StompHeaderAccessor accessor = getOutboundHeaders(2);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ERROR);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+		assertThat(accessor.getMessage()).isEqualTo("Access refused");
+		assertThat(accessor.getReceiptId()).isNull();
+		accessor = getOutboundHeaders(3);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ERROR);
+		assertThat(accessor.getSessionId()).isEqualTo("sess2");
+		assertThat(accessor.getMessage()).isNotEqualTo("Access refused");
+	}
+
+	@Test
+	void multiplexedInvalidFrameRejected() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "jane"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		Message<byte[]> commit = message(StompCommand.COMMIT, "sess1", "joe", null);
+		StompHeaderAccessor.getAccessor(commit, StompHeaderAccessor.class).setNativeHeader("transaction", "tx1");
+		this.brokerRelay.handleMessage(commit);
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(2);
+		assertThat(this.outboundChannel.getMessages()).hasSize(3);
+		StompHeaderAccessor accessor = getOutboundHeaders(2);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ERROR);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void multiplexedAckSubscriptionIdRemapped() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "joe", "0", "/topic/foo"));
+		String subscriptionId = this.tcpClient.getSentHeaders(2).getSubscriptionId();
+
+		Message<byte[]> ack = message(StompCommand.ACK, "sess1", "joe", null);
+		StompHeaderAccessor ackAccessor = StompHeaderAccessor.getAccessor(ack, StompHeaderAccessor.class);
+		ackAccessor.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, "0");
+		ackAccessor.setNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, "m1");
+		this.brokerRelay.handleMessage(ack);
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		StompHeaderAccessor accessor = this.tcpClient.getSentHeaders(3);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ACK);
+		assertThat(accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER)).isEqualTo(subscriptionId);
+		assertThat(accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER)).isEqualTo("m1");
+	}
+
+	@Test
+	void multiplexedDisconnectAbortsTransactions() {
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+
+		Message<byte[]> begin = message(StompCommand.BEGIN, "sess1", "joe", null);
+		StompHeaderAccessor.getAccessor(begin, StompHeaderAccessor.class).setNativeHeader("transaction", "tx1");
+		this.brokerRelay.handleMessage(begin);
+		this.brokerRelay.handleMessage(message(StompCommand.DISCONNECT, "sess1", "joe", null));
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		assertThat(this.tcpClient.getSentHeaders(2).getFirstNativeHeader("transaction")).isEqualTo("sess1:tx1");
+		StompHeaderAccessor accessor = this.tcpClient.getSentHeaders(3);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.ABORT);
+		assertThat(accessor.getFirstNativeHeader("transaction")).isEqualTo("sess1:tx1");
+	}
+
+	@Test
+	void multiplexedSessionPrefersConnectedConnection() {
+		this.brokerRelay.setMultiplexedConnectionCount(2);
+		this.brokerRelay.start();
+
+		// Only the last connection is connected
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(1);
+		StompHeaderAccessor accessor = getOutboundHeaders(0);
+		assertThat(accessor.getCommand()).isEqualTo(StompCommand.CONNECTED);
+		assertThat(accessor.getSessionId()).isEqualTo("sess1");
+	}
+
+	private StompHeaderAccessor getOutboundHeaders(int index) {
+		Message<byte[]> message = this.outboundChannel.getMessages().get(index);
+		return StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+	}
+
+	private Message<byte[]> subscribeMessage(String sessionId, String user, String subscriptionId, String destination) {
+		Message<byte[]> message = message(StompCommand.SUBSCRIBE, sessionId, user, destination);
+		StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class).setSubscriptionId(subscriptionId);
+		return message;
+	}
+
 	private Message<byte[]> connectMessage(String sessionId, String user) {
 		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
 		headers.setSessionId(sessionId);
@@ -333,6 +549,10 @@ class StompBrokerRelayMessageHandlerTests {
 			this.connectionHandler.handleMessage(message);
 		}
 
+		public void afterConnectionClosed() {
+			this.connectionHandler.afterConnectionClosed();
+		}
+
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,4 +83,37 @@ public class StompEncoderTests {
 		assertThat(new String(encoder.encode(frame))).isEqualTo("SEND\ncontent-length:12\n\nMessage body\0");
 	}
 
+	@Test
+	public void encodeMessageFramesWithSharedPayload() {
+		byte[] payload = "Message body".getBytes();
+
+		assertThat(new String(encoder.encode(createMessageFrame("s1", "m1", "text/plain", payload))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\ncontent-type:text/plain\n" +
+						"subscription:s1\nmessage-id:m1\ncontent-length:12\n\nMessage body\0");
+		assertThat(new String(encoder.encode(createMessageFrame("s2", "m:2", "text/plain", payload))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\ncontent-type:text/plain\n" +
+						"subscription:s2\nmessage-id:m\\c2\ncontent-length:12\n\nMessage body\0");
+
+		// Same payload, different shared headers
+		assertThat(new String(encoder.encode(createMessageFrame("s3", "m3", "application/json", payload))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\ncontent-type:application/json\n" +
+						"subscription:s3\nmessage-id:m3\ncontent-length:12\n\nMessage body\0");
+
+		// Same headers, different payload
+		assertThat(new String(encoder.encode(createMessageFrame("s4", "m4", "application/json", "Body".getBytes()))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\ncontent-type:application/json\n" +
+						"subscription:s4\nmessage-id:m4\ncontent-length:4\n\nBody\0");
+	}
+
+	private Message<byte[]> createMessageFrame(
+			String subscriptionId, String messageId, String contentType, byte[] payload) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setDestination("/topic/a");
+		headers.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER, contentType);
+		headers.setSubscriptionId(subscriptionId);
+		headers.setMessageId(messageId);
+		return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+	}
+
 }
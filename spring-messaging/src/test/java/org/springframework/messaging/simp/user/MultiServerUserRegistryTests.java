@@ -28,6 +28,7 @@ import org.mockito.Mockito;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -178,4 +179,57 @@ class MultiServerUserRegistryTests {
 		assertThat(this.registry.getUserCount()).isEqualTo(0);
 	}
 
+	@Test
+	void addIncrementalUpdates() {
+		TestSimpUser joe = new TestSimpUser("joe");
+		joe.addSessions(new TestSimpSession("sess1"));
+		SimpUserRegistry remoteRegistry = mock(SimpUserRegistry.class);
+		given(remoteRegistry.getUsers()).willReturn(Collections.singleton(joe));
+		MultiServerUserRegistry remoteServerRegistry = new MultiServerUserRegistry(remoteRegistry);
+		byte[] fullUpdate = remoteServerRegistry.getLocalRegistryUpdate(true);
+
+		TestSimpUser jane = new TestSimpUser("jane");
+		jane.addSessions(new TestSimpSession("sess2"));
+		given(remoteRegistry.getUsers()).willReturn(Collections.singleton(jane));
+		byte[] firstDelta = remoteServerRegistry.getLocalRegistryUpdate(false);
+		byte[] secondDelta = remoteServerRegistry.getLocalRegistryUpdate(false);
+
+		// Delta before any full update is ignored
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(firstDelta).build(), this.converter, 20000);
+		assertThat(this.registry.getUserCount()).isEqualTo(0);
+
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(fullUpdate).build(), this.converter, 20000);
+		assertThat(this.registry.getUserCount()).isEqualTo(1);
+		assertThat(this.registry.getUser("joe")).isNotNull();
+
+		// Delta that does not follow the current version is ignored
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(secondDelta).build(), this.converter, 20000);
+		assertThat(this.registry.getUser("joe")).isNotNull();
+		assertThat(this.registry.getUser("jane")).isNull();
+
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(firstDelta).build(), this.converter, 20000);
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(secondDelta).build(), this.converter, 20000);
+		assertThat(this.registry.getUserCount()).isEqualTo(1);
+		assertThat(this.registry.getUser("joe")).isNull();
+		SimpUser user = this.registry.getUser("jane");
+		assertThat(user).isNotNull();
+		assertThat(user.getSession("sess2")).isNotNull();
+	}
+
+	@Test
+	void purgeExpiredRegistriesFromIncrementalUpdates() {
+		TestSimpUser testUser = new TestSimpUser("joe");
+		testUser.addSessions(new TestSimpSession("remote-sess"));
+		SimpUserRegistry testRegistry = mock(SimpUserRegistry.class);
+		given(testRegistry.getUsers()).willReturn(Collections.singleton(testUser));
+		byte[] update = new MultiServerUserRegistry(testRegistry).getLocalRegistryUpdate(true);
+
+		this.registry.addRemoteRegistryDto(MessageBuilder.withPayload(update).build(), this.converter, -1);
+		assertThat(this.registry.getUser("joe")).isNotNull();
+
+		this.registry.purgeExpiredRegistries();
+		assertThat(this.registry.getUserCount()).isEqualTo(0);
+		assertThat(this.registry.getUser("joe")).isNull();
+	}
+
 }
@@ -37,12 +37,14 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.MimeTypeUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -136,6 +138,88 @@ public class UserRegistryMessageHandlerTests {
 		assertThat(remoteRegistry.getUser("jane")).isNotNull();
 	}
 
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void broadcastRegistryIncrementally() throws Exception {
+		given(this.brokerChannel.send(any())).willReturn(true);
+		this.handler.setIncrementalBroadcast(true);
+		this.handler.setFullBroadcastInterval(3);
+
+		TestSimpUser simpUser1 = new TestSimpUser("joe");
+		TestSimpUser simpUser2 = new TestSimpUser("jane");
+		simpUser1.addSessions(new TestSimpSession("123"));
+		simpUser2.addSessions(new TestSimpSession("456"));
+		given(this.localRegistry.getUsers()).willReturn(new HashSet<>(Arrays.asList(simpUser1, simpUser2)));
+
+		Runnable task = getUserRegistryTask();
+		MultiServerUserRegistry remoteRegistry = new MultiServerUserRegistry(mock(SimpUserRegistry.class));
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+
+		task.run();
+		verify(this.brokerChannel).send(captor.capture());
+		Message<?> fullUpdate = captor.getValue();
+		assertThat(SimpMessageHeaderAccessor.getDestination(fullUpdate.getHeaders())).isEqualTo("/topic/simp-user-registry");
+		assertThat(SimpMessageHeaderAccessor.getContentType(fullUpdate.getHeaders()))
+				.isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+		remoteRegistry.addRemoteRegistryDto(fullUpdate, this.converter, 20000);
+		assertThat(remoteRegistry.getUserCount()).isEqualTo(2);
+
+		TestSimpUser simpUser3 = new TestSimpUser("jack");
+		TestSimpSession session = new TestSimpSession("789");
+		session.addSubscriptions(new TestSimpSubscription("sub1", "/topic/news"));
+		simpUser3.addSessions(session);
+		given(this.localRegistry.getUsers()).willReturn(new HashSet<>(Arrays.asList(simpUser1, simpUser3)));
+
+		task.run();
+		verify(this.brokerChannel, times(2)).send(captor.capture());
+		Message<?> delta = captor.getValue();
+		remoteRegistry.addRemoteRegistryDto(delta, this.converter, 20000);
+		assertThat(remoteRegistry.getUserCount()).isEqualTo(2);
+		assertThat(remoteRegistry.getUser("joe")).isNotNull();
+		assertThat(remoteRegistry.getUser("jane")).isNull();
+		assertThat(remoteRegistry.findSubscriptions(s -> s.getDestination().equals("/topic/news"))).hasSize(1);
+
+		// No changes
+		task.run();
+		verify(this.brokerChannel, times(3)).send(captor.capture());
+		assertThat((byte[]) captor.getValue().getPayload()).hasSizeLessThan(((byte[]) fullUpdate.getPayload()).length);
+		remoteRegistry.addRemoteRegistryDto(captor.getValue(), this.converter, 20000);
+		assertThat(remoteRegistry.getUserCount()).isEqualTo(2);
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void broadcastRegistryIncrementallyAfterBrokerReconnect() throws Exception {
+		given(this.brokerChannel.send(any())).willReturn(true);
+		this.handler.setIncrementalBroadcast(true);
+
+		TestSimpUser simpUser1 = new TestSimpUser("joe");
+		TestSimpUser simpUser2 = new TestSimpUser("jane");
+		simpUser1.addSessions(new TestSimpSession("123"));
+		simpUser2.addSessions(new TestSimpSession("456"));
+		given(this.localRegistry.getUsers()).willReturn(new HashSet<>(Arrays.asList(simpUser1, simpUser2)));
+
+		Runnable task = getUserRegistryTask();
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		task.run();
+		task.run();
+
+		// A delta is not applied by a server that missed the full update
+		verify(this.brokerChannel, times(2)).send(captor.capture());
+		MultiServerUserRegistry remoteRegistry = new MultiServerUserRegistry(mock(SimpUserRegistry.class));
+		remoteRegistry.addRemoteRegistryDto(captor.getValue(), this.converter, 20000);
+		assertThat(remoteRegistry.getUserCount()).isEqualTo(0);
+
+		this.handler.onApplicationEvent(new BrokerAvailabilityEvent(false, this));
+		this.handler.onApplicationEvent(new BrokerAvailabilityEvent(true, this));
+		task.run();
+
+		verify(this.brokerChannel, times(3)).send(captor.capture());
+		remoteRegistry = new MultiServerUserRegistry(mock(SimpUserRegistry.class));
+		remoteRegistry.addRemoteRegistryDto(captor.getValue(), this.converter, 20000);
+		assertThat(remoteRegistry.getUserCount()).isEqualTo(2);
+	}
+
 	@Test
 	public void handleMessage() throws Exception {
 
@@ -16,6 +16,13 @@
 
 package org.springframework.messaging.support;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
@@ -32,7 +39,9 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHandler;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -96,6 +105,196 @@ public class ExecutorSubscribableChannelTests {
 		assertThat(interceptor.wasAfterHandledInvoked()).isTrue();
 	}
 
+	@Test
+	public void sendWithDispatchWorkers() {
+		BeforeHandleInterceptor interceptor = new BeforeHandleInterceptor();
+		TaskExecutor executor = mock(TaskExecutor.class);
+		ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+		testChannel.setDispatchWorkers(1);
+		testChannel.addInterceptor(interceptor);
+		List<Object> payloads = new ArrayList<>();
+		testChannel.subscribe(message -> payloads.add(message.getPayload()));
+		testChannel.subscribe(this.handler);
+
+		testChannel.send(MessageBuilder.withPayload("a").build());
+		testChannel.send(MessageBuilder.withPayload("b").build());
+		testChannel.send(MessageBuilder.withPayload("c").build());
+		verify(executor).execute(this.runnableCaptor.capture());
+		assertThat(payloads).isEmpty();
+
+		this.runnableCaptor.getValue().run();
+		assertThat(payloads).containsExactly("a", "b", "c");
+		verify(this.handler, times(3)).handleMessage(any());
+		assertThat(interceptor.getCounter().get()).isEqualTo(6);
+		assertThat(interceptor.wasAfterHandledInvoked()).isTrue();
+		assertThat(testChannel.getQueueLatencyHistogram().getTotalCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndMaxBatchSize() {
+		TaskExecutor executor = mock(TaskExecutor.class);
+		ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+		testChannel.setDispatchWorkers(1);
+		testChannel.setMaxBatchSize(2);
+		testChannel.subscribe(this.handler);
+
+		testChannel.send(this.message);
+		testChannel.send(this.message);
+		testChannel.send(this.message);
+		verify(executor).execute(this.runnableCaptor.capture());
+		this.runnableCaptor.getValue().run();
+		verify(this.handler, times(2)).handleMessage(this.message);
+
+		// Re-submitted for the remaining message
+		verify(executor, times(2)).execute(this.runnableCaptor.capture());
+		this.runnableCaptor.getValue().run();
+		verify(this.handler, times(3)).handleMessage(this.message);
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndAffinityHeader() {
+		List<Runnable> tasks = new ArrayList<>();
+		ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(tasks::add);
+		testChannel.setDispatchWorkers(4);
+		testChannel.setAffinityHeader("sessionId");
+		List<Object> payloads = new ArrayList<>();
+		testChannel.subscribe(message -> payloads.add(message.getPayload()));
+
+		for (int i = 0; i < 5; i++) {
+			testChannel.send(MessageBuilder.withPayload(i).setHeader("sessionId", "sess1").build());
+		}
+		assertThat(tasks).hasSize(1);
+
+		tasks.get(0).run();
+		assertThat(payloads).containsExactly(0, 1, 2, 3, 4);
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndFullQueue() {
+		List<Runnable> tasks = new ArrayList<>();
+		ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(tasks::add);
+		testChannel.setDispatchWorkers(1);
+		testChannel.setWorkerQueueCapacity(2);
+		testChannel.subscribe(this.handler);
+
+		testChannel.send(this.message);
+		testChannel.send(this.message);
+		assertThatExceptionOfType(MessageDeliveryException.class)
+				.isThrownBy(() -> testChannel.send(this.message))
+				.withCauseInstanceOf(RejectedExecutionException.class);
+
+		tasks.remove(0).run();
+		verify(this.handler, times(2)).handleMessage(this.message);
+
+		testChannel.send(this.message);
+		assertThat(tasks).hasSize(1);
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndFullQueueRejectedThroughExecutorPolicy() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+		try {
+			ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+			testChannel.setDispatchWorkers(1);
+			testChannel.setWorkerQueueCapacity(1);
+			List<Thread> threads = new ArrayList<>();
+			testChannel.subscribe(message -> threads.add(Thread.currentThread()));
+
+			// Keep the executor busy, so that the worker cannot drain its queue
+			CountDownLatch latch = new CountDownLatch(1);
+			executor.execute(() -> awaitUninterruptibly(latch));
+			testChannel.send(this.message);
+			testChannel.send(this.message);
+
+			// Handled by the sending thread through CallerRunsPolicy
+			assertThat(threads).containsExactly(Thread.currentThread());
+			latch.countDown();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndAffinityHeaderAndFullQueue() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+		try {
+			ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+			testChannel.setDispatchWorkers(1);
+			testChannel.setAffinityHeader("sessionId");
+			testChannel.setWorkerQueueCapacity(1);
+			List<Object> payloads = new ArrayList<>();
+			testChannel.subscribe(message -> payloads.add(message.getPayload()));
+
+			// Keep the executor busy, so that the worker cannot drain its queue
+			CountDownLatch latch = new CountDownLatch(1);
+			executor.execute(() -> awaitUninterruptibly(latch));
+			testChannel.send(MessageBuilder.withPayload("a").setHeader("sessionId", "sess1").build());
+
+			// Rejected rather than handled ahead of "a" through CallerRunsPolicy
+			assertThatExceptionOfType(MessageDeliveryException.class).isThrownBy(() ->
+					testChannel.send(MessageBuilder.withPayload("b").setHeader("sessionId", "sess1").build()));
+			assertThat(payloads).isEmpty();
+			latch.countDown();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sendWithDispatchWorkersAndDiscardingExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new ThreadPoolExecutor.DiscardOldestPolicy());
+		try {
+			ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+			testChannel.setDispatchWorkers(1);
+			testChannel.subscribe(this.handler);
+
+			assertThatExceptionOfType(MessageDeliveryException.class)
+					.isThrownBy(() -> testChannel.send(this.message))
+					.withCauseInstanceOf(IllegalStateException.class);
+			verifyNoInteractions(this.handler);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void dispatchWorkerFailureDoesNotPreventOtherHandlers() {
+		TaskExecutor executor = mock(TaskExecutor.class);
+		ExecutorSubscribableChannel testChannel = new ExecutorSubscribableChannel(executor);
+		testChannel.setDispatchWorkers(1);
+		testChannel.subscribe(message -> {
+			throw new IllegalStateException("Fake exception");
+		});
+		testChannel.subscribe(this.handler);
+
+		testChannel.send(this.message);
+		verify(executor).execute(this.runnableCaptor.capture());
+		this.runnableCaptor.getValue().run();
+		verify(this.handler).handleMessage(this.message);
+	}
+
+	@Test
+	public void queueLatencyHistogram() {
+		long[] counts = new long[ExecutorSubscribableChannel.QueueLatencyHistogram.BUCKET_COUNT];
+		counts[ExecutorSubscribableChannel.QueueLatencyHistogram.getBucket(500)]++;
+		counts[ExecutorSubscribableChannel.QueueLatencyHistogram.getBucket(5_000)] += 98;
+		counts[ExecutorSubscribableChannel.QueueLatencyHistogram.getBucket(2_000_000)]++;
+		ExecutorSubscribableChannel.QueueLatencyHistogram histogram =
+				new ExecutorSubscribableChannel.QueueLatencyHistogram(counts);
+
+		assertThat(histogram.getTotalCount()).isEqualTo(100);
+		assertThat(histogram.getCounts()[0]).isEqualTo(1);
+		assertThat(histogram.getPercentileMicros(50)).isEqualTo(8);
+		assertThat(histogram.getPercentileMicros(99)).isEqualTo(8);
+		assertThat(histogram.getPercentileMicros(100)).isEqualTo(2048);
+	}
+
 	@Test
 	public void subscribeTwice()  {
 		assertThat(this.channel.subscribe(this.handler)).isTrue();
@@ -182,6 +381,15 @@ public class ExecutorSubscribableChannelTests {
 		assertThat(interceptor.wasAfterHandledInvoked()).isTrue();
 	}
 
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 
 	private abstract static class AbstractTestInterceptor implements ChannelInterceptor, ExecutorChannelInterceptor {
 
@@ -282,6 +282,22 @@ public class MessageHeaderAccessorTests {
 		assertThat(accessor.getMessageHeaders().getId()).isNotNull();
 	}
 
+	@Test
+	public void idGeneratorSequential() {
+		IdTimestampMessageHeaderInitializer initializer = new IdTimestampMessageHeaderInitializer();
+		initializer.setSequentialIdGeneration();
+		MessageHeaderAccessor accessor1 = new MessageHeaderAccessor();
+		initializer.initHeaders(accessor1);
+		MessageHeaderAccessor accessor2 = new MessageHeaderAccessor();
+		initializer.initHeaders(accessor2);
+
+		UUID id1 = accessor1.getMessageHeaders().getId();
+		UUID id2 = accessor2.getMessageHeaders().getId();
+		assertThat(id1).isNotNull().isNotEqualTo(MessageHeaders.ID_VALUE_NONE);
+		assertThat(id2.getMostSignificantBits()).isEqualTo(id1.getMostSignificantBits());
+		assertThat(id2.getLeastSignificantBits()).isEqualTo(id1.getLeastSignificantBits() + 1);
+	}
+
 
 	@Test
 	public void idTimestampWithMutableHeaders() {
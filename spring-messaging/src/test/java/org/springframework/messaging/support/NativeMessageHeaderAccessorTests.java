@@ -29,6 +29,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
@@ -258,6 +259,28 @@ public class NativeMessageHeaderAccessorTests {
 		assertThat(((NativeMessageHeaderAccessor) accessor).getNativeHeader("foo")).containsExactly("bar", "baz");
 	}
 
+	@Test
+	void createFromImmutableMessageAndModify() {
+		NativeMessageHeaderAccessor accessor = new NativeMessageHeaderAccessor();
+		accessor.setNativeHeader("foo", "bar");
+		accessor.setNativeHeader("bar", "baz");
+		Message<String> message = MessageBuilder.createMessage("payload", accessor.getMessageHeaders());
+
+		NativeMessageHeaderAccessor copy = new NativeMessageHeaderAccessor(message);
+		assertThat(copy.getFirstNativeHeader("foo")).isEqualTo("bar");
+		copy.setNativeHeader("foo", "BAR");
+		copy.addNativeHeader("bar", "qux");
+		copy.removeNativeHeader("baz");
+		Message<String> copyMessage = MessageBuilder.createMessage("payload", copy.getMessageHeaders());
+
+		assertThat(NativeMessageHeaderAccessor.getFirstNativeHeader("foo", copyMessage.getHeaders())).isEqualTo("BAR");
+		assertThat(copy.getNativeHeader("bar")).containsExactly("baz", "qux");
+		assertThat(accessor.getNativeHeader("foo")).containsExactly("bar");
+		assertThat(accessor.getNativeHeader("bar")).containsExactly("baz");
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				copy.getNativeHeaders().put("foo", Collections.singletonList("bar")));
+	}
+
 	@Test // gh-26155
 	void copySelf() {
 		NativeMessageHeaderAccessor accessor = new NativeMessageHeaderAccessor();
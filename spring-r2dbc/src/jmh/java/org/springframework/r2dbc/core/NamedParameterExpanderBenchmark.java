@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+/**
+ * Benchmark for the expansion of named parameters in repeatedly executed
+ * statements, comparing the template cache of {@link NamedParameterExpander}
+ * with the expansion from scratch in {@link NamedParameterUtils}, as well as
+ * the end-to-end execution through {@link DatabaseClient} against H2.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class NamedParameterExpanderBenchmark {
+
+	private static final String SQL =
+			"SELECT id, name, manual FROM legoset WHERE manual > :manual AND id IN (:ids) OR name = :name";
+
+	private static final BindTarget BIND_TARGET = new BindTarget() {
+		@Override
+		public void bind(String identifier, Object value) {
+		}
+		@Override
+		public void bind(int index, Object value) {
+		}
+		@Override
+		public void bindNull(String identifier, Class<?> type) {
+		}
+		@Override
+		public void bindNull(int index, Class<?> type) {
+		}
+	};
+
+
+	@State(Scope.Benchmark)
+	public static class ExpansionState {
+
+		@Param({"1", "10", "100"})
+		public int collectionSize;
+
+		public BindMarkersFactory bindMarkersFactory = BindMarkersFactory.indexed("$", 1);
+
+		public NamedParameterExpander expander = new NamedParameterExpander();
+
+		public BindParameterSource parameterSource;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			List<Integer> ids = new ArrayList<>(this.collectionSize);
+			for (int i = 0; i < this.collectionSize; i++) {
+				ids.add(i);
+			}
+			this.parameterSource = new MapBindParameterSource()
+					.addValue("manual", 12).addValue("ids", ids).addValue("name", "SCHAUFELRADBAGGER");
+		}
+	}
+
+	@Benchmark
+	public void expandFromScratch(ExpansionState state, Blackhole bh) {
+		PreparedOperation<String> operation = NamedParameterUtils.substituteNamedParameters(
+				NamedParameterUtils.parseSqlStatement(SQL), state.bindMarkersFactory, state.parameterSource);
+		operation.bindTo(BIND_TARGET);
+		bh.consume(operation.toQuery());
+	}
+
+	@Benchmark
+	public void expandWithCache(ExpansionState state, Blackhole bh) {
+		PreparedOperation<String> operation = state.expander.expand(
+				SQL, state.bindMarkersFactory, state.parameterSource);
+		operation.bindTo(BIND_TARGET);
+		bh.consume(operation.toQuery());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class DatabaseClientState {
+
+		public ConnectionFactory connectionFactory;
+
+		public Connection connection;
+
+		public DatabaseClient databaseClient;
+
+		public List<Integer> ids = List.of(42055, 42056, 42057, 42058);
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.connectionFactory = H2ConnectionFactory.inMemory("r2dbc-benchmark");
+			// Keep the in-memory database alive between executions
+			this.connection = Mono.from(this.connectionFactory.create()).block();
+			this.databaseClient = DatabaseClient.create(this.connectionFactory);
+			this.databaseClient.sql("CREATE TABLE legoset (id integer PRIMARY KEY, name varchar(255), manual integer)")
+					.then().block();
+			for (int id : this.ids) {
+				this.databaseClient.sql("INSERT INTO legoset (id, name, manual) VALUES (:id, :name, :manual)")
+						.bind("id", id).bind("name", "SCHAUFELRADBAGGER").bind("manual", 12)
+						.then().block();
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			Mono.from(this.connection.close()).block();
+		}
+	}
+
+	@Benchmark
+	public List<Integer> databaseClientQuery(DatabaseClientState state) {
+		return state.databaseClient.sql(SQL)
+				.bind("manual", 10).bind("ids", state.ids).bind("name", "FORSCHUNGSSCHIFF")
+				.map(row -> row.get("id", Integer.class))
+				.all().collectList().block();
+	}
+
+}
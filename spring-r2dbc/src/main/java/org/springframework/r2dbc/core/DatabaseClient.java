@@ -16,6 +16,7 @@
 
 package org.springframework.r2dbc.core;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -256,6 +257,52 @@ public interface DatabaseClient extends ConnectionAccessor {
 		 * @return a {@link Mono} ignoring its payload (actively dropping)
 		 */
 		Mono<Void> then();
+
+		/**
+		 * Execute the SQL statement for each parameter set emitted by the given
+		 * {@link Publisher}, binding parameter sets in batches to a single
+		 * {@link Statement} through {@link Statement#add()}.
+		 * <p>Each parameter set maps parameter names to values or
+		 * {@link io.r2dbc.spi.Parameter} objects, complementing the bindings of
+		 * this spec. Parameter sets are requested from the given {@code Publisher}
+		 * according to the demand for batch results.
+		 * @param parameterSets the parameter sets to bind
+		 * @return a {@link BatchSpec} for further configuration and execution
+		 * @since 6.0
+		 * @see BatchSpec#batchSize(int)
+		 * @see BatchSpec#batchTimeout(Duration)
+		 */
+		BatchSpec batch(Publisher<? extends Map<String, ?>> parameterSets);
+	}
+
+
+	/**
+	 * Contract for executing a SQL statement for a stream of parameter sets,
+	 * one round trip per batch.
+	 * @since 6.0
+	 */
+	interface BatchSpec {
+
+		/**
+		 * Specify the maximum number of parameter sets per batch.
+		 * Default is 256.
+		 */
+		BatchSpec batchSize(int batchSize);
+
+		/**
+		 * Specify the maximum time to wait for a batch to fill up, after which
+		 * a partial batch gets executed. Default is none, executing partial
+		 * batches only on completion of the parameter sets.
+		 */
+		BatchSpec batchTimeout(Duration batchTimeout);
+
+		/**
+		 * Execute the batches, emitting the number of affected rows per batch.
+		 * <p>Batches are executed sequentially on the same {@link io.r2dbc.spi.Connection},
+		 * participating in an ongoing transaction if any.
+		 * @return a {@link Flux} emitting the number of updated rows per batch
+		 */
+		Flux<Long> rowsUpdated();
 	}
 
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.r2dbc.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import io.r2dbc.spi.Connection;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@link DatabaseClient.BatchSpec} implementation.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ */
+class DefaultBatchSpec implements DatabaseClient.BatchSpec {
+
+	static final int DEFAULT_BATCH_SIZE = 256;
+
+	private final ConnectionAccessor connectionAccessor;
+
+	private final String sql;
+
+	private final Publisher<? extends Map<String, ?>> parameterSets;
+
+	private final BiFunction<Connection, List<Map<String, ?>>, Mono<Long>> batchFunction;
+
+	private final int batchSize;
+
+	@Nullable
+	private final Duration batchTimeout;
+
+
+	DefaultBatchSpec(ConnectionAccessor connectionAccessor, String sql,
+			Publisher<? extends Map<String, ?>> parameterSets,
+			BiFunction<Connection, List<Map<String, ?>>, Mono<Long>> batchFunction,
+			int batchSize, @Nullable Duration batchTimeout) {
+
+		this.connectionAccessor = connectionAccessor;
+		this.sql = sql;
+		this.parameterSets = parameterSets;
+		this.batchFunction = batchFunction;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+	}
+
+
+	@Override
+	public DefaultBatchSpec batchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		return new DefaultBatchSpec(this.connectionAccessor, this.sql, this.parameterSets,
+				this.batchFunction, batchSize, this.batchTimeout);
+	}
+
+	@Override
+	public DefaultBatchSpec batchTimeout(Duration batchTimeout) {
+		Assert.notNull(batchTimeout, "Batch timeout must not be null");
+		Assert.isTrue(!batchTimeout.isNegative() && !batchTimeout.isZero(), "Batch timeout must be positive");
+		return new DefaultBatchSpec(this.connectionAccessor, this.sql, this.parameterSets,
+				this.batchFunction, this.batchSize, batchTimeout);
+	}
+
+	@Override
+	public Flux<Long> rowsUpdated() {
+		return this.connectionAccessor.inConnectionMany(new ConnectionFunction<>(this.sql,
+				connection -> batches().concatMap(batch -> this.batchFunction.apply(connection, batch), 1)));
+	}
+
+	private Flux<List<Map<String, ?>>> batches() {
+		if (this.batchTimeout == null) {
+			return Flux.<Map<String, ?>>from(this.parameterSets).buffer(this.batchSize);
+		}
+		return Flux.create(sink -> {
+			TimedBatcher batcher = new TimedBatcher(
+					sink, this.batchSize, this.batchTimeout, Schedulers.parallel());
+			this.parameterSets.subscribe(batcher);
+			sink.onRequest(batcher::requestBatches);
+			sink.onDispose(batcher);
+		});
+	}
+
+
+	/**
+	 * Subscriber collecting parameter sets into batches, emitting a batch
+	 * when it is full or when the batch timeout has elapsed since its first
+	 * element. In contrast to {@link Flux#bufferTimeout}, parameter sets are
+	 * only requested from upstream for batches with downstream demand.
+	 */
+	private static class TimedBatcher extends BaseSubscriber<Map<String, ?>> {
+
+		private final FluxSink<List<Map<String, ?>>> sink;
+
+		private final int batchSize;
+
+		private final Duration batchTimeout;
+
+		private final Scheduler scheduler;
+
+		private final AtomicInteger wip = new AtomicInteger();
+
+		private List<Map<String, ?>> current;
+
+		private long demand;
+
+		private long outstanding;
+
+		private int generation;
+
+		private boolean timedOut;
+
+		private boolean done;
+
+		@Nullable
+		private Disposable timer;
+
+		TimedBatcher(FluxSink<List<Map<String, ?>>> sink, int batchSize, Duration batchTimeout, Scheduler scheduler) {
+			this.sink = sink;
+			this.batchSize = batchSize;
+			this.batchTimeout = batchTimeout;
+			this.scheduler = scheduler;
+			this.current = new ArrayList<>(batchSize);
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			// Request according to downstream demand only
+		}
+
+		@Override
+		protected void hookOnNext(Map<String, ?> value) {
+			synchronized (this) {
+				this.outstanding--;
+				this.current.add(value);
+				if (this.current.size() == 1) {
+					int generation = this.generation;
+					this.timer = this.scheduler.schedule(() -> onTimeout(generation),
+							this.batchTimeout.toNanos(), TimeUnit.NANOSECONDS);
+				}
+			}
+			drain();
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			synchronized (this) {
+				this.done = true;
+			}
+			drain();
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			cancelTimer();
+			this.sink.error(throwable);
+		}
+
+		@Override
+		protected void hookOnCancel() {
+			cancelTimer();
+		}
+
+		void requestBatches(long n) {
+			synchronized (this) {
+				this.demand = (this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n);
+			}
+			drain();
+		}
+
+		private void onTimeout(int generation) {
+			synchronized (this) {
+				if (generation != this.generation) {
+					return;
+				}
+				this.timedOut = true;
+			}
+			drain();
+		}
+
+		private synchronized void cancelTimer() {
+			if (this.timer != null) {
+				this.timer.dispose();
+				this.timer = null;
+			}
+		}
+
+		private void drain() {
+			if (this.wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				List<Map<String, ?>> batch = null;
+				boolean complete = false;
+				long toRequest = 0;
+				synchronized (this) {
+					if (!this.current.isEmpty() && this.demand > 0 &&
+							(this.current.size() >= this.batchSize || this.timedOut || this.done)) {
+						batch = this.current;
+						this.current = new ArrayList<>(this.batchSize);
+						this.demand--;
+						this.generation++;
+						this.timedOut = false;
+						cancelTimer();
+					}
+					if (this.done) {
+						complete = this.current.isEmpty();
+					}
+					else if (this.demand > 0 && this.current.size() + this.outstanding < this.batchSize) {
+						toRequest = this.batchSize - this.current.size() - this.outstanding;
+						this.outstanding += toRequest;
+					}
+				}
+				if (batch != null) {
+					this.sink.next(batch);
+				}
+				if (complete) {
+					this.sink.complete();
+					return;
+				}
+				if (toRequest > 0) {
+					upstream().request(toRequest);
+				}
+				missed = this.wip.addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+	}
+
+}
@@ -247,22 +247,13 @@ class DefaultDatabaseClient implements DatabaseClient {
 		}
 
 		@Override
-		@SuppressWarnings("deprecation")
 		public DefaultGenericExecuteSpec bind(int index, Object value) {
 			assertNotPreparedOperation();
 			Assert.notNull(value, () -> String.format(
 					"Value at index %d must not be null. Use bindNull(…) instead.", index));
 
 			Map<Integer, Parameter> byIndex = new LinkedHashMap<>(this.byIndex);
-			if (value instanceof Parameter p) {
-				byIndex.put(index, p);
-			}
-			else if (value instanceof org.springframework.r2dbc.core.Parameter p) {
-				byIndex.put(index, p.hasValue() ? Parameters.in(p.getValue()) : Parameters.in(p.getType()));
-			}
-			else {
-				byIndex.put(index, Parameters.in(value));
-			}
+			byIndex.put(index, resolveParameter(value));
 
 			return new DefaultGenericExecuteSpec(byIndex, this.byName, this.sqlSupplier, this.filterFunction);
 		}
@@ -278,7 +269,6 @@ class DefaultDatabaseClient implements DatabaseClient {
 		}
 
 		@Override
-		@SuppressWarnings("deprecation")
 		public DefaultGenericExecuteSpec bind(String name, Object value) {
 			assertNotPreparedOperation();
 
@@ -287,15 +277,7 @@ class DefaultDatabaseClient implements DatabaseClient {
 					"Value for parameter %s must not be null. Use bindNull(…) instead.", name));
 
 			Map<String, Parameter> byName = new LinkedHashMap<>(this.byName);
-			if (value instanceof Parameter p) {
-				byName.put(name, p);
-			}
-			else if (value instanceof org.springframework.r2dbc.core.Parameter p) {
-				byName.put(name, p.hasValue() ? Parameters.in(p.getValue()) : Parameters.in(p.getType()));
-			}
-			else {
-				byName.put(name, Parameters.in(value));
-			}
+			byName.put(name, resolveParameter(value));
 
 			return new DefaultGenericExecuteSpec(this.byIndex, byName, this.sqlSupplier, this.filterFunction);
 		}
@@ -346,6 +328,16 @@ class DefaultDatabaseClient implements DatabaseClient {
 			return fetch().rowsUpdated().then();
 		}
 
+		@Override
+		public DefaultBatchSpec batch(Publisher<? extends Map<String, ?>> parameterSets) {
+			Assert.notNull(parameterSets, "Parameter sets must not be null");
+			assertNotPreparedOperation();
+			String sql = getRequiredSql(this.sqlSupplier);
+			return new DefaultBatchSpec(DefaultDatabaseClient.this, sql, parameterSets,
+					(connection, batch) -> executeBatch(connection, sql, batch),
+					DefaultBatchSpec.DEFAULT_BATCH_SIZE, null);
+		}
+
 		private ResultFunction getResultFunction(Supplier<String> sqlSupplier) {
 			String sql = getRequiredSql(sqlSupplier);
 			Function<Connection, Statement> statementFunction = connection -> {
@@ -363,12 +355,7 @@ class DefaultDatabaseClient implements DatabaseClient {
 					Map<String, Parameter> remainderByName = new LinkedHashMap<>(this.byName);
 					Map<Integer, Parameter> remainderByIndex = new LinkedHashMap<>(this.byIndex);
 
-					List<String> parameterNames = DefaultDatabaseClient.this.namedParameterExpander.getParameterNames(sql);
-					MapBindParameterSource namedBindings = retrieveParameters(
-							sql, parameterNames, remainderByName, remainderByIndex);
-
-					PreparedOperation<String> operation = DefaultDatabaseClient.this.namedParameterExpander.expand(
-							sql, DefaultDatabaseClient.this.bindMarkersFactory, namedBindings);
+					PreparedOperation<String> operation = expand(sql, remainderByName, remainderByIndex);
 
 					String expanded = getRequiredSql(operation);
 					if (logger.isTraceEnabled()) {
@@ -403,6 +390,77 @@ class DefaultDatabaseClient implements DatabaseClient {
 			return new ResultFunction(resultFunction, sql);
 		}
 
+		private Mono<Long> executeBatch(Connection connection, String sql, List<Map<String, ?>> batch) {
+			Statement statement = null;
+			String statementSql = sql;
+			for (Map<String, ?> parameterSet : batch) {
+				Map<String, Parameter> byName = new LinkedHashMap<>(this.byName);
+				parameterSet.forEach((name, value) -> {
+					Assert.notNull(value, () -> String.format(
+							"Value for parameter %s must not be null. Use Parameters.in(type) instead.", name));
+					byName.put(name, resolveParameter(value));
+				});
+				DefaultGenericExecuteSpec spec = new DefaultGenericExecuteSpec(
+						this.byIndex, byName, this.sqlSupplier, this.filterFunction);
+
+				if (DefaultDatabaseClient.this.namedParameterExpander != null) {
+					Map<String, Parameter> remainderByName = new LinkedHashMap<>(byName);
+					Map<Integer, Parameter> remainderByIndex = new LinkedHashMap<>(this.byIndex);
+					PreparedOperation<String> operation = spec.expand(sql, remainderByName, remainderByIndex);
+					String expanded = getRequiredSql(operation);
+					if (statement == null) {
+						statementSql = expanded;
+						statement = createBatchStatement(connection, expanded);
+					}
+					else if (!expanded.equals(statementSql)) {
+						throw new InvalidDataAccessApiUsageException(String.format(
+								"Parameter set expands to different SQL [%s] than first parameter set in batch [%s]",
+								expanded, statementSql));
+					}
+					else {
+						statement.add();
+					}
+					operation.bindTo(new StatementWrapper(statement));
+					bindByName(statement, remainderByName);
+					bindByIndex(statement, remainderByIndex);
+				}
+				else {
+					if (statement == null) {
+						statement = createBatchStatement(connection, sql);
+					}
+					else {
+						statement.add();
+					}
+					bindByIndex(statement, this.byIndex);
+					bindByName(statement, byName);
+				}
+			}
+			Assert.state(statement != null, "Empty batch");
+			return Flux.from(this.filterFunction.filter(statement, DefaultDatabaseClient.this.executeFunction))
+					.flatMap(Result::getRowsUpdated)
+					.cast(Number.class)
+					.collect(Collectors.summingLong(Number::longValue))
+					.checkpoint("SQL \"" + statementSql + "\" [DatabaseClient batch]");
+		}
+
+		private Statement createBatchStatement(Connection connection, String sql) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing SQL statement batch [" + sql + "]");
+			}
+			return connection.createStatement(sql);
+		}
+
+		private PreparedOperation<String> expand(String sql,
+				Map<String, Parameter> remainderByName, Map<Integer, Parameter> remainderByIndex) {
+
+			Assert.state(DefaultDatabaseClient.this.namedParameterExpander != null, "No NamedParameterExpander");
+			List<String> parameterNames = DefaultDatabaseClient.this.namedParameterExpander.getParameterNames(sql);
+			MapBindParameterSource namedBindings = retrieveParameters(
+					sql, parameterNames, remainderByName, remainderByIndex);
+			return DefaultDatabaseClient.this.namedParameterExpander.expand(
+					sql, DefaultDatabaseClient.this.bindMarkersFactory, namedBindings);
+		}
+
 		private <T> FetchSpec<T> execute(Supplier<String> sqlSupplier, Function<Result, Publisher<T>> resultAdapter) {
 			ResultFunction resultHandler = getResultFunction(sqlSupplier);
 
@@ -454,6 +512,19 @@ class DefaultDatabaseClient implements DatabaseClient {
 			return null;
 		}
 
+		@SuppressWarnings("deprecation")
+		private Parameter resolveParameter(Object value) {
+			if (value instanceof Parameter p) {
+				return p;
+			}
+			else if (value instanceof org.springframework.r2dbc.core.Parameter p) {
+				return (p.hasValue() ? Parameters.in(p.getValue()) : Parameters.in(p.getType()));
+			}
+			else {
+				return Parameters.in(value);
+			}
+		}
+
 		private void assertNotPreparedOperation() {
 			if (this.sqlSupplier instanceof PreparedOperation<?>) {
 				throw new InvalidDataAccessApiUsageException(
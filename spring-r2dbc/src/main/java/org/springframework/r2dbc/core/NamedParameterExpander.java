@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.r2dbc.core;
 
+import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.NamedParameterUtils.ExpansionTemplate;
 import org.springframework.r2dbc.core.binding.BindMarkersFactory;
 import org.springframework.util.ConcurrentLruCache;
 
@@ -33,6 +36,12 @@ import org.springframework.util.ConcurrentLruCache;
  * <p>References to the same parameter name are substituted with the
  * same bind marker placeholder if a {@link BindMarkersFactory} uses
  * {@link BindMarkersFactory#identifiablePlaceholders() identifiable} placeholders.
+ *
+ * <p>Expansion results are cached per SQL statement, bind marker strategy
+ * and shape of the parameter values (i.e. the number of elements in
+ * collection parameters), so that repeated executions of the same statement
+ * only need to bind the actual values.
+ *
  * <p><b>NOTE: An instance of this class is thread-safe once configured.</b>
  *
  * @author Mark Paluch
@@ -49,6 +58,11 @@ class NamedParameterExpander {
 	private final ConcurrentLruCache<String, ParsedSql> parsedSqlCache =
 			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, NamedParameterUtils::parseSqlStatement);
 
+	/** Cache of expansion templates per SQL, bind markers and parameter shape. */
+	private final ConcurrentLruCache<TemplateKey, ExpansionTemplate> expansionTemplateCache =
+			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, key -> NamedParameterUtils.createExpansionTemplate(
+					getParsedSql(key.sql), key.bindMarkersFactory, key.parameterShape));
+
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
@@ -84,7 +98,10 @@ class NamedParameterExpander {
 			String sql, BindMarkersFactory bindMarkersFactory, BindParameterSource paramSource) {
 
 		ParsedSql parsedSql = getParsedSql(sql);
-		return NamedParameterUtils.substituteNamedParameters(parsedSql, bindMarkersFactory, paramSource);
+		int[] parameterShape = NamedParameterUtils.getParameterShape(parsedSql, paramSource);
+		ExpansionTemplate template = this.expansionTemplateCache.get(
+				new TemplateKey(sql, bindMarkersFactory, parameterShape));
+		return template.bind(paramSource);
 	}
 
 	/**
@@ -96,4 +113,39 @@ class NamedParameterExpander {
 		return getParsedSql(sql).getParameterNames();
 	}
 
+
+	/**
+	 * Cache key for an expansion template.
+	 */
+	private static final class TemplateKey {
+
+		private final String sql;
+
+		private final BindMarkersFactory bindMarkersFactory;
+
+		private final int[] parameterShape;
+
+		private final int hashCode;
+
+		TemplateKey(String sql, BindMarkersFactory bindMarkersFactory, int[] parameterShape) {
+			this.sql = sql;
+			this.bindMarkersFactory = bindMarkersFactory;
+			this.parameterShape = parameterShape;
+			this.hashCode = 31 * (31 * sql.hashCode() + System.identityHashCode(bindMarkersFactory)) +
+					Arrays.hashCode(parameterShape);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof TemplateKey that && this.sql.equals(that.sql) &&
+					this.bindMarkersFactory == that.bindMarkersFactory &&
+					Arrays.equals(this.parameterShape, that.parameterShape)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -17,7 +17,10 @@
 package org.springframework.r2dbc.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -276,15 +279,78 @@ abstract class NamedParameterUtils {
 	public static PreparedOperation<String> substituteNamedParameters(ParsedSql parsedSql,
 			BindMarkersFactory bindMarkersFactory, BindParameterSource paramSource) {
 
+		int[] parameterShape = getParameterShape(parsedSql, paramSource);
+		return createExpansionTemplate(parsedSql, bindMarkersFactory, parameterShape).bind(paramSource);
+	}
+
+	/**
+	 * Determine the shape of the given parameter values with respect to SQL
+	 * expansion: for each parameter occurrence, whether it is a single value
+	 * or a collection, and for collections, the number of elements and the
+	 * length of each nested expression list.
+	 * <p>Parameter sources with the same shape expand to the same SQL,
+	 * so the shape can serve as a cache key for expansion templates.
+	 * @param parsedSql the parsed representation of the SQL statement
+	 * @param paramSource the source for named parameters
+	 * @return the shape, encoded as a sequence of {@code -1} for single values
+	 * and collection sizes, each followed by {@code -1} (single element) or
+	 * the expression list length per element
+	 * @see #createExpansionTemplate
+	 */
+	static int[] getParameterShape(ParsedSql parsedSql, BindParameterSource paramSource) {
+		List<String> paramNames = parsedSql.getParameterNames();
+		int[] shape = new int[paramNames.size()];
+		int pos = 0;
+		for (String paramName : paramNames) {
+			Collection<?> collection = null;
+			if (paramSource.hasValue(paramName) &&
+					paramSource.getValue(paramName).getValue() instanceof Collection<?> c) {
+				collection = c;
+			}
+			if (collection == null) {
+				shape = ensureCapacity(shape, pos + 1);
+				shape[pos++] = -1;
+			}
+			else {
+				shape = ensureCapacity(shape, pos + 1 + collection.size());
+				shape[pos++] = collection.size();
+				for (Object entryItem : collection) {
+					shape[pos++] = (entryItem instanceof Object[] expressionList ? expressionList.length : -1);
+				}
+			}
+		}
+		return (pos == shape.length ? shape : Arrays.copyOf(shape, pos));
+	}
+
+	private static int[] ensureCapacity(int[] shape, int minCapacity) {
+		return (minCapacity <= shape.length ? shape :
+				Arrays.copyOf(shape, Math.max(minCapacity, shape.length * 2)));
+	}
+
+	/**
+	 * Create a template for expanding the given SQL statement with parameter
+	 * values of the given shape, precomputing the expanded SQL and the bind
+	 * markers for each parameter.
+	 * @param parsedSql the parsed representation of the SQL statement
+	 * @param bindMarkersFactory the bind marker factory
+	 * @param parameterShape the shape of the parameter values to expand for
+	 * @return the expansion template, to be {@linkplain ExpansionTemplate#bind bound}
+	 * to specific parameter values of the same shape
+	 * @see #getParameterShape
+	 */
+	static ExpansionTemplate createExpansionTemplate(ParsedSql parsedSql,
+			BindMarkersFactory bindMarkersFactory, int[] parameterShape) {
+
 		NamedParameters markerHolder = new NamedParameters(bindMarkersFactory);
 		String originalSql = parsedSql.getOriginalSql();
 		List<String> paramNames = parsedSql.getParameterNames();
 		if (paramNames.isEmpty()) {
-			return new ExpandedQuery(originalSql, markerHolder, paramSource);
+			return new ExpansionTemplate(originalSql, markerHolder);
 		}
 
 		StringBuilder actualSql = new StringBuilder(originalSql.length());
 		int lastIndex = 0;
+		int pos = 0;
 		for (int i = 0; i < paramNames.size(); i++) {
 			String paramName = paramNames.get(i);
 			int[] indexes = parsedSql.getParameterIndexes(i);
@@ -292,38 +358,29 @@ abstract class NamedParameterUtils {
 			int endIndex = indexes[1];
 			actualSql.append(originalSql, lastIndex, startIndex);
 			NamedParameters.NamedParameter marker = markerHolder.getOrCreate(paramName);
-			if (paramSource.hasValue(paramName)) {
-				Parameter parameter = paramSource.getValue(paramName);
-				if (parameter.getValue() instanceof Collection<?> c) {
-
-					Iterator<?> entryIter = c.iterator();
-					int k = 0;
-					int counter = 0;
-					while (entryIter.hasNext()) {
-						if (k > 0) {
-							actualSql.append(", ");
-						}
-						k++;
-						Object entryItem = entryIter.next();
-						if (entryItem instanceof Object[] expressionList) {
-							actualSql.append('(');
-							for (int m = 0; m < expressionList.length; m++) {
-								if (m > 0) {
-									actualSql.append(", ");
-								}
-								actualSql.append(marker.getPlaceholder(counter));
-								counter++;
+			int collectionSize = parameterShape[pos++];
+			if (collectionSize >= 0) {
+				int counter = 0;
+				for (int k = 0; k < collectionSize; k++) {
+					if (k > 0) {
+						actualSql.append(", ");
+					}
+					int expressionListLength = parameterShape[pos++];
+					if (expressionListLength >= 0) {
+						actualSql.append('(');
+						for (int m = 0; m < expressionListLength; m++) {
+							if (m > 0) {
+								actualSql.append(", ");
 							}
-							actualSql.append(')');
-						}
-						else {
 							actualSql.append(marker.getPlaceholder(counter));
 							counter++;
 						}
+						actualSql.append(')');
+					}
+					else {
+						actualSql.append(marker.getPlaceholder(counter));
+						counter++;
 					}
-				}
-				else {
-					actualSql.append(marker.getPlaceholder());
 				}
 			}
 			else {
@@ -333,7 +390,7 @@ abstract class NamedParameterUtils {
 		}
 		actualSql.append(originalSql, lastIndex, originalSql.length());
 
-		return new ExpandedQuery(actualSql.toString(), markerHolder, paramSource);
+		return new ExpansionTemplate(actualSql.toString(), markerHolder);
 	}
 
 	/**
@@ -491,21 +548,66 @@ abstract class NamedParameterUtils {
 	}
 
 
+	/**
+	 * Expansion of a SQL statement for parameter values of a specific shape:
+	 * the expanded SQL along with the bind markers per parameter name.
+	 * Immutable and therefore reusable across executions.
+	 */
+	static class ExpansionTemplate {
+
+		private final String expandedSql;
+
+		private final Map<String, List<BindMarker>> bindMarkers;
+
+		ExpansionTemplate(String expandedSql, NamedParameters parameters) {
+			this.expandedSql = expandedSql;
+			Map<String, List<BindMarker>> bindMarkers = new HashMap<>(parameters.references.size() * 2);
+			parameters.references.forEach((name, namedParameters) -> {
+				List<BindMarker> markers = new ArrayList<>();
+				for (NamedParameters.NamedParameter namedParameter : namedParameters) {
+					markers.addAll(namedParameter.placeholders);
+				}
+				bindMarkers.put(name, Collections.unmodifiableList(markers));
+			});
+			this.bindMarkers = bindMarkers;
+		}
+
+		/**
+		 * Return the expanded SQL.
+		 */
+		String getExpandedSql() {
+			return this.expandedSql;
+		}
+
+		/**
+		 * Bind this template to the given parameter values, which need to be
+		 * of the same shape as the template was created for.
+		 * @param paramSource the source for named parameters
+		 * @return the expanded query, ready for binding to a statement
+		 */
+		PreparedOperation<String> bind(BindParameterSource paramSource) {
+			return new ExpandedQuery(this, paramSource);
+		}
+
+		@Nullable
+		List<BindMarker> getBindMarkers(String identifier) {
+			return this.bindMarkers.get(identifier);
+		}
+	}
+
+
 	/**
 	 * Expanded query that allows binding of parameters using parameter names that were
 	 * used to expand the query. Binding unrolls {@link Collection}s and nested arrays.
 	 */
 	private static class ExpandedQuery implements PreparedOperation<String> {
 
-		private final String expandedSql;
-
-		private final NamedParameters parameters;
+		private final ExpansionTemplate template;
 
 		private final BindParameterSource parameterSource;
 
-		ExpandedQuery(String expandedSql, NamedParameters parameters, BindParameterSource parameterSource) {
-			this.expandedSql = expandedSql;
-			this.parameters = parameters;
+		ExpandedQuery(ExpansionTemplate template, BindParameterSource parameterSource) {
+			this.template = template;
 			this.parameterSource = parameterSource;
 		}
 
@@ -559,20 +661,12 @@ abstract class NamedParameterUtils {
 
 		@Nullable
 		List<BindMarker> getBindMarkers(String identifier) {
-			List<NamedParameters.NamedParameter> parameters = this.parameters.getMarker(identifier);
-			if (parameters == null) {
-				return null;
-			}
-			List<BindMarker> markers = new ArrayList<>();
-			for (NamedParameters.NamedParameter parameter : parameters) {
-				markers.addAll(parameter.placeholders);
-			}
-			return markers;
+			return this.template.getBindMarkers(identifier);
 		}
 
 		@Override
 		public String getSource() {
-			return this.expandedSql;
+			return this.template.getExpandedSql();
 		}
 
 		@Override
@@ -590,7 +684,7 @@ abstract class NamedParameterUtils {
 
 		@Override
 		public String toQuery() {
-			return this.expandedSql;
+			return this.template.getExpandedSql();
 		}
 	}
 
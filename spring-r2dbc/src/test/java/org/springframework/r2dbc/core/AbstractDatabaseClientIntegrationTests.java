@@ -16,6 +16,8 @@
 
 package org.springframework.r2dbc.core;
 
+import java.util.Map;
+
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.Result;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +27,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -149,4 +152,15 @@ public abstract class AbstractDatabaseClientIntegrationTests {
 				.verifyComplete();
 	}
 
+	@Test
+	public void shouldRejectBatchWithMissingParameter() {
+		DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+
+		databaseClient.sql("INSERT INTO legoset (id, name, manual) VALUES(:id, :name, :manual)")
+				.batch(Flux.just(Map.of("id", 42055, "name", "SCHAUFELRADBAGGER")))
+				.rowsUpdated()
+				.as(StepVerifier::create)
+				.verifyError(InvalidDataAccessApiUsageException.class);
+	}
+
 }
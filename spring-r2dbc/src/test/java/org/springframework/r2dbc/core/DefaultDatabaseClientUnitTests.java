@@ -17,6 +17,7 @@
 package org.springframework.r2dbc.core;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactory;
@@ -393,6 +394,32 @@ class DefaultDatabaseClientUnitTests {
 		inOrder.verifyNoMoreInteractions();
 	}
 
+	@Test
+	void executeBatchShouldBindParameterSetsToSingleStatement() {
+		Statement statement = mockStatementFor("INSERT INTO table VALUES($1, $2)",
+				MockResult.builder().rowsUpdated(2).build());
+
+		DatabaseClient databaseClient = databaseClientBuilder.build();
+
+		databaseClient.sql("INSERT INTO table VALUES(:id, :name)")
+				.bind("name", "Walter")
+				.batch(Flux.just(Map.of("id", 1), Map.of("id", 2)))
+				.rowsUpdated()
+				.as(StepVerifier::create)
+				.expectNext(2L)
+				.verifyComplete();
+
+		InOrder inOrder = inOrder(statement);
+		inOrder.verify(statement).bind(0, Parameters.in(1));
+		inOrder.verify(statement).bind(1, Parameters.in("Walter"));
+		inOrder.verify(statement).add();
+		inOrder.verify(statement).bind(0, Parameters.in(2));
+		inOrder.verify(statement).bind(1, Parameters.in("Walter"));
+		inOrder.verify(statement).execute();
+		inOrder.verifyNoMoreInteractions();
+		verify(connection, times(1)).createStatement("INSERT INTO table VALUES($1, $2)");
+	}
+
 	private Statement mockStatement() {
 		return mockStatementFor(null, null);
 	}
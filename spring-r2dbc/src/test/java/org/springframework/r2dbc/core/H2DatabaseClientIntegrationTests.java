@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,22 @@
 
 package org.springframework.r2dbc.core;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import io.r2dbc.h2.H2ConnectionFactory;
 import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Integration tests for {@link DatabaseClient} against H2.
@@ -44,4 +58,84 @@ public class H2DatabaseClientIntegrationTests
 		return CREATE_TABLE_LEGOSET;
 	}
 
+	// r2dbc-h2 only completes a binding after add() for bind-by-name calls,
+	// so the following tests use native "$n" bind markers by name.
+
+	@Test
+	public void executeBatch() {
+		DatabaseClient databaseClient = DatabaseClient.builder()
+				.connectionFactory(createConnectionFactory()).namedParameters(false).build();
+		List<Long> requests = new CopyOnWriteArrayList<>();
+
+		Flux<Map<String, Object>> parameterSets = Flux.range(1, 10)
+				.<Map<String, Object>>map(i -> Map.of("$1", i, "$2", "SET" + i))
+				.doOnRequest(requests::add);
+
+		databaseClient.sql("INSERT INTO legoset (id, name, manual) VALUES($1, $2, $3)")
+				.bindNull("$3", Integer.class)
+				.batch(parameterSets)
+				.batchSize(4)
+				.rowsUpdated()
+				.as(StepVerifier::create)
+				.expectNext(4L, 4L, 2L)
+				.verifyComplete();
+
+		assertThat(requests).allMatch(n -> n <= 4);
+
+		databaseClient.sql("SELECT COUNT(*) FROM legoset")
+				.map(row -> row.get(0, Long.class))
+				.first()
+				.as(StepVerifier::create)
+				.expectNext(10L)
+				.verifyComplete();
+	}
+
+	@Test
+	public void executeBatchWithTimeout() {
+		DatabaseClient databaseClient = DatabaseClient.builder()
+				.connectionFactory(createConnectionFactory()).namedParameters(false).build();
+		List<Long> requests = new CopyOnWriteArrayList<>();
+
+		Flux<Map<String, Object>> parameterSets = Flux.range(1, 3)
+				.concatWith(Flux.range(4, 2).delaySubscription(Duration.ofMillis(500)))
+				.<Map<String, Object>>map(i -> Map.of("$1", i, "$2", "SET" + i, "$3", i))
+				.doOnRequest(requests::add);
+
+		databaseClient.sql("INSERT INTO legoset (id, name, manual) VALUES($1, $2, $3)")
+				.batch(parameterSets)
+				.batchSize(10)
+				.batchTimeout(Duration.ofMillis(100))
+				.rowsUpdated()
+				.as(StepVerifier::create)
+				.expectNext(3L, 2L)
+				.verifyComplete();
+
+		assertThat(requests).allMatch(n -> n <= 10);
+	}
+
+	@Test
+	public void executeBatchWithinTransaction() {
+		ConnectionFactory connectionFactory = createConnectionFactory();
+		DatabaseClient databaseClient = DatabaseClient.builder()
+				.connectionFactory(connectionFactory).namedParameters(false).build();
+		TransactionalOperator operator = TransactionalOperator.create(
+				new R2dbcTransactionManager(connectionFactory));
+
+		databaseClient.sql("INSERT INTO legoset (id, name) VALUES($1, $2)")
+				.batch(Flux.range(1, 5).map(i -> Map.of("$1", i, "$2", "SET" + i)))
+				.batchSize(2)
+				.rowsUpdated()
+				.then(Mono.error(new IllegalStateException("rollback")))
+				.as(operator::transactional)
+				.as(StepVerifier::create)
+				.verifyError(IllegalStateException.class);
+
+		databaseClient.sql("SELECT COUNT(*) FROM legoset")
+				.map(row -> row.get(0, Long.class))
+				.first()
+				.as(StepVerifier::create)
+				.expectNext(0L)
+				.verifyComplete();
+	}
+
 }
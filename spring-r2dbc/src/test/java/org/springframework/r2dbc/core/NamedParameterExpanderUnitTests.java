@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.r2dbc.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.r2dbc.spi.Parameters;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link NamedParameterExpander}.
+ *
+ * @author agent (agent@local)
+ */
+class NamedParameterExpanderUnitTests {
+
+	private static final BindMarkersFactory BIND_MARKERS = BindMarkersFactory.indexed("$", 1);
+
+	private final NamedParameterExpander expander = new NamedParameterExpander();
+
+
+	@Test
+	void shouldBindValuesToCachedExpansion() {
+		String sql = "SELECT * FROM person WHERE name = :name AND age > :age OR nick = :name";
+
+		PreparedOperation<String> operation1 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("name", "Walter").addValue("age", 50));
+		PreparedOperation<String> operation2 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("name", "Jesse").addValue("age", 25));
+
+		assertThat(operation1.toQuery()).isEqualTo("SELECT * FROM person WHERE name = $1 AND age > $2 OR nick = $1");
+		assertThat(operation2.toQuery()).isSameAs(operation1.toQuery());
+
+		BindTarget bindTarget = mock(BindTarget.class);
+		operation2.bindTo(bindTarget);
+		verify(bindTarget).bind(0, Parameters.in("Jesse"));
+		verify(bindTarget).bind(1, Parameters.in(25));
+	}
+
+	@Test
+	void shouldExpandCollectionsOfDifferentSize() {
+		String sql = "SELECT * FROM person WHERE id IN (:ids)";
+
+		PreparedOperation<String> operation1 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("ids", List.of(1, 2)));
+		PreparedOperation<String> operation2 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("ids", List.of(3, 4, 5)));
+		PreparedOperation<String> operation3 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("ids", List.of(6, 7)));
+
+		assertThat(operation1.toQuery()).isEqualTo("SELECT * FROM person WHERE id IN ($1, $2)");
+		assertThat(operation2.toQuery()).isEqualTo("SELECT * FROM person WHERE id IN ($1, $2, $3)");
+		assertThat(operation3.toQuery()).isSameAs(operation1.toQuery());
+
+		BindTarget bindTarget = mock(BindTarget.class);
+		operation3.bindTo(bindTarget);
+		verify(bindTarget).bind(0, 6);
+		verify(bindTarget).bind(1, 7);
+	}
+
+	@Test
+	void shouldExpandExpressionListsOfDifferentLength() {
+		String sql = "SELECT * FROM person WHERE (name, age) IN (:tuples)";
+
+		PreparedOperation<String> operation1 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("tuples", Arrays.asList(
+						new Object[] {"Walter", 50}, new Object[] {"Jesse", 25})));
+		PreparedOperation<String> operation2 = this.expander.expand(sql, BIND_MARKERS,
+				new MapBindParameterSource().addValue("tuples", Arrays.asList(
+						new Object[] {"Walter", 50, "White"}, new Object[] {"Jesse", 25, "Pinkman"})));
+
+		assertThat(operation1.toQuery()).isEqualTo("SELECT * FROM person WHERE (name, age) IN (($1, $2), ($3, $4))");
+		assertThat(operation2.toQuery()).isEqualTo(
+				"SELECT * FROM person WHERE (name, age) IN (($1, $2, $3), ($4, $5, $6))");
+	}
+
+	@Test
+	void shouldDistinguishBindMarkersFactories() {
+		String sql = "SELECT * FROM person WHERE name = :name";
+		MapBindParameterSource parameters = new MapBindParameterSource().addValue("name", "Walter");
+
+		assertThat(this.expander.expand(sql, BIND_MARKERS, parameters).toQuery())
+				.isEqualTo("SELECT * FROM person WHERE name = $1");
+		assertThat(this.expander.expand(sql, BindMarkersFactory.anonymous("?"), parameters).toQuery())
+				.isEqualTo("SELECT * FROM person WHERE name = ?");
+	}
+
+}
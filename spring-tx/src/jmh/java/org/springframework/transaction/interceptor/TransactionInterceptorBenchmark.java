@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Benchmark for the overhead of invoking methods through a {@link TransactionInterceptor}
+ * proxy with a no-op transaction manager, compared to direct invocation.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionInterceptorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Service target;
+
+		public Service proxy;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.target = new DefaultService();
+			ProxyFactory proxyFactory = new ProxyFactory(this.target);
+			proxyFactory.addInterface(Service.class);
+			proxyFactory.addAdvice(new TransactionInterceptor(
+					new NoOpTransactionManager(), new AnnotationTransactionAttributeSource()));
+			this.proxy = (Service) proxyFactory.getProxy();
+		}
+	}
+
+	@Benchmark
+	public int directCall(BenchmarkState state) {
+		return state.target.transactional(1);
+	}
+
+	@Benchmark
+	public int proxiedTransactionalCall(BenchmarkState state) {
+		return state.proxy.transactional(1);
+	}
+
+	@Benchmark
+	public int proxiedNonTransactionalCall(BenchmarkState state) {
+		return state.proxy.nonTransactional(1);
+	}
+
+
+	public interface Service {
+
+		@Transactional
+		int transactional(int value);
+
+		int nonTransactional(int value);
+	}
+
+
+	static class DefaultService implements Service {
+
+		@Override
+		public int transactional(int value) {
+			return value + 1;
+		}
+
+		@Override
+		public int nonTransactional(int value) {
+			return value + 1;
+		}
+	}
+
+
+	static class NoOpTransactionManager implements PlatformTransactionManager {
+
+		@Override
+		public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) {
+			return new SimpleTransactionStatus();
+		}
+
+		@Override
+		public void commit(TransactionStatus status) {
+		}
+
+		@Override
+		public void rollback(TransactionStatus status) {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.core.CoroutinesUtils;
 import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ReactiveAdapter;
@@ -53,6 +54,7 @@ import org.springframework.transaction.support.CallbackPreferringPlatformTransac
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -73,6 +75,13 @@ import org.springframework.util.StringUtils;
  * management, and a {@link TransactionAttributeSource} (e.g. annotation-based) is used
  * for determining transaction definitions for a particular class or method.
  *
+ * <p>The transaction attribute, transaction manager and joinpoint identification
+ * for a given method and target class are resolved on first invocation and cached
+ * for subsequent invocations. The cache gets cleared whenever the transaction
+ * manager, transaction attribute source or bean factory is reconfigured.
+ * If a subclass overrides {@link #determineTransactionManager}, the transaction
+ * manager is determined on every invocation instead.
+ *
  * <p>A transaction aspect is serializable if its {@code TransactionManager} and
  * {@code TransactionAttributeSource} are serializable.
  *
@@ -185,6 +194,14 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Method, ReactiveTransactionSupport> transactionSupportCache =
 			new ConcurrentReferenceHashMap<>(1024);
 
+	private final ConcurrentMap<Method, TransactionInfoTemplate> transactionInfoTemplateCache =
+			new ConcurrentReferenceHashMap<>(1024);
+
+	private final ConcurrentMap<MethodClassKey, TransactionInfoTemplate> transactionInfoTemplateByTargetCache =
+			new ConcurrentReferenceHashMap<>(16);
+
+	private final boolean transactionManagerCacheable;
+
 
 	protected TransactionAspectSupport() {
 		if (reactiveStreamsPresent) {
@@ -193,6 +210,11 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		else {
 			this.reactiveAdapterRegistry = null;
 		}
+		// A custom determineTransactionManager may depend on more than the attribute
+		Method determineTransactionManager = ReflectionUtils.findMethod(
+				getClass(), "determineTransactionManager", TransactionAttribute.class);
+		this.transactionManagerCacheable = (determineTransactionManager != null &&
+				determineTransactionManager.getDeclaringClass() == TransactionAspectSupport.class);
 	}
 
 
@@ -203,6 +225,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManagerBeanName(@Nullable String transactionManagerBeanName) {
 		this.transactionManagerBeanName = transactionManagerBeanName;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -224,6 +247,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManager(@Nullable TransactionManager transactionManager) {
 		this.transactionManager = transactionManager;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -252,6 +276,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
 		tas.setProperties(transactionAttributes);
 		this.transactionAttributeSource = tas;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -264,12 +289,16 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSources(TransactionAttributeSource... transactionAttributeSources) {
 		this.transactionAttributeSource = new CompositeTransactionAttributeSource(transactionAttributeSources);
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
 	 * Set the transaction attribute source which is used to find transaction
 	 * attributes. If specifying a String property value, a PropertyEditor
 	 * will create a MethodMapTransactionAttributeSource from the value.
+	 * <p>Note that the transaction attribute returned for a given method and
+	 * target class is cached by this aspect: the attribute source is expected
+	 * to consistently return the same attribute for the same method.
 	 * @see TransactionAttributeSourceEditor
 	 * @see MethodMapTransactionAttributeSource
 	 * @see NameMatchTransactionAttributeSource
@@ -277,6 +306,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
 		this.transactionAttributeSource = transactionAttributeSource;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -293,6 +323,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Override
 	public void setBeanFactory(@Nullable BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -337,9 +368,10 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			final InvocationCallback invocation) throws Throwable {
 
 		// If the transaction attribute is null, the method is non-transactional.
-		TransactionAttributeSource tas = getTransactionAttributeSource();
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
-		final TransactionManager tm = determineTransactionManager(txAttr);
+		TransactionInfoTemplate template = getTransactionInfoTemplate(method, targetClass);
+		final TransactionAttribute txAttr = template.transactionAttribute;
+		final TransactionManager tm = (this.transactionManagerCacheable ?
+				template.transactionManager : determineTransactionManager(txAttr));
 
 		if (this.reactiveAdapterRegistry != null && tm instanceof ReactiveTransactionManager) {
 			boolean isSuspendingFunction = KotlinDetector.isSuspendingFunction(method);
@@ -365,7 +397,8 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			if (corInv != null) {
 				callback = () -> CoroutinesUtils.invokeSuspendingFunction(method, corInv.getTarget(), corInv.getArguments());
 			}
-			Object result = txSupport.invokeWithinTransaction(method, targetClass, callback, txAttr, (ReactiveTransactionManager) tm);
+			Object result = txSupport.invokeWithinTransaction(method, callback,
+					template.namedTransactionAttribute, template.joinpointIdentification, (ReactiveTransactionManager) tm);
 			if (corInv != null) {
 				Publisher<?> pr = (Publisher<?>) result;
 				return (hasSuspendingFlowReturnType ? KotlinDelegate.asFlow(pr) :
@@ -375,11 +408,12 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 
 		PlatformTransactionManager ptm = asPlatformTransactionManager(tm);
-		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		final String joinpointIdentification = template.joinpointIdentification;
 
 		if (txAttr == null || !(ptm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
-			TransactionInfo txInfo = createTransactionIfNecessary(ptm, txAttr, joinpointIdentification);
+			TransactionInfo txInfo = createTransactionIfNecessary(
+					ptm, template.namedTransactionAttribute, joinpointIdentification);
 
 			Object retVal;
 			try {
@@ -470,12 +504,59 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+	/**
+	 * Obtain the cached {@link TransactionInfoTemplate} for the given method and
+	 * target class, resolving it on first invocation. The common case of a method
+	 * invoked on a single target class is served by a lookup per {@link Method}.
+	 */
+	private TransactionInfoTemplate getTransactionInfoTemplate(Method method, @Nullable Class<?> targetClass) {
+		TransactionInfoTemplate template = this.transactionInfoTemplateCache.get(method);
+		if (template == null || template.targetClass != targetClass) {
+			MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+			template = this.transactionInfoTemplateByTargetCache.get(cacheKey);
+			if (template == null) {
+				template = createTransactionInfoTemplate(method, targetClass);
+				if (this.transactionInfoTemplateCache.putIfAbsent(method, template) != null) {
+					// Same method invoked on a different target class
+					this.transactionInfoTemplateByTargetCache.put(cacheKey, template);
+				}
+			}
+		}
+		return template;
+	}
+
+	@SuppressWarnings("serial")
+	private TransactionInfoTemplate createTransactionInfoTemplate(Method method, @Nullable Class<?> targetClass) {
+		TransactionAttributeSource tas = getTransactionAttributeSource();
+		TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		TransactionManager tm = (this.transactionManagerCacheable ? determineTransactionManager(txAttr) : null);
+		String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+
+		// If no name specified, apply method identification as transaction name.
+		TransactionAttribute namedTxAttr = txAttr;
+		if (txAttr != null && txAttr.getName() == null) {
+			namedTxAttr = new DelegatingTransactionAttribute(txAttr) {
+				@Override
+				public String getName() {
+					return joinpointIdentification;
+				}
+			};
+		}
+		return new TransactionInfoTemplate(targetClass, txAttr, namedTxAttr, tm, joinpointIdentification);
+	}
+
+	private void clearTransactionInfoTemplateCache() {
+		this.transactionInfoTemplateCache.clear();
+		this.transactionInfoTemplateByTargetCache.clear();
+	}
+
 	/**
 	 * Clear the transaction manager cache.
 	 */
 	protected void clearTransactionManagerCache() {
 		this.transactionManagerCache.clear();
 		this.beanFactory = null;
+		clearTransactionInfoTemplateCache();
 	}
 
 	/**
@@ -712,6 +793,42 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * Transaction metadata for a method and target class, resolved once on first
+	 * invocation: the transaction attribute (also in a variant exposing the
+	 * joinpoint identification as transaction name), the transaction manager to
+	 * use unless determined per invocation, and the joinpoint identification.
+	 * A {@code null} transaction attribute indicates a non-transactional method.
+	 */
+	private static final class TransactionInfoTemplate {
+
+		@Nullable
+		private final Class<?> targetClass;
+
+		@Nullable
+		private final TransactionAttribute transactionAttribute;
+
+		@Nullable
+		private final TransactionAttribute namedTransactionAttribute;
+
+		@Nullable
+		private final TransactionManager transactionManager;
+
+		private final String joinpointIdentification;
+
+		TransactionInfoTemplate(@Nullable Class<?> targetClass, @Nullable TransactionAttribute transactionAttribute,
+				@Nullable TransactionAttribute namedTransactionAttribute,
+				@Nullable TransactionManager transactionManager, String joinpointIdentification) {
+
+			this.targetClass = targetClass;
+			this.transactionAttribute = transactionAttribute;
+			this.namedTransactionAttribute = namedTransactionAttribute;
+			this.transactionManager = transactionManager;
+			this.joinpointIdentification = joinpointIdentification;
+		}
+	}
+
+
 	/**
 	 * Opaque object used to hold transaction information. Subclasses
 	 * must pass it back to methods on this class, but not see its internals.
@@ -898,10 +1015,8 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			this.adapter = adapter;
 		}
 
-		public Object invokeWithinTransaction(Method method, @Nullable Class<?> targetClass,
-				InvocationCallback invocation, @Nullable TransactionAttribute txAttr, ReactiveTransactionManager rtm) {
-
-			String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		public Object invokeWithinTransaction(Method method, InvocationCallback invocation,
+				@Nullable TransactionAttribute txAttr, String joinpointIdentification, ReactiveTransactionManager rtm) {
 
 			// For Mono and suspending functions not returning kotlinx.coroutines.flow.Flow
 			if (Mono.class.isAssignableFrom(method.getReturnType()) || (KotlinDetector.isSuspendingFunction(method) &&
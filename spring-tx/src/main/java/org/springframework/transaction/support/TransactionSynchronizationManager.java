@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,6 +61,14 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 6.0, all state for a thread is kept in a single holder object behind
+ * one {@link ThreadLocal}, with collections only allocated when needed: the
+ * common case of a single bound resource and no registered synchronizations
+ * does not require any per-transaction collection. The holder is removed from
+ * the thread as soon as it is empty again, so that no state is retained on
+ * pooled threads, and it does not require any locking, making it suitable
+ * for virtual threads as well.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -73,23 +81,30 @@ import org.springframework.util.Assert;
  */
 public abstract class TransactionSynchronizationManager {
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
-
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
-
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
+	private static final ThreadLocal<SynchronizationState> state =
+			new NamedThreadLocal<>("Transaction synchronization state");
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Return the state holder for the current thread, creating it if necessary.
+	 */
+	private static SynchronizationState obtainState() {
+		SynchronizationState current = state.get();
+		if (current == null) {
+			current = new SynchronizationState();
+			state.set(current);
+		}
+		return current;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Remove the given state holder from the current thread if it is empty.
+	 */
+	private static void releaseIfEmpty(SynchronizationState current) {
+		if (current.isEmpty()) {
+			state.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -106,8 +121,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		SynchronizationState current = state.get();
+		return (current != null ? current.getResourceMap() : Collections.emptyMap());
 	}
 
 	/**
@@ -140,18 +155,16 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		SynchronizationState current = state.get();
+		if (current == null) {
 			return null;
 		}
-		Object value = map.get(actualKey);
+		Object value = current.getResource(actualKey);
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
-			map.remove(actualKey);
+			current.removeResource(actualKey);
 			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
+			releaseIfEmpty(current);
 			value = null;
 		}
 		return value;
@@ -167,13 +180,7 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<>();
-			resources.set(map);
-		}
-		Object oldValue = map.put(actualKey, value);
+		Object oldValue = obtainState().putResource(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
 			oldValue = null;
@@ -216,15 +223,13 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		SynchronizationState current = state.get();
+		if (current == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
+		Object value = current.removeResource(actualKey);
 		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
-		}
+		releaseIfEmpty(current);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -243,7 +248,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		SynchronizationState current = state.get();
+		return (current != null && current.synchronizationActive);
 	}
 
 	/**
@@ -255,7 +261,7 @@ public abstract class TransactionSynchronizationManager {
 		if (isSynchronizationActive()) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
-		synchronizations.set(new LinkedHashSet<>());
+		obtainState().synchronizationActive = true;
 	}
 
 	/**
@@ -272,10 +278,15 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		SynchronizationState current = state.get();
+		if (current == null || !current.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
+		Set<TransactionSynchronization> synchs = current.synchronizations;
+		if (synchs == null) {
+			synchs = new LinkedHashSet<>(4);
+			current.synchronizations = synchs;
+		}
 		synchs.add(synchronization);
 	}
 
@@ -287,16 +298,20 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		SynchronizationState current = state.get();
+		if (current == null || !current.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
 		// Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
 		// while iterating and invoking synchronization callbacks that in turn
 		// might register further synchronizations.
-		if (synchs.isEmpty()) {
+		Set<TransactionSynchronization> synchs = current.synchronizations;
+		if (synchs == null || synchs.isEmpty()) {
 			return Collections.emptyList();
 		}
+		else if (synchs.size() == 1) {
+			return Collections.singletonList(synchs.iterator().next());
+		}
 		else {
 			// Sort lazily here, not in registerSynchronization.
 			List<TransactionSynchronization> sortedSynchs = new ArrayList<>(synchs);
@@ -314,7 +329,10 @@ public abstract class TransactionSynchronizationManager {
 		if (!isSynchronizationActive()) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
-		synchronizations.remove();
+		SynchronizationState current = obtainState();
+		current.synchronizationActive = false;
+		current.synchronizations = null;
+		releaseIfEmpty(current);
 	}
 
 
@@ -329,7 +347,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		if (name != null) {
+			obtainState().transactionName = name;
+		}
+		else {
+			SynchronizationState current = state.get();
+			if (current != null) {
+				current.transactionName = null;
+				releaseIfEmpty(current);
+			}
+		}
 	}
 
 	/**
@@ -340,7 +367,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		SynchronizationState current = state.get();
+		return (current != null ? current.transactionName : null);
 	}
 
 	/**
@@ -351,7 +379,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		if (readOnly) {
+			obtainState().transactionReadOnly = true;
+		}
+		else {
+			SynchronizationState current = state.get();
+			if (current != null) {
+				current.transactionReadOnly = false;
+				releaseIfEmpty(current);
+			}
+		}
 	}
 
 	/**
@@ -367,7 +404,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		SynchronizationState current = state.get();
+		return (current != null && current.transactionReadOnly);
 	}
 
 	/**
@@ -387,7 +425,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		if (isolationLevel != null) {
+			obtainState().transactionIsolationLevel = isolationLevel;
+		}
+		else {
+			SynchronizationState current = state.get();
+			if (current != null) {
+				current.transactionIsolationLevel = null;
+				releaseIfEmpty(current);
+			}
+		}
 	}
 
 	/**
@@ -409,7 +456,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		SynchronizationState current = state.get();
+		return (current != null ? current.transactionIsolationLevel : null);
 	}
 
 	/**
@@ -419,7 +467,16 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		if (active) {
+			obtainState().actualTransactionActive = true;
+		}
+		else {
+			SynchronizationState current = state.get();
+			if (current != null) {
+				current.actualTransactionActive = false;
+				releaseIfEmpty(current);
+			}
+		}
 	}
 
 	/**
@@ -434,7 +491,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		SynchronizationState current = state.get();
+		return (current != null && current.actualTransactionActive);
 	}
 
 
@@ -448,11 +506,111 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		SynchronizationState current = state.get();
+		if (current != null) {
+			current.synchronizationActive = false;
+			current.synchronizations = null;
+			current.transactionName = null;
+			current.transactionReadOnly = false;
+			current.transactionIsolationLevel = null;
+			current.actualTransactionActive = false;
+			releaseIfEmpty(current);
+		}
+	}
+
+
+	/**
+	 * Holder for the resources, synchronizations and transaction characteristics
+	 * of a thread. A single resource is kept in dedicated fields; a Map is only
+	 * allocated once a second resource gets bound. Likewise, the Set of
+	 * synchronizations is only allocated on first registration.
+	 */
+	private static final class SynchronizationState {
+
+		@Nullable
+		private Object resourceKey;
+
+		@Nullable
+		private Object resourceValue;
+
+		@Nullable
+		private Map<Object, Object> resources;
+
+		private boolean synchronizationActive;
+
+		@Nullable
+		private Set<TransactionSynchronization> synchronizations;
+
+		@Nullable
+		private String transactionName;
+
+		private boolean transactionReadOnly;
+
+		@Nullable
+		private Integer transactionIsolationLevel;
+
+		private boolean actualTransactionActive;
+
+		@Nullable
+		Object getResource(Object key) {
+			if (this.resources != null) {
+				return this.resources.get(key);
+			}
+			return (this.resourceKey != null && this.resourceKey.equals(key) ? this.resourceValue : null);
+		}
+
+		@Nullable
+		Object putResource(Object key, Object value) {
+			if (this.resources != null) {
+				return this.resources.put(key, value);
+			}
+			if (this.resourceKey == null || this.resourceKey.equals(key)) {
+				Object oldValue = this.resourceValue;
+				this.resourceKey = key;
+				this.resourceValue = value;
+				return oldValue;
+			}
+			this.resources = new HashMap<>();
+			this.resources.put(this.resourceKey, this.resourceValue);
+			this.resources.put(key, value);
+			this.resourceKey = null;
+			this.resourceValue = null;
+			return null;
+		}
+
+		@Nullable
+		Object removeResource(Object key) {
+			if (this.resources != null) {
+				Object value = this.resources.remove(key);
+				if (this.resources.isEmpty()) {
+					this.resources = null;
+				}
+				return value;
+			}
+			if (this.resourceKey != null && this.resourceKey.equals(key)) {
+				Object value = this.resourceValue;
+				this.resourceKey = null;
+				this.resourceValue = null;
+				return value;
+			}
+			return null;
+		}
+
+		Map<Object, Object> getResourceMap() {
+			if (this.resources != null) {
+				return Collections.unmodifiableMap(this.resources);
+			}
+			if (this.resourceKey != null) {
+				return Collections.singletonMap(this.resourceKey, this.resourceValue);
+			}
+			return Collections.emptyMap();
+		}
+
+		boolean isEmpty() {
+			return (this.resourceKey == null && this.resources == null && !this.synchronizationActive &&
+					this.transactionName == null && !this.transactionReadOnly &&
+					this.transactionIsolationLevel == null && !this.actualTransactionActive);
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,10 +20,14 @@ import java.io.Serializable;
 import java.util.Properties;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -34,6 +38,7 @@ import org.springframework.transaction.TransactionStatus;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -262,6 +267,100 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 	}
 
 
+	@Test
+	public void transactionAttributeResolvedOncePerMethodAndTargetClass() throws Throwable {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(new DefaultTransactionAttribute());
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+		given(ptm.getTransaction(definition.capture())).willReturn(status);
+
+		TestBean tb = new TestBean();
+		ITestBean itb = (ITestBean) advised(tb, ptm, tas);
+		itb.getName();
+		itb.getName();
+		itb.getName();
+		itb.setName("name");
+		itb.setName("name");
+
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(tas, times(1)).getTransactionAttribute(setNameMethod, TestBean.class);
+		verify(ptm, times(3)).commit(status);
+		assertThat(definition.getAllValues()).extracting(TransactionDefinition::getName)
+				.containsOnly(TestBean.class.getName() + ".getName");
+	}
+
+	@Test
+	public void transactionAttributeResolvedPerTargetClass() throws Throwable {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(new DefaultTransactionAttribute());
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm.getTransaction(any())).willReturn(status);
+
+		TransactionInterceptor ti = new TransactionInterceptor(ptm, tas);
+		ITestBean itb1 = proxy(new TestBean(), ti);
+		ITestBean itb2 = proxy(new DerivedTestBean(), ti);
+		itb1.getName();
+		itb2.getName();
+		itb1.getName();
+		itb2.getName();
+
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, DerivedTestBean.class);
+		verify(ptm, times(2)).commit(status);
+	}
+
+	@Test
+	public void transactionManagerChangeAppliesToCachedMethod() throws Throwable {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(new DefaultTransactionAttribute());
+		PlatformTransactionManager ptm1 = mock(PlatformTransactionManager.class);
+		PlatformTransactionManager ptm2 = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm1.getTransaction(any())).willReturn(status);
+		given(ptm2.getTransaction(any())).willReturn(status);
+
+		TransactionInterceptor ti = new TransactionInterceptor(ptm1, tas);
+		ITestBean itb = proxy(new TestBean(), ti);
+		itb.getName();
+		ti.setTransactionManager(ptm2);
+		itb.getName();
+
+		verify(ptm1, times(1)).commit(status);
+		verify(ptm2, times(1)).commit(status);
+	}
+
+
+	@Test
+	public void overriddenDetermineTransactionManagerCalledPerInvocation() throws Throwable {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(new DefaultTransactionAttribute());
+		PlatformTransactionManager ptm1 = mock(PlatformTransactionManager.class);
+		PlatformTransactionManager ptm2 = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm1.getTransaction(any())).willReturn(status);
+		given(ptm2.getTransaction(any())).willReturn(status);
+		PlatformTransactionManager[] current = {ptm1};
+
+		TransactionInterceptor ti = new TransactionInterceptor(ptm1, tas) {
+			@Override
+			protected TransactionManager determineTransactionManager(@Nullable TransactionAttribute txAttr) {
+				return current[0];
+			}
+		};
+		ITestBean itb = proxy(new TestBean(), ti);
+		itb.getName();
+		current[0] = ptm2;
+		itb.getName();
+
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(ptm1, times(1)).commit(status);
+		verify(ptm2, times(1)).commit(status);
+	}
+
+
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
 
@@ -281,6 +380,12 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		return ti;
 	}
 
+	private ITestBean proxy(TestBean target, TransactionInterceptor ti) {
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addAdvice(0, ti);
+		return (ITestBean) pf.getProxy();
+	}
+
 	private TransactionInterceptor transactionInterceptorWithTransactionManager(
 			PlatformTransactionManager transactionManager, BeanFactory beanFactory) {
 
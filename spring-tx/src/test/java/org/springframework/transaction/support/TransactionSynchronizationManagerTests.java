@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.Ordered;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link TransactionSynchronizationManager}.
+ *
+ * @author agent (agent@local)
+ */
+class TransactionSynchronizationManagerTests {
+
+	@AfterEach
+	void verifyCleanState() {
+		assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isNull();
+		assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).isNull();
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+	}
+
+
+	@Test
+	void bindSingleResource() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		assertThat(TransactionSynchronizationManager.hasResource("key")).isTrue();
+		assertThat(TransactionSynchronizationManager.getResource("key")).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.getResource("other")).isNull();
+		assertThat(TransactionSynchronizationManager.getResourceMap()).containsOnlyKeys("key");
+		assertThat(TransactionSynchronizationManager.unbindResource("key")).isEqualTo("value");
+
+		TransactionSynchronizationManager.bindResource("key", "value");
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.bindResource("key", "value2"));
+		assertThat(TransactionSynchronizationManager.unbindResource("key")).isNotNull();
+		assertThat(TransactionSynchronizationManager.unbindResourceIfPossible("key")).isNull();
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.unbindResource("key"));
+	}
+
+	@Test
+	void bindMultipleResources() {
+		TransactionSynchronizationManager.bindResource("key1", "value1");
+		TransactionSynchronizationManager.bindResource("key2", "value2");
+		TransactionSynchronizationManager.bindResource("key3", "value3");
+		assertThat(TransactionSynchronizationManager.getResourceMap()).containsOnlyKeys("key1", "key2", "key3");
+		assertThat(TransactionSynchronizationManager.getResource("key1")).isEqualTo("value1");
+		assertThat(TransactionSynchronizationManager.getResource("key2")).isEqualTo("value2");
+
+		assertThat(TransactionSynchronizationManager.unbindResource("key2")).isEqualTo("value2");
+		assertThat(TransactionSynchronizationManager.unbindResource("key1")).isEqualTo("value1");
+		assertThat(TransactionSynchronizationManager.getResource("key3")).isEqualTo("value3");
+		assertThat(TransactionSynchronizationManager.unbindResource("key3")).isEqualTo("value3");
+	}
+
+	@Test
+	void replaceVoidResourceHolder() {
+		ResourceHolderSupport holder = new ResourceHolderSupport() {};
+		TransactionSynchronizationManager.bindResource("key", holder);
+		holder.unbound();
+		assertThat(TransactionSynchronizationManager.hasResource("key")).isFalse();
+
+		TransactionSynchronizationManager.bindResource("key", holder);
+		holder.unbound();
+		TransactionSynchronizationManager.bindResource("key", "value");
+		assertThat(TransactionSynchronizationManager.unbindResource("key")).isEqualTo("value");
+	}
+
+	@Test
+	void registerSynchronizations() {
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::getSynchronizations);
+		TransactionSynchronizationManager.initSynchronization();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::initSynchronization);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+
+		TransactionSynchronization synch1 = new OrderedSynchronization(2);
+		TransactionSynchronization synch2 = new OrderedSynchronization(1);
+		TransactionSynchronizationManager.registerSynchronization(synch1);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactly(synch1);
+		TransactionSynchronizationManager.registerSynchronization(synch2);
+		TransactionSynchronizationManager.registerSynchronization(synch1);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactly(synch2, synch1);
+
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::clearSynchronization);
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.registerSynchronization(synch1));
+	}
+
+	@Test
+	void exposeTransactionCharacteristics() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(2);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("tx");
+		assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).isEqualTo(2);
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+
+		TransactionSynchronizationManager.clear();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isNull();
+		assertThat(TransactionSynchronizationManager.getResource("key")).isEqualTo("value");
+		TransactionSynchronizationManager.unbindResource("key");
+	}
+
+	@Test
+	void stateIsThreadBound() throws InterruptedException {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+
+		AtomicReference<Object> resource = new AtomicReference<>("unset");
+		AtomicReference<String> name = new AtomicReference<>("unset");
+		Thread thread = new Thread(() -> {
+			resource.set(TransactionSynchronizationManager.getResource("key"));
+			name.set(TransactionSynchronizationManager.getCurrentTransactionName());
+		});
+		thread.start();
+		thread.join();
+		assertThat(resource.get()).isNull();
+		assertThat(name.get()).isNull();
+
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		TransactionSynchronizationManager.unbindResource("key");
+	}
+
+
+	private static class OrderedSynchronization implements TransactionSynchronization, Ordered {
+
+		private final int order;
+
+		OrderedSynchronization(int order) {
+			this.order = order;
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -125,6 +125,8 @@ public final class WebAsyncManager {
 	 * Configure an AsyncTaskExecutor for use with concurrent processing via
 	 * {@link #startCallableProcessing(Callable, Object...)}.
 	 * <p>By default a {@link SimpleAsyncTaskExecutor} instance is used.
+	 * On JDK 21+, consider a {@link org.springframework.core.task.VirtualThreadTaskExecutor}
+	 * for blocking {@code Callable} handlers.
 	 */
 	public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
@@ -357,7 +359,8 @@ public final class WebAsyncManager {
 			synchronized (DEFAULT_TASK_EXECUTOR) {
 				AsyncTaskExecutor executor = this.taskExecutor;
 				if (taskExecutorWarning &&
-						(executor instanceof SimpleAsyncTaskExecutor || executor instanceof SyncTaskExecutor)) {
+						((executor instanceof SimpleAsyncTaskExecutor simpleExecutor && !simpleExecutor.isVirtualThreads()) ||
+								executor instanceof SyncTaskExecutor)) {
 					String executorTypeName = executor.getClass().getSimpleName();
 					logger.warn("\n!!!\n" +
 							"An Executor is required to handle java.util.concurrent.Callable return values.\n" +
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -412,7 +412,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 	 * a per-request basis by returning an {@link WebAsyncTask}.
 	 * <p>By default a {@link SimpleAsyncTaskExecutor} instance is used.
 	 * It's recommended to change that default in production as the simple executor
-	 * does not re-use threads.
+	 * does not re-use threads. For blocking I/O-bound handlers on JDK 21+, a
+	 * {@link org.springframework.core.task.VirtualThreadTaskExecutor} is a good fit.
 	 */
 	public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
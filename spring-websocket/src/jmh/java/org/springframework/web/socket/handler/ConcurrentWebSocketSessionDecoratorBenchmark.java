@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.handler;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * Stress benchmark for several threads sending to a set of
+ * {@link ConcurrentWebSocketSessionDecorator ConcurrentWebSocketSessionDecorators}
+ * whose underlying sessions are slow to write to, with messages sent either by
+ * the sending threads or by a shared send executor.
+ *
+ * @author agent (agent@local)
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class ConcurrentWebSocketSessionDecoratorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class SessionState {
+
+		@Param({"16"})
+		public int sessions;
+
+		@Param({"1000"})
+		public long sendCost;
+
+		@Param({"false", "true"})
+		public boolean sendExecutor;
+
+		@Param({"DROP", "DROP_NEWEST"})
+		public OverflowStrategy overflowStrategy;
+
+		public ConcurrentWebSocketSessionDecorator[] decorators;
+
+		public TextMessage message;
+
+		private ExecutorService executor;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.executor = Executors.newFixedThreadPool(2);
+			this.decorators = new ConcurrentWebSocketSessionDecorator[this.sessions];
+			for (int i = 0; i < this.sessions; i++) {
+				ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(
+						createSession("session" + i, this.sendCost), 60 * 1000, 64 * 1024, this.overflowStrategy);
+				if (this.sendExecutor) {
+					decorator.setSendExecutor(this.executor);
+				}
+				this.decorators[i] = decorator;
+			}
+			this.message = new TextMessage("{\"price\":42.0,\"symbol\":\"SPRG\"}");
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws InterruptedException {
+			this.executor.shutdownNow();
+			this.executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+
+		private static WebSocketSession createSession(String id, long sendCost) {
+			return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+					new Class<?>[] {WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+						case "sendMessage" -> {
+							Blackhole.consumeCPU(sendCost);
+							yield null;
+						}
+						case "getId", "toString" -> id;
+						case "isOpen" -> true;
+						case "hashCode" -> System.identityHashCode(proxy);
+						case "equals" -> (proxy == args[0]);
+						default -> null;
+					});
+		}
+	}
+
+	@Benchmark
+	public void send(SessionState state) throws Exception {
+		int index = ThreadLocalRandom.current().nextInt(state.sessions);
+		state.decorators[index].sendMessage(state.message);
+	}
+
+}
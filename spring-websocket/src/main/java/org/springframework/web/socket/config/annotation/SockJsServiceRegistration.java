@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,9 @@ public class SockJsServiceRegistration {
 	@Nullable
 	private Integer httpMessageCacheSize;
 
+	@Nullable
+	private Long httpMessageCoalescingTime;
+
 	@Nullable
 	private Boolean webSocketEnabled;
 
@@ -188,6 +191,18 @@ public class SockJsServiceRegistration {
 		return this;
 	}
 
+	/**
+	 * The amount of time in microseconds that HTTP transports wait after a
+	 * message is sent before writing it, so that messages sent in the meantime
+	 * are written together in a single frame.
+	 * <p>By default this is 0, in which case messages are written immediately.
+	 * @since 6.0
+	 */
+	public SockJsServiceRegistration setHttpMessageCoalescingTime(long httpMessageCoalescingTime) {
+		this.httpMessageCoalescingTime = httpMessageCoalescingTime;
+		return this;
+	}
+
 	/**
 	 * Some load balancers don't support WebSocket. This option can be used to
 	 * disable the WebSocket transport on the server side.
@@ -291,6 +306,9 @@ public class SockJsServiceRegistration {
 		if (this.httpMessageCacheSize != null) {
 			service.setHttpMessageCacheSize(this.httpMessageCacheSize);
 		}
+		if (this.httpMessageCoalescingTime != null) {
+			service.setHttpMessageCoalescingTime(this.httpMessageCoalescingTime);
+		}
 		if (this.webSocketEnabled != null) {
 			service.setWebSocketEnabled(this.webSocketEnabled);
 		}
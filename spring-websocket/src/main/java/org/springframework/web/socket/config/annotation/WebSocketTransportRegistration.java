@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@ package org.springframework.web.socket.config.annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.springframework.lang.Nullable;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
 
 /**
@@ -40,6 +42,12 @@ public class WebSocketTransportRegistration {
 	@Nullable
 	private Integer sendBufferSizeLimit;
 
+	@Nullable
+	private OverflowStrategy sendBufferOverflowStrategy;
+
+	@Nullable
+	private Executor sendExecutor;
+
 	@Nullable
 	private Integer timeToFirstMessage;
 
@@ -146,6 +154,52 @@ public class WebSocketTransportRegistration {
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Configure what to do when the {@link #setSendBufferSizeLimit buffer-size
+	 * limit} is exceeded, e.g. drop the oldest or the newest messages, or
+	 * conflate messages, rather than closing the session. Conflation replaces
+	 * buffered STOMP {@code MESSAGE} frames with later ones for the same
+	 * subscription and destination.
+	 * <p>By default the session is closed.
+	 * @param overflowStrategy the overflow strategy to use
+	 * @since 6.0
+	 */
+	public WebSocketTransportRegistration setSendBufferOverflowStrategy(OverflowStrategy overflowStrategy) {
+		this.sendBufferOverflowStrategy = overflowStrategy;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Configure an executor, shared across sessions, to send messages to
+	 * WebSocket clients with. Messages are then always buffered, and threads
+	 * sending messages, such as message broker threads, never write to the
+	 * WebSocket session themselves.
+	 * <p>By default this is not set, and messages are sent by the sending thread,
+	 * or buffered if another thread is sending to the same session.
+	 * @param sendExecutor the executor to use
+	 * @since 6.0
+	 */
+	public WebSocketTransportRegistration setSendExecutor(Executor sendExecutor) {
+		this.sendExecutor = sendExecutor;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected Executor getSendExecutor() {
+		return this.sendExecutor;
+	}
+
 	/**
 	 * Set the maximum time allowed in milliseconds after the WebSocket connection
 	 * is established and before the first sub-protocol message is received.
@@ -17,12 +17,19 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,6 +48,14 @@ import org.springframework.web.socket.WebSocketSession;
  * At that time, the specified buffer-size limit and send-time limit will be checked
  * and the session will be closed if the limits are exceeded.
  *
+ * <p>As of 6.0, a {@link #setSendExecutor send executor} may be configured, in
+ * which case messages are always buffered and the buffer is drained by a task on
+ * that executor, so that the threads sending messages, e.g. message broker threads,
+ * never write to the underlying session. Several
+ * {@link OverflowStrategy overflow strategies} are available for when the
+ * buffer-size limit is exceeded, and the number of sent and dropped messages is
+ * exposed for monitoring purposes.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0.3
@@ -59,11 +74,25 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	@Nullable
 	private Consumer<WebSocketMessage<?>> preSendCallback;
 
+	@Nullable
+	private Executor sendExecutor;
+
+	@Nullable
+	private Function<WebSocketMessage<?>, Object> conflationKeyResolver;
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
+
+	private final Queue<WebSocketMessage<?>> buffer = new ConcurrentLinkedQueue<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
+	private final Map<Object, WebSocketMessage<?>> latestMessages = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final AtomicLong sentMessageCount = new AtomicLong();
+
+	private final AtomicLong droppedMessageCount = new AtomicLong();
+
 	private volatile long sendStartTime;
 
 	private volatile boolean limitExceeded;
@@ -120,6 +149,14 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Return the configured overflow strategy.
+	 * @since 6.0
+	 */
+	public OverflowStrategy getOverflowStrategy() {
+		return this.overflowStrategy;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
 	 */
@@ -145,6 +182,53 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		this.preSendCallback = callback;
 	}
 
+	/**
+	 * Configure an executor to drain the send buffer with, typically shared
+	 * across sessions. When set, messages are always buffered and sent from a
+	 * task on the executor, rather than by the thread that calls
+	 * {@link #sendMessage}. Errors from the underlying session are then logged
+	 * and lead to the session being closed.
+	 * <p>By default this is not set, and the buffer is drained by the sending
+	 * thread that acquires the flush lock.
+	 * @param sendExecutor the executor to use
+	 * @since 6.0
+	 */
+	public void setSendExecutor(@Nullable Executor sendExecutor) {
+		this.sendExecutor = sendExecutor;
+	}
+
+	/**
+	 * Configure a function that determines the key for conflating buffered
+	 * messages with {@link OverflowStrategy#CONFLATE}, e.g. the destination of
+	 * the message. A buffered message is replaced by a later message with the
+	 * same key, while messages without a key, i.e. for which the function
+	 * returns {@code null}, are never conflated.
+	 * <p>This must be set before any messages are sent. Without a resolver,
+	 * {@code CONFLATE} only drops the oldest messages, like {@code DROP}.
+	 * @param resolver the function to determine the conflation key with
+	 * @since 6.0
+	 */
+	public void setConflationKeyResolver(@Nullable Function<WebSocketMessage<?>, Object> resolver) {
+		this.conflationKeyResolver = resolver;
+	}
+
+	/**
+	 * Return the number of messages sent to the underlying session so far.
+	 * @since 6.0
+	 */
+	public long getSentMessageCount() {
+		return this.sentMessageCount.get();
+	}
+
+	/**
+	 * Return the number of messages dropped so far due to the
+	 * {@link #getOverflowStrategy() overflow strategy}, including conflated ones.
+	 * @since 6.0
+	 */
+	public long getDroppedMessageCount() {
+		return this.droppedMessageCount.get();
+	}
+
 
 	@Override
 	public void sendMessage(WebSocketMessage<?> message) throws IOException {
@@ -152,13 +236,25 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 			return;
 		}
 
-		this.buffer.add(message);
-		this.bufferSize.addAndGet(message.getPayloadLength());
+		if (!addToBuffer(message)) {
+			this.droppedMessageCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Dropped new message, buffer size: " + getBufferSize());
+			}
+			return;
+		}
 
 		if (this.preSendCallback != null) {
 			this.preSendCallback.accept(message);
 		}
 
+		if (this.sendExecutor != null) {
+			if (!scheduleFlush(this.sendExecutor)) {
+				checkSessionLimits();
+			}
+			return;
+		}
+
 		do {
 			if (!tryFlushMessageBuffer()) {
 				if (logger.isTraceEnabled()) {
@@ -177,18 +273,131 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return (this.limitExceeded || this.closeInProgress);
 	}
 
+	/**
+	 * Add the message to the buffer, reserving its size first, so that it is
+	 * never polled before it is accounted for.
+	 * @return {@code false} if the message was dropped due to
+	 * {@link OverflowStrategy#DROP_NEWEST}
+	 */
+	private boolean addToBuffer(WebSocketMessage<?> message) {
+		int size = message.getPayloadLength();
+		if (this.overflowStrategy == OverflowStrategy.DROP_NEWEST) {
+			// Reserve atomically, so that concurrent senders cannot exceed the limit together
+			int current;
+			do {
+				current = this.bufferSize.get();
+				if (current > 0 && current + size > getBufferSizeLimit()) {
+					return false;
+				}
+			}
+			while (!this.bufferSize.compareAndSet(current, current + size));
+			this.buffer.add(message);
+			return true;
+		}
+
+		Object key = getConflationKey(message);
+		WebSocketMessage<?> previous = (key != null ? this.latestMessages.put(key, message) : null);
+		this.bufferSize.addAndGet(size);
+		this.buffer.add(message);
+		if (previous != null) {
+			// Still buffered: it is skipped when polled, since it is no longer the latest for the key
+			this.bufferSize.addAndGet(-previous.getPayloadLength());
+			this.droppedMessageCount.incrementAndGet();
+		}
+		return true;
+	}
+
+	@Nullable
+	private Object getConflationKey(WebSocketMessage<?> message) {
+		Function<WebSocketMessage<?>, Object> resolver = this.conflationKeyResolver;
+		return (this.overflowStrategy == OverflowStrategy.CONFLATE && resolver != null ?
+				resolver.apply(message) : null);
+	}
+
+	/**
+	 * Poll the next message from the buffer, skipping messages that have been
+	 * replaced by a later message with the same conflation key, and release
+	 * its size from the buffer.
+	 */
+	@Nullable
+	private WebSocketMessage<?> pollMessage() {
+		while (true) {
+			WebSocketMessage<?> message = this.buffer.poll();
+			if (message == null) {
+				return null;
+			}
+			Object key = getConflationKey(message);
+			if (key == null || this.latestMessages.remove(key, message)) {
+				this.bufferSize.addAndGet(-message.getPayloadLength());
+				return message;
+			}
+		}
+	}
+
+	/**
+	 * Schedule a task to drain the buffer, unless one is already scheduled.
+	 * @return {@code true} if a task was scheduled, {@code false} if a previously
+	 * scheduled task has yet to complete
+	 */
+	private boolean scheduleFlush(Executor executor) {
+		if (!this.flushScheduled.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			executor.execute(this::flushMessageBuffer);
+		}
+		catch (RejectedExecutionException ex) {
+			this.flushScheduled.set(false);
+			throw new SessionLimitExceededException(
+					"Send executor rejected flush for session '" + getId() + "'", CloseStatus.SERVER_ERROR);
+		}
+		return true;
+	}
+
+	private void flushMessageBuffer() {
+		try {
+			tryFlushMessageBuffer();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to send message for session '" + getId() + "', closing session", ex);
+			}
+			try {
+				close(CloseStatus.SESSION_NOT_RELIABLE);
+			}
+			catch (Throwable closeEx) {
+				// Ignore
+			}
+		}
+		finally {
+			this.flushScheduled.set(false);
+		}
+		Executor executor = this.sendExecutor;
+		if (executor != null && !this.buffer.isEmpty() && !shouldNotSend()) {
+			try {
+				scheduleFlush(executor);
+			}
+			catch (SessionLimitExceededException ex) {
+				logger.debug(ex.getMessage());
+			}
+		}
+	}
+
 	private boolean tryFlushMessageBuffer() throws IOException {
 		if (this.flushLock.tryLock()) {
 			try {
 				while (true) {
-					WebSocketMessage<?> message = this.buffer.poll();
-					if (message == null || shouldNotSend()) {
+					if (shouldNotSend()) {
+						break;
+					}
+					WebSocketMessage<?> message = pollMessage();
+					if (message == null) {
 						break;
 					}
-					this.bufferSize.addAndGet(-message.getPayloadLength());
 					this.sendStartTime = System.currentTimeMillis();
 					getDelegate().sendMessage(message);
 					this.sendStartTime = 0;
+					this.sentMessageCount.incrementAndGet();
 				}
 			}
 			finally {
@@ -215,19 +424,10 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 							String reason = String.format(format, getBufferSize(), getId(), getBufferSizeLimit());
 							limitExceeded(reason);
 						}
-						case DROP -> {
-							int i = 0;
-							while (getBufferSize() > getBufferSizeLimit()) {
-								WebSocketMessage<?> message = this.buffer.poll();
-								if (message == null) {
-									break;
-								}
-								this.bufferSize.addAndGet(-message.getPayloadLength());
-								i++;
-							}
-							if (logger.isDebugEnabled()) {
-								logger.debug("Dropped " + i + " messages, buffer size: " + getBufferSize());
-							}
+						// Messages are conflated as they are buffered
+						case DROP, CONFLATE -> dropOldestMessages();
+						case DROP_NEWEST -> {
+							// Only reached for messages that fit within the limit on their own
 						}
 						default ->
 							// Should never happen..
@@ -241,6 +441,21 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 	}
 
+	private void dropOldestMessages() {
+		int i = 0;
+		while (getBufferSize() > getBufferSizeLimit()) {
+			WebSocketMessage<?> message = pollMessage();
+			if (message == null) {
+				break;
+			}
+			i++;
+		}
+		this.droppedMessageCount.addAndGet(i);
+		if (i > 0 && logger.isDebugEnabled()) {
+			logger.debug("Dropped " + i + " messages, buffer size: " + getBufferSize());
+		}
+	}
+
 	private void limitExceeded(String reason) {
 		this.limitExceeded = true;
 		throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
@@ -297,7 +512,22 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		/**
 		 * Drop the oldest messages from the buffer.
 		 */
-		DROP
+		DROP,
+
+		/**
+		 * Drop new messages that do not fit into the buffer, keeping the
+		 * messages buffered so far.
+		 * @since 6.0
+		 */
+		DROP_NEWEST,
+
+		/**
+		 * Replace buffered messages with later messages that have the same
+		 * {@link #setConflationKeyResolver conflation key} as they are buffered,
+		 * and drop the oldest messages from the buffer if it is still too large.
+		 * @since 6.0
+		 */
+		CONFLATE
 	}
 
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.messaging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+/**
+ * Conflation key resolver for STOMP frames encoded as WebSocket messages, for
+ * use with {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy#CONFLATE}.
+ *
+ * <p>Only {@code MESSAGE} frames are conflated, keyed by their subscription and
+ * destination, so that a buffered message is replaced by a later message for
+ * the same subscription and destination. All other frames, e.g. receipts,
+ * errors, and heartbeats, are never conflated.
+ *
+ * @author agent (agent@local)
+ * @since 6.0
+ * @see ConcurrentWebSocketSessionDecorator#setConflationKeyResolver(Function)
+ */
+public class StompConflationKeyResolver implements Function<WebSocketMessage<?>, Object> {
+
+	private static final String MESSAGE_COMMAND = "MESSAGE";
+
+
+	@Override
+	@Nullable
+	public Object apply(WebSocketMessage<?> message) {
+		String headers = getHeaderSection(message);
+		if (headers == null) {
+			return null;
+		}
+		String subscription = null;
+		String destination = null;
+		int start = 0;
+		int end = headers.indexOf('\n');
+		if (end == -1 || !MESSAGE_COMMAND.equals(trimLine(headers, start, end))) {
+			return null;
+		}
+		while (end != -1) {
+			start = end + 1;
+			end = headers.indexOf('\n', start);
+			String line = trimLine(headers, start, (end != -1 ? end : headers.length()));
+			// The first occurrence of a repeated header is the one that applies
+			if (subscription == null && line.startsWith("subscription:")) {
+				subscription = line.substring(13);
+			}
+			else if (destination == null && line.startsWith("destination:")) {
+				destination = line.substring(12);
+			}
+		}
+		return (subscription != null && destination != null ? new Key(subscription, destination) : null);
+	}
+
+	/**
+	 * Return the command and header lines of the frame, or {@code null} if the
+	 * message is not a complete STOMP frame.
+	 */
+	@Nullable
+	private static String getHeaderSection(WebSocketMessage<?> message) {
+		if (message instanceof TextMessage textMessage) {
+			String payload = textMessage.getPayload();
+			int index = payload.indexOf("\n\n");
+			if (index == -1) {
+				index = payload.indexOf("\r\n\r\n");
+			}
+			return (index != -1 ? payload.substring(0, index) : null);
+		}
+		else if (message instanceof BinaryMessage binaryMessage) {
+			ByteBuffer payload = binaryMessage.getPayload();
+			int offset = payload.position();
+			for (int i = offset; i < payload.limit() - 1; i++) {
+				if (payload.get(i) == '\n' && (payload.get(i + 1) == '\n' ||
+						(payload.get(i + 1) == '\r' && i + 2 < payload.limit() && payload.get(i + 2) == '\n'))) {
+					byte[] bytes = new byte[i - offset];
+					payload.duplicate().get(bytes);
+					return new String(bytes, StandardCharsets.UTF_8);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String trimLine(String headers, int start, int end) {
+		if (end > start && headers.charAt(end - 1) == '\r') {
+			end--;
+		}
+		return headers.substring(start, end);
+	}
+
+
+	private record Key(String subscription, String destination) {
+	}
+
+}
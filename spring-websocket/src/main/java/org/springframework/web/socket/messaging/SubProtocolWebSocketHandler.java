@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,8 +24,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,6 +48,7 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
 import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
@@ -93,6 +96,13 @@ public class SubProtocolWebSocketHandler
 
 	private int sendBufferSizeLimit = 512 * 1024;
 
+	private OverflowStrategy sendBufferOverflowStrategy = OverflowStrategy.TERMINATE;
+
+	private Function<WebSocketMessage<?>, Object> sendBufferConflationKeyResolver = new StompConflationKeyResolver();
+
+	@Nullable
+	private Executor sendExecutor;
+
 	private int timeToFirstMessage = DEFAULT_TIME_TO_FIRST_MESSAGE;
 
 	private volatile long lastSessionCheckTime = System.currentTimeMillis();
@@ -222,6 +232,66 @@ public class SubProtocolWebSocketHandler
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Specify what to do when the buffer-size limit is exceeded.
+	 * <p>By default this is {@link OverflowStrategy#TERMINATE}.
+	 * @since 6.0
+	 * @see ConcurrentWebSocketSessionDecorator
+	 */
+	public void setSendBufferOverflowStrategy(OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "OverflowStrategy is required");
+		this.sendBufferOverflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the strategy for when the buffer-size limit is exceeded.
+	 * @since 6.0
+	 */
+	public OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Configure the function that determines the key for conflating buffered
+	 * messages with {@link OverflowStrategy#CONFLATE}.
+	 * <p>By default this is a {@link StompConflationKeyResolver}, which
+	 * conflates STOMP {@code MESSAGE} frames by subscription and destination.
+	 * @since 6.0
+	 * @see ConcurrentWebSocketSessionDecorator#setConflationKeyResolver(Function)
+	 */
+	public void setSendBufferConflationKeyResolver(Function<WebSocketMessage<?>, Object> resolver) {
+		Assert.notNull(resolver, "Conflation key resolver is required");
+		this.sendBufferConflationKeyResolver = resolver;
+	}
+
+	/**
+	 * Return the function that determines the key for conflating buffered messages.
+	 * @since 6.0
+	 */
+	public Function<WebSocketMessage<?>, Object> getSendBufferConflationKeyResolver() {
+		return this.sendBufferConflationKeyResolver;
+	}
+
+	/**
+	 * Configure an executor, shared across sessions, to send buffered messages
+	 * with, so that threads sending to a session never write to it themselves.
+	 * <p>By default this is not set, and messages are sent by the sending thread.
+	 * @since 6.0
+	 * @see ConcurrentWebSocketSessionDecorator#setSendExecutor(Executor)
+	 */
+	public void setSendExecutor(@Nullable Executor sendExecutor) {
+		this.sendExecutor = sendExecutor;
+	}
+
+	/**
+	 * Return the configured send executor, if any.
+	 * @since 6.0
+	 */
+	@Nullable
+	public Executor getSendExecutor() {
+		return this.sendExecutor;
+	}
+
 	/**
 	 * Set the maximum time allowed in milliseconds after the WebSocket connection
 	 * is established and before the first sub-protocol message is received.
@@ -408,14 +478,21 @@ public class SubProtocolWebSocketHandler
 	/**
 	 * Decorate the given {@link WebSocketSession}, if desired.
 	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
-	 * with the configured {@link #getSendTimeLimit() send-time limit} and
-	 * {@link #getSendBufferSizeLimit() buffer-size limit}.
+	 * with the configured {@link #getSendTimeLimit() send-time limit},
+	 * {@link #getSendBufferSizeLimit() buffer-size limit},
+	 * {@link #getSendBufferOverflowStrategy() overflow strategy},
+	 * {@link #getSendBufferConflationKeyResolver() conflation key resolver}, and
+	 * {@link #getSendExecutor() send executor}.
 	 * @param session the original {@code WebSocketSession}
 	 * @return the decorated {@code WebSocketSession}, or potentially the given session as-is
 	 * @since 4.3.13
 	 */
 	protected WebSocketSession decorateSession(WebSocketSession session) {
-		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(
+				session, getSendTimeLimit(), getSendBufferSizeLimit(), getSendBufferOverflowStrategy());
+		decorator.setConflationKeyResolver(getSendBufferConflationKeyResolver());
+		decorator.setSendExecutor(getSendExecutor());
+		return decorator;
 	}
 
 	/**
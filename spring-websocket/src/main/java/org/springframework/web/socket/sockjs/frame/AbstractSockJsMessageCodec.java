@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -74,7 +74,7 @@ public abstract class AbstractSockJsMessageCodec implements SockJsMessageCodec {
 	/**
 	 * See `escapable_by_server` variable in the SockJS protocol test suite.
 	 */
-	private boolean isSockJsSpecialChar(char ch) {
+	static boolean isSockJsSpecialChar(char ch) {
 		return (ch <= '\u001F') || (ch >= '\u200C' && ch <= '\u200F') ||
 				(ch >= '\u2028' && ch <= '\u202F') || (ch >= '\u2060' && ch <= '\u206F') ||
 				(ch >= '\uFFF0') || (ch >= '\uD800' && ch <= '\uDFFF');
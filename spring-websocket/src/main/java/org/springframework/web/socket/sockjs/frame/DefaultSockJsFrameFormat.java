@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,13 @@
 
 package org.springframework.web.socket.sockjs.frame;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A default implementation of
@@ -30,10 +36,33 @@ public class DefaultSockJsFrameFormat implements SockJsFrameFormat {
 
 	private final String format;
 
+	@Nullable
+	private final byte[] prefix;
+
+	@Nullable
+	private final byte[] suffix;
+
 
 	public DefaultSockJsFrameFormat(String format) {
 		Assert.notNull(format, "format must not be null");
 		this.format = format;
+		int index = format.indexOf("%s");
+		if (index != -1 && format.indexOf('%', index + 2) == -1 &&
+				format.lastIndexOf('%', index - 1) == -1 && !isFormattingOverridden()) {
+			this.prefix = format.substring(0, index).getBytes(SockJsFrame.CHARSET);
+			this.suffix = format.substring(index + 2).getBytes(SockJsFrame.CHARSET);
+		}
+		else {
+			this.prefix = null;
+			this.suffix = null;
+		}
+	}
+
+	private boolean isFormattingOverridden() {
+		Method formatMethod = ReflectionUtils.findMethod(getClass(), "format", SockJsFrame.class);
+		Method preProcessMethod = ReflectionUtils.findMethod(getClass(), "preProcessContent", String.class);
+		return ((formatMethod != null && formatMethod.getDeclaringClass() != DefaultSockJsFrameFormat.class) ||
+				(preProcessMethod != null && preProcessMethod.getDeclaringClass() != DefaultSockJsFrameFormat.class));
 	}
 
 
@@ -46,4 +75,35 @@ public class DefaultSockJsFrameFormat implements SockJsFrameFormat {
 		return content;
 	}
 
+	/**
+	 * Whether frames in this format can be written with {@link #writePrefix}
+	 * and {@link #writeSuffix} around the content bytes, i.e. the format has a
+	 * single {@code %s} placeholder, and neither {@link #format(SockJsFrame)}
+	 * nor {@link #preProcessContent} is overridden.
+	 * @since 6.0
+	 */
+	public boolean isContentWrittenAsIs() {
+		return (this.prefix != null);
+	}
+
+	/**
+	 * Write the UTF-8 bytes of the format before the frame content.
+	 * @since 6.0
+	 * @see #isContentWrittenAsIs()
+	 */
+	public void writePrefix(OutputStream out) throws IOException {
+		Assert.state(this.prefix != null, "Content is not written as is");
+		out.write(this.prefix);
+	}
+
+	/**
+	 * Write the UTF-8 bytes of the format after the frame content.
+	 * @since 6.0
+	 * @see #isContentWrittenAsIs()
+	 */
+	public void writeSuffix(OutputStream out) throws IOException {
+		Assert.state(this.suffix != null, "Content is not written as is");
+		out.write(this.suffix);
+	}
+
 }
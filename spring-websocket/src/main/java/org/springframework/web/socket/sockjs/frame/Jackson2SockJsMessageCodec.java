@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.web.socket.sockjs.frame;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -45,6 +47,16 @@ import org.springframework.util.Assert;
  */
 public class Jackson2SockJsMessageCodec extends AbstractSockJsMessageCodec {
 
+	private static final int ENCODE_BUFFER_SIZE = 512;
+
+	// An escaped SockJS special char takes the most bytes: backslash, "u", 4 hex digits
+	private static final int MAX_BYTES_PER_CHAR = 6;
+
+	private static final byte[] LOWER_HEX_DIGITS = "0123456789abcdef".getBytes(SockJsFrame.CHARSET);
+
+	private static final byte[] UPPER_HEX_DIGITS = "0123456789ABCDEF".getBytes(SockJsFrame.CHARSET);
+
+
 	private final ObjectMapper objectMapper;
 
 
@@ -75,4 +87,94 @@ public class Jackson2SockJsMessageCodec extends AbstractSockJsMessageCodec {
 		return JsonStringEncoder.getInstance().quoteAsString(content);
 	}
 
+	/**
+	 * Encode the messages straight into UTF-8 bytes, applying the same quoting
+	 * as {@link #applyJsonQuoting} and SockJS escaping in a single pass, without
+	 * creating intermediate Strings.
+	 * <p>Subclasses that customize {@link #applyJsonQuoting} should also
+	 * override this method.
+	 * @since 6.0
+	 */
+	@Override
+	public void encode(List<String> messages, OutputStream out) throws IOException {
+		Assert.notNull(messages, "messages must not be null");
+		byte[] buffer = new byte[ENCODE_BUFFER_SIZE];
+		int pos = 0;
+		buffer[pos++] = 'a';
+		buffer[pos++] = '[';
+		for (int i = 0; i < messages.size(); i++) {
+			String message = messages.get(i);
+			if (i > 0) {
+				buffer[pos++] = ',';
+			}
+			buffer[pos++] = '"';
+			for (int j = 0; j < message.length(); j++) {
+				if (pos > buffer.length - MAX_BYTES_PER_CHAR) {
+					out.write(buffer, 0, pos);
+					pos = 0;
+				}
+				char c = message.charAt(j);
+				if (c < 0x80) {
+					if (c == '"' || c == '\\') {
+						buffer[pos++] = '\\';
+						buffer[pos++] = (byte) c;
+					}
+					else if (c < 0x20) {
+						pos = writeControlChar(c, buffer, pos);
+					}
+					else {
+						buffer[pos++] = (byte) c;
+					}
+				}
+				else if (isSockJsSpecialChar(c)) {
+					buffer[pos++] = '\\';
+					buffer[pos++] = 'u';
+					buffer[pos++] = LOWER_HEX_DIGITS[c >> 12];
+					buffer[pos++] = LOWER_HEX_DIGITS[(c >> 8) & 0xF];
+					buffer[pos++] = LOWER_HEX_DIGITS[(c >> 4) & 0xF];
+					buffer[pos++] = LOWER_HEX_DIGITS[c & 0xF];
+				}
+				else if (c < 0x800) {
+					buffer[pos++] = (byte) (0xC0 | (c >> 6));
+					buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+				}
+				else {
+					// Surrogates are escaped above, so this is always a complete character
+					buffer[pos++] = (byte) (0xE0 | (c >> 12));
+					buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+			if (pos > buffer.length - 3) {
+				out.write(buffer, 0, pos);
+				pos = 0;
+			}
+			buffer[pos++] = '"';
+		}
+		buffer[pos++] = ']';
+		out.write(buffer, 0, pos);
+	}
+
+	/**
+	 * Write a control character the way Jackson's {@link JsonStringEncoder} does.
+	 */
+	private static int writeControlChar(char c, byte[] buffer, int pos) {
+		buffer[pos++] = '\\';
+		switch (c) {
+			case '\b' -> buffer[pos++] = 'b';
+			case '\t' -> buffer[pos++] = 't';
+			case '\n' -> buffer[pos++] = 'n';
+			case '\f' -> buffer[pos++] = 'f';
+			case '\r' -> buffer[pos++] = 'r';
+			default -> {
+				buffer[pos++] = 'u';
+				buffer[pos++] = '0';
+				buffer[pos++] = '0';
+				buffer[pos++] = UPPER_HEX_DIGITS[c >> 4];
+				buffer[pos++] = UPPER_HEX_DIGITS[c & 0xF];
+			}
+		}
+		return pos;
+	}
+
 }
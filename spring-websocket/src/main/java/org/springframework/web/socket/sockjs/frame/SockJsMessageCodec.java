@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.web.socket.sockjs.frame;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 import org.springframework.lang.Nullable;
 
@@ -44,6 +46,21 @@ public interface SockJsMessageCodec {
 	 */
 	String encode(String... messages);
 
+	/**
+	 * Encode the given messages as a SockJS message frame, like
+	 * {@link #encode(String...)}, and write the UTF-8 encoded frame content
+	 * to the given stream.
+	 * <p>The default implementation writes the bytes of the String returned
+	 * from {@link #encode(String...)}.
+	 * @param messages the messages to encode
+	 * @param out the stream to write to
+	 * @throws IOException if writing to the stream fails
+	 * @since 6.0
+	 */
+	default void encode(List<String> messages, OutputStream out) throws IOException {
+		out.write(encode(messages.toArray(new String[0])).getBytes(SockJsFrame.CHARSET));
+	}
+
 	/**
 	 * Decode the given SockJS message frame.
 	 * @param content the SockJS message frame
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2021 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,6 +92,8 @@ public abstract class AbstractSockJsService implements SockJsService, CorsConfig
 
 	private int httpMessageCacheSize = 100;
 
+	private long httpMessageCoalescingTime;
+
 	private boolean webSocketEnabled = true;
 
 	private boolean suppressCors = false;
@@ -274,6 +276,27 @@ public abstract class AbstractSockJsService implements SockJsService, CorsConfig
 		return this.httpMessageCacheSize;
 	}
 
+	/**
+	 * The amount of time in microseconds that HTTP transports wait after a
+	 * message is sent before writing it to the response. Messages sent within
+	 * that window are written together as a single frame with a single flush,
+	 * trading a small amount of latency for fewer writes under load.
+	 * <p>By default this is 0, in which case messages are written immediately.
+	 * @since 6.0
+	 */
+	public void setHttpMessageCoalescingTime(long httpMessageCoalescingTime) {
+		Assert.isTrue(httpMessageCoalescingTime >= 0, "HTTP message coalescing time must not be negative");
+		this.httpMessageCoalescingTime = httpMessageCoalescingTime;
+	}
+
+	/**
+	 * Return the amount of time in microseconds to coalesce HTTP messages.
+	 * @since 6.0
+	 */
+	public long getHttpMessageCoalescingTime() {
+		return this.httpMessageCoalescingTime;
+	}
+
 	/**
 	 * Some load balancers do not support WebSocket. This option can be used to
 	 * disable the WebSocket transport on the server side.
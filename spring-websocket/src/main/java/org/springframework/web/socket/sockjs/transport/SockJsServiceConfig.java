@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,6 +66,17 @@ public interface SockJsServiceConfig {
 	 */
 	int getHttpMessageCacheSize();
 
+	/**
+	 * The amount of time in microseconds that HTTP transports wait after a
+	 * message is sent before writing it, so that messages sent in the meantime
+	 * are written to the response together in a single frame.
+	 * <p>By default this is 0, in which case messages are written immediately.
+	 * @since 6.0
+	 */
+	default long getHttpMessageCoalescingTime() {
+		return 0;
+	}
+
 	/**
 	 * The codec to use for encoding and decoding SockJS messages.
 	 * @throws IllegalStateException if no {@link SockJsMessageCodec} is available
@@ -17,14 +17,19 @@
 package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.security.Principal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.servlet.ServletRequest;
 
@@ -34,15 +39,20 @@ import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
+import org.springframework.util.ResizableByteArrayOutputStream;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.sockjs.SockJsException;
 import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
+import org.springframework.web.socket.sockjs.frame.DefaultSockJsFrameFormat;
 import org.springframework.web.socket.sockjs.frame.SockJsFrame;
 import org.springframework.web.socket.sockjs.frame.SockJsFrameFormat;
+import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
 import org.springframework.web.socket.sockjs.transport.SockJsServiceConfig;
 
 /**
@@ -84,6 +94,8 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 
 	private boolean readyToSend;
 
+	private boolean flushScheduled;
+
 
 	public AbstractHttpSockJsSession(String id, SockJsServiceConfig config,
 			WebSocketHandler wsHandler, Map<String, Object> attributes) {
@@ -301,11 +313,17 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 				logger.trace(this.messageCache.size() + " message(s) to flush in session " + getId());
 			}
 			if (isActive() && this.readyToSend) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Session is active, ready to flush.");
+				long coalescingTime = getSockJsServiceConfig().getHttpMessageCoalescingTime();
+				if (coalescingTime > 0) {
+					scheduleFlush(coalescingTime);
+				}
+				else {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Session is active, ready to flush.");
+					}
+					cancelHeartbeat();
+					flushCache();
 				}
-				cancelHeartbeat();
-				flushCache();
 			}
 			else {
 				if (logger.isTraceEnabled()) {
@@ -315,6 +333,45 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 		}
 	}
 
+	/**
+	 * Flush the message cache after the given time, so that messages sent in
+	 * the meantime are written together. Must be called with the "responseLock".
+	 */
+	private void scheduleFlush(long coalescingTimeMicros) {
+		if (this.flushScheduled) {
+			return;
+		}
+		this.flushScheduled = true;
+		TaskScheduler scheduler = getSockJsServiceConfig().getTaskScheduler();
+		if (scheduler instanceof ThreadPoolTaskScheduler threadPoolScheduler) {
+			// Microsecond precision rather than the millisecond precision of TaskScheduler
+			threadPoolScheduler.getScheduledExecutor().schedule(
+					this::flushScheduledMessages, coalescingTimeMicros, TimeUnit.MICROSECONDS);
+		}
+		else {
+			scheduler.schedule(this::flushScheduledMessages,
+					Instant.now().plus(coalescingTimeMicros, ChronoUnit.MICROS));
+		}
+	}
+
+	private void flushScheduledMessages() {
+		synchronized (this.responseLock) {
+			this.flushScheduled = false;
+			if (isActive() && this.readyToSend && !this.messageCache.isEmpty()) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Flushing " + this.messageCache.size() + " message(s) in session " + getId());
+				}
+				try {
+					cancelHeartbeat();
+					flushCache();
+				}
+				catch (Throwable ex) {
+					tryCloseWithSockJsTransportError(ex, CloseStatus.SERVER_ERROR);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Called when the connection is active and ready to write to the response.
 	 * Subclasses should only call this method from a method where the
@@ -322,6 +379,46 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 	 */
 	protected abstract void flushCache() throws SockJsTransportFailureException;
 
+	/**
+	 * Write the given messages as a single SockJS message frame.
+	 * <p>If the frame format writes the frame content as is, the messages are
+	 * encoded straight into a buffer sized for the frame, and written and
+	 * flushed together with the format in a single write. Otherwise, the
+	 * messages are encoded into a {@link SockJsFrame} that is formatted when
+	 * written. Either way, this delegates to {@link #writeFrame(SockJsFrame)}.
+	 * <p>Subclasses should only call this method from a method where the
+	 * "responseLock" is acquired.
+	 * @param messages the messages to write
+	 * @return the length of the frame content in bytes
+	 * @since 6.0
+	 */
+	protected int writeMessageFrame(List<String> messages) throws SockJsTransportFailureException {
+		SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
+		if (!(this.frameFormat instanceof DefaultSockJsFrameFormat frameFormat) || !frameFormat.isContentWrittenAsIs()) {
+			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, messages.toArray(new String[0]));
+			writeFrame(frame);
+			return frame.getContentBytes().length;
+		}
+		int estimatedSize = 64;
+		for (String message : messages) {
+			estimatedSize += message.length() + 8;
+		}
+		ResizableByteArrayOutputStream buffer = new ResizableByteArrayOutputStream(estimatedSize);
+		EncodedMessageFrame frame;
+		try {
+			frameFormat.writePrefix(buffer);
+			int start = buffer.size();
+			messageCodec.encode(messages, buffer);
+			frame = new EncodedMessageFrame(buffer, start, buffer.size() - start);
+			frameFormat.writeSuffix(buffer);
+		}
+		catch (IOException ex) {
+			throw new SockJsTransportFailureException("Failed to encode " + messages.size() + " message(s)", getId(), ex);
+		}
+		writeFrame(frame);
+		return frame.getContentLength();
+	}
+
 
 	@Override
 	protected void disconnect(CloseStatus status) {
@@ -352,7 +449,16 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 		if (isActive()) {
 			SockJsFrameFormat frameFormat = this.frameFormat;
 			ServerHttpResponse response = this.response;
-			if (frameFormat != null && response != null) {
+			if (frame instanceof EncodedMessageFrame encodedFrame && response != null &&
+					frameFormat instanceof DefaultSockJsFrameFormat defaultFrameFormat &&
+					defaultFrameFormat.isContentWrittenAsIs()) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Writing to HTTP response: " + encodedFrame.getFormattedContent());
+				}
+				encodedFrame.writeTo(response.getBody());
+				response.flush();
+			}
+			else if (frameFormat != null && response != null) {
 				String formattedFrame = frameFormat.format(frame);
 				if (logger.isTraceEnabled()) {
 					logger.trace("Writing to HTTP response: " + formattedFrame);
@@ -363,4 +469,60 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 		}
 	}
 
+
+	/**
+	 * Message frame already encoded and formatted into a buffer, with the
+	 * content decoded from the buffer only if requested, e.g. for logging.
+	 */
+	private static class EncodedMessageFrame extends SockJsFrame {
+
+		private final ResizableByteArrayOutputStream buffer;
+
+		private final int contentStart;
+
+		private final int contentLength;
+
+		@Nullable
+		private String content;
+
+		EncodedMessageFrame(ResizableByteArrayOutputStream buffer, int contentStart, int contentLength) {
+			super("a");
+			this.buffer = buffer;
+			this.contentStart = contentStart;
+			this.contentLength = contentLength;
+		}
+
+		int getContentLength() {
+			return this.contentLength;
+		}
+
+		void writeTo(OutputStream out) throws IOException {
+			this.buffer.writeTo(out);
+		}
+
+		String getFormattedContent() {
+			return this.buffer.toString(SockJsFrame.CHARSET);
+		}
+
+		@Override
+		public String getContent() {
+			String content = this.content;
+			if (content == null) {
+				content = new String(getContentBytes(), SockJsFrame.CHARSET);
+				this.content = content;
+			}
+			return content;
+		}
+
+		@Override
+		public byte[] getContentBytes() {
+			return Arrays.copyOfRange(this.buffer.toByteArray(), this.contentStart, this.contentStart + this.contentLength);
+		}
+
+		@Override
+		public String toString() {
+			return new SockJsFrame(getContent()).toString();
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.server.ServerHttpRequest;
@@ -24,7 +26,6 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
 import org.springframework.web.socket.sockjs.frame.SockJsFrame;
-import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
 import org.springframework.web.socket.sockjs.transport.SockJsServiceConfig;
 
 /**
@@ -68,13 +69,14 @@ public abstract class StreamingSockJsSession extends AbstractHttpSockJsSession {
 
 	@Override
 	protected void flushCache() throws SockJsTransportFailureException {
-		while (!getMessageCache().isEmpty()) {
-			String message = getMessageCache().poll();
-			SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
-			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, message);
-			writeFrame(frame);
-
-			this.byteCount += (frame.getContentBytes().length + 1);
+		if (!getMessageCache().isEmpty()) {
+			// Write all cached messages as one frame
+			List<String> messages = new ArrayList<>(getMessageCache().size());
+			String message;
+			while ((message = getMessageCache().poll()) != null) {
+				messages.add(message);
+			}
+			this.byteCount += (writeMessageFrame(messages) + 1);
 			if (logger.isTraceEnabled()) {
 				logger.trace(this.byteCount + " bytes written so far, " +
 						getMessageCache().size() + " more messages not flushed");
@@ -83,7 +85,6 @@ public abstract class StreamingSockJsSession extends AbstractHttpSockJsSession {
 				logger.trace("Streamed bytes limit reached, recycling current request");
 				resetRequest();
 				this.byteCount = 0;
-				break;
 			}
 		}
 		scheduleHeartbeat();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +27,7 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 
@@ -149,9 +152,143 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		}
 
 		assertThat(decorator.getBufferSize()).isEqualTo(1023);
+		assertThat(decorator.getDroppedMessageCount()).isEqualTo(4);
 		assertThat(session.isOpen()).isTrue();
 	}
 
+	@Test
+	public void overflowStrategyDropNewest() throws IOException, InterruptedException {
+
+		BlockingWebSocketSession session = new BlockingWebSocketSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 1024, OverflowStrategy.DROP_NEWEST);
+
+		sendBlockingMessage(decorator);
+
+		TextMessage first = new TextMessage(String.format("%1000s", "a"));
+		decorator.sendMessage(first);
+		for (int i = 0; i < 5; i++) {
+			decorator.sendMessage(new TextMessage(String.format("%100s", "b")));
+		}
+
+		assertThat(decorator.getBufferSize()).isEqualTo(1000);
+		assertThat(decorator.getDroppedMessageCount()).isEqualTo(5);
+		assertThat(session.isOpen()).isTrue();
+	}
+
+	@Test
+	public void overflowStrategyConflate() throws IOException, InterruptedException {
+
+		BlockingWebSocketSession session = new BlockingWebSocketSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 100, OverflowStrategy.CONFLATE);
+		decorator.setConflationKeyResolver(message -> ((TextMessage) message).getPayload().substring(0, 1));
+
+		sendBlockingMessage(decorator);
+
+		for (int i = 0; i < 5; i++) {
+			decorator.sendMessage(new TextMessage(String.format("a%039d", i)));
+			decorator.sendMessage(new TextMessage(String.format("b%039d", i)));
+		}
+
+		// Only the latest message per key is kept
+		assertThat(decorator.getBufferSize()).isEqualTo(80);
+		assertThat(decorator.getDroppedMessageCount()).isEqualTo(8);
+		assertThat(session.isOpen()).isTrue();
+	}
+
+	@Test
+	public void overflowStrategyConflateSendsLatestMessages() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession();
+		session.setOpen(true);
+
+		List<Runnable> tasks = new ArrayList<>();
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024, OverflowStrategy.CONFLATE);
+		decorator.setConflationKeyResolver(message -> ((TextMessage) message).getPayload().substring(0, 1));
+		decorator.setSendExecutor(tasks::add);
+
+		TextMessage a1 = new TextMessage("a1");
+		TextMessage b1 = new TextMessage("b1");
+		TextMessage a2 = new TextMessage("a2");
+		decorator.sendMessage(a1);
+		decorator.sendMessage(b1);
+		decorator.sendMessage(a2);
+
+		assertThat(decorator.getBufferSize()).isEqualTo(4);
+		assertThat(decorator.getDroppedMessageCount()).isEqualTo(1);
+
+		tasks.remove(0).run();
+
+		assertThat(session.getSentMessages()).containsExactly(b1, a2);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+
+		decorator.sendMessage(a1);
+		tasks.remove(0).run();
+
+		assertThat(session.getSentMessages()).containsExactly(b1, a2, a1);
+	}
+
+	@Test
+	public void sendWithSendExecutor() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession();
+		session.setOpen(true);
+
+		List<Runnable> tasks = new ArrayList<>();
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setSendExecutor(tasks::add);
+
+		TextMessage message1 = new TextMessage("payload1");
+		TextMessage message2 = new TextMessage("payload2");
+		decorator.sendMessage(message1);
+		decorator.sendMessage(message2);
+
+		// Buffered until the flush task runs, which is scheduled only once
+		assertThat(session.getSentMessages()).isEmpty();
+		assertThat(decorator.getBufferSize()).isEqualTo(16);
+		assertThat(tasks).hasSize(1);
+
+		tasks.remove(0).run();
+
+		assertThat(session.getSentMessages()).containsExactly(message1, message2);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+		assertThat(decorator.getSentMessageCount()).isEqualTo(2);
+		assertThat(tasks).isEmpty();
+
+		decorator.sendMessage(message1);
+		assertThat(tasks).hasSize(1);
+	}
+
+	@Test
+	public void sendWithSendExecutorFailure() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession() {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) throws IOException {
+				throw new IOException("Connection reset");
+			}
+		};
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setSendExecutor(Runnable::run);
+
+		decorator.sendMessage(new TextMessage("payload"));
+
+		assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+		assertThat(decorator.getSentMessageCount()).isEqualTo(0);
+	}
+
 	@Test
 	public void closeStatusNormal() throws Exception {
 
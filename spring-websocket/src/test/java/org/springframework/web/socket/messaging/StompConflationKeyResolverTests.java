@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.messaging;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StompConflationKeyResolver}.
+ *
+ * @author agent (agent@local)
+ */
+public class StompConflationKeyResolverTests {
+
+	private final StompConflationKeyResolver resolver = new StompConflationKeyResolver();
+
+
+	@Test
+	public void messageFrames() {
+		Object key1 = this.resolver.apply(message("sub-0", "/topic/a", "1"));
+		Object key2 = this.resolver.apply(message("sub-0", "/topic/a", "2"));
+		Object key3 = this.resolver.apply(message("sub-0", "/topic/b", "3"));
+		Object key4 = this.resolver.apply(message("sub-1", "/topic/a", "4"));
+
+		assertThat(key1).isNotNull().isEqualTo(key2);
+		assertThat(key3).isNotNull().isNotEqualTo(key1);
+		assertThat(key4).isNotNull().isNotEqualTo(key1);
+	}
+
+	@Test
+	public void binaryMessageFrame() {
+		TextMessage textMessage = message("sub-0", "/topic/a", "1");
+		BinaryMessage binaryMessage = new BinaryMessage(textMessage.getPayload().getBytes(StandardCharsets.UTF_8));
+
+		assertThat(this.resolver.apply(binaryMessage)).isEqualTo(this.resolver.apply(textMessage));
+	}
+
+	@Test
+	public void otherFramesNotConflated() {
+		TextMessage receipt = StompTextMessageBuilder.create(StompCommand.RECEIPT).headers("receipt-id:1").build();
+		TextMessage error = StompTextMessageBuilder.create(StompCommand.ERROR).headers("message:failure").build();
+
+		assertThat(this.resolver.apply(receipt)).isNull();
+		assertThat(this.resolver.apply(error)).isNull();
+		assertThat(this.resolver.apply(new TextMessage("\n"))).isNull();
+	}
+
+
+	private static TextMessage message(String subscription, String destination, String body) {
+		return StompTextMessageBuilder.create(StompCommand.MESSAGE)
+				.headers("subscription:" + subscription, "destination:" + destination, "message-id:" + body)
+				.body(body).build();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.web.socket.sockjs.frame;
 
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,6 +59,48 @@ public class SockJsFrameTests {
 		assertThat(frame.getFrameData()).isEqualTo("[\"m1\",\"m2\"]");
 	}
 
+	@Test
+	public void messageArrayFrameEncodedToStream() throws Exception {
+		Jackson2SockJsMessageCodec codec = new Jackson2SockJsMessageCodec();
+		String longMessage = "x\"y\\z\u2028\u00e9\ud83d\ude00".repeat(200);
+		String[] messages = {"m1", "\u0000\b\t\n\f\r\u001f", "<\u200c\ufeff\ufff0>", longMessage, ""};
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.encode(List.of(messages), out);
+
+		assertThat(out.toString(SockJsFrame.CHARSET)).isEqualTo(codec.encode(messages));
+	}
+
+	@Test
+	public void frameFormatPrefixAndSuffix() throws Exception {
+		DefaultSockJsFrameFormat format = new DefaultSockJsFrameFormat("data: %s\r\n\r\n");
+		assertThat(format.isContentWrittenAsIs()).isTrue();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		format.writePrefix(out);
+		out.write("a[\"m1\"]".getBytes(SockJsFrame.CHARSET));
+		format.writeSuffix(out);
+
+		SockJsFrame frame = SockJsFrame.messageFrame(new Jackson2SockJsMessageCodec(), "m1");
+		assertThat(out.toString(SockJsFrame.CHARSET)).isEqualTo(format.format(frame));
+
+		format = new DefaultSockJsFrameFormat("<script>p(\"%s\");</script>") {
+			@Override
+			protected String preProcessContent(String content) {
+				return content.replace("\"", "\\\"");
+			}
+		};
+		assertThat(format.isContentWrittenAsIs()).isFalse();
+
+		format = new DefaultSockJsFrameFormat("%s\n") {
+			@Override
+			public String format(SockJsFrame frame) {
+				return super.format(frame).toUpperCase();
+			}
+		};
+		assertThat(format.isContentWrittenAsIs()).isFalse();
+	}
+
 	@Test
 	public void messageArrayFrameEmpty() {
 		SockJsFrame frame = new SockJsFrame("a");
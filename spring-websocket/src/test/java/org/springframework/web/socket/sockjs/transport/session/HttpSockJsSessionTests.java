@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,15 +17,21 @@
 package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.sockjs.frame.DefaultSockJsFrameFormat;
 import org.springframework.web.socket.sockjs.frame.SockJsFrame;
@@ -36,6 +42,9 @@ import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -102,6 +111,90 @@ public class HttpSockJsSessionTests extends AbstractSockJsSessionTests<TestAbstr
 		verifyNoMoreInteractions(this.webSocketHandler);
 	}
 
+	@Test
+	public void flushCacheWritesSingleFrame() throws Exception {
+		StreamingSockJsSession session = new TestStreamingSockJsSession(this.sockJsConfig, this.webSocketHandler);
+		session.getMessageCache().add("x");
+		session.getMessageCache().add("y\u2028\"");
+		session.handleSuccessiveRequest(this.request, this.response, new DefaultSockJsFrameFormat("%s\n"));
+
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\na[\"x\",\"y\\u2028\\\"\"]\n");
+		assertThat(session.getMessageCache()).isEmpty();
+	}
+
+	@Test
+	public void flushCacheWithOverriddenFrameFormat() throws Exception {
+		StreamingSockJsSession session = new TestStreamingSockJsSession(this.sockJsConfig, this.webSocketHandler);
+		session.getMessageCache().add("x");
+		session.handleSuccessiveRequest(this.request, this.response, new DefaultSockJsFrameFormat("%s\n") {
+			@Override
+			public String format(SockJsFrame frame) {
+				return "[" + frame.getContent() + "]\n";
+			}
+		});
+
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\n[a[\"x\"]]\n");
+	}
+
+	@Test
+	public void flushCacheWithOverriddenWriteFrame() throws Exception {
+		List<SockJsFrame> frames = new ArrayList<>();
+		StreamingSockJsSession session = new TestStreamingSockJsSession(this.sockJsConfig, this.webSocketHandler) {
+			@Override
+			protected void writeFrame(SockJsFrame frame) {
+				frames.add(frame);
+				super.writeFrame(frame);
+			}
+		};
+		session.getMessageCache().add("x");
+		session.handleSuccessiveRequest(this.request, this.response, new DefaultSockJsFrameFormat("%s\n"));
+		session.getMessageCache().add("y");
+		session.flushCache();
+
+		assertThat(frames).hasSize(2);
+		assertThat(frames.get(0).getContent()).isEqualTo("a[\"x\"]");
+		assertThat(frames.get(0).getFrameData()).isEqualTo("[\"x\"]");
+		assertThat(frames.get(1).getContent()).isEqualTo("a[\"y\"]");
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\na[\"x\"]\na[\"y\"]\n");
+	}
+
+	@Test
+	public void messagesCoalescedIntoSingleFrame() throws Exception {
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		this.sockJsConfig.setTaskScheduler(taskScheduler);
+		this.sockJsConfig.setHttpMessageCoalescingTime(500);
+
+		StreamingSockJsSession session = new TestStreamingSockJsSession(this.sockJsConfig, this.webSocketHandler);
+		session.handleInitialRequest(this.request, this.response, new DefaultSockJsFrameFormat("%s\n"));
+		session.sendMessage(new TextMessage("x"));
+		session.sendMessage(new TextMessage("y"));
+
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\no\n");
+
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(taskScheduler, times(1)).schedule(captor.capture(), any(Instant.class));
+		captor.getValue().run();
+
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\no\na[\"x\",\"y\"]\n");
+	}
+
+
+	private static class TestStreamingSockJsSession extends StreamingSockJsSession {
+
+		TestStreamingSockJsSession(SockJsServiceConfig config, WebSocketHandler handler) {
+			super("2", config, handler, null);
+		}
+
+		@Override
+		protected byte[] getPrelude(ServerHttpRequest request) {
+			return "hhh\n".getBytes();
+		}
+
+		@Override
+		protected void scheduleHeartbeat() {
+		}
+	}
+
 
 	static class TestAbstractHttpSockJsSession extends StreamingSockJsSession {
 
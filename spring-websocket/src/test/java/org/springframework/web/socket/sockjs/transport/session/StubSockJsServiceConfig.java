@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2022 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,8 @@ public class StubSockJsServiceConfig implements SockJsServiceConfig {
 
 	private int httpMessageCacheSize = 100;
 
+	private long httpMessageCoalescingTime;
+
 
 	@Override
 	public int getStreamBytesLimit() {
@@ -83,4 +85,13 @@ public class StubSockJsServiceConfig implements SockJsServiceConfig {
 		this.httpMessageCacheSize = httpMessageCacheSize;
 	}
 
+	@Override
+	public long getHttpMessageCoalescingTime() {
+		return this.httpMessageCoalescingTime;
+	}
+
+	public void setHttpMessageCoalescingTime(long httpMessageCoalescingTime) {
+		this.httpMessageCoalescingTime = httpMessageCoalescingTime;
+	}
+
 }